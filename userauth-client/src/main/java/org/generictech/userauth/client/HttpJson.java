@@ -0,0 +1,96 @@
+package org.generictech.userauth.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Conditional JSON GET against UserAuthService, with nothing beyond the JDK and Jackson so the client stays light.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+class HttpJson {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+	private static final Pattern MAX_AGE = Pattern.compile("max-age=(\\d+)");
+
+	private final int timeoutMillis;
+	private final String serviceKey;
+
+	HttpJson(int timeoutMillis) {
+		this(timeoutMillis, null);
+	}
+
+	/**
+	 * @param timeoutMillis connect and read timeout
+	 * @param serviceKey key sent with every request in the {@value TokenVerifier#SERVICE_KEY_HEADER} header, or null
+	 */
+	HttpJson(int timeoutMillis, String serviceKey) {
+		this.timeoutMillis = timeoutMillis;
+		this.serviceKey = serviceKey;
+	}
+
+	/**
+	 * @param url resource to fetch
+	 * @param etag entity tag of the copy already held, or null
+	 * @return Response with a null body if the held copy is still current
+	 * @throws IOException if the request fails or the service answers with an error
+	 */
+	Response get(URL url, String etag) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		try {
+			connection.setConnectTimeout(timeoutMillis);
+			connection.setReadTimeout(timeoutMillis);
+			connection.setRequestProperty("Accept", "application/json");
+			if (serviceKey != null) {
+				connection.setRequestProperty(TokenVerifier.SERVICE_KEY_HEADER, serviceKey);
+			}
+			if (etag != null) {
+				connection.setRequestProperty("If-None-Match", etag);
+			}
+			int status = connection.getResponseCode();
+			long maxAgeSeconds = maxAge(connection.getHeaderField("Cache-Control"));
+			if (status == HttpURLConnection.HTTP_NOT_MODIFIED) {
+				return new Response(null, etag, maxAgeSeconds);
+			}
+			if (status != HttpURLConnection.HTTP_OK) {
+				throw new IOException("GET " + url + " returned " + status);
+			}
+			try (InputStream in = connection.getInputStream()) {
+				return new Response(MAPPER.readTree(in), connection.getHeaderField("ETag"), maxAgeSeconds);
+			}
+		} finally {
+			connection.disconnect();
+		}
+	}
+
+	private static long maxAge(String cacheControl) {
+		if (cacheControl != null) {
+			Matcher matcher = MAX_AGE.matcher(cacheControl);
+			if (matcher.find()) {
+				return Long.parseLong(matcher.group(1));
+			}
+		}
+		return -1;
+	}
+
+	static class Response {
+
+		final JsonNode body;
+		final String etag;
+		/** max-age the service allows the response to be cached for, or -1 if it gave none. */
+		final long maxAgeSeconds;
+
+		Response(JsonNode body, String etag, long maxAgeSeconds) {
+			this.body = body;
+			this.etag = etag;
+			this.maxAgeSeconds = maxAgeSeconds;
+		}
+	}
+}
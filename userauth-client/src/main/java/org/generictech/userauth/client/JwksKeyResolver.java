@@ -0,0 +1,162 @@
+package org.generictech.userauth.client;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.URL;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Resolves token verification keys from the JSON Web Key Set UserAuthService publishes. Keys are held in memory and
+ * fetched again once the max-age the service sent has passed, with a conditional request so an unchanged set costs no
+ * parsing. A token naming a kid that is not held triggers a fetch straight away, so a newly published key is picked up
+ * without waiting, but such fetches are spaced at least the minimum refresh interval apart so tokens with made up kids
+ * cannot flood the service. If a fetch fails the keys already held are kept.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@Slf4j
+public class JwksKeyResolver implements JwtCodec.KeyResolver {
+
+	private static final ECParameterSpec P256 = p256();
+
+	private final URL url;
+	private final HttpJson http;
+	private final long minRefreshMillis;
+	private final long defaultMaxAgeMillis;
+	private final LongSupplier clock;
+	private final ReentrantLock refreshing = new ReentrantLock();
+	private volatile Map<String, Key> keys = Collections.emptyMap();
+	private volatile long expiresAt;
+	private volatile long lastFetch = Long.MIN_VALUE / 2;
+	private String etag;
+
+	/**
+	 * @param url JWKS endpoint of the service, {@code /.well-known/jwks.json}
+	 * @param minRefreshSeconds least time between fetches triggered by unknown kids
+	 * @param defaultMaxAgeSeconds how long keys are held when the service sends no max-age
+	 * @param timeoutMillis connect and read timeout
+	 */
+	public JwksKeyResolver(URL url, long minRefreshSeconds, long defaultMaxAgeSeconds, int timeoutMillis) {
+		this(url, minRefreshSeconds, defaultMaxAgeSeconds, new HttpJson(timeoutMillis), System::currentTimeMillis);
+	}
+
+	JwksKeyResolver(URL url, long minRefreshSeconds, long defaultMaxAgeSeconds, HttpJson http, LongSupplier clock) {
+		this.url = url;
+		this.http = http;
+		this.minRefreshMillis = TimeUnit.SECONDS.toMillis(minRefreshSeconds);
+		this.defaultMaxAgeMillis = TimeUnit.SECONDS.toMillis(defaultMaxAgeSeconds);
+		this.clock = clock;
+	}
+
+	/**
+	 * @param kid kid header of the token
+	 * @return Key EC public key to verify the token with, or null if the service does not publish the kid
+	 */
+	@Override
+	public Key resolve(String kid) {
+		if (kid == null) {
+			return null;
+		}
+		Key key = keys.get(kid);
+		long now = clock.getAsLong();
+		if (key != null) {
+			if (now >= expiresAt && refreshing.tryLock()) {
+				try {
+					if (now >= expiresAt) {
+						refresh(now);
+					}
+				} finally {
+					refreshing.unlock();
+				}
+				return keys.get(kid);
+			}
+			return key;
+		}
+		if (now - lastFetch < minRefreshMillis) {
+			return null;
+		}
+		refreshing.lock();
+		try {
+			if (!keys.containsKey(kid) && clock.getAsLong() - lastFetch >= minRefreshMillis) {
+				refresh(clock.getAsLong());
+			}
+		} finally {
+			refreshing.unlock();
+		}
+		return keys.get(kid);
+	}
+
+	private void refresh(long now) {
+		lastFetch = now;
+		try {
+			HttpJson.Response response = http.get(url, etag);
+			if (response.body != null) {
+				keys = parse(response.body);
+				etag = response.etag;
+				log.info("Loaded token verification keys " + keys.keySet() + " from " + url);
+			}
+			expiresAt = now + (response.maxAgeSeconds >= 0 ? TimeUnit.SECONDS.toMillis(response.maxAgeSeconds)
+					: defaultMaxAgeMillis);
+		} catch (IOException | RuntimeException e) {
+			expiresAt = now + minRefreshMillis;
+			log.warn("Keeping token verification keys " + keys.keySet() + ", fetching " + url + " failed: "
+					+ e.getMessage());
+		}
+	}
+
+	/**
+	 * Method to read the ES256 keys of a key set, skipping keys of any other kind.
+	 * @param jwks parsed JSON Web Key Set
+	 * @return Map of kid to public key
+	 * @since 1.1
+	 */
+	static Map<String, Key> parse(JsonNode jwks) {
+		Map<String, Key> parsed = new HashMap<>();
+		for (JsonNode jwk : jwks.path("keys")) {
+			if (!"EC".equals(jwk.path("kty").asText()) || !"P-256".equals(jwk.path("crv").asText())
+					|| !jwk.hasNonNull("kid")) {
+				continue;
+			}
+			try {
+				ECPoint point = new ECPoint(coordinate(jwk.path("x").asText()), coordinate(jwk.path("y").asText()));
+				parsed.put(jwk.get("kid").asText(), KeyFactory.getInstance("EC")
+						.generatePublic(new ECPublicKeySpec(point, P256)));
+			} catch (GeneralSecurityException | IllegalArgumentException e) {
+				log.warn("Skipping malformed token verification key " + jwk.path("kid").asText());
+			}
+		}
+		return Collections.unmodifiableMap(parsed);
+	}
+
+	private static BigInteger coordinate(String base64) {
+		return new BigInteger(1, Base64.getUrlDecoder().decode(base64));
+	}
+
+	private static ECParameterSpec p256() {
+		try {
+			AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+			parameters.init(new ECGenParameterSpec("secp256r1"));
+			return parameters.getParameterSpec(ECParameterSpec.class);
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
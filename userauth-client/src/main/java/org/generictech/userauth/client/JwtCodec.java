@@ -0,0 +1,816 @@
+package org.generictech.userauth.client;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.Signature;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.PrematureJwtException;
+import io.jsonwebtoken.SignatureException;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.impl.DefaultClaims;
+
+/**
+ * Purpose built HS512 and ES256 codec for the flat claim sets this service issues. Signing writes the header, the
+ * payload JSON, its Base64URL form and the signature straight into one reusable per-thread buffer, with the header
+ * segment for each kid encoded once, and signs with a per-thread {@link Mac} or {@link Signature} for each key.
+ * Verification checks the signature over the raw token before anything is parsed, so forged or tampered tokens cost
+ * one signature check and no JSON work.
+ * <p>
+ * The algorithm follows the key: secret keys sign HS512, EC P-256 private keys sign ES256. A token is only verified
+ * with a key of the kind its alg header names, so a public key can never be used as an HMAC secret.
+ * <p>
+ * Tokens are standard compact JWS and interchangeable with jjwt in both directions. Claims are read by a small parser
+ * for flat objects of strings, numbers and booleans, which is all this service puts in a token; anything else falls
+ * back to jjwt once the signature is known to be good.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public final class JwtCodec {
+
+	private static final String HMAC_ALGORITHM = "HS512";
+	private static final String HMAC_JCA_NAME = "HmacSHA512";
+	private static final String EC_ALGORITHM = "ES256";
+	private static final String EC_JCA_NAME = "SHA256withECDSA";
+	/** Both an HS512 MAC and an ES256 signature, as the JOSE R || S pair, are 64 bytes. */
+	private static final int SIGNATURE_LENGTH = 64;
+	private static final int EC_COORDINATE_LENGTH = 32;
+	private static final int MAX_HEADER_CACHE = 64;
+	private static final int MAX_THREAD_MACS = 16;
+	private static final byte[] ENCODE = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_"
+			.getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] DECODE = new byte[128];
+
+	static {
+		java.util.Arrays.fill(DECODE, (byte) -1);
+		for (int i = 0; i < ENCODE.length; i++) {
+			DECODE[ENCODE[i]] = (byte) i;
+		}
+	}
+
+	private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+	/** Encoded header segments for signing, by kid. */
+	private final Map<String, byte[]> hmacHeaders = new ConcurrentHashMap<>();
+	private final Map<String, byte[]> ecHeaders = new ConcurrentHashMap<>();
+	/** Header segments already seen on verified tokens. */
+	private final Map<String, Header> knownHeaders = new ConcurrentHashMap<>();
+
+	/**
+	 * Writes the claims of a token being signed.
+	 */
+	@FunctionalInterface
+	public interface ClaimWriter {
+		void write(JsonWriter out);
+	}
+
+	/**
+	 * Looks up the key a token claims to be signed with.
+	 */
+	@FunctionalInterface
+	public interface KeyResolver {
+		/**
+		 * @param kid kid header of the token, null if it has none
+		 * @return Key secret key or EC public key to verify with, or null if the kid is unknown
+		 */
+		Key resolve(String kid);
+	}
+
+	/**
+	 * Method to sign a token.
+	 * @param kid kid header naming the signing key
+	 * @param key secret key to sign HS512, or EC P-256 private key to sign ES256
+	 * @param claims writes the payload claims
+	 * @return String compact token
+	 * @throws IllegalArgumentException if the key is neither
+	 * @since 1.1
+	 */
+	public String sign(String kid, Key key, ClaimWriter claims) {
+		boolean ec = key instanceof ECPrivateKey;
+		if (!ec && !(key instanceof SecretKey)) {
+			throw new IllegalArgumentException("Unsupported token signing key " + key.getAlgorithm());
+		}
+		Buffers buffers = BUFFERS.get();
+		JsonWriter payload = buffers.payload;
+		payload.reset();
+		payload.begin();
+		claims.write(payload);
+		payload.end();
+
+		byte[] header = ec ? ecHeaders.computeIfAbsent(kid, k -> encodeHeader(EC_ALGORITHM, k))
+				: hmacHeaders.computeIfAbsent(kid, k -> encodeHeader(HMAC_ALGORITHM, k));
+		ByteSink out = buffers.token;
+		out.reset();
+		out.put(header, 0, header.length);
+		out.put((byte) '.');
+		encode(payload.bytes, 0, payload.length, out);
+
+		if (ec) {
+			try {
+				Signature signer = buffers.signature(key);
+				signer.update(out.bytes, 0, out.length);
+				derToJose(signer.sign(), buffers.signature);
+			} catch (GeneralSecurityException e) {
+				throw new IllegalStateException(e);
+			}
+		} else {
+			Mac mac = buffers.mac(key);
+			mac.update(out.bytes, 0, out.length);
+			try {
+				mac.doFinal(buffers.signature, 0);
+			} catch (ShortBufferException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+		out.put((byte) '.');
+		encode(buffers.signature, 0, SIGNATURE_LENGTH, out);
+		return new String(out.bytes, 0, out.length, StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * Method to verify a token and read its claims. The signature is checked before the payload is decoded; expiry
+	 * and not-before are checked after, as jjwt does.
+	 * @param jwt compact token
+	 * @param keys resolves the key named by the token's kid
+	 * @return Claims of the token
+	 * @throws MalformedJwtException if the token is not a compact JWS
+	 * @throws SignatureException if the signature does not match, or the key is unknown or not of the kind the alg
+	 * header names
+	 * @throws ExpiredJwtException if the token has expired
+	 * @since 1.1
+	 */
+	public Claims verify(String jwt, KeyResolver keys) {
+		int firstDot = jwt.indexOf('.');
+		int lastDot = jwt.lastIndexOf('.');
+		if (firstDot <= 0 || lastDot == firstDot || jwt.indexOf('.', firstDot + 1) != lastDot) {
+			throw new MalformedJwtException("JWT must have exactly 2 period characters");
+		}
+		String headerSegment = jwt.substring(0, firstDot);
+		Header header = knownHeaders.get(headerSegment);
+		boolean knownHeader = header != null;
+		if (!knownHeader) {
+			header = parseHeader(headerSegment);
+		}
+		Key key = keys.resolve(header.kid);
+		if (key == null) {
+			throw new SignatureException("Unknown token signing key " + header.kid);
+		}
+		if (header.ec ? !(key instanceof ECPublicKey) : !(key instanceof SecretKey)) {
+			throw new SignatureException("Token signing key " + header.kid + " cannot verify " + header.alg);
+		}
+
+		Buffers buffers = BUFFERS.get();
+		ByteSink signed = buffers.token;
+		signed.reset();
+		for (int i = 0; i < lastDot; i++) {
+			signed.put((byte) jwt.charAt(i));
+		}
+		ByteSink presented = buffers.decoded;
+		presented.reset();
+		if (!decode(jwt, lastDot + 1, jwt.length(), presented) || presented.length != SIGNATURE_LENGTH
+				|| !(header.ec ? verifyEc(buffers, key, signed, presented.bytes) : verifyHmac(buffers, key, signed
+						, presented))) {
+			throw new SignatureException("JWT signature does not match locally computed signature.");
+		}
+		if (!knownHeader && knownHeaders.size() < MAX_HEADER_CACHE) {
+			knownHeaders.put(headerSegment, header);
+		}
+
+		ByteSink payload = buffers.decoded;
+		payload.reset();
+		if (!decode(jwt, firstDot + 1, lastDot, payload)) {
+			throw new MalformedJwtException("Unable to decode JWT payload");
+		}
+		Map<String, Object> claims;
+		try {
+			claims = new FlatJsonReader(payload.bytes, payload.length).read();
+		} catch (UnsupportedOperationException e) {
+			return Jwts.parser().setSigningKeyResolver(new SigningKeyResolverAdapter() {
+				@Override
+				public Key resolveSigningKey(JwsHeader header, Claims claims) {
+					return key;
+				}
+			}).parseClaimsJws(jwt).getBody();
+		}
+		Claims result = new DefaultClaims(claims);
+		long now = System.currentTimeMillis();
+		if (result.getExpiration() != null && now > result.getExpiration().getTime()) {
+			throw new ExpiredJwtException(null, result, "JWT expired at " + result.getExpiration());
+		}
+		if (result.getNotBefore() != null && now < result.getNotBefore().getTime()) {
+			throw new PrematureJwtException(null, result, "JWT must not be accepted before " + result.getNotBefore());
+		}
+		return result;
+	}
+
+	private static boolean verifyHmac(Buffers buffers, Key key, ByteSink signed, ByteSink presented) {
+		Mac mac = buffers.mac(key);
+		mac.update(signed.bytes, 0, signed.length);
+		try {
+			mac.doFinal(buffers.signature, 0);
+		} catch (ShortBufferException e) {
+			throw new IllegalStateException(e);
+		}
+		return MessageDigest.isEqual(buffers.signature, presented.trimmed());
+	}
+
+	/**
+	 * Method to check an ES256 signature. R and S of zero are rejected up front, as some JDKs once accepted them for
+	 * any message.
+	 */
+	private static boolean verifyEc(Buffers buffers, Key key, ByteSink signed, byte[] jose) {
+		if (isZero(jose, 0) || isZero(jose, EC_COORDINATE_LENGTH)) {
+			return false;
+		}
+		try {
+			Signature verifier = buffers.signature(key);
+			verifier.update(signed.bytes, 0, signed.length);
+			return verifier.verify(joseToDer(jose));
+		} catch (GeneralSecurityException e) {
+			buffers.signatures.remove(key);
+			return false;
+		}
+	}
+
+	private static boolean isZero(byte[] jose, int from) {
+		for (int i = from; i < from + EC_COORDINATE_LENGTH; i++) {
+			if (jose[i] != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Method to convert the DER SEQUENCE of two INTEGERs the JCA produces into the fixed length R || S form JWS uses.
+	 */
+	private static void derToJose(byte[] der, byte[] jose) throws GeneralSecurityException {
+		if (der.length < 8 || der[0] != 0x30) {
+			throw new GeneralSecurityException("Malformed ECDSA signature");
+		}
+		int offset = (der[1] & 0xff) == 0x81 ? 3 : 2;
+		offset = copyInteger(der, offset, jose, 0);
+		copyInteger(der, offset, jose, EC_COORDINATE_LENGTH);
+	}
+
+	private static int copyInteger(byte[] der, int offset, byte[] jose, int at) throws GeneralSecurityException {
+		if (offset + 2 > der.length || der[offset] != 0x02) {
+			throw new GeneralSecurityException("Malformed ECDSA signature");
+		}
+		int length = der[offset + 1];
+		int start = offset + 2;
+		int end = start + length;
+		while (length > EC_COORDINATE_LENGTH && der[start] == 0) {
+			start++;
+			length--;
+		}
+		if (length > EC_COORDINATE_LENGTH || end > der.length) {
+			throw new GeneralSecurityException("Malformed ECDSA signature");
+		}
+		int pad = EC_COORDINATE_LENGTH - length;
+		java.util.Arrays.fill(jose, at, at + pad, (byte) 0);
+		System.arraycopy(der, start, jose, at + pad, length);
+		return end;
+	}
+
+	/**
+	 * Method to convert a JWS R || S signature into the DER form the JCA verifies.
+	 */
+	private static byte[] joseToDer(byte[] jose) {
+		int rLength = integerLength(jose, 0);
+		int sLength = integerLength(jose, EC_COORDINATE_LENGTH);
+		byte[] der = new byte[6 + rLength + sLength];
+		der[0] = 0x30;
+		der[1] = (byte) (4 + rLength + sLength);
+		int offset = writeInteger(jose, 0, rLength, der, 2);
+		writeInteger(jose, EC_COORDINATE_LENGTH, sLength, der, offset);
+		return der;
+	}
+
+	/**
+	 * DER length of a positive integer: leading zero bytes dropped, and one added back if the top bit is set.
+	 */
+	private static int integerLength(byte[] jose, int from) {
+		int start = from;
+		while (start < from + EC_COORDINATE_LENGTH - 1 && jose[start] == 0) {
+			start++;
+		}
+		return from + EC_COORDINATE_LENGTH - start + ((jose[start] & 0x80) != 0 ? 1 : 0);
+	}
+
+	private static int writeInteger(byte[] jose, int from, int length, byte[] der, int offset) {
+		der[offset] = 0x02;
+		der[offset + 1] = (byte) length;
+		int digits = Math.min(length, EC_COORDINATE_LENGTH);
+		System.arraycopy(jose, from + EC_COORDINATE_LENGTH - digits, der, offset + 2 + length - digits, digits);
+		return offset + 2 + length;
+	}
+
+	private static byte[] encodeHeader(String algorithm, String kid) {
+		JsonWriter header = new JsonWriter();
+		header.begin();
+		header.string("alg", algorithm);
+		if (kid != null) {
+			header.string("kid", kid);
+		}
+		header.end();
+		ByteSink out = new ByteSink(64);
+		encode(header.bytes, 0, header.length, out);
+		return out.trimmed();
+	}
+
+	/**
+	 * Method to read the alg and kid of a header segment that has not been seen before, rejecting anything but HS512
+	 * and ES256.
+	 */
+	private static Header parseHeader(String segment) {
+		ByteSink decoded = new ByteSink(64);
+		if (!decode(segment, 0, segment.length(), decoded)) {
+			throw new MalformedJwtException("Unable to decode JWT header");
+		}
+		Map<String, Object> header;
+		try {
+			header = new FlatJsonReader(decoded.bytes, decoded.length).read();
+		} catch (UnsupportedOperationException e) {
+			throw new UnsupportedJwtException("Unsupported JWT header");
+		}
+		Object alg = header.get(JwsHeader.ALGORITHM);
+		if (!HMAC_ALGORITHM.equals(alg) && !EC_ALGORITHM.equals(alg)) {
+			throw new UnsupportedJwtException("Unsupported JWT algorithm " + alg);
+		}
+		Object kid = header.get(JwsHeader.KEY_ID);
+		return new Header((String) alg, kid instanceof String ? (String) kid : null);
+	}
+
+	/**
+	 * The parts of a token header verification depends on.
+	 */
+	private static class Header {
+
+		private final String alg;
+		private final String kid;
+		private final boolean ec;
+
+		private Header(String alg, String kid) {
+			this.alg = alg;
+			this.kid = kid;
+			this.ec = EC_ALGORITHM.equals(alg);
+		}
+	}
+
+	private static void encode(byte[] src, int from, int to, ByteSink out) {
+		int i = from;
+		for (; i + 2 < to; i += 3) {
+			int bits = (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8 | (src[i + 2] & 0xff);
+			out.put(ENCODE[bits >>> 18]);
+			out.put(ENCODE[(bits >>> 12) & 0x3f]);
+			out.put(ENCODE[(bits >>> 6) & 0x3f]);
+			out.put(ENCODE[bits & 0x3f]);
+		}
+		if (to - i == 1) {
+			int bits = (src[i] & 0xff) << 16;
+			out.put(ENCODE[bits >>> 18]);
+			out.put(ENCODE[(bits >>> 12) & 0x3f]);
+		} else if (to - i == 2) {
+			int bits = (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8;
+			out.put(ENCODE[bits >>> 18]);
+			out.put(ENCODE[(bits >>> 12) & 0x3f]);
+			out.put(ENCODE[(bits >>> 6) & 0x3f]);
+		}
+	}
+
+	/**
+	 * Method to decode unpadded Base64URL, tolerating trailing padding.
+	 * @return boolean false if the input is not valid Base64URL
+	 */
+	private static boolean decode(String src, int from, int to, ByteSink out) {
+		while (to > from && src.charAt(to - 1) == '=') {
+			to--;
+		}
+		int bits = 0;
+		int count = 0;
+		for (int i = from; i < to; i++) {
+			char c = src.charAt(i);
+			int value = c < 128 ? DECODE[c] : -1;
+			if (value < 0) {
+				return false;
+			}
+			bits = bits << 6 | value;
+			if (++count == 4) {
+				out.put((byte) (bits >>> 16));
+				out.put((byte) (bits >>> 8));
+				out.put((byte) bits);
+				bits = 0;
+				count = 0;
+			}
+		}
+		if (count == 1) {
+			return false;
+		} else if (count == 2) {
+			out.put((byte) (bits >>> 4));
+		} else if (count == 3) {
+			out.put((byte) (bits >>> 10));
+			out.put((byte) (bits >>> 2));
+		}
+		return true;
+	}
+
+	/**
+	 * Growable byte buffer that is reset rather than reallocated between tokens.
+	 */
+	static class ByteSink {
+
+		byte[] bytes;
+		int length;
+
+		ByteSink(int capacity) {
+			bytes = new byte[capacity];
+		}
+
+		void reset() {
+			length = 0;
+		}
+
+		void put(byte b) {
+			if (length == bytes.length) {
+				bytes = java.util.Arrays.copyOf(bytes, bytes.length * 2);
+			}
+			bytes[length++] = b;
+		}
+
+		void put(byte[] src, int from, int count) {
+			if (length + count > bytes.length) {
+				bytes = java.util.Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + count));
+			}
+			System.arraycopy(src, from, bytes, length, count);
+			length += count;
+		}
+
+		byte[] trimmed() {
+			return java.util.Arrays.copyOf(bytes, length);
+		}
+	}
+
+	/**
+	 * Writes a flat JSON object as UTF-8 straight into a reusable buffer.
+	 */
+	public static class JsonWriter extends ByteSink {
+
+		private boolean first;
+
+		JsonWriter() {
+			super(256);
+		}
+
+		void begin() {
+			put((byte) '{');
+			first = true;
+		}
+
+		void end() {
+			put((byte) '}');
+		}
+
+		public JsonWriter string(String name, String value) {
+			if (value == null) {
+				return this;
+			}
+			name(name);
+			quoted(value);
+			return this;
+		}
+
+		public JsonWriter number(String name, long value) {
+			name(name);
+			if (value < 0) {
+				put((byte) '-');
+				value = -value;
+			}
+			int start = length;
+			do {
+				put((byte) ('0' + (value % 10)));
+				value /= 10;
+			} while (value > 0);
+			for (int i = start, j = length - 1; i < j; i++, j--) {
+				byte b = bytes[i];
+				bytes[i] = bytes[j];
+				bytes[j] = b;
+			}
+			return this;
+		}
+
+		public JsonWriter bool(String name, boolean value) {
+			name(name);
+			byte[] literal = value ? TRUE : FALSE;
+			put(literal, 0, literal.length);
+			return this;
+		}
+
+		private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+		private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+
+		private void name(String name) {
+			if (!first) {
+				put((byte) ',');
+			}
+			first = false;
+			quoted(name);
+			put((byte) ':');
+		}
+
+		private void quoted(String value) {
+			put((byte) '"');
+			for (int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				if (c == '"' || c == '\\') {
+					put((byte) '\\');
+					put((byte) c);
+				} else if (c < 0x20) {
+					put((byte) '\\');
+					put((byte) 'u');
+					put((byte) '0');
+					put((byte) '0');
+					put(ENCODE_HEX[c >> 4]);
+					put(ENCODE_HEX[c & 0xf]);
+				} else if (c < 0x80) {
+					put((byte) c);
+				} else if (c < 0x800) {
+					put((byte) (0xc0 | c >> 6));
+					put((byte) (0x80 | (c & 0x3f)));
+				} else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+						&& Character.isLowSurrogate(value.charAt(i + 1))) {
+					int cp = Character.toCodePoint(c, value.charAt(++i));
+					put((byte) (0xf0 | cp >> 18));
+					put((byte) (0x80 | ((cp >> 12) & 0x3f)));
+					put((byte) (0x80 | ((cp >> 6) & 0x3f)));
+					put((byte) (0x80 | (cp & 0x3f)));
+				} else {
+					put((byte) (0xe0 | c >> 12));
+					put((byte) (0x80 | ((c >> 6) & 0x3f)));
+					put((byte) (0x80 | (c & 0x3f)));
+				}
+			}
+			put((byte) '"');
+		}
+
+		private static final byte[] ENCODE_HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * Reads a flat JSON object of strings, numbers, booleans and nulls. Nested values throw
+	 * {@link UnsupportedOperationException} so the caller can fall back to a full parser.
+	 */
+	static class FlatJsonReader {
+
+		private final byte[] in;
+		private final int end;
+		private int pos;
+
+		FlatJsonReader(byte[] in, int length) {
+			this.in = in;
+			this.end = length;
+		}
+
+		Map<String, Object> read() {
+			Map<String, Object> values = new LinkedHashMap<>();
+			skipWhitespace();
+			expect('{');
+			skipWhitespace();
+			if (peek() == '}') {
+				pos++;
+				return finish(values);
+			}
+			while (true) {
+				skipWhitespace();
+				expect('"');
+				String name = string();
+				skipWhitespace();
+				expect(':');
+				skipWhitespace();
+				values.put(name, value());
+				skipWhitespace();
+				byte next = next();
+				if (next == '}') {
+					return finish(values);
+				} else if (next != ',') {
+					throw new MalformedJwtException("Malformed JWT JSON");
+				}
+			}
+		}
+
+		private Map<String, Object> finish(Map<String, Object> values) {
+			skipWhitespace();
+			if (pos != end) {
+				throw new MalformedJwtException("Malformed JWT JSON");
+			}
+			return values;
+		}
+
+		private Object value() {
+			byte b = peek();
+			if (b == '"') {
+				pos++;
+				return string();
+			} else if (b == '-' || (b >= '0' && b <= '9')) {
+				return number();
+			} else if (literal("true")) {
+				return Boolean.TRUE;
+			} else if (literal("false")) {
+				return Boolean.FALSE;
+			} else if (literal("null")) {
+				return null;
+			} else if (b == '{' || b == '[') {
+				throw new UnsupportedOperationException();
+			}
+			throw new MalformedJwtException("Malformed JWT JSON");
+		}
+
+		private Object number() {
+			int start = pos;
+			boolean integral = true;
+			if (peek() == '-') {
+				pos++;
+			}
+			while (pos < end) {
+				byte b = in[pos];
+				if (b >= '0' && b <= '9') {
+					pos++;
+				} else if (b == '.' || b == 'e' || b == 'E' || b == '+' || b == '-') {
+					integral = false;
+					pos++;
+				} else {
+					break;
+				}
+			}
+			String text = new String(in, start, pos - start, StandardCharsets.US_ASCII);
+			try {
+				if (!integral) {
+					return Double.valueOf(text);
+				}
+				long value = Long.parseLong(text);
+				return value == (int) value ? Integer.valueOf((int) value) : (Object) Long.valueOf(value);
+			} catch (NumberFormatException e) {
+				throw new MalformedJwtException("Malformed JWT JSON");
+			}
+		}
+
+		private String string() {
+			int start = pos;
+			while (pos < end && in[pos] != '"' && in[pos] != '\\') {
+				pos++;
+			}
+			if (pos < end && in[pos] == '"') {
+				return new String(in, start, pos++ - start, StandardCharsets.UTF_8);
+			}
+			StringBuilder out = new StringBuilder().append(new String(in, start, pos - start, StandardCharsets.UTF_8));
+			while (true) {
+				if (pos >= end) {
+					throw new MalformedJwtException("Malformed JWT JSON");
+				}
+				byte b = in[pos++];
+				if (b == '"') {
+					return out.toString();
+				} else if (b == '\\') {
+					byte escaped = next();
+					switch (escaped) {
+						case '"': out.append('"'); break;
+						case '\\': out.append('\\'); break;
+						case '/': out.append('/'); break;
+						case 'b': out.append('\b'); break;
+						case 'f': out.append('\f'); break;
+						case 'n': out.append('\n'); break;
+						case 'r': out.append('\r'); break;
+						case 't': out.append('\t'); break;
+						case 'u':
+							if (pos + 4 > end) {
+								throw new MalformedJwtException("Malformed JWT JSON");
+							}
+							try {
+								out.append((char) Integer.parseInt(new String(in, pos, 4, StandardCharsets.US_ASCII), 16));
+							} catch (NumberFormatException e) {
+								throw new MalformedJwtException("Malformed JWT JSON");
+							}
+							pos += 4;
+							break;
+						default:
+							throw new MalformedJwtException("Malformed JWT JSON");
+					}
+				} else {
+					int segment = pos - 1;
+					while (pos < end && in[pos] != '"' && in[pos] != '\\') {
+						pos++;
+					}
+					out.append(new String(in, segment, pos - segment, StandardCharsets.UTF_8));
+				}
+			}
+		}
+
+		private boolean literal(String word) {
+			if (pos + word.length() > end) {
+				return false;
+			}
+			for (int i = 0; i < word.length(); i++) {
+				if (in[pos + i] != word.charAt(i)) {
+					return false;
+				}
+			}
+			pos += word.length();
+			return true;
+		}
+
+		private void skipWhitespace() {
+			while (pos < end && (in[pos] == ' ' || in[pos] == '\t' || in[pos] == '\n' || in[pos] == '\r')) {
+				pos++;
+			}
+		}
+
+		private void expect(char c) {
+			if (next() != c) {
+				throw new MalformedJwtException("Malformed JWT JSON");
+			}
+		}
+
+		private byte peek() {
+			if (pos >= end) {
+				throw new MalformedJwtException("Malformed JWT JSON");
+			}
+			return in[pos];
+		}
+
+		private byte next() {
+			byte b = peek();
+			pos++;
+			return b;
+		}
+	}
+
+	/**
+	 * Per thread scratch space and {@link Mac} and {@link Signature} instances, so signing and verifying allocate
+	 * little beyond the result.
+	 */
+	private static class Buffers {
+
+		private final JsonWriter payload = new JsonWriter();
+		private final ByteSink token = new ByteSink(512);
+		private final ByteSink decoded = new ByteSink(512);
+		private final byte[] signature = new byte[SIGNATURE_LENGTH];
+		private final Map<Key, Mac> macs = new IdentityHashMap<>();
+		private final Map<Key, Signature> signatures = new IdentityHashMap<>();
+
+		/**
+		 * @return Signature initialized to sign with a private key or verify with a public key. Signing or verifying
+		 * leaves it ready for the next message with the same key.
+		 */
+		private Signature signature(Key key) throws GeneralSecurityException {
+			Signature signature = signatures.get(key);
+			if (signature == null) {
+				if (signatures.size() >= MAX_THREAD_MACS) {
+					signatures.clear();
+				}
+				signature = Signature.getInstance(EC_JCA_NAME);
+				if (key instanceof ECPrivateKey) {
+					signature.initSign((ECPrivateKey) key);
+				} else {
+					signature.initVerify((ECPublicKey) key);
+				}
+				signatures.put(key, signature);
+			}
+			return signature;
+		}
+
+		private Mac mac(Key key) {
+			Mac mac = macs.get(key);
+			if (mac == null) {
+				if (macs.size() >= MAX_THREAD_MACS) {
+					macs.clear();
+				}
+				try {
+					mac = Mac.getInstance(HMAC_JCA_NAME);
+					mac.init(new SecretKeySpec(key.getEncoded(), HMAC_JCA_NAME));
+				} catch (GeneralSecurityException e) {
+					throw new IllegalStateException(e);
+				}
+				macs.put(key, mac);
+			}
+			return mac;
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package org.generictech.userauth.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import io.jsonwebtoken.Claims;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Copy of the token revocations held by UserAuthService, fetched from its {@code /revocations} endpoint on a fixed
+ * interval so checking a token is a map lookup. A token is revoked if it was issued before its user's tokens were
+ * revoked, or if it was logged out on its own, the same rules the service applies. A revocation made on the service
+ * is seen here within one refresh interval. If a refresh fails the revocations already held are kept.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@Slf4j
+public class RevocationCache implements Closeable {
+
+	private final URL url;
+	private final HttpJson http;
+	private final long refreshSeconds;
+	private volatile Snapshot snapshot = new Snapshot(Collections.emptyMap(), Collections.emptyMap());
+	private ScheduledExecutorService refresher;
+
+	/**
+	 * @param url revocations endpoint of the service, {@code /revocations}
+	 * @param serviceKey one of the service's SERVICE_KEYS, sent in the {@value TokenVerifier#SERVICE_KEY_HEADER} header
+	 * @param refreshSeconds time between refreshes
+	 * @param timeoutMillis connect and read timeout
+	 */
+	public RevocationCache(URL url, String serviceKey, long refreshSeconds, int timeoutMillis) {
+		this(url, refreshSeconds, new HttpJson(timeoutMillis, serviceKey));
+	}
+
+	RevocationCache(URL url, long refreshSeconds, HttpJson http) {
+		this.url = url;
+		this.refreshSeconds = refreshSeconds;
+		this.http = http;
+	}
+
+	/**
+	 * Method to load the revocations and start refreshing them in the background.
+	 * @return RevocationCache this cache
+	 * @since 1.1
+	 */
+	public synchronized RevocationCache start() {
+		refresh();
+		if (refresher == null && refreshSeconds > 0) {
+			refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread t = new Thread(r, "token-revocation-refresher");
+				t.setDaemon(true);
+				return t;
+			});
+			refresher.scheduleWithFixedDelay(this::refresh, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+		}
+		return this;
+	}
+
+	@Override
+	public synchronized void close() {
+		if (refresher != null) {
+			refresher.shutdownNow();
+			refresher = null;
+		}
+	}
+
+	/**
+	 * Method to fetch the revocations now.
+	 * @since 1.1
+	 */
+	public void refresh() {
+		try {
+			snapshot = parse(http.get(url, null).body);
+		} catch (IOException | RuntimeException e) {
+			log.warn("Keeping token revocations, fetching " + url + " failed: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Method to check whether a verified token has been revoked.
+	 * @param claims verified claims of the token
+	 * @return boolean true if the token was logged out or issued before the user's tokens were revoked
+	 * @since 1.1
+	 */
+	public boolean isRevoked(Claims claims) {
+		Snapshot current = snapshot;
+		if (!current.users.isEmpty()) {
+			Long notBefore;
+			try {
+				notBefore = current.users.get(TokenClaims.userId(claims));
+			} catch (NumberFormatException e) {
+				notBefore = null;
+			}
+			if (notBefore != null) {
+				Date issuedAt = claims.getIssuedAt();
+				if (issuedAt == null || issuedAt.getTime() / 1000 < notBefore) {
+					return true;
+				}
+			}
+		}
+		String jti = claims.getId();
+		return jti != null && current.tokens.containsKey(jti);
+	}
+
+	static Snapshot parse(JsonNode list) {
+		Map<Integer, Long> users = new HashMap<>();
+		for (Iterator<Map.Entry<String, JsonNode>> it = list.path("users").fields(); it.hasNext();) {
+			Map.Entry<String, JsonNode> entry = it.next();
+			users.put(Integer.valueOf(entry.getKey()), entry.getValue().asLong());
+		}
+		Map<String, Long> tokens = new HashMap<>();
+		for (Iterator<Map.Entry<String, JsonNode>> it = list.path("tokens").fields(); it.hasNext();) {
+			Map.Entry<String, JsonNode> entry = it.next();
+			tokens.put(entry.getKey(), entry.getValue().asLong());
+		}
+		return new Snapshot(users, tokens);
+	}
+
+	void use(Snapshot snapshot) {
+		this.snapshot = snapshot;
+	}
+
+	/**
+	 * Immutable set of revocations, swapped in whole on every refresh.
+	 */
+	static class Snapshot {
+
+		private final Map<Integer, Long> users;
+		private final Map<String, Long> tokens;
+
+		Snapshot(Map<Integer, Long> users, Map<String, Long> tokens) {
+			this.users = users;
+			this.tokens = tokens;
+		}
+	}
+}
@@ -0,0 +1,17 @@
+package org.generictech.userauth.client;
+
+import io.jsonwebtoken.JwtException;
+
+/**
+ * Thrown when a token with a valid signature has been revoked by UserAuthService.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class RevokedTokenException extends JwtException {
+
+	private static final long serialVersionUID = 1L;
+
+	public RevokedTokenException(String message) {
+		super(message);
+	}
+}
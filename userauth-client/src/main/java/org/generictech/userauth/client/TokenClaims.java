@@ -0,0 +1,38 @@
+package org.generictech.userauth.client;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Claims UserAuthService puts in its tokens beyond the registered ones, read the same way by the service and by
+ * services verifying its tokens.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public final class TokenClaims {
+
+	/** Id of the user a token was issued to. */
+	public static final String USER_ID = "uid";
+	/** Email of the user, in stateless tokens only. */
+	public static final String EMAIL = "email";
+	/** Version of the user's data when the token was issued, in stateless tokens only. */
+	public static final String VERSION = "ver";
+
+	private TokenClaims() {
+	}
+
+	/**
+	 * Method to read the id of the user a token was issued to. Tokens issued before the {@value #USER_ID} claim
+	 * existed carry the user id as their jti.
+	 * @param claims verified claims
+	 * @return int user id
+	 * @throws NumberFormatException if the token names no user
+	 * @since 1.1
+	 */
+	public static int userId(Claims claims) {
+		Object uid = claims.get(USER_ID);
+		if (uid instanceof Number) {
+			return ((Number) uid).intValue();
+		}
+		return Integer.parseInt(claims.getId());
+	}
+}
@@ -0,0 +1,59 @@
+package org.generictech.userauth.client;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Servlet filter that authenticates requests by the UserAuthService token in their {@value #HEADER} header, as the
+ * service's own filter does, but verifies the token in process with a {@link TokenVerifier} instead of calling the
+ * service. A valid token makes its subject the authenticated principal and its claims available as the
+ * {@link #CLAIMS_ATTRIBUTE} request attribute. A missing, invalid or revoked token leaves the request
+ * unauthenticated for Spring Security to reject where authentication is required.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@Slf4j
+public class TokenVerificationFilter extends OncePerRequestFilter {
+
+	public static final String HEADER = "tokenId";
+	public static final String CLAIMS_ATTRIBUTE = TokenVerificationFilter.class.getName() + ".claims";
+
+	private final TokenVerifier verifier;
+
+	public TokenVerificationFilter(TokenVerifier verifier) {
+		this.verifier = verifier;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest req, HttpServletResponse res, FilterChain chain)
+			throws ServletException, IOException {
+		String token = req.getHeader(HEADER);
+		if (token != null) {
+			try {
+				Claims claims = verifier.verify(token);
+				String user = claims.getSubject();
+				if (user != null) {
+					req.setAttribute(CLAIMS_ATTRIBUTE, claims);
+					SecurityContextHolder.getContext().setAuthentication(
+							new UsernamePasswordAuthenticationToken(user, null, new ArrayList<>()));
+				}
+			} catch (JwtException e) {
+				log.debug("Rejected token: " + e.getMessage());
+			}
+		}
+		chain.doFilter(req, res);
+	}
+}
@@ -0,0 +1,138 @@
+package org.generictech.userauth.client;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.security.Key;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Verifies UserAuthService tokens in process: the signature against the keys the service publishes, expiry, and
+ * revocation against a local copy of the service's revocations. Tokens that have been verified are remembered until
+ * they expire, so a token presented again costs two map lookups; the revocation check is repeated every time.
+ * <p>
+ * Only ES256 tokens can be verified this way, since the service never publishes its HMAC secrets.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class TokenVerifier {
+
+	public static final String JWKS_PATH = "/.well-known/jwks.json";
+	public static final String REVOCATIONS_PATH = "/revocations";
+	public static final String SERVICE_KEY_HEADER = "serviceKey";
+
+	private final JwtCodec codec = new JwtCodec();
+	private final JwtCodec.KeyResolver keys;
+	private final RevocationCache revocations;
+	private final int maxCachedTokens;
+	private final Map<String, VerifiedToken> verified = new ConcurrentHashMap<>();
+
+	/**
+	 * @param keys resolves verification keys by kid
+	 * @param revocations revocations to reject tokens by, or null to skip the check
+	 * @param maxCachedTokens most verified tokens to remember, 0 to verify every time
+	 */
+	public TokenVerifier(JwtCodec.KeyResolver keys, RevocationCache revocations, int maxCachedTokens) {
+		this.keys = keys;
+		this.revocations = revocations;
+		this.maxCachedTokens = maxCachedTokens;
+	}
+
+	/**
+	 * Method to create a verifier for the service at the given address with the default settings: keys held for as
+	 * long as the service allows, revocations refreshed every 30 seconds, and up to 10000 verified tokens remembered.
+	 * @param baseUrl address of UserAuthService, such as {@code https://userauth.internal}
+	 * @param serviceKey one of the service's SERVICE_KEYS, which its revocations endpoint requires
+	 * @return TokenVerifier with its revocations loaded
+	 * @throws MalformedURLException if the address is not a URL
+	 * @since 1.1
+	 */
+	public static TokenVerifier forService(String baseUrl, String serviceKey) throws MalformedURLException {
+		String base = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+		return new TokenVerifier(new JwksKeyResolver(new URL(base + JWKS_PATH), 30, 300, 2000)
+				, new RevocationCache(new URL(base + REVOCATIONS_PATH), serviceKey, 30, 2000).start(), 10000);
+	}
+
+	/**
+	 * Method to verify a token and read its claims. The returned claims may be shared between callers and must not
+	 * be modified.
+	 * @param token raw token
+	 * @return Claims of the token
+	 * @throws io.jsonwebtoken.JwtException if the token is malformed, expired or not signed by a published key
+	 * @throws RevokedTokenException if the token has been revoked
+	 * @since 1.1
+	 */
+	public Claims verify(String token) {
+		Claims claims = verifySignature(token);
+		if (revocations != null && revocations.isRevoked(claims)) {
+			throw new RevokedTokenException("Token has been revoked");
+		}
+		return claims;
+	}
+
+	private Claims verifySignature(String token) {
+		long now = System.currentTimeMillis();
+		VerifiedToken cached = verified.get(token);
+		if (cached != null) {
+			if (now < cached.expiresAt && keys.resolve(cached.kid) == cached.key) {
+				return cached.claims;
+			}
+			verified.remove(token);
+		}
+
+		RecordingResolver resolver = new RecordingResolver();
+		Claims claims = codec.verify(token, resolver);
+		if (maxCachedTokens > 0) {
+			if (verified.size() >= maxCachedTokens) {
+				prune(now);
+			}
+			long expiresAt = claims.getExpiration() == null ? Long.MAX_VALUE : claims.getExpiration().getTime();
+			verified.put(token, new VerifiedToken(claims, resolver.kid, resolver.key, expiresAt));
+		}
+		return claims;
+	}
+
+	/**
+	 * Drops expired tokens, and everything if that does not make room, rather than tracking recency on every hit.
+	 */
+	private void prune(long now) {
+		verified.values().removeIf(token -> token.expiresAt <= now);
+		if (verified.size() >= maxCachedTokens) {
+			verified.clear();
+		}
+	}
+
+	/**
+	 * Resolves keys through the configured resolver and remembers which key it was, so a remembered token is dropped
+	 * once its key is no longer published.
+	 */
+	private class RecordingResolver implements JwtCodec.KeyResolver {
+
+		private String kid;
+		private Key key;
+
+		@Override
+		public Key resolve(String kid) {
+			this.kid = kid;
+			key = keys.resolve(kid);
+			return key;
+		}
+	}
+
+	private static class VerifiedToken {
+
+		private final Claims claims;
+		private final String kid;
+		private final Key key;
+		private final long expiresAt;
+
+		private VerifiedToken(Claims claims, String kid, Key key, long expiresAt) {
+			this.claims = claims;
+			this.kid = kid;
+			this.key = key;
+			this.expiresAt = expiresAt;
+		}
+	}
+}
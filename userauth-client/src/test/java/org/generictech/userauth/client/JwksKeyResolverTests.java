@@ -0,0 +1,157 @@
+package org.generictech.userauth.client;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.URL;
+import java.security.Key;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Test class for the JwksKeyResolver
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class JwksKeyResolverTests {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private URL url;
+	private HttpJson http;
+	private AtomicLong now;
+	private JwksKeyResolver resolver;
+	private ECPublicKey k1;
+	private JsonNode jwks;
+
+	@BeforeEach
+	public void setup() throws Exception {
+		url = new URL("http://userauth.test/.well-known/jwks.json");
+		http = mock(HttpJson.class);
+		now = new AtomicLong(1_600_000_000_000L);
+		resolver = new JwksKeyResolver(url, 30, 300, http, now::get);
+		k1 = ecPublicKey();
+		jwks = jwks("k1", k1);
+	}
+
+	private static ECPublicKey ecPublicKey() throws Exception {
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+		generator.initialize(new ECGenParameterSpec("secp256r1"));
+		return (ECPublicKey) generator.generateKeyPair().getPublic();
+	}
+
+	private static JsonNode jwks(String kid, ECPublicKey key) {
+		ObjectNode jwks = MAPPER.createObjectNode();
+		jwks.putArray("keys").addObject()
+				.put("kty", "EC")
+				.put("crv", "P-256")
+				.put("kid", kid)
+				.put("x", coordinate(key.getW().getAffineX()))
+				.put("y", coordinate(key.getW().getAffineY()));
+		return jwks;
+	}
+
+	private static String coordinate(BigInteger value) {
+		byte[] bytes = value.toByteArray();
+		byte[] fixed = new byte[32];
+		int length = Math.min(bytes.length, 32);
+		System.arraycopy(bytes, bytes.length - length, fixed, 32 - length, length);
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(fixed);
+	}
+
+	/**
+	 * Test to verify EC keys are read from a key set and other keys are skipped.
+	 */
+	@Test
+	public void parseTest() {
+		ObjectNode set = (ObjectNode) jwks.deepCopy();
+		set.withArray("keys").addObject().put("kty", "oct").put("kid", "h1").put("k", "c2VjcmV0");
+		Map<String, Key> keys = JwksKeyResolver.parse(set);
+
+		assertEquals(1, keys.size());
+		assertArrayEquals(k1.getEncoded(), keys.get("k1").getEncoded());
+	}
+
+	/**
+	 * Test to verify keys are held until the max-age the service sent, then revalidated with their ETag.
+	 */
+	@Test
+	public void cachesUntilMaxAgeTest() throws IOException {
+		when(http.get(url, null)).thenReturn(new HttpJson.Response(jwks, "\"e1\"", 60));
+		when(http.get(url, "\"e1\"")).thenReturn(new HttpJson.Response(null, "\"e1\"", 60));
+
+		Key key = resolver.resolve("k1");
+		assertArrayEquals(k1.getEncoded(), key.getEncoded());
+		now.addAndGet(59_000);
+		assertSame(key, resolver.resolve("k1"));
+		verify(http, times(1)).get(any(), any());
+
+		now.addAndGet(2_000);
+		assertSame(key, resolver.resolve("k1"));
+		verify(http).get(url, "\"e1\"");
+	}
+
+	/**
+	 * Test to verify an unknown kid triggers a fetch, but no more often than the minimum refresh interval.
+	 */
+	@Test
+	public void unknownKidTest() throws Exception {
+		ECPublicKey k2 = ecPublicKey();
+		when(http.get(url, null)).thenReturn(new HttpJson.Response(jwks, "\"e1\"", 300));
+		when(http.get(url, "\"e1\"")).thenReturn(new HttpJson.Response(jwks("k2", k2), "\"e2\"", 300));
+
+		resolver.resolve("k1");
+		assertNull(resolver.resolve("k2"));
+		verify(http, times(1)).get(any(), any());
+
+		now.addAndGet(30_000);
+		assertArrayEquals(k2.getEncoded(), resolver.resolve("k2").getEncoded());
+		assertNull(resolver.resolve("k1"));
+		verify(http, times(2)).get(any(), any());
+	}
+
+	/**
+	 * Test to verify the keys already held are kept when a refresh fails.
+	 */
+	@Test
+	public void failedRefreshKeepsKeysTest() throws IOException {
+		when(http.get(url, null)).thenReturn(new HttpJson.Response(jwks, "\"e1\"", 60));
+		when(http.get(url, "\"e1\"")).thenThrow(new IOException("connection refused"));
+
+		Key key = resolver.resolve("k1");
+		now.addAndGet(61_000);
+		assertSame(key, resolver.resolve("k1"));
+		assertSame(key, resolver.resolve("k1"));
+		verify(http, times(1)).get(url, "\"e1\"");
+	}
+
+	/**
+	 * Test to verify nothing is fetched for tokens without a kid.
+	 */
+	@Test
+	public void noKidTest() throws IOException {
+		assertNull(resolver.resolve(null));
+		verify(http, never()).get(any(), any());
+	}
+}
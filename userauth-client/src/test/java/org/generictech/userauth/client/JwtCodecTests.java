@@ -0,0 +1,194 @@
+package org.generictech.userauth.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.Test;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
+import io.jsonwebtoken.UnsupportedJwtException;
+
+/**
+ * Test class for the JwtCodec
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class JwtCodecTests {
+
+	private static final SecretKeySpec KEY = new SecretKeySpec("secret-a".getBytes(StandardCharsets.UTF_8), "HmacSHA512");
+	private static final String SUBJECT = "Téster \"quoted\"\n😀";
+	
+	private final JwtCodec codec = new JwtCodec();
+	
+	private String sign(long expSeconds) {
+		return codec.sign("k1", KEY, claims -> claims.string(Claims.ID, "1")
+				.number(Claims.ISSUED_AT, 1_600_000_000L)
+				.string(Claims.SUBJECT, SUBJECT)
+				.string(Claims.ISSUER, "org.generictech.Expenser")
+				.number(Claims.EXPIRATION, expSeconds));
+	}
+	
+	private static long inAnHour() {
+		return System.currentTimeMillis() / 1000 + 3600;
+	}
+	
+	/**
+	 * Test to verify jjwt accepts tokens signed by the codec.
+	 */
+	@Test
+	public void jjwtReadsCodecTokenTest() {
+		long exp = inAnHour();
+		Jws<Claims> jws = Jwts.parser().setSigningKey(KEY).parseClaimsJws(sign(exp));
+		
+		assertEquals("k1", jws.getHeader().getKeyId());
+		assertEquals("1", jws.getBody().getId());
+		assertEquals(SUBJECT, jws.getBody().getSubject());
+		assertEquals(new Date(1_600_000_000_000L), jws.getBody().getIssuedAt());
+		assertEquals(new Date(exp * 1000), jws.getBody().getExpiration());
+	}
+	
+	/**
+	 * Test to verify the codec accepts tokens signed by jjwt, with and without a kid.
+	 */
+	@Test
+	public void codecReadsJjwtTokenTest() {
+		Date exp = new Date((System.currentTimeMillis() / 1000 + 3600) * 1000);
+		String withKid = Jwts.builder().setHeaderParam("kid", "k1").setId("1").setSubject(SUBJECT)
+				.setIssuer("org.generictech.Expenser").setExpiration(exp).signWith(SignatureAlgorithm.HS512, KEY).compact();
+		String legacy = Jwts.builder().setId("2").setSubject("TTester").signWith(SignatureAlgorithm.HS512, KEY).compact();
+		
+		Claims claims = codec.verify(withKid, kid -> "k1".equals(kid) ? KEY : null);
+		assertEquals(SUBJECT, claims.getSubject());
+		assertEquals(exp, claims.getExpiration());
+		assertEquals("2", codec.verify(legacy, kid -> kid == null ? KEY : null).getId());
+	}
+	
+	/**
+	 * Test to verify claims the codec does not read itself are handed to jjwt once the signature is good.
+	 */
+	@Test
+	public void nestedClaimFallbackTest() {
+		String token = Jwts.builder().setId("1").claim("roles", Arrays.asList("a", "b"))
+				.signWith(SignatureAlgorithm.HS512, KEY).compact();
+		
+		assertEquals(Arrays.asList("a", "b"), codec.verify(token, kid -> KEY).get("roles"));
+	}
+	
+	/**
+	 * Test to verify a tampered payload is rejected by the signature check before it is parsed.
+	 */
+	@Test
+	public void tamperedTokenTest() {
+		String[] parts = sign(inAnHour()).split("\\.");
+		
+		assertThrows(SignatureException.class, () -> codec.verify(parts[0] + ".e30." + parts[2], kid -> KEY));
+		assertThrows(SignatureException.class, () -> codec.verify(parts[0] + ".not{json." + parts[2], kid -> KEY));
+		assertThrows(SignatureException.class, () -> codec.verify(parts[0] + "." + parts[1] + ".AAAA", kid -> KEY));
+	}
+	
+	/**
+	 * Test to verify unknown keys, expired tokens and unsigned tokens are rejected.
+	 */
+	@Test
+	public void rejectionTest() {
+		String token = sign(inAnHour());
+		String expired = sign(System.currentTimeMillis() / 1000 - 10);
+		String unsigned = Base64.getUrlEncoder().withoutPadding()
+				.encodeToString("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8)) + "." + token.split("\\.")[1] + ".";
+		
+		assertThrows(SignatureException.class, () -> codec.verify(token, kid -> null));
+		ExpiredJwtException e = assertThrows(ExpiredJwtException.class, () -> codec.verify(expired, kid -> KEY));
+		assertEquals("1", e.getClaims().getId());
+		assertThrows(UnsupportedJwtException.class, () -> codec.verify(unsigned, kid -> KEY));
+	}
+	
+	/**
+	 * Test to verify a token without an expiry does not get one.
+	 */
+	@Test
+	public void noExpiryTest() {
+		String token = codec.sign("k1", KEY, claims -> claims.string(Claims.ID, "1"));
+		
+		assertNull(codec.verify(token, kid -> KEY).getExpiration());
+	}
+	
+	private static KeyPair ecKeyPair() throws GeneralSecurityException {
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+		generator.initialize(new ECGenParameterSpec("secp256r1"));
+		return generator.generateKeyPair();
+	}
+	
+	/**
+	 * Test to verify ES256 tokens round trip through the codec and are interchangeable with jjwt in both directions.
+	 * Enough tokens are signed that some signatures have a short R or S.
+	 * @throws GeneralSecurityException
+	 */
+	@Test
+	public void es256RoundTripTest() throws GeneralSecurityException {
+		KeyPair pair = ecKeyPair();
+		long exp = inAnHour();
+		for (int i = 0; i < 500; i++) {
+			String token = codec.sign("e1", pair.getPrivate(), claims -> claims.string(Claims.SUBJECT, SUBJECT)
+					.number(Claims.EXPIRATION, exp));
+			assertEquals(SUBJECT, codec.verify(token, kid -> pair.getPublic()).getSubject());
+			if (i % 50 == 0) {
+				Jws<Claims> jws = Jwts.parser().setSigningKey(pair.getPublic()).parseClaimsJws(token);
+				assertEquals("ES256", jws.getHeader().getAlgorithm());
+				assertEquals("e1", jws.getHeader().getKeyId());
+			}
+		}
+		String jjwt = Jwts.builder().setHeaderParam("kid", "e1").setSubject(SUBJECT).setExpiration(new Date(exp * 1000))
+				.signWith(SignatureAlgorithm.ES256, pair.getPrivate()).compact();
+		assertEquals(SUBJECT, codec.verify(jjwt, kid -> pair.getPublic()).getSubject());
+	}
+	
+	/**
+	 * Test to verify tampered and all-zero ES256 signatures, and signatures by another key, are rejected.
+	 * @throws GeneralSecurityException
+	 */
+	@Test
+	public void es256RejectsBadSignatureTest() throws GeneralSecurityException {
+		KeyPair pair = ecKeyPair();
+		KeyPair other = ecKeyPair();
+		String token = codec.sign("e1", pair.getPrivate(), claims -> claims.string(Claims.SUBJECT, "TTester"));
+		String signingInput = token.substring(0, token.lastIndexOf('.') + 1);
+		String zero = signingInput + Base64.getUrlEncoder().withoutPadding().encodeToString(new byte[64]);
+		
+		assertThrows(SignatureException.class, () -> codec.verify(token, kid -> other.getPublic()));
+		assertThrows(SignatureException.class, () -> codec.verify(zero, kid -> pair.getPublic()));
+		assertThrows(SignatureException.class, () -> codec.verify(signingInput + "AAAA", kid -> pair.getPublic()));
+	}
+	
+	/**
+	 * Test to verify a token is only checked with a key of the kind its alg names, so an HS512 token signed with the
+	 * bytes of a public key is not accepted under that key's kid.
+	 * @throws GeneralSecurityException
+	 */
+	@Test
+	public void algorithmConfusionTest() throws GeneralSecurityException {
+		KeyPair pair = ecKeyPair();
+		SecretKeySpec publicAsSecret = new SecretKeySpec(pair.getPublic().getEncoded(), "HmacSHA512");
+		String forged = codec.sign("e1", publicAsSecret, claims -> claims.string(Claims.SUBJECT, "TTester"));
+		String es256 = codec.sign("e1", pair.getPrivate(), claims -> claims.string(Claims.SUBJECT, "TTester"));
+		
+		assertThrows(SignatureException.class, () -> codec.verify(forged, kid -> pair.getPublic()));
+		assertThrows(SignatureException.class, () -> codec.verify(es256, kid -> publicAsSecret));
+	}
+}
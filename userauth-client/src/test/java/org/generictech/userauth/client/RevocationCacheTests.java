@@ -0,0 +1,79 @@
+package org.generictech.userauth.client;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Date;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.impl.DefaultClaims;
+
+/**
+ * Test class for the RevocationCache
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class RevocationCacheTests {
+
+	private static final String LIST = "{\"asOf\":1600000500,\"users\":{\"7\":1600000100},"
+			+ "\"tokens\":{\"jti-1\":1600003600}}";
+
+	private HttpJson http;
+	private RevocationCache revocations;
+
+	@BeforeEach
+	public void setup() throws IOException {
+		http = mock(HttpJson.class);
+		revocations = new RevocationCache(new URL("http://userauth.test/revocations"), 0, http);
+		when(http.get(any(), any())).thenReturn(new HttpJson.Response(new ObjectMapper().readTree(LIST), null, -1));
+		revocations.start();
+	}
+
+	private static Claims claims(int userId, long issuedAtSeconds, String jti) {
+		Claims claims = new DefaultClaims();
+		claims.put(TokenClaims.USER_ID, userId);
+		claims.setIssuedAt(new Date(issuedAtSeconds * 1000));
+		claims.setId(jti);
+		return claims;
+	}
+
+	/**
+	 * Test to verify tokens issued before their user's tokens were revoked are revoked.
+	 */
+	@Test
+	public void userRevokedTest() {
+		assertTrue(revocations.isRevoked(claims(7, 1_600_000_099L, "a")));
+		assertFalse(revocations.isRevoked(claims(7, 1_600_000_100L, "b")));
+		assertFalse(revocations.isRevoked(claims(8, 1_600_000_099L, "c")));
+	}
+
+	/**
+	 * Test to verify a logged out token is revoked.
+	 */
+	@Test
+	public void tokenRevokedTest() {
+		assertTrue(revocations.isRevoked(claims(8, 1_600_000_200L, "jti-1")));
+		assertFalse(revocations.isRevoked(claims(8, 1_600_000_200L, "jti-2")));
+	}
+
+	/**
+	 * Test to verify the revocations already held are kept when a refresh fails.
+	 */
+	@Test
+	public void failedRefreshKeepsRevocationsTest() throws IOException {
+		when(http.get(any(), any())).thenThrow(new IOException("connection refused"));
+		revocations.refresh();
+
+		assertTrue(revocations.isRevoked(claims(8, 1_600_000_200L, "jti-1")));
+	}
+}
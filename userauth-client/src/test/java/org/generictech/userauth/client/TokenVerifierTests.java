@@ -0,0 +1,107 @@
+package org.generictech.userauth.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.URL;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+
+/**
+ * Test class for the TokenVerifier
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class TokenVerifierTests {
+
+	private final JwtCodec codec = new JwtCodec();
+	private final Map<String, Key> published = new HashMap<>();
+	private KeyPair pair;
+	private RevocationCache revocations;
+	private TokenVerifier verifier;
+
+	@BeforeEach
+	public void setup() throws Exception {
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+		generator.initialize(new ECGenParameterSpec("secp256r1"));
+		pair = generator.generateKeyPair();
+		published.put("e1", pair.getPublic());
+		revocations = new RevocationCache(new URL("http://userauth.test/revocations"), "service-key", 0, 2000);
+		verifier = new TokenVerifier(published::get, revocations, 100);
+	}
+
+	private String sign(String jti, long expSeconds) {
+		long now = System.currentTimeMillis() / 1000;
+		return codec.sign("e1", pair.getPrivate(), claims -> claims.string(Claims.ID, jti)
+				.number(TokenClaims.USER_ID, 7)
+				.number(Claims.ISSUED_AT, now)
+				.string(Claims.SUBJECT, "user7")
+				.number(Claims.EXPIRATION, expSeconds));
+	}
+
+	private static long inAnHour() {
+		return System.currentTimeMillis() / 1000 + 3600;
+	}
+
+	/**
+	 * Test to verify a valid token is verified once and then served from memory.
+	 */
+	@Test
+	public void verifyTest() {
+		String token = sign("a", inAnHour());
+		Claims claims = verifier.verify(token);
+
+		assertEquals("user7", claims.getSubject());
+		assertEquals(7, TokenClaims.userId(claims));
+		assertSame(claims, verifier.verify(token));
+	}
+
+	/**
+	 * Test to verify a remembered token is rejected once its key is no longer published.
+	 */
+	@Test
+	public void retiredKeyTest() {
+		String token = sign("a", inAnHour());
+		verifier.verify(token);
+		published.clear();
+
+		assertThrows(JwtException.class, () -> verifier.verify(token));
+	}
+
+	/**
+	 * Test to verify expired and tampered tokens are rejected.
+	 */
+	@Test
+	public void invalidTokenTest() {
+		assertThrows(ExpiredJwtException.class, () -> verifier.verify(sign("a", 1_600_000_000L)));
+		String token = sign("b", inAnHour());
+		String tampered = token.substring(0, token.length() - 4) + (token.endsWith("AAAA") ? "BBBB" : "AAAA");
+		assertThrows(JwtException.class, () -> verifier.verify(tampered));
+	}
+
+	/**
+	 * Test to verify a remembered token is rejected once it has been revoked.
+	 */
+	@Test
+	public void revokedTest() {
+		String token = sign("jti-1", inAnHour());
+		verifier.verify(token);
+		revocations.use(new RevocationCache.Snapshot(Collections.emptyMap()
+				, Collections.singletonMap("jti-1", inAnHour())));
+
+		assertThrows(RevokedTokenException.class, () -> verifier.verify(token));
+	}
+}
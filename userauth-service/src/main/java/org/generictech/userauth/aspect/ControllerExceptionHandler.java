@@ -9,9 +9,13 @@ import org.generictech.userauth.exception.CredentialsNotFoundException;
 import org.generictech.userauth.exception.ExceptionResponse;
 import org.generictech.userauth.exception.InsertFailedException;
 import org.generictech.userauth.exception.InvalidTokenException;
+import org.generictech.userauth.exception.ServerBusyException;
 import org.generictech.userauth.exception.SystemUserNotFoundException;
+import org.generictech.userauth.exception.TooManyRequestsException;
 import org.generictech.userauth.util.PasswordHashingUtility;
 import org.generictech.userauth.util.TokenUtility;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -29,6 +33,9 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class ControllerExceptionHandler {
 	
+	@Value("${hashing.retry-after-seconds:1}")
+	private int retryAfterSeconds;
+	
 	/**
 	 * Exception handler method for an InvalidTokenException. 
 	 * @param web WebRequest
@@ -98,5 +105,35 @@ public class ControllerExceptionHandler {
 		return new ResponseEntity<>(new ExceptionResponse(new Date()
 					, 500, e.getClass().getSimpleName() , e.getMessage()), HttpStatus.INTERNAL_SERVER_ERROR);
 	}
+	
+	/**
+	 * Exception handler method for {@link ServerBusyException}. Rejected work is answered straight away with a 503
+	 * and a Retry-After header so clients back off instead of piling onto a saturated worker pool.
+	 * @param e Exception
+	 * @return ResponseEntity<ExceptionResponse>
+	 * @since 1.1
+	 */
+	@ExceptionHandler(ServerBusyException.class)
+	public ResponseEntity<ExceptionResponse> serverBusy(Exception e) {
+		log.warn(e.getMessage());
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+				.body(new ExceptionResponse(new Date(), 503, e.getClass().getSimpleName(), e.getMessage()));
+	}
+	
+	/**
+	 * Exception handler method for {@link TooManyRequestsException}. The Retry-After header tells the client when
+	 * its allowance will have refilled.
+	 * @param e TooManyRequestsException
+	 * @return ResponseEntity<ExceptionResponse>
+	 * @since 1.1
+	 */
+	@ExceptionHandler(TooManyRequestsException.class)
+	public ResponseEntity<ExceptionResponse> tooManyRequests(TooManyRequestsException e) {
+		log.warn(e.getMessage());
+		return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+				.header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+				.body(new ExceptionResponse(new Date(), 429, e.getClass().getSimpleName(), e.getMessage()));
+	}
 
 }
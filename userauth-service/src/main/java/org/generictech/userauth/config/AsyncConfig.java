@@ -0,0 +1,42 @@
+package org.generictech.userauth.config;
+
+import java.util.concurrent.Executor;
+
+import org.generictech.userauth.exception.ServerBusyException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Configuration for the executor that finishes asynchronous authentication requests. Login and registration hand
+ * their password hashing to the {@link org.generictech.userauth.util.HashingExecutor} and release the servlet
+ * thread; once the hash is done the remaining work (issuing the token, persisting the user) runs here so hashing
+ * threads go straight back to hashing. How many of these requests can be in flight is bounded by the hashing queue,
+ * not by the Tomcat thread pool.
+ * <p>
+ * The queue is bounded too. Work it cannot accept is rejected with a {@link ServerBusyException}, the same 503 the
+ * hashing pool answers with: a future chained with {@code thenApplyAsync} fails with it, and {@code supplyAsync} or
+ * {@code runAsync} throw it to the caller.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@Configuration
+public class AsyncConfig {
+
+	@Bean(name = "authExecutor")
+	public Executor authExecutor(@Value("${auth.async.pool-size:4}") int poolSize
+			, @Value("${auth.async.queue-capacity:256}") int queueCapacity) {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(poolSize);
+		executor.setMaxPoolSize(poolSize);
+		executor.setQueueCapacity(queueCapacity);
+		executor.setRejectedExecutionHandler((task, pool) -> {
+			throw new ServerBusyException("Authentication queue is full");
+		});
+		executor.setThreadNamePrefix("auth-");
+		executor.setDaemon(true);
+		executor.initialize();
+		return executor;
+	}
+}
@@ -0,0 +1,56 @@
+package org.generictech.userauth.controller;
+
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Set;
+
+import org.generictech.userauth.dto.KdfCalibration;
+import org.generictech.userauth.util.KdfCalibrator;
+import org.generictech.userauth.util.SigningKeyManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controller class to handle HTTP requests for operational tasks on this instance. Every endpoint requires an admin
+ * key, see {@link org.generictech.userauth.security.ServiceKeys}.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+
+	@Autowired
+	private KdfCalibrator kdfCalibrator;
+	@Autowired
+	private SigningKeyManager keyManager;
+
+	/**
+	 * Method to handle HTTP request to re-run the password KDF calibration on this instance.
+	 * @return ResponseEntity<KdfCalibration>
+	 * @throws NoSuchAlgorithmException
+	 * @throws InvalidKeySpecException
+	 * @since 1.1
+	 */
+	@PostMapping("/kdf/calibrate")
+	public ResponseEntity<KdfCalibration> calibrate() throws NoSuchAlgorithmException, InvalidKeySpecException {
+		return new ResponseEntity<KdfCalibration>(kdfCalibrator.calibrate(), HttpStatus.OK);
+	}
+
+	/**
+	 * Method to handle HTTP request to re-read the token signing keys on this instance, rather than waiting for the
+	 * keys file to be picked up.
+	 * @return ResponseEntity<Set<String>> kids now accepted for verification
+	 * @throws IOException
+	 * @since 1.1
+	 */
+	@PostMapping("/keys/reload")
+	public ResponseEntity<Set<String>> reloadKeys() throws IOException {
+		return new ResponseEntity<Set<String>>(keyManager.reload(), HttpStatus.OK);
+	}
+}
@@ -0,0 +1,149 @@
+package org.generictech.userauth.controller;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.generictech.userauth.dto.CredentialsDTO;
+import org.generictech.userauth.dto.SessionTokens;
+import org.generictech.userauth.dto.SystemUserDTO;
+import org.generictech.userauth.dto.Token;
+import org.generictech.userauth.dto.TokenBatch;
+import org.generictech.userauth.dto.TokenValidation;
+import org.generictech.userauth.exception.BadParameterException;
+import org.generictech.userauth.exception.CredentialsNotFoundException;
+import org.generictech.userauth.exception.InvalidTokenException;
+import org.generictech.userauth.exception.SystemUserNotFoundException;
+import org.generictech.userauth.security.AuthenticatedUser;
+import org.generictech.userauth.security.LoginRateLimiter;
+import org.generictech.userauth.service.AuthService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Controller class to handle HTTP requests pertaining to authentication. 
+ * @author Jaden Wilson
+ * @since 1.0
+ */
+@RestController
+@Slf4j
+public class AuthController {
+
+	@Autowired
+	private AuthService authService;
+	@Autowired
+	private LoginRateLimiter rateLimiter;
+	
+	/**
+	 * Method to handle HTTP request to login to the application. Checks credentials with the AuthService, and returns minimal user data and
+	 * a JWT token in the header. The request thread is released while the password is verified. Attempts over the
+	 * rate limit are rejected before the user is looked up.
+	 * @param creds
+	 * @param req
+	 * @return CompletableFuture<ResponseEntity<SystemUserDTO>> 
+	 * @throws CredentialsNotFoundException 
+	 * @throws SystemUserNotFoundException 
+	 * @since 1.0
+	 */
+	@PostMapping("/login")
+	public CompletableFuture<ResponseEntity<SystemUserDTO>> login(@RequestBody CredentialsDTO creds, HttpServletRequest req) 
+			throws SystemUserNotFoundException, CredentialsNotFoundException {
+		rateLimiter.acquire(creds.getUsername(), req);
+		return authService.loginAsync(creds).thenApply(user -> {
+			if (user != null) {
+				SessionTokens tokens = authService.issueTokens(user);
+				log.info("User " + user.getUsername() + " succesfully logged in");
+				return ResponseEntity.status(HttpStatus.OK).header("tokenId", tokens.getAccessToken())
+						.header("refreshToken", tokens.getRefreshToken()).body(user);				
+			} else {
+				return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+			}
+		});
+	}
+	
+	/**
+	 * Method to validate JWT tokens to authenticate users
+	 * @param token
+	 * @return ResponseEntity<SystemUserDTO>
+	 * @throws BadParameterException 
+	 * @throws InvalidTokenException 
+	 * @throws SystemUserNotFoundException 
+	 * @throws NumberFormatException 
+	 * @since 1.0
+	 */
+	@PostMapping("/validate")
+	public ResponseEntity<SystemUserDTO> validateToken(@RequestBody Token token) 
+			throws NumberFormatException, SystemUserNotFoundException, InvalidTokenException, BadParameterException {
+		return new ResponseEntity<SystemUserDTO>(authService.validateToken(token.getToken()), HttpStatus.OK);
+	}
+	
+	/**
+	 * Method to exchange a refresh token for a new access token and refresh token without logging in again
+	 * @param token
+	 * @return ResponseEntity<SystemUserDTO>
+	 * @throws InvalidTokenException 
+	 * @throws BadParameterException 
+	 * @since 1.1
+	 */
+	@PostMapping("/token/refresh")
+	public ResponseEntity<SystemUserDTO> refresh(@RequestBody Token token) 
+			throws InvalidTokenException, BadParameterException {
+		SessionTokens tokens = authService.refresh(token.getToken());
+		return ResponseEntity.status(HttpStatus.OK).header("tokenId", tokens.getAccessToken())
+				.header("refreshToken", tokens.getRefreshToken()).body(tokens.getUser());
+	}
+	
+	/**
+	 * Method to log out the token the request was made with. The token is rejected from then on, and so is the
+	 * refresh token of the same login if it is sent in the body.
+	 * @param user
+	 * @param refreshToken
+	 * @return ResponseEntity<Void>
+	 * @throws InvalidTokenException 
+	 * @since 1.1
+	 */
+	@PostMapping("/logout")
+	public ResponseEntity<Void> logout(@AuthenticationPrincipal AuthenticatedUser user
+			, @RequestBody(required = false) Token refreshToken) throws InvalidTokenException {
+		authService.logout(user, refreshToken == null ? null : refreshToken.getToken());
+		return new ResponseEntity<Void>(HttpStatus.NO_CONTENT);
+	}
+	
+	/**
+	 * Method to revoke every token issued so far to the user the request was made by, on every device.
+	 * @param user
+	 * @return ResponseEntity<Void>
+	 * @throws InvalidTokenException 
+	 * @since 1.1
+	 */
+	@PostMapping("/logout/all")
+	public ResponseEntity<Void> logoutAll(@AuthenticationPrincipal AuthenticatedUser user) 
+			throws InvalidTokenException {
+		authService.revokeAll(user);
+		return new ResponseEntity<Void>(HttpStatus.NO_CONTENT);
+	}
+	
+	/**
+	 * Method to validate a batch of JWT tokens in one request. Each token gets its own result, so one bad token does
+	 * not fail the others.
+	 * @param batch
+	 * @return CompletableFuture<ResponseEntity<List<TokenValidation>>>
+	 * @throws BadParameterException 
+	 * @since 1.1
+	 */
+	@PostMapping("/validate/batch")
+	public CompletableFuture<ResponseEntity<List<TokenValidation>>> validateTokens(@RequestBody TokenBatch batch) 
+			throws BadParameterException {
+		return authService.validateTokens(batch.getTokens())
+				.thenApply(results -> new ResponseEntity<List<TokenValidation>>(results, HttpStatus.OK));
+	}
+
+}
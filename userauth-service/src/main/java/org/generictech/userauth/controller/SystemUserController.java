@@ -2,6 +2,7 @@ package org.generictech.userauth.controller;
 
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
+import java.util.concurrent.CompletableFuture;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -9,14 +10,16 @@ import org.generictech.userauth.dto.SystemUserDataDTO;
 import org.generictech.userauth.dto.SystemUserParams;
 import org.generictech.userauth.exception.BadParameterException;
 import org.generictech.userauth.exception.CredentialsNotFoundException;
-import org.generictech.userauth.exception.InsertFailedException;
+import org.generictech.userauth.exception.InvalidTokenException;
 import org.generictech.userauth.exception.SystemUserNotFoundException;
 import org.generictech.userauth.model.SystemUser;
+import org.generictech.userauth.security.AuthenticatedUser;
+import org.generictech.userauth.security.LoginRateLimiter;
 import org.generictech.userauth.service.SystemUserService;
-import org.generictech.userauth.util.TokenUtility;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -26,8 +29,6 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import io.jsonwebtoken.Claims;
-
 /**
  * Class to handle HTTP requests pertaining to system users. 
  * @author Jaden Wilson
@@ -40,42 +41,46 @@ public class SystemUserController {
 	@Autowired
 	private SystemUserService systemUserService;
 	@Autowired
-	private TokenUtility tokenUtility;
+	private LoginRateLimiter rateLimiter;
 	
 	/**
 	 * Method to handle HTTP requests to GET users by specific criteria. This method calls the findByCriteria 
-	 * method of the {@link SystemUserService} class
+	 * method of the {@link SystemUserService} class, for the user the request was authenticated as
 	 * @param params
+	 * @param req
+	 * @param user
 	 * @return ResponseEntity<SystemUser>
 	 * @throws BadParameterException 
 	 * @throws NumberFormatException 
 	 * @throws SystemUserNotFoundException 
+	 * @throws InvalidTokenException if the request was not authenticated
 	 * @since 1.0
 	 */
 	@GetMapping("")
-	public ResponseEntity<SystemUser> findByCriteria(SystemUserParams params, HttpServletRequest req) 
-			throws NumberFormatException, BadParameterException, SystemUserNotFoundException {
-		Claims claims = tokenUtility.decodeJWT(req.getHeader("tokenId"));
+	public ResponseEntity<SystemUser> findByCriteria(SystemUserParams params, HttpServletRequest req
+			, @AuthenticationPrincipal AuthenticatedUser user) 
+			throws NumberFormatException, BadParameterException, SystemUserNotFoundException, InvalidTokenException {
+		if (user == null) {
+			throw new InvalidTokenException("Request was not authenticated with a valid token");
+		}
 		if (req.getQueryString() != null && params.empty()) {
 			throw new BadParameterException();
 		}
-		return new ResponseEntity<SystemUser>(systemUserService.findByCriteria(params, Integer.valueOf(claims.getId())), HttpStatus.OK);
+		return new ResponseEntity<SystemUser>(systemUserService.findByCriteria(params, user.getUserId()), HttpStatus.OK);
 	}
 	
 	/**
-	 * Method to handle HTTP request to POST a new user to the database. 
+	 * Method to handle HTTP request to POST a new user to the database. The request thread is released while the
+	 * password is hashed. Attempts over the rate limit are rejected before any hashing.
 	 * @param userData mapped JSON data for the user
-	 * @return ResponseEntity<SystemUser>
-	 * @throws InsertFailedException 
-	 * @throws InvalidKeySpecException 
-	 * @throws NoSuchAlgorithmException 
-	 * @throws Exception 
+	 * @param req
+	 * @return CompletableFuture<ResponseEntity<SystemUser>>
 	 * @since 1.0
 	 */
 	@PostMapping("")
-	public ResponseEntity<SystemUser> save(@RequestBody SystemUserDataDTO userData) 
-			throws NoSuchAlgorithmException, InvalidKeySpecException, InsertFailedException {
-		return new ResponseEntity<SystemUser>(systemUserService.save(userData), HttpStatus.CREATED);
+	public CompletableFuture<ResponseEntity<SystemUser>> save(@RequestBody SystemUserDataDTO userData, HttpServletRequest req) {
+		rateLimiter.acquire(userData.getUsername(), req);
+		return systemUserService.saveAsync(userData).thenApply(u -> new ResponseEntity<SystemUser>(u, HttpStatus.CREATED));
 	}
 	
 	/**
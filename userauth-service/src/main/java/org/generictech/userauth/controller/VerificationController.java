@@ -0,0 +1,58 @@
+package org.generictech.userauth.controller;
+
+import java.util.concurrent.TimeUnit;
+
+import org.generictech.userauth.dto.JsonWebKeySet;
+import org.generictech.userauth.dto.RevocationList;
+import org.generictech.userauth.security.TokenRevocations;
+import org.generictech.userauth.util.SigningKeyManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controller class to publish what other services need to verify tokens locally: the public keys tokens are signed
+ * with and the tokens revoked before their expiry. They only need to call this service for fresh user data.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@RestController
+public class VerificationController {
+
+	@Autowired
+	private SigningKeyManager keyManager;
+	@Autowired
+	private TokenRevocations revocations;
+	@Value("${token.jwks.max-age-seconds:300}")
+	private long maxAgeSeconds = 300;
+
+	/**
+	 * Method to handle HTTP request for the JSON Web Key Set. The response may be cached for the configured max age,
+	 * and a request carrying the current entity tag gets a 304 without a body.
+	 * @return ResponseEntity<JsonWebKeySet>
+	 * @since 1.1
+	 */
+	@GetMapping("/.well-known/jwks.json")
+	public ResponseEntity<JsonWebKeySet> jwks() {
+		SigningKeyManager.KeySet keys = keyManager.current();
+		return ResponseEntity.ok()
+				.cacheControl(CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).cachePublic())
+				.eTag(keys.getJwksTag())
+				.body(keys.getJwks());
+	}
+	
+	/**
+	 * Method to handle HTTP request for the revocations that can still apply to an unexpired token. Requires a service
+	 * key, see {@link org.generictech.userauth.security.ServiceKeys}.
+	 * @return ResponseEntity<RevocationList>
+	 * @since 1.1
+	 */
+	@GetMapping("/revocations")
+	public ResponseEntity<RevocationList> revocations() {
+		return new ResponseEntity<RevocationList>(revocations.snapshot(), HttpStatus.OK);
+	}
+}
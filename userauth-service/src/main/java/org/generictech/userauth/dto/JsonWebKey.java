@@ -0,0 +1,124 @@
+package org.generictech.userauth.dto;
+
+import java.math.BigInteger;
+import java.security.interfaces.ECPublicKey;
+import java.util.Base64;
+
+/**
+ * DTO class to hold one public token verification key in JSON Web Key form (RFC 7517), as published in the
+ * {@link JsonWebKeySet}.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class JsonWebKey {
+
+	private static final int P256_COORDINATE_LENGTH = 32;
+
+	private String kty;
+	private String crv;
+	private String kid;
+	private String use;
+	private String alg;
+	private String x;
+	private String y;
+	
+	public JsonWebKey() {
+		super();
+	}
+
+	public JsonWebKey(String kty, String crv, String kid, String use, String alg, String x, String y) {
+		super();
+		this.kty = kty;
+		this.crv = crv;
+		this.kid = kid;
+		this.use = use;
+		this.alg = alg;
+		this.x = x;
+		this.y = y;
+	}
+	
+	/**
+	 * Method to describe an EC P-256 public key that verifies ES256 tokens.
+	 * @param kid kid header of the tokens the key verifies
+	 * @param key public key
+	 * @return JsonWebKey
+	 * @since 1.1
+	 */
+	public static JsonWebKey es256(String kid, ECPublicKey key) {
+		return new JsonWebKey("EC", "P-256", kid, "sig", "ES256", coordinate(key.getW().getAffineX())
+				, coordinate(key.getW().getAffineY()));
+	}
+	
+	/**
+	 * Coordinates are unsigned, big endian and padded to the full field length.
+	 */
+	private static String coordinate(BigInteger value) {
+		byte[] bytes = value.toByteArray();
+		byte[] padded = new byte[P256_COORDINATE_LENGTH];
+		int length = Math.min(bytes.length, P256_COORDINATE_LENGTH);
+		System.arraycopy(bytes, bytes.length - length, padded, P256_COORDINATE_LENGTH - length, length);
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(padded);
+	}
+
+	public String getKty() {
+		return kty;
+	}
+
+	public void setKty(String kty) {
+		this.kty = kty;
+	}
+
+	public String getCrv() {
+		return crv;
+	}
+
+	public void setCrv(String crv) {
+		this.crv = crv;
+	}
+
+	public String getKid() {
+		return kid;
+	}
+
+	public void setKid(String kid) {
+		this.kid = kid;
+	}
+
+	public String getUse() {
+		return use;
+	}
+
+	public void setUse(String use) {
+		this.use = use;
+	}
+
+	public String getAlg() {
+		return alg;
+	}
+
+	public void setAlg(String alg) {
+		this.alg = alg;
+	}
+
+	public String getX() {
+		return x;
+	}
+
+	public void setX(String x) {
+		this.x = x;
+	}
+
+	public String getY() {
+		return y;
+	}
+
+	public void setY(String y) {
+		this.y = y;
+	}
+
+	@Override
+	public String toString() {
+		return "JsonWebKey [kty=" + kty + ", crv=" + crv + ", kid=" + kid + ", alg=" + alg + "]";
+	}
+	
+}
@@ -0,0 +1,37 @@
+package org.generictech.userauth.dto;
+
+import java.util.List;
+
+/**
+ * DTO class to hold the public keys tokens can be verified with, in JSON Web Key Set form (RFC 7517), so other
+ * services can verify tokens without calling this one.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class JsonWebKeySet {
+
+	private List<JsonWebKey> keys;
+	
+	public JsonWebKeySet() {
+		super();
+	}
+
+	public JsonWebKeySet(List<JsonWebKey> keys) {
+		super();
+		this.keys = keys;
+	}
+
+	public List<JsonWebKey> getKeys() {
+		return keys;
+	}
+
+	public void setKeys(List<JsonWebKey> keys) {
+		this.keys = keys;
+	}
+
+	@Override
+	public String toString() {
+		return "JsonWebKeySet [keys=" + keys + "]";
+	}
+	
+}
@@ -0,0 +1,21 @@
+package org.generictech.userauth.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO class to hold the outcome of a password KDF calibration run.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KdfCalibration {
+
+	private int previousIterations;
+	private int iterations;
+	private long targetMillis;
+	private long expectedMillis;
+}
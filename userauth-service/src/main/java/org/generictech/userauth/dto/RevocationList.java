@@ -0,0 +1,58 @@
+package org.generictech.userauth.dto;
+
+import java.util.Map;
+
+/**
+ * DTO class to hold every revocation that can still apply to an unexpired token, so other services can reject
+ * revoked tokens they verify locally: per user, the epoch second before which the user's tokens are revoked, and per
+ * logged out token, its jti and the epoch second it expires at.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class RevocationList {
+
+	private long asOf;
+	private Map<Integer, Long> users;
+	private Map<String, Long> tokens;
+	
+	public RevocationList() {
+		super();
+	}
+
+	public RevocationList(long asOf, Map<Integer, Long> users, Map<String, Long> tokens) {
+		super();
+		this.asOf = asOf;
+		this.users = users;
+		this.tokens = tokens;
+	}
+
+	public long getAsOf() {
+		return asOf;
+	}
+
+	public void setAsOf(long asOf) {
+		this.asOf = asOf;
+	}
+
+	public Map<Integer, Long> getUsers() {
+		return users;
+	}
+
+	public void setUsers(Map<Integer, Long> users) {
+		this.users = users;
+	}
+
+	public Map<String, Long> getTokens() {
+		return tokens;
+	}
+
+	public void setTokens(Map<String, Long> tokens) {
+		this.tokens = tokens;
+	}
+
+	@Override
+	public String toString() {
+		return "RevocationList [asOf=" + asOf + ", users=" + users.size() + ", tokens=" + tokens.size() + "]";
+	}
+	
+}
@@ -0,0 +1,54 @@
+package org.generictech.userauth.dto;
+
+/**
+ * DTO class to hold the tokens issued on login or refresh along with the minimal user data returned to the client.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class SessionTokens {
+
+	private String accessToken;
+	private String refreshToken;
+	private SystemUserDTO user;
+	
+	public SessionTokens() {
+		super();
+	}
+
+	public SessionTokens(String accessToken, String refreshToken, SystemUserDTO user) {
+		super();
+		this.accessToken = accessToken;
+		this.refreshToken = refreshToken;
+		this.user = user;
+	}
+
+	public String getAccessToken() {
+		return accessToken;
+	}
+
+	public void setAccessToken(String accessToken) {
+		this.accessToken = accessToken;
+	}
+
+	public String getRefreshToken() {
+		return refreshToken;
+	}
+
+	public void setRefreshToken(String refreshToken) {
+		this.refreshToken = refreshToken;
+	}
+
+	public SystemUserDTO getUser() {
+		return user;
+	}
+
+	public void setUser(SystemUserDTO user) {
+		this.user = user;
+	}
+
+	@Override
+	public String toString() {
+		return "SessionTokens [user=" + user + "]";
+	}
+	
+}
@@ -0,0 +1,31 @@
+package org.generictech.userauth.dto;
+
+import java.util.List;
+
+/**
+ * DTO class to hold a batch of incoming tokens to validate at once
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class TokenBatch {
+
+	private List<String> tokens;
+
+	public TokenBatch() {
+		super();
+	}
+
+	public TokenBatch(List<String> tokens) {
+		super();
+		this.tokens = tokens;
+	}
+
+	public List<String> getTokens() {
+		return tokens;
+	}
+
+	public void setTokens(List<String> tokens) {
+		this.tokens = tokens;
+	}
+	
+}
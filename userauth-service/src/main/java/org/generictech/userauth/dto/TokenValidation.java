@@ -0,0 +1,73 @@
+package org.generictech.userauth.dto;
+
+/**
+ * DTO class to hold the outcome of validating one token of a {@link TokenBatch}. Valid tokens carry the minimal user
+ * data; invalid ones carry the name of the exception the single token endpoint would have returned and its message.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class TokenValidation {
+
+	private boolean valid;
+	private SystemUserDTO user;
+	private String error;
+	private String message;
+	
+	public TokenValidation() {
+		super();
+	}
+
+	public TokenValidation(boolean valid, SystemUserDTO user, String error, String message) {
+		super();
+		this.valid = valid;
+		this.user = user;
+		this.error = error;
+		this.message = message;
+	}
+	
+	public static TokenValidation valid(SystemUserDTO user) {
+		return new TokenValidation(true, user, null, null);
+	}
+	
+	public static TokenValidation invalid(Exception e) {
+		return new TokenValidation(false, null, e.getClass().getSimpleName(), e.getMessage());
+	}
+
+	public boolean isValid() {
+		return valid;
+	}
+
+	public void setValid(boolean valid) {
+		this.valid = valid;
+	}
+
+	public SystemUserDTO getUser() {
+		return user;
+	}
+
+	public void setUser(SystemUserDTO user) {
+		this.user = user;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	public void setError(String error) {
+		this.error = error;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public void setMessage(String message) {
+		this.message = message;
+	}
+
+	@Override
+	public String toString() {
+		return "TokenValidation [valid=" + valid + ", user=" + user + ", error=" + error + ", message=" + message + "]";
+	}
+	
+}
@@ -0,0 +1,20 @@
+package org.generictech.userauth.exception;
+
+/**
+ * Exception for when a bounded worker pool cannot accept any more work. Unchecked so it can pass through
+ * the existing service signatures untouched; the {@link org.generictech.userauth.aspect.ControllerExceptionHandler}
+ * turns it into a 503 with a Retry-After header.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@SuppressWarnings("serial")
+public class ServerBusyException extends RuntimeException {
+
+	public ServerBusyException() {
+		super("Server is busy, try again later");
+	}
+
+	public ServerBusyException(String message) {
+		super(message);
+	}
+}
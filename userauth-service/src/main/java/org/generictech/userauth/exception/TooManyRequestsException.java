@@ -0,0 +1,23 @@
+package org.generictech.userauth.exception;
+
+/**
+ * Exception for when a client has used up its request allowance. Unchecked for the same reason as
+ * {@link ServerBusyException}; the {@link org.generictech.userauth.aspect.ControllerExceptionHandler} turns it into
+ * a 429 with a Retry-After header.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@SuppressWarnings("serial")
+public class TooManyRequestsException extends RuntimeException {
+
+	private final long retryAfterSeconds;
+
+	public TooManyRequestsException(long retryAfterSeconds) {
+		super("Too many requests, try again later");
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+
+	public long getRetryAfterSeconds() {
+		return retryAfterSeconds;
+	}
+}
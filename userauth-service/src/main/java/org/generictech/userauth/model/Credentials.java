@@ -11,7 +11,10 @@ import javax.validation.constraints.NotNull;
 
 /**
  * Class to model the credentials table of the database. This table holds password information for each user.
- * Primarily used for authentication. 
+ * Primarily used for authentication. The password_hash column holds the binary form of a self describing
+ * {@link org.generictech.userauth.util.PasswordHash}. The password and salt text columns are only populated for
+ * rows written before that column existed, until the
+ * {@link org.generictech.userauth.service.CredentialsMigration} converts them.
  * @author Jaden Wilson
  * @since 1.0
  *
@@ -23,20 +26,20 @@ public class Credentials {
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
 	@Column(name="credentials_id")
 	int id;
-	@NotNull
+	@Column(name="password_hash", length = 512)
+	byte[] passwordHash;
 	String password;
-	@NotNull
 	String salt;
 	@ManyToOne
 	@JoinColumn(name="system_user_id", unique = true)
 	@NotNull
 	SystemUser user;
-	
+
 	public Credentials() {
 		super();
 	}
 
-	public Credentials(int id, @NotNull String password, @NotNull String salt, @NotNull SystemUser user) {
+	public Credentials(int id, String password, String salt, @NotNull SystemUser user) {
 		super();
 		this.id = id;
 		this.password = password;
@@ -44,13 +47,19 @@ public class Credentials {
 		this.user = user;
 	}
 
-	public Credentials(@NotNull String password, @NotNull String salt, @NotNull SystemUser user) {
+	public Credentials(String password, String salt, @NotNull SystemUser user) {
 		super();
 		this.password = password;
 		this.salt = salt;
 		this.user = user;
 	}
 
+	public Credentials(byte[] passwordHash, @NotNull SystemUser user) {
+		super();
+		this.passwordHash = passwordHash;
+		this.user = user;
+	}
+
 	public int getId() {
 		return id;
 	}
@@ -59,6 +68,14 @@ public class Credentials {
 		this.id = id;
 	}
 
+	public byte[] getPasswordHash() {
+		return passwordHash;
+	}
+
+	public void setPasswordHash(byte[] passwordHash) {
+		this.passwordHash = passwordHash;
+	}
+
 	public String getPassword() {
 		return password;
 	}
@@ -85,7 +102,7 @@ public class Credentials {
 
 	@Override
 	public String toString() {
-		return "Credentials [id=" + id + ", password=" + password + ", salt=" + salt + ", user=" + user + "]";
+		return "Credentials [id=" + id + ", user=" + user + "]";
 	}
-	
+
 }
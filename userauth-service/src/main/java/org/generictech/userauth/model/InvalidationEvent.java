@@ -0,0 +1,135 @@
+package org.generictech.userauth.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * Class to model the invalidation_event table of the database. Each row tells the other instances of the service
+ * that state they may hold in memory has changed: a user, a user's credentials, a revoked token or all of a user's
+ * tokens. Rows are read in id order by every instance and deleted once they are older than the retention period.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@Entity
+@Table(name = "invalidation_event", indexes = {
+		@Index(name = "invalidation_event_created_at_idx", columnList = "created_at")})
+public class InvalidationEvent {
+
+	/**
+	 * Kind of change an event reports, which decides what the key and value of the event hold.
+	 */
+	public enum Type {
+		/** The user changed or was deleted. Value is the new user version, or 0. */
+		USER,
+		/** The user's credentials changed or were deleted. */
+		CREDENTIALS,
+		/** One token was logged out. Key is its jti, value its expiry in epoch seconds. */
+		TOKEN,
+		/** Every token of the user was revoked. Value is the epoch second tokens must be issued at or after. */
+		USER_TOKENS,
+		/** One opaque token was logged out. Key is the SHA-256 of the handle. */
+		OPAQUE_TOKEN
+	}
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name="event_id")
+	long id;
+	@Enumerated(EnumType.STRING)
+	@Column(name="event_type", length = 16)
+	Type type;
+	@Column(name="system_user_id")
+	int userId;
+	@Column(name="event_key", length = 64)
+	String key;
+	@Column(name="event_value")
+	long value;
+	@Column(length = 36)
+	String origin;
+	@Column(name="created_at")
+	long createdAt;
+
+	public InvalidationEvent() {
+		super();
+	}
+
+	public InvalidationEvent(Type type, int userId, String key, long value, String origin, long createdAt) {
+		super();
+		this.type = type;
+		this.userId = userId;
+		this.key = key;
+		this.value = value;
+		this.origin = origin;
+		this.createdAt = createdAt;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public void setId(long id) {
+		this.id = id;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public void setType(Type type) {
+		this.type = type;
+	}
+
+	public int getUserId() {
+		return userId;
+	}
+
+	public void setUserId(int userId) {
+		this.userId = userId;
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public void setKey(String key) {
+		this.key = key;
+	}
+
+	public long getValue() {
+		return value;
+	}
+
+	public void setValue(long value) {
+		this.value = value;
+	}
+
+	public String getOrigin() {
+		return origin;
+	}
+
+	public void setOrigin(String origin) {
+		this.origin = origin;
+	}
+
+	public long getCreatedAt() {
+		return createdAt;
+	}
+
+	public void setCreatedAt(long createdAt) {
+		this.createdAt = createdAt;
+	}
+
+	@Override
+	public String toString() {
+		return "InvalidationEvent [id=" + id + ", type=" + type + ", userId=" + userId + ", origin=" + origin
+				+ ", createdAt=" + createdAt + "]";
+	}
+
+}
@@ -0,0 +1,112 @@
+package org.generictech.userauth.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * Class to model the opaque_token table of the database. Each row is the session behind one opaque access token,
+ * stored as the SHA-256 of the token so the table is of no use to someone who reads it. Rows are written shortly
+ * after the token is issued and deleted on logout or once they expire.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@Entity
+@Table(name = "opaque_token", indexes = {
+		@Index(name = "opaque_token_user_idx", columnList = "system_user_id"),
+		@Index(name = "opaque_token_expires_at_idx", columnList = "expires_at")})
+public class OpaqueToken {
+
+	@Id
+	@Column(name="token_hash", length = 64)
+	String tokenHash;
+	@Column(name="system_user_id")
+	int userId;
+	String username;
+	String email;
+	long version;
+	@Column(name="issued_at")
+	long issuedAt;
+	@Column(name="expires_at")
+	long expiresAt;
+	
+	public OpaqueToken() {
+		super();
+	}
+
+	public OpaqueToken(String tokenHash, int userId, String username, String email, long version, long issuedAt
+			, long expiresAt) {
+		super();
+		this.tokenHash = tokenHash;
+		this.userId = userId;
+		this.username = username;
+		this.email = email;
+		this.version = version;
+		this.issuedAt = issuedAt;
+		this.expiresAt = expiresAt;
+	}
+
+	public String getTokenHash() {
+		return tokenHash;
+	}
+
+	public void setTokenHash(String tokenHash) {
+		this.tokenHash = tokenHash;
+	}
+
+	public int getUserId() {
+		return userId;
+	}
+
+	public void setUserId(int userId) {
+		this.userId = userId;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+
+	public void setUsername(String username) {
+		this.username = username;
+	}
+
+	public String getEmail() {
+		return email;
+	}
+
+	public void setEmail(String email) {
+		this.email = email;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public void setVersion(long version) {
+		this.version = version;
+	}
+
+	public long getIssuedAt() {
+		return issuedAt;
+	}
+
+	public void setIssuedAt(long issuedAt) {
+		this.issuedAt = issuedAt;
+	}
+
+	public long getExpiresAt() {
+		return expiresAt;
+	}
+
+	public void setExpiresAt(long expiresAt) {
+		this.expiresAt = expiresAt;
+	}
+
+	@Override
+	public String toString() {
+		return "OpaqueToken [userId=" + userId + ", issuedAt=" + issuedAt + ", expiresAt=" + expiresAt + "]";
+	}
+	
+}
@@ -0,0 +1,109 @@
+package org.generictech.userauth.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Class to model the refresh_token table of the database. Each row is one refresh token, stored as the SHA-256 of the
+ * token so the table is of no use to someone who reads it. Tokens issued from one login share a family; a token is
+ * marked used when it is exchanged, and presenting a used token again revokes the whole family. Rows are deleted
+ * once they expire.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@Entity
+@Table(name = "refresh_token", indexes = {
+		@Index(name = "refresh_token_family_idx", columnList = "family_id"),
+		@Index(name = "refresh_token_user_idx", columnList = "system_user_id"),
+		@Index(name = "refresh_token_expires_at_idx", columnList = "expires_at")})
+public class RefreshToken {
+
+	@Id
+	@Column(name="token_hash", length = 64)
+	String tokenHash;
+	@Column(name="family_id", length = 32)
+	@NotNull
+	String familyId;
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name="system_user_id")
+	@NotNull
+	SystemUser user;
+	@Column(name="expires_at")
+	long expiresAt;
+	boolean used;
+	boolean revoked;
+	
+	public RefreshToken() {
+		super();
+	}
+
+	public RefreshToken(String tokenHash, @NotNull String familyId, @NotNull SystemUser user, long expiresAt) {
+		super();
+		this.tokenHash = tokenHash;
+		this.familyId = familyId;
+		this.user = user;
+		this.expiresAt = expiresAt;
+	}
+
+	public String getTokenHash() {
+		return tokenHash;
+	}
+
+	public void setTokenHash(String tokenHash) {
+		this.tokenHash = tokenHash;
+	}
+
+	public String getFamilyId() {
+		return familyId;
+	}
+
+	public void setFamilyId(String familyId) {
+		this.familyId = familyId;
+	}
+
+	public SystemUser getUser() {
+		return user;
+	}
+
+	public void setUser(SystemUser user) {
+		this.user = user;
+	}
+
+	public long getExpiresAt() {
+		return expiresAt;
+	}
+
+	public void setExpiresAt(long expiresAt) {
+		this.expiresAt = expiresAt;
+	}
+
+	public boolean isUsed() {
+		return used;
+	}
+
+	public void setUsed(boolean used) {
+		this.used = used;
+	}
+
+	public boolean isRevoked() {
+		return revoked;
+	}
+
+	public void setRevoked(boolean revoked) {
+		this.revoked = revoked;
+	}
+
+	@Override
+	public String toString() {
+		return "RefreshToken [familyId=" + familyId + ", expiresAt=" + expiresAt + ", used=" + used + ", revoked="
+				+ revoked + "]";
+	}
+	
+}
@@ -0,0 +1,67 @@
+package org.generictech.userauth.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * Class to model the revoked_token table of the database. Each row is a single token that was logged out before it
+ * expired, identified by its jti. Rows are deleted once the token would have expired anyway.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@Entity
+@Table(name = "revoked_token", indexes = @Index(name = "revoked_token_expires_at_idx", columnList = "expires_at"))
+public class RevokedToken {
+
+	@Id
+	@Column(length = 64)
+	String jti;
+	@Column(name="system_user_id")
+	int userId;
+	@Column(name="expires_at")
+	long expiresAt;
+	
+	public RevokedToken() {
+		super();
+	}
+
+	public RevokedToken(String jti, int userId, long expiresAt) {
+		super();
+		this.jti = jti;
+		this.userId = userId;
+		this.expiresAt = expiresAt;
+	}
+
+	public String getJti() {
+		return jti;
+	}
+
+	public void setJti(String jti) {
+		this.jti = jti;
+	}
+
+	public int getUserId() {
+		return userId;
+	}
+
+	public void setUserId(int userId) {
+		this.userId = userId;
+	}
+
+	public long getExpiresAt() {
+		return expiresAt;
+	}
+
+	public void setExpiresAt(long expiresAt) {
+		this.expiresAt = expiresAt;
+	}
+
+	@Override
+	public String toString() {
+		return "RevokedToken [jti=" + jti + ", userId=" + userId + ", expiresAt=" + expiresAt + "]";
+	}
+	
+}
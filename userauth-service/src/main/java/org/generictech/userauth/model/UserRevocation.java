@@ -0,0 +1,55 @@
+package org.generictech.userauth.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Class to model the user_revocation table of the database. Each row holds the epoch second before which every token
+ * issued to the user is revoked, written when all of a user's tokens are revoked at once.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@Entity
+@Table(name = "user_revocation")
+public class UserRevocation {
+
+	@Id
+	@Column(name="system_user_id")
+	int userId;
+	@Column(name="not_before")
+	long notBefore;
+	
+	public UserRevocation() {
+		super();
+	}
+
+	public UserRevocation(int userId, long notBefore) {
+		super();
+		this.userId = userId;
+		this.notBefore = notBefore;
+	}
+
+	public int getUserId() {
+		return userId;
+	}
+
+	public void setUserId(int userId) {
+		this.userId = userId;
+	}
+
+	public long getNotBefore() {
+		return notBefore;
+	}
+
+	public void setNotBefore(long notBefore) {
+		this.notBefore = notBefore;
+	}
+
+	@Override
+	public String toString() {
+		return "UserRevocation [userId=" + userId + ", notBefore=" + notBefore + "]";
+	}
+	
+}
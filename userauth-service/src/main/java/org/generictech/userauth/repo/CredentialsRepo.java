@@ -1,11 +1,14 @@
 package org.generictech.userauth.repo;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.generictech.userauth.model.Credentials;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Interface to implement database interaction for the credentials table. Interface extends JpaRepository to provide
@@ -18,4 +21,12 @@ import org.springframework.stereotype.Repository;
 public interface CredentialsRepo extends JpaRepository<Credentials, Integer>{
 	@Query("SELECT c from Credentials c WHERE c.user.id = ?1")
 	public Optional<Credentials> findCredentials(int id);
+	
+	public List<Credentials> findTop500ByPasswordHashIsNullAndIdGreaterThanOrderByIdAsc(int id);
+	
+	@Transactional
+	@Modifying
+	@Query("UPDATE Credentials c SET c.passwordHash = ?2, c.password = NULL, c.salt = NULL "
+			+ "WHERE c.id = ?1 AND c.passwordHash IS NULL")
+	public int convertLegacy(int id, byte[] passwordHash);
 }
@@ -0,0 +1,31 @@
+package org.generictech.userauth.repo;
+
+import java.util.List;
+
+import org.generictech.userauth.model.InvalidationEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Interface to implement database interaction for the invalidation_event table. Interface extends JpaRepository to
+ * provide implementations.
+ * @author Jaden Wilson
+ * @since 1.1
+ *
+ */
+@Repository
+public interface InvalidationEventRepo extends JpaRepository<InvalidationEvent, Long>{
+
+	public List<InvalidationEvent> findTop500ByIdGreaterThanOrderByIdAsc(long id);
+
+	@Query("SELECT MAX(e.id) FROM InvalidationEvent e")
+	public Long findMaxId();
+
+	@Transactional
+	@Modifying
+	@Query("DELETE FROM InvalidationEvent e WHERE e.createdAt < ?1")
+	public int deleteOlderThan(long cutoff);
+}
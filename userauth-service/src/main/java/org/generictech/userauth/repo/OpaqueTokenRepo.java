@@ -0,0 +1,36 @@
+package org.generictech.userauth.repo;
+
+import java.util.Collection;
+
+import org.generictech.userauth.model.OpaqueToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Interface to implement database interaction for the opaque_token table. Interface extends JpaRepository to provide
+ * implementations. 
+ * @author Jaden Wilson
+ * @since 1.1
+ *
+ */
+@Repository
+public interface OpaqueTokenRepo extends JpaRepository<OpaqueToken, String>{
+
+	@Transactional
+	@Modifying
+	@Query("DELETE FROM OpaqueToken t WHERE t.tokenHash IN ?1")
+	public int deleteByHashes(Collection<String> tokenHashes);
+	
+	@Transactional
+	@Modifying
+	@Query("DELETE FROM OpaqueToken t WHERE t.userId = ?1")
+	public int deleteByUser(int userId);
+	
+	@Transactional
+	@Modifying
+	@Query("DELETE FROM OpaqueToken t WHERE t.expiresAt < ?1")
+	public int deleteExpired(long now);
+}
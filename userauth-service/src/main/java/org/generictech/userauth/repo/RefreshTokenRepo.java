@@ -0,0 +1,44 @@
+package org.generictech.userauth.repo;
+
+import java.util.Optional;
+
+import org.generictech.userauth.model.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Interface to implement database interaction for the refresh_token table. Interface extends JpaRepository to provide
+ * implementations. 
+ * @author Jaden Wilson
+ * @since 1.1
+ *
+ */
+@Repository
+public interface RefreshTokenRepo extends JpaRepository<RefreshToken, String>{
+
+	@Query("SELECT r FROM RefreshToken r JOIN FETCH r.user WHERE r.tokenHash = ?1")
+	public Optional<RefreshToken> findWithUser(String tokenHash);
+	
+	@Transactional
+	@Modifying
+	@Query("UPDATE RefreshToken r SET r.used = true WHERE r.tokenHash = ?1 AND r.used = false AND r.revoked = false")
+	public int markUsed(String tokenHash);
+	
+	@Transactional
+	@Modifying
+	@Query("UPDATE RefreshToken r SET r.revoked = true WHERE r.familyId = ?1")
+	public int revokeFamily(String familyId);
+	
+	@Transactional
+	@Modifying
+	@Query("DELETE FROM RefreshToken r WHERE r.user.id = ?1")
+	public int deleteByUser(int userId);
+	
+	@Transactional
+	@Modifying
+	@Query("DELETE FROM RefreshToken r WHERE r.expiresAt < ?1")
+	public int deleteExpired(long now);
+}
@@ -0,0 +1,28 @@
+package org.generictech.userauth.repo;
+
+import java.util.List;
+
+import org.generictech.userauth.model.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Interface to implement database interaction for the revoked_token table. Interface extends JpaRepository to provide
+ * implementations. 
+ * @author Jaden Wilson
+ * @since 1.1
+ *
+ */
+@Repository
+public interface RevokedTokenRepo extends JpaRepository<RevokedToken, String>{
+
+	public List<RevokedToken> findByExpiresAtGreaterThanEqual(long now);
+	
+	@Transactional
+	@Modifying
+	@Query("DELETE FROM RevokedToken r WHERE r.expiresAt < ?1")
+	public int deleteExpired(long now);
+}
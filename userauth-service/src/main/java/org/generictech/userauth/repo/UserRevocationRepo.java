@@ -0,0 +1,28 @@
+package org.generictech.userauth.repo;
+
+import java.util.List;
+
+import org.generictech.userauth.model.UserRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Interface to implement database interaction for the user_revocation table. Interface extends JpaRepository to
+ * provide implementations. 
+ * @author Jaden Wilson
+ * @since 1.1
+ *
+ */
+@Repository
+public interface UserRevocationRepo extends JpaRepository<UserRevocation, Integer>{
+
+	public List<UserRevocation> findByNotBeforeGreaterThanEqual(long cutoff);
+	
+	@Transactional
+	@Modifying
+	@Query("DELETE FROM UserRevocation u WHERE u.notBefore < ?1")
+	public int deleteOlderThan(long cutoff);
+}
@@ -0,0 +1,95 @@
+package org.generictech.userauth.security;
+
+import java.security.Principal;
+import java.util.Date;
+
+import org.generictech.userauth.util.TokenUtility;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Principal of a request authenticated by the {@link TokenAuthFilter}, carrying what the filter read from the verified
+ * token so controllers and services never decode it again. Obtain it with
+ * {@code @AuthenticationPrincipal AuthenticatedUser user}.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class AuthenticatedUser implements Principal {
+
+	/**
+	 * Role granted to every request authenticated with a user token.
+	 */
+	public static final String ROLE = "USER";
+
+	private final int userId;
+	private final String username;
+	private final String jti;
+	private final Date expiresAt;
+	private final String token;
+	private final Claims claims;
+
+	public AuthenticatedUser(int userId, String username, String jti, Date expiresAt, String token, Claims claims) {
+		this.userId = userId;
+		this.username = username;
+		this.jti = jti;
+		this.expiresAt = expiresAt;
+		this.token = token;
+		this.claims = claims;
+	}
+
+	/**
+	 * Method to create the principal for a verified token.
+	 * @param token raw token
+	 * @param claims verified claims of the token
+	 * @return AuthenticatedUser
+	 * @throws NumberFormatException if the token names no user
+	 * @since 1.1
+	 */
+	public static AuthenticatedUser of(String token, Claims claims) {
+		return new AuthenticatedUser(TokenUtility.userId(claims), claims.getSubject(), claims.getId()
+				, claims.getExpiration(), token, claims);
+	}
+
+	public int getUserId() {
+		return userId;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+
+	public String getJti() {
+		return jti;
+	}
+
+	/**
+	 * @return Date the token expires, or null if it does not
+	 */
+	public Date getExpiresAt() {
+		return expiresAt;
+	}
+
+	/**
+	 * @return String raw token the request was made with
+	 */
+	public String getToken() {
+		return token;
+	}
+
+	/**
+	 * @return Claims every verified claim of the token, shared and not to be modified
+	 */
+	public Claims getClaims() {
+		return claims;
+	}
+
+	@Override
+	public String getName() {
+		return username;
+	}
+
+	@Override
+	public String toString() {
+		return "AuthenticatedUser [userId=" + userId + ", username=" + username + ", expiresAt=" + expiresAt + "]";
+	}
+}
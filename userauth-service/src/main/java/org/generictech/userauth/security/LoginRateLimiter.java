@@ -0,0 +1,124 @@
+package org.generictech.userauth.security;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.generictech.userauth.exception.TooManyRequestsException;
+import org.generictech.userauth.util.TokenBuckets;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Rate limiter for the endpoints that make the service run the password KDF. Every attempt takes a token from a
+ * bucket for the client address and one for the username, and is turned away before any database lookup or hashing
+ * once either is empty. The address bucket stops one client spraying many accounts, the username bucket stops many
+ * clients hammering one account.
+ * <p>
+ * Behind a gateway every request arrives from the gateway's address, so the client address is taken from
+ * X-Forwarded-For, but only on requests that come from one of the configured trusted proxies. The rightmost entry not
+ * added by a trusted proxy is used: entries to its left were written by the client and cannot be trusted.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@Component
+public class LoginRateLimiter {
+
+	private final boolean enabled;
+	private final Set<String> trustedProxies;
+	private final TokenBuckets ipBuckets;
+	private final TokenBuckets usernameBuckets;
+	private final Counter ipRejected;
+	private final Counter usernameRejected;
+
+	public LoginRateLimiter(@Value("${rate-limit.enabled:true}") boolean enabled
+			, @Value("${rate-limit.trusted-proxies:}") String trustedProxies
+			, @Value("${rate-limit.ip.capacity:30}") int ipCapacity
+			, @Value("${rate-limit.ip.refill-per-minute:60}") double ipRefillPerMinute
+			, @Value("${rate-limit.username.capacity:10}") int usernameCapacity
+			, @Value("${rate-limit.username.refill-per-minute:10}") double usernameRefillPerMinute
+			, @Value("${rate-limit.max-entries:100000}") int maxEntries, MeterRegistry registry) {
+		this.enabled = enabled;
+		this.trustedProxies = Arrays.stream(trustedProxies.split(",")).map(String::trim).filter(s -> !s.isEmpty())
+				.collect(Collectors.toSet());
+		this.ipBuckets = new TokenBuckets(ipCapacity, ipRefillPerMinute / 60, maxEntries);
+		this.usernameBuckets = new TokenBuckets(usernameCapacity, usernameRefillPerMinute / 60, maxEntries);
+
+		this.ipRejected = Counter.builder("ratelimit.rejected").tag("key", "ip")
+				.description("Requests turned away by the login rate limiter")
+				.register(registry);
+		this.usernameRejected = Counter.builder("ratelimit.rejected").tag("key", "username")
+				.description("Requests turned away by the login rate limiter")
+				.register(registry);
+		Gauge.builder("ratelimit.buckets", ipBuckets, TokenBuckets::size).tag("key", "ip")
+			.description("Rate limit buckets currently tracked")
+			.register(registry);
+		Gauge.builder("ratelimit.buckets", usernameBuckets, TokenBuckets::size).tag("key", "username")
+			.description("Rate limit buckets currently tracked")
+			.register(registry);
+	}
+
+	/**
+	 * Method to take a token for an attempt by the given username from the client making the request.
+	 * @param username username the attempt is for, may be null
+	 * @param req request the attempt arrived on
+	 * @throws TooManyRequestsException if the client or the username is over its limit
+	 * @since 1.1
+	 */
+	public void acquire(String username, HttpServletRequest req) {
+		if (!enabled) {
+			return;
+		}
+		long wait = ipBuckets.tryAcquire(clientAddress(req));
+		if (wait > 0) {
+			ipRejected.increment();
+			throw new TooManyRequestsException(toRetryAfter(wait));
+		}
+		if (username != null) {
+			wait = usernameBuckets.tryAcquire(username);
+			if (wait > 0) {
+				usernameRejected.increment();
+				throw new TooManyRequestsException(toRetryAfter(wait));
+			}
+		}
+	}
+
+	/**
+	 * Method to find the address of the client. X-Forwarded-For is only read on requests from a trusted proxy, and
+	 * only as far back as the chain of trusted proxies goes, since any client can set that header.
+	 * @param req request to read the address from
+	 * @return String client address
+	 */
+	String clientAddress(HttpServletRequest req) {
+		String address = req.getRemoteAddr();
+		if (!trustedProxies.contains(address)) {
+			return address;
+		}
+		String forwarded = req.getHeader("X-Forwarded-For");
+		if (forwarded == null) {
+			return address;
+		}
+		String[] hops = forwarded.split(",");
+		for (int i = hops.length - 1; i >= 0; i--) {
+			String hop = hops[i].trim();
+			if (!hop.isEmpty()) {
+				address = hop;
+				if (!trustedProxies.contains(hop)) {
+					break;
+				}
+			}
+		}
+		return address;
+	}
+
+	private static long toRetryAfter(long waitNanos) {
+		return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+	}
+}
@@ -31,7 +31,10 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
 			.ignoring()
 			.mvcMatchers(HttpMethod.POST, "/login")
 			.mvcMatchers(HttpMethod.POST, "/systemuser")
-			.mvcMatchers(HttpMethod.POST, "/validate");
+			.mvcMatchers(HttpMethod.POST, "/validate")
+			.mvcMatchers(HttpMethod.POST, "/validate/batch")
+			.mvcMatchers(HttpMethod.POST, "/token/refresh")
+			.mvcMatchers(HttpMethod.GET, "/.well-known/jwks.json");
 	}
 	
 	@Override
@@ -44,7 +47,9 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
 			.authorizeRequests()
 				.antMatchers("/login").permitAll()
 				.antMatchers(HttpMethod.POST, "/systemuser").permitAll()
-				.anyRequest().authenticated()
+				.mvcMatchers("/admin/**").hasRole(ServiceKeys.ADMIN)
+				.mvcMatchers(HttpMethod.GET, "/revocations").hasRole(ServiceKeys.SERVICE)
+				.anyRequest().hasRole(AuthenticatedUser.ROLE)
 				.and()
 			.addFilterAt(tokenAuthFilter, UsernamePasswordAuthenticationFilter.class)
 			.sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS);
@@ -0,0 +1,89 @@
+package org.generictech.userauth.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+/**
+ * Shared keys that operators present in the {@value #HEADER} header to reach endpoints no user token may reach.
+ * Keys are configured as comma separated lists, each list granting one role; a request presenting a configured key is
+ * authenticated with that role and nothing else. No key is configured by default, which leaves those endpoints closed.
+ * Only digests of the keys are kept, and every configured key is compared in constant time.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@Component
+public class ServiceKeys {
+
+	public static final String HEADER = "serviceKey";
+	public static final String ADMIN = "ADMIN";
+	public static final String SERVICE = "SERVICE";
+
+	private final List<byte[]> adminKeys;
+	private final List<byte[]> serviceKeys;
+
+	@Autowired
+	public ServiceKeys(@Value("${security.admin-keys:${ADMIN_KEYS:}}") String adminKeys
+			, @Value("${security.service-keys:${SERVICE_KEYS:}}") String serviceKeys) {
+		this.adminKeys = digests(adminKeys);
+		this.serviceKeys = digests(serviceKeys);
+	}
+
+	/**
+	 * Method to find the roles granted by a key.
+	 * @param key key presented by the caller
+	 * @return List<GrantedAuthority> roles granted, empty if the key is not configured
+	 * @since 1.1
+	 */
+	public List<GrantedAuthority> authorities(String key) {
+		if (key == null || key.isEmpty()) {
+			return Collections.emptyList();
+		}
+		byte[] digest = digest(key);
+		List<GrantedAuthority> roles = new ArrayList<>();
+		if (matches(adminKeys, digest)) {
+			roles.add(new SimpleGrantedAuthority("ROLE_" + ADMIN));
+		}
+		if (matches(serviceKeys, digest)) {
+			roles.add(new SimpleGrantedAuthority("ROLE_" + SERVICE));
+		}
+		return roles;
+	}
+
+	private static boolean matches(List<byte[]> keys, byte[] digest) {
+		boolean match = false;
+		for (byte[] key : keys) {
+			match |= MessageDigest.isEqual(key, digest);
+		}
+		return match;
+	}
+
+	private static List<byte[]> digests(String keys) {
+		List<byte[]> digests = new ArrayList<>();
+		if (keys != null) {
+			for (String key : keys.split(",")) {
+				if (!key.trim().isEmpty()) {
+					digests.add(digest(key.trim()));
+				}
+			}
+		}
+		return digests;
+	}
+
+	private static byte[] digest(String key) {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+}
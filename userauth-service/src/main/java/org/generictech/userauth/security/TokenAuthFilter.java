@@ -0,0 +1,91 @@
+package org.generictech.userauth.security;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.generictech.userauth.util.TokenUtility;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Class to handle token authentication for spring security
+ * @author Jaden Wilson
+ *@since 1.0
+ */
+@Component
+@Slf4j
+public class TokenAuthFilter extends OncePerRequestFilter {
+	
+	private final String HEADER = "tokenId";
+	@Autowired
+	private TokenUtility tokenUtility;
+	@Autowired
+	private TokenRevocations revocations;
+	@Autowired
+	private ServiceKeys serviceKeys;
+	private final ArrayList<String> PUBLIC_ENDPOINTS = new ArrayList<>(Arrays.asList("/login", "/systemuser", "/validate", "/validate/batch", "/token/refresh"));
+	private final ArrayList<String> PUBLIC_GET_ENDPOINTS = new ArrayList<>(Arrays.asList("/.well-known/jwks.json"));
+	
+	protected void doFilterInternal(HttpServletRequest req, HttpServletResponse res, FilterChain chain) throws 
+		IOException, ServletException {
+		if ((req.getMethod().equals("POST") && PUBLIC_ENDPOINTS.contains(req.getServletPath()))
+				|| (req.getMethod().equals("GET") && PUBLIC_GET_ENDPOINTS.contains(req.getServletPath()))) {
+			log.info("Unauthenticated endpoint. Ingoring tokenId header if present");
+			chain.doFilter(req, res);
+			return;
+		}
+		UsernamePasswordAuthenticationToken auth = getAuthentication(req);
+		
+		SecurityContextHolder.getContext().setAuthentication(auth);
+		chain.doFilter(req, res);
+	}
+	
+	/**
+	 * Verifies the token once and keeps what it carries as an {@link AuthenticatedUser} principal, with the raw token as
+	 * the credentials. A missing, invalid or revoked token leaves the request unauthenticated. A request presenting a
+	 * {@link ServiceKeys} key instead is authenticated with the roles of that key only, and no user principal.
+	 */
+	private UsernamePasswordAuthenticationToken getAuthentication(HttpServletRequest req) {
+		String key = req.getHeader(ServiceKeys.HEADER);
+		if (key != null) {
+			List<GrantedAuthority> roles = serviceKeys.authorities(key);
+			if (roles.isEmpty()) {
+				log.info("Rejected service key");
+				return null;
+			}
+			return new UsernamePasswordAuthenticationToken(ServiceKeys.HEADER, null, roles);
+		}
+		String token = req.getHeader(HEADER);
+		if (token == null) {
+			return null;
+		}
+		try {
+			Claims claims = tokenUtility.decodeJWT(token);
+			if (claims.getSubject() == null || revocations.isRevoked(claims)) {
+				return null;
+			}
+			return new UsernamePasswordAuthenticationToken(AuthenticatedUser.of(token, claims), token
+					, AuthorityUtils.createAuthorityList("ROLE_" + AuthenticatedUser.ROLE));
+		} catch (JwtException | NumberFormatException e) {
+			log.info("Rejected token: " + e.getMessage());
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,287 @@
+package org.generictech.userauth.security;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.generictech.userauth.dto.RevocationList;
+import org.generictech.userauth.model.RevokedToken;
+import org.generictech.userauth.model.UserRevocation;
+import org.generictech.userauth.repo.RevokedTokenRepo;
+import org.generictech.userauth.repo.UserRevocationRepo;
+import org.generictech.userauth.util.BoundedCache;
+import org.generictech.userauth.util.ExpiringBloomFilter;
+import org.generictech.userauth.util.TokenUtility;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps track of tokens revoked before their expiry. Revoking all of a user's tokens records a per-user not-before
+ * second: any token of the user issued before it is revoked. Logging out a single token adds its jti to an
+ * {@link ExpiringBloomFilter}, bucketed by the token's expiry, and a hit is confirmed against the revoked_token table.
+ * A check is a map lookup and a few bit probes. Only the occasional false positive, and the first check of a
+ * revoked token, reach the database; confirmed revocations are remembered.
+ * <p>
+ * Both are persisted and reloaded at startup. Entries are pruned on a schedule once every token they could apply to
+ * has expired, so memory and table size follow the number of live revocations. Revocations made on another instance
+ * reach this one through the {@link org.generictech.userauth.util.InvalidationBus}.
+ * <p>
+ * Revoked jtis are also kept with their expiry, so the list published to other services is built from memory. The
+ * list is built once and served to every caller until a revocation is added or pruned.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@Component
+@Slf4j
+public class TokenRevocations {
+
+	private final RevokedTokenRepo revokedTokenRepo;
+	private final UserRevocationRepo userRevocationRepo;
+	private final long maxTokenLifetimeSeconds;
+	private final long pruneIntervalSeconds;
+	private final LongSupplier clock;
+	private final Map<Integer, Long> notBefore = new ConcurrentHashMap<>();
+	private final ExpiringBloomFilter revokedJtis;
+	private final BoundedCache<String, Boolean> confirmed;
+	private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+	private final AtomicLong changes = new AtomicLong();
+	private volatile Snapshot snapshot;
+	private Counter falsePositives;
+	private ScheduledExecutorService pruner;
+
+	@Autowired
+	public TokenRevocations(RevokedTokenRepo revokedTokenRepo, UserRevocationRepo userRevocationRepo
+			, @Value("${token.revocation.max-token-lifetime-seconds:20000}") long maxTokenLifetimeSeconds
+			, @Value("${token.revocation.expected-per-hour:10000}") int expectedPerHour
+			, @Value("${token.revocation.prune-interval-seconds:300}") long pruneIntervalSeconds
+			, MeterRegistry registry) {
+		this(revokedTokenRepo, userRevocationRepo, maxTokenLifetimeSeconds, expectedPerHour, pruneIntervalSeconds
+				, System::currentTimeMillis);
+		Gauge.builder("token.revocations.users", notBefore, Map::size)
+			.description("Users with all tokens issued before a point in time revoked")
+			.register(registry);
+		Gauge.builder("token.revocations.tokens", revokedJtis, ExpiringBloomFilter::size)
+			.description("Individually revoked tokens that have not yet expired")
+			.register(registry);
+		falsePositives = Counter.builder("token.revocations.false-positives")
+			.description("Revocation filter hits that the database did not confirm")
+			.register(registry);
+	}
+
+	TokenRevocations(RevokedTokenRepo revokedTokenRepo, UserRevocationRepo userRevocationRepo
+			, long maxTokenLifetimeSeconds, int expectedPerHour, long pruneIntervalSeconds, LongSupplier clock) {
+		this.revokedTokenRepo = revokedTokenRepo;
+		this.userRevocationRepo = userRevocationRepo;
+		this.maxTokenLifetimeSeconds = maxTokenLifetimeSeconds;
+		this.pruneIntervalSeconds = pruneIntervalSeconds;
+		this.clock = clock;
+		this.revokedJtis = new ExpiringBloomFilter(expectedPerHour, 0.001, TimeUnit.HOURS.toSeconds(1));
+		this.confirmed = new BoundedCache<>(1000, TimeUnit.HOURS.toNanos(1));
+	}
+
+	@PostConstruct
+	public void init() {
+		long now = now();
+		for (UserRevocation revocation : userRevocationRepo.findByNotBeforeGreaterThanEqual(now - maxTokenLifetimeSeconds)) {
+			notBefore.merge(revocation.getUserId(), revocation.getNotBefore(), Math::max);
+		}
+		for (RevokedToken token : revokedTokenRepo.findByExpiresAtGreaterThanEqual(now)) {
+			revokedJtis.add(token.getJti(), token.getExpiresAt());
+			revokedTokens.merge(token.getJti(), token.getExpiresAt(), Math::max);
+		}
+		changes.incrementAndGet();
+		log.info("Loaded token revocations for " + notBefore.size() + " users and " + revokedJtis.size() + " tokens");
+		if (pruneIntervalSeconds > 0) {
+			pruner = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread t = new Thread(r, "token-revocation-pruner");
+				t.setDaemon(true);
+				return t;
+			});
+			pruner.scheduleWithFixedDelay(this::prune, pruneIntervalSeconds, pruneIntervalSeconds, TimeUnit.SECONDS);
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		if (pruner != null) {
+			pruner.shutdownNow();
+		}
+	}
+
+	/**
+	 * Method to check whether a verified token has been revoked.
+	 * @param claims verified claims of the token
+	 * @return boolean true if the token was logged out or issued before the user's tokens were revoked
+	 * @since 1.1
+	 */
+	public boolean isRevoked(Claims claims) {
+		Long userNotBefore = notBefore.get(TokenUtility.userId(claims));
+		if (userNotBefore != null) {
+			Date issuedAt = claims.getIssuedAt();
+			if (issuedAt == null || issuedAt.getTime() / 1000 < userNotBefore) {
+				return true;
+			}
+		}
+		String jti = claims.getId();
+		if (jti == null) {
+			return false;
+		}
+		Date expiration = claims.getExpiration();
+		if (!revokedJtis.mightContain(jti, expiration == null ? -1 : expiration.getTime() / 1000)) {
+			return false;
+		}
+		if (confirmed.get(jti) != null) {
+			return true;
+		}
+		if (revokedTokenRepo.existsById(jti)) {
+			confirmed.put(jti, Boolean.TRUE);
+			return true;
+		}
+		if (falsePositives != null) {
+			falsePositives.increment();
+		}
+		return false;
+	}
+
+	/**
+	 * Method to revoke a single token, as on logout. Tokens issued before user ids were carried in their own claim
+	 * have the user id as their jti, so revoking one of them revokes every such token of the user.
+	 * @param claims verified claims of the token
+	 * @return long epoch second until which the revocation is kept
+	 * @since 1.1
+	 */
+	public long revoke(Claims claims) {
+		String jti = claims.getId();
+		Date expiration = claims.getExpiration();
+		long expiresAt = expiration == null ? now() + maxTokenLifetimeSeconds : expiration.getTime() / 1000;
+		revokedTokenRepo.save(new RevokedToken(jti, TokenUtility.userId(claims), expiresAt));
+		applyRevoke(jti, expiresAt);
+		return expiresAt;
+	}
+	
+	/**
+	 * Method to record a single token revocation that another instance has already persisted.
+	 * @param jti jti of the revoked token
+	 * @param expiresAt epoch second until which the revocation is kept
+	 * @since 1.1
+	 */
+	public void applyRevoke(String jti, long expiresAt) {
+		revokedJtis.add(jti, expiresAt);
+		confirmed.put(jti, Boolean.TRUE);
+		revokedTokens.merge(jti, expiresAt, Math::max);
+		changes.incrementAndGet();
+	}
+
+	/**
+	 * Method to revoke every token issued to a user up to now.
+	 * @param userId id of the user
+	 * @return long epoch second the user's tokens must now be issued at or after
+	 * @since 1.1
+	 */
+	public long revokeAll(int userId) {
+		long cutoff = now() + 1;
+		long effective = applyRevokeAll(userId, cutoff);
+		userRevocationRepo.save(new UserRevocation(userId, effective));
+		return effective;
+	}
+	
+	/**
+	 * Method to record a revocation of every token of a user that another instance has already persisted.
+	 * @param userId id of the user
+	 * @param second epoch second the user's tokens must be issued at or after
+	 * @return long epoch second now in effect for the user, which is never moved back
+	 * @since 1.1
+	 */
+	public long applyRevokeAll(int userId, long second) {
+		long effective = notBefore.merge(userId, second, Math::max);
+		changes.incrementAndGet();
+		return effective;
+	}
+
+	/**
+	 * Method to get the earliest issued-at second a new token for the user may carry without being revoked.
+	 * @param userId id of the user
+	 * @return long epoch second, or 0 if none of the user's tokens have been revoked
+	 * @since 1.1
+	 */
+	public long notBefore(int userId) {
+		Long second = notBefore.get(userId);
+		return second == null ? 0 : second;
+	}
+
+	/**
+	 * Method to list every revocation that can still apply to an unexpired token, for services that verify tokens
+	 * themselves. The list is built from memory and shared by every caller until the revocations change, so it must
+	 * not be modified; it may still name tokens that expired since it was built.
+	 * @return {@link RevocationList}
+	 * @since 1.1
+	 */
+	public RevocationList snapshot() {
+		long version = changes.get();
+		Snapshot cached = snapshot;
+		if (cached != null && cached.version == version) {
+			return cached.list;
+		}
+		long now = now();
+		Map<String, Long> tokens = new HashMap<>();
+		revokedTokens.forEach((jti, expiresAt) -> {
+			if (expiresAt >= now) {
+				tokens.put(jti, expiresAt);
+			}
+		});
+		RevocationList list = new RevocationList(now, Collections.unmodifiableMap(new HashMap<>(notBefore))
+				, Collections.unmodifiableMap(tokens));
+		snapshot = new Snapshot(version, list);
+		return list;
+	}
+
+	/**
+	 * Method to forget revocations that can no longer apply to an unexpired token.
+	 * @since 1.1
+	 */
+	public void prune() {
+		try {
+			long now = now();
+			long cutoff = now - maxTokenLifetimeSeconds;
+			notBefore.values().removeIf(second -> second < cutoff);
+			revokedJtis.prune(now);
+			revokedTokens.values().removeIf(expiresAt -> expiresAt < now);
+			changes.incrementAndGet();
+			userRevocationRepo.deleteOlderThan(cutoff);
+			revokedTokenRepo.deleteExpired(now);
+		} catch (Exception e) {
+			log.warn("Pruning token revocations failed: " + e.getMessage());
+		}
+	}
+
+	private long now() {
+		return clock.getAsLong() / 1000;
+	}
+
+	private static final class Snapshot {
+		final long version;
+		final RevocationList list;
+
+		Snapshot(long version, RevocationList list) {
+			this.version = version;
+			this.list = list;
+		}
+	}
+}
@@ -0,0 +1,387 @@
+package org.generictech.userauth.service;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.generictech.userauth.client.TokenClaims;
+import org.generictech.userauth.dto.CredentialsDTO;
+import org.generictech.userauth.dto.SessionTokens;
+import org.generictech.userauth.dto.SystemUserDTO;
+import org.generictech.userauth.dto.TokenValidation;
+import org.generictech.userauth.exception.BadParameterException;
+import org.generictech.userauth.exception.CredentialsNotFoundException;
+import org.generictech.userauth.exception.InvalidTokenException;
+import org.generictech.userauth.exception.SystemUserNotFoundException;
+import org.generictech.userauth.model.Credentials;
+import org.generictech.userauth.model.SystemUser;
+import org.generictech.userauth.security.AuthenticatedUser;
+import org.generictech.userauth.security.TokenRevocations;
+import org.generictech.userauth.util.InvalidationBus;
+import org.generictech.userauth.util.OpaqueTokenStore;
+import org.generictech.userauth.util.PasswordHash;
+import org.generictech.userauth.util.PasswordHashingUtility;
+import org.generictech.userauth.util.TokenUtility;
+import org.generictech.userauth.util.UserVersions;
+import org.generictech.userauth.util.VerifiedCredentialCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.SignatureException;
+
+/**
+ * Service class to handle authentication logic
+ * @author Jaden Wilson
+ * @since 1.0
+ */
+@Service
+public class AuthService {
+
+	@Autowired
+	private CredentialsService credentialsService;
+	@Autowired
+	private PasswordHashingUtility hashingUtility;
+	@Autowired
+	private SystemUserService systemUserService;
+	@Autowired 
+	private TokenUtility tokenUtility;
+	@Autowired
+	@Qualifier("authExecutor")
+	private Executor authExecutor;
+	@Autowired
+	private VerifiedCredentialCache credentialCache;
+	@Autowired
+	private UserVersions userVersions;
+	@Autowired
+	private TokenRevocations revocations;
+	@Autowired
+	private RefreshTokenService refreshTokenService;
+	@Autowired
+	private OpaqueTokenStore opaqueTokens;
+	@Autowired
+	private InvalidationBus invalidationBus;
+	@Value("${token.access-ttl-seconds:900}")
+	private long accessTtlSeconds = 900;
+	@Value("${auth.validate.max-batch:100}")
+	private int maxBatchSize = 100;
+	@Value("${token.stateless.enabled:false}")
+	private boolean statelessTokens;
+	
+	private static final int VERIFY_CHUNK = 16;
+	private static final String TOKEN_ISSUER = "org.generictech.Expenser";
+	private static final String EMAIL_CLAIM = TokenClaims.EMAIL;
+	private static final String VERSION_CLAIM = TokenClaims.VERSION;
+	
+	/**
+	 * Method to handle login processes. Hashes stored under an older hashing policy are upgraded in the background
+	 * once the password has been verified. Credentials verified within the last few minutes skip the KDF when the
+	 * {@link VerifiedCredentialCache} is enabled.
+	 * @param creds object with authentication credentials
+	 * @return SystemUserDTO containing minimal user data.
+	 * @throws SystemUserNotFoundException
+	 * @throws CredentialsNotFoundException
+	 * @throws NoSuchAlgorithmException
+	 * @throws InvalidKeySpecException
+	 * @since 1.0
+	 */
+	public SystemUserDTO login(CredentialsDTO creds) throws SystemUserNotFoundException
+	, CredentialsNotFoundException, NoSuchAlgorithmException, InvalidKeySpecException {
+		SystemUser user = systemUserService.findByUsername(creds.getUsername());
+		Credentials loadedCreds = credentialsService.findByUserId(user.getId());
+		
+		PasswordHash stored = credentialsService.getStoredHash(loadedCreds);
+		
+		if (credentialCache.matches(user.getId(), stored, creds.getPassword())) {
+			return new SystemUserDTO(user.getId(), user.getUsername(), user.getEmail());
+		}
+		if (hashingUtility.validatePassword(creds.getPassword(), stored)) {
+			return onVerified(user, stored, creds.getPassword());
+		} else {
+			return null;
+		}
+	}
+	
+	/**
+	 * Method to handle login processes without holding the calling thread while the password is hashed. The user
+	 * and credentials are still looked up on the calling thread so lookup failures surface immediately. Both lookups
+	 * complete, and their connection goes back to the pool, before the password is handed to the hashing pool.
+	 * @param creds object with authentication credentials
+	 * @return CompletableFuture of the SystemUserDTO containing minimal user data, or of null if the password is
+	 * wrong. Fails with a {@link org.generictech.userauth.exception.ServerBusyException} if the hashing queue is full.
+	 * @throws SystemUserNotFoundException
+	 * @throws CredentialsNotFoundException
+	 * @since 1.1
+	 */
+	public CompletableFuture<SystemUserDTO> loginAsync(CredentialsDTO creds) throws SystemUserNotFoundException
+	, CredentialsNotFoundException {
+		SystemUser user = systemUserService.findByUsername(creds.getUsername());
+		Credentials loadedCreds = credentialsService.findByUserId(user.getId());
+		
+		PasswordHash stored = credentialsService.getStoredHash(loadedCreds);
+		
+		if (credentialCache.matches(user.getId(), stored, creds.getPassword())) {
+			return CompletableFuture.completedFuture(new SystemUserDTO(user.getId(), user.getUsername(), user.getEmail()));
+		}
+		return hashingUtility.validatePasswordAsync(creds.getPassword(), stored)
+				.thenApplyAsync(valid -> valid ? onVerified(user, stored, creds.getPassword()) : null, authExecutor);
+	}
+	
+	/**
+	 * Method to finish a login once the KDF has accepted the password. Remembers the credentials for quick repeat
+	 * logins and queues an upgrade of hashes stored under an older policy.
+	 * @param user user that logged in
+	 * @param stored hash the password was verified against
+	 * @param password verified password
+	 * @return SystemUserDTO containing minimal user data.
+	 */
+	private SystemUserDTO onVerified(SystemUser user, PasswordHash stored, String password) {
+		credentialCache.remember(user.getId(), stored, password);
+		if (hashingUtility.needsRehash(stored)) {
+			credentialsService.rehashInBackground(password, user.getId(), stored);
+		}
+		return new SystemUserDTO(user.getId(), user.getUsername(), user.getEmail());
+	}
+	
+	/**
+	 * Method to log out the token a request was authenticated with, so it is rejected from now on even though it has
+	 * not expired, along with the refresh token of the same login if the client sends it.
+	 * @param user principal of the request, holding the already verified token
+	 * @param refreshToken refresh token of the same login, may be null
+	 * @throws InvalidTokenException if the request was not authenticated
+	 * @since 1.1
+	 */
+	public void logout(AuthenticatedUser user, String refreshToken) throws InvalidTokenException {
+		if (user == null) {
+			throw new InvalidTokenException("Request was not authenticated with a valid token");
+		}
+		if (opaqueTokens.revoke(user.getToken())) {
+			invalidationBus.opaqueTokenRevoked(user.getUserId(), user.getJti());
+		} else {
+			long expiresAt = revocations.revoke(user.getClaims());
+			tokenUtility.evict(user.getToken());
+			invalidationBus.tokenRevoked(user.getUserId(), user.getJti(), expiresAt);
+		}
+		if (refreshToken != null) {
+			refreshTokenService.revoke(refreshToken);
+		}
+	}
+	
+	/**
+	 * Method to revoke every token issued so far to the user a request was authenticated as, including the token of
+	 * the request and every refresh token.
+	 * @param user principal of the request
+	 * @throws InvalidTokenException if the request was not authenticated
+	 * @since 1.1
+	 */
+	public void revokeAll(AuthenticatedUser user) throws InvalidTokenException {
+		if (user == null) {
+			throw new InvalidTokenException("Request was not authenticated with a valid token");
+		}
+		int userId = user.getUserId();
+		long notBefore = revocations.revokeAll(userId);
+		refreshTokenService.revokeAll(userId);
+		opaqueTokens.revokeAll(userId);
+		tokenUtility.evict(user.getToken());
+		invalidationBus.userTokensRevoked(userId, notBefore);
+	}
+	
+	/**
+	 * Method to issue the token returned by a successful login. With stateless tokens enabled the token also carries
+	 * the user's email and current version, so {@link #validateToken(String)} can answer without a database query.
+	 * With opaque tokens enabled the token is a random handle to a session held by the {@link OpaqueTokenStore}.
+	 * @param user user that logged in
+	 * @return String signed token or opaque handle
+	 * @since 1.1
+	 */
+	public String issueToken(SystemUserDTO user) {
+		long notBefore = revocations.notBefore(user.getId());
+		if (opaqueTokens.isEnabled()) {
+			long version = statelessTokens ? userVersions.current(user.getId()) : -1;
+			return opaqueTokens.issue(user.getId(), user.getUsername(), accessTtlMillis(), notBefore, user.getEmail()
+					, version);
+		}
+		if (!statelessTokens) {
+			return tokenUtility.createUserJWT(user.getId(), TOKEN_ISSUER, user.getUsername(), accessTtlMillis(), notBefore
+					, claims -> { });
+		}
+		long version = userVersions.current(user.getId());
+		return tokenUtility.createUserJWT(user.getId(), TOKEN_ISSUER, user.getUsername(), accessTtlMillis(), notBefore
+				, claims -> claims.string(EMAIL_CLAIM, user.getEmail()).number(VERSION_CLAIM, version));
+	}
+	
+	private long accessTtlMillis() {
+		return TimeUnit.SECONDS.toMillis(accessTtlSeconds);
+	}
+	
+	/**
+	 * Method to issue the tokens returned by a successful login: a short lived access token and the first refresh
+	 * token of a new family.
+	 * @param user user that logged in
+	 * @return {@link SessionTokens}
+	 * @since 1.1
+	 */
+	public SessionTokens issueTokens(SystemUserDTO user) {
+		return new SessionTokens(issueToken(user), refreshTokenService.issue(user.getId()), user);
+	}
+	
+	/**
+	 * Method to exchange a refresh token for a new access token and a new refresh token, without the password. A
+	 * refresh token can only be exchanged once; presenting it again revokes every refresh token of the login it came
+	 * from.
+	 * @param refreshToken refresh token sent by the client
+	 * @return {@link SessionTokens}
+	 * @throws InvalidTokenException if the refresh token is unknown, expired, revoked or already used
+	 * @throws BadParameterException if no refresh token is given
+	 * @since 1.1
+	 */
+	public SessionTokens refresh(String refreshToken) throws InvalidTokenException, BadParameterException {
+		if (refreshToken == null) {
+			throw new BadParameterException("Refresh token cannot be null");
+		}
+		RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
+		SystemUser user = rotation.getUser();
+		SystemUserDTO userData = new SystemUserDTO(user.getId(), user.getUsername(), user.getEmail());
+		return new SessionTokens(issueToken(userData), rotation.getToken(), userData);
+	}
+	
+	/**
+	 * Method to validate a token. To be used by the AuthController so tokens can be validated in other services. 
+	 * Revoked tokens are rejected. Stateless tokens that are still current are answered from their claims without a
+	 * database query.
+	 * @param token Object containing a string token
+	 * @return SystemUserDTO object with minimal user data. 
+	 * @throws NumberFormatException
+	 * @throws SystemUserNotFoundException
+	 * @throws InvalidTokenException
+	 * @throws BadParameterException 
+	 * @since 1.0
+	 */
+	public SystemUserDTO validateToken(String token) throws NumberFormatException, SystemUserNotFoundException, InvalidTokenException, BadParameterException {
+		if (token == null) {
+			throw new BadParameterException("Token cannot be null");
+		}
+		try {
+			Claims claim = tokenUtility.decodeJWT(token);
+			if (revocations.isRevoked(claim)) {
+				throw new InvalidTokenException("Token has been revoked");
+			}
+			SystemUserDTO stateless = fromClaims(claim);
+			if (stateless != null) {
+				return stateless;
+			}
+			SystemUser user = systemUserService.findById(TokenUtility.userId(claim));
+			SystemUserDTO userData = new SystemUserDTO(user.getId(), user.getUsername(), user.getEmail());
+			return userData;			
+		} catch (SignatureException e) {
+			throw new InvalidTokenException();
+		}
+	}
+	
+	/**
+	 * Method to validate a batch of tokens in one call. Signatures are verified in parallel on the auth executor, in
+	 * chunks, and the users behind every valid token that is not answered from its own claims are loaded with a
+	 * single query. A token that fails does not fail the batch; its result names the reason instead.
+	 * @param tokens raw tokens
+	 * @return CompletableFuture of one {@link TokenValidation} per token, in the order given
+	 * @throws BadParameterException if there are no tokens or more than the configured maximum
+	 * @since 1.1
+	 */
+	public CompletableFuture<List<TokenValidation>> validateTokens(List<String> tokens) throws BadParameterException {
+		if (tokens == null || tokens.isEmpty()) {
+			throw new BadParameterException("Tokens cannot be empty");
+		}
+		if (tokens.size() > maxBatchSize) {
+			throw new BadParameterException("At most " + maxBatchSize + " tokens can be validated at once");
+		}
+		Claims[] claims = new Claims[tokens.size()];
+		TokenValidation[] results = new TokenValidation[tokens.size()];
+		List<CompletableFuture<Void>> chunks = new ArrayList<>();
+		for (int from = 0; from < tokens.size(); from += VERIFY_CHUNK) {
+			int start = from;
+			int end = Math.min(from + VERIFY_CHUNK, tokens.size());
+			chunks.add(CompletableFuture.runAsync(() -> {
+				for (int i = start; i < end; i++) {
+					try {
+						claims[i] = decode(tokens.get(i));
+						SystemUserDTO stateless = fromClaims(claims[i]);
+						if (stateless != null) {
+							results[i] = TokenValidation.valid(stateless);
+							claims[i] = null;
+						}
+					} catch (InvalidTokenException | BadParameterException e) {
+						results[i] = TokenValidation.invalid(e);
+					}
+				}
+			}, authExecutor));
+		}
+		return CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[0])).thenApplyAsync(done -> {
+			Set<Integer> ids = new HashSet<>();
+			for (Claims c : claims) {
+				if (c != null) {
+					ids.add(TokenUtility.userId(c));
+				}
+			}
+			Map<Integer, SystemUser> users = systemUserService.findAllById(ids);
+			for (int i = 0; i < claims.length; i++) {
+				if (claims[i] != null) {
+					SystemUser user = users.get(TokenUtility.userId(claims[i]));
+					results[i] = user != null
+							? TokenValidation.valid(new SystemUserDTO(user.getId(), user.getUsername(), user.getEmail()))
+							: TokenValidation.invalid(new SystemUserNotFoundException());
+				}
+			}
+			return Arrays.asList(results);
+		}, authExecutor);
+	}
+	
+	/**
+	 * Method to read the user from a stateless token.
+	 * @return SystemUserDTO from the claims, or null if stateless tokens are off or the token is not stateless
+	 * @throws InvalidTokenException if the user has changed since the token was issued
+	 */
+	private SystemUserDTO fromClaims(Claims claim) throws InvalidTokenException {
+		Object version = claim.get(VERSION_CLAIM);
+		if (!statelessTokens || !(version instanceof Number)) {
+			return null;
+		}
+		int id = TokenUtility.userId(claim);
+		if (!userVersions.isCurrent(id, ((Number) version).longValue())) {
+			throw new InvalidTokenException("Token was issued before the user last changed");
+		}
+		return new SystemUserDTO(id, claim.getSubject(), claim.get(EMAIL_CLAIM, String.class));
+	}
+	
+	/**
+	 * Method to verify a token and check it is not revoked, turning every way it can be rejected into an
+	 * {@link InvalidTokenException}.
+	 */
+	private Claims decode(String token) throws InvalidTokenException, BadParameterException {
+		if (token == null) {
+			throw new BadParameterException("Token cannot be null");
+		}
+		try {
+			Claims claim = tokenUtility.decodeJWT(token);
+			if (revocations.isRevoked(claim)) {
+				throw new InvalidTokenException("Token has been revoked");
+			}
+			return claim;
+		} catch (ExpiredJwtException e) {
+			throw new InvalidTokenException("Token has expired");
+		} catch (JwtException | NumberFormatException e) {
+			throw new InvalidTokenException();
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package org.generictech.userauth.service;
+
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+
+import org.generictech.userauth.model.Credentials;
+import org.generictech.userauth.repo.CredentialsRepo;
+import org.generictech.userauth.util.PasswordHash;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves credentials stored as hex text into the binary password_hash column. The conversion is lossless (legacy rows
+ * become version 0 PBKDF2 hashes whose salt is the bytes of the old hex salt string), so no password is needed and
+ * every row can be converted at startup. Rows are still upgraded to the current hashing policy on their next login.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@Component
+@Slf4j
+public class CredentialsMigration {
+
+	@Autowired
+	private CredentialsRepo credentialsRepo;
+	@Autowired
+	private CredentialsService credentialsService;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Value("${credentials.migration.enabled:true}")
+	private boolean enabled;
+
+	/**
+	 * Method to run the migration while the context is being created, before the web server takes any request, so no
+	 * registration or password change is served against columns that still reject binary only rows. A failure stops
+	 * the application from starting.
+	 * @since 1.1
+	 */
+	@PostConstruct
+	public void onStartup() {
+		if (enabled) {
+			relaxLegacyColumns();
+			migrate();
+		}
+	}
+
+	/**
+	 * Method to drop the NOT NULL constraints the text columns were created with. Schema updates only ever add
+	 * columns, so this has to be done by hand before binary only rows can be written. Dropping a constraint that is
+	 * already gone succeeds, so any failure means every registration and password change would fail after it.
+	 * @throws IllegalStateException if a constraint could not be dropped
+	 * @since 1.1
+	 */
+	public void relaxLegacyColumns() {
+		for (String column : new String[] {"password", "salt"}) {
+			try {
+				jdbcTemplate.execute("ALTER TABLE credentials ALTER COLUMN " + column + " DROP NOT NULL");
+			} catch (DataAccessException e) {
+				throw new IllegalStateException("Could not relax constraint on credentials." + column, e);
+			}
+		}
+	}
+
+	/**
+	 * Method to convert every credentials row that only has a text hash. Each row is written with a conditional
+	 * update that only applies while the row still has no binary hash, so a password set after the batch was read is
+	 * never overwritten with the converted old one.
+	 * @return int number of rows converted
+	 * @since 1.1
+	 */
+	public int migrate() {
+		int converted = 0;
+		int lastId = 0;
+		List<Credentials> batch = credentialsRepo.findTop500ByPasswordHashIsNullAndIdGreaterThanOrderByIdAsc(lastId);
+		while (!batch.isEmpty()) {
+			for (Credentials creds : batch) {
+				lastId = creds.getId();
+				try {
+					PasswordHash hash = credentialsService.getStoredHash(creds);
+					converted += credentialsRepo.convertLegacy(creds.getId(), hash.toBytes());
+				} catch (RuntimeException e) {
+					log.error("Credentials " + creds.getId() + " could not be migrated: " + e.getMessage());
+				}
+			}
+			batch = credentialsRepo.findTop500ByPasswordHashIsNullAndIdGreaterThanOrderByIdAsc(lastId);
+		}
+		if (converted > 0) {
+			log.info("Migrated " + converted + " credentials to binary password hashes");
+		}
+		return converted;
+	}
+}
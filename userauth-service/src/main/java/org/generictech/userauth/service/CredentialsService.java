@@ -0,0 +1,229 @@
+package org.generictech.userauth.service;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.generictech.userauth.exception.CredentialsNotFoundException;
+import org.generictech.userauth.exception.InsertFailedException;
+import org.generictech.userauth.model.Credentials;
+import org.generictech.userauth.model.SystemUser;
+import org.generictech.userauth.repo.CredentialsRepo;
+import org.generictech.userauth.util.InvalidationBus;
+import org.generictech.userauth.util.PasswordHash;
+import org.generictech.userauth.util.PasswordHashingUtility;
+import org.generictech.userauth.util.VerifiedCredentialCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Class to handle business logic pertaining to credentials
+ * @author Jaden Wilson
+ * @since 1.0
+ */
+@Service
+@Slf4j
+public class CredentialsService {
+
+	@Autowired
+	private CredentialsRepo credentialsRepo;
+	@Autowired
+	private PasswordHashingUtility hashingUtility;
+	@Autowired
+	private VerifiedCredentialCache credentialCache;
+	@Autowired
+	private InvalidationBus invalidationBus;
+	/**
+	 * Single background worker for opportunistic rehashes. Rehashing is best effort, so when the queue is full the
+	 * task is dropped and the hash gets upgraded on a later login instead.
+	 */
+	private final ExecutorService rehashExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS
+			, new ArrayBlockingQueue<>(100), new ThreadPoolExecutor.DiscardPolicy());
+	
+	/**
+	 * Method to find user credentials by the credentials id.
+	 * @param id of the credentials record
+	 * @return Credentials object with the necessary credentials data.
+	 * @throws CredentialsNotFoundException
+	 * @since 1.0
+	 */
+	public Credentials findById(int id) throws CredentialsNotFoundException {
+		Optional<Credentials> creds = credentialsRepo.findById(id);
+		if (creds.isPresent()) {
+			return creds.get();
+		} else {
+			throw new CredentialsNotFoundException();
+		}
+	}
+	
+	/**
+	 * Method to find credentials for a specific user by user id
+	 * @param id of the user for whom you are trying to find the credentials
+	 * @return Credentials object
+	 * @throws CredentialsNotFoundException
+	 * @since 1.0
+	 */
+	public Credentials findByUserId(int id) throws CredentialsNotFoundException {
+		Optional<Credentials> creds = credentialsRepo.findCredentials(id);
+		if (creds.isPresent()) {
+			return creds.get();
+		} else {
+			throw new CredentialsNotFoundException();
+		}
+	}
+	
+	/**
+	 * Method to save a new set of credentials to the database.Can only have a single set of credentials per user
+	 * so an Exception will occur if a set of credentials already exists for the specified user. The password is hashed
+	 * before the insert, so no database connection is held while the KDF runs.
+	 * @param password
+	 * @param user
+	 * @return boolean stating whether the credentials were inserted correctly
+	 * @throws InsertFailedException 
+	 * @throws InvalidKeySpecException 
+	 * @throws NoSuchAlgorithmException 
+	 * @throws Exception
+	 * @since 1.0
+	 */
+	public boolean save(String password, SystemUser user) throws InsertFailedException, NoSuchAlgorithmException, InvalidKeySpecException  {
+		return save(hashingUtility.hashPassword(password), user);
+	}
+	
+	/**
+	 * Method to save a new set of credentials from a password that has already been hashed.
+	 * @param hash hash of the new password
+	 * @param user
+	 * @return boolean stating whether the credentials were inserted correctly
+	 * @throws InsertFailedException
+	 * @since 1.1
+	 */
+	public boolean save(PasswordHash hash, SystemUser user) throws InsertFailedException {
+		Credentials creds = new Credentials(hash.toBytes(), user);
+		try {
+			Credentials c = credentialsRepo.save(creds);
+			if (c != null) {
+				return true;
+			} else {
+				return false;
+			}			
+		} catch (Exception e) {
+			throw new InsertFailedException("Credentials insert failed");
+		}
+	}
+	
+	/**
+	 * Method to handle updating credentials. The password is hashed before the credentials are loaded, so no
+	 * database connection is held while the KDF runs.
+	 * @param password new password value
+	 * @param int id of user whos credentials you are trying to alter
+	 * @return boolean
+	 * @throws NoSuchAlgorithmException
+	 * @throws InvalidKeySpecException
+	 * @throws CredentialsNotFoundException
+	 * @since 1.0
+	 */
+	public boolean update(String password, int id) throws NoSuchAlgorithmException, InvalidKeySpecException, CredentialsNotFoundException {
+		return update(hashingUtility.hashPassword(password), id);
+	}
+	
+	/**
+	 * Method to handle updating credentials with a password that has already been hashed.
+	 * @param hash hash of the new password
+	 * @param id of user whos credentials you are trying to alter
+	 * @return boolean
+	 * @throws CredentialsNotFoundException
+	 * @since 1.1
+	 */
+	public boolean update(PasswordHash hash, int id) throws CredentialsNotFoundException {
+		Optional<Credentials> loadedCreds = credentialsRepo.findCredentials(id);
+		if (loadedCreds.isPresent()) {
+			setHash(loadedCreds.get(), hash);
+			credentialsRepo.save(loadedCreds.get());
+			credentialCache.invalidate(id);
+			invalidationBus.credentialsChanged(id);
+			return true;
+		} else {
+			throw new CredentialsNotFoundException();
+		}
+	}
+	
+	/**
+	 * Method to queue a rehash of a users password under the current hashing policy. Called after a successful
+	 * login, which is the only time the plain text password is available. The stored hash is only replaced if it
+	 * is still the one the login verified against, so a concurrent password change always wins.
+	 * @param password plain text password that was just verified
+	 * @param id of the user whose credentials should be upgraded
+	 * @param verifiedHash stored hash the password was verified against
+	 * @since 1.1
+	 */
+	public void rehashInBackground(String password, int id, PasswordHash verifiedHash) {
+		rehashExecutor.execute(() -> {
+			try {
+				PasswordHash hash = hashingUtility.hashPassword(password);
+				Optional<Credentials> loadedCreds = credentialsRepo.findCredentials(id);
+				if (loadedCreds.isPresent() && Arrays.equals(verifiedHash.getHash(), getStoredHash(loadedCreds.get()).getHash())) {
+					setHash(loadedCreds.get(), hash);
+					credentialsRepo.save(loadedCreds.get());
+					credentialCache.invalidate(id);
+					invalidationBus.credentialsChanged(id);
+					log.info("Upgraded password hash for user " + id);
+				}
+			} catch (Exception e) {
+				log.warn("Password rehash for user " + id + " failed: " + e.getMessage());
+			}
+		});
+	}
+	
+	/**
+	 * Method to read the stored hash of a credentials record, from the binary column when it is populated and from
+	 * the legacy text columns otherwise.
+	 * @param creds loaded credentials
+	 * @return {@link PasswordHash}
+	 * @since 1.1
+	 */
+	public PasswordHash getStoredHash(Credentials creds) {
+		if (creds.getPasswordHash() != null) {
+			return PasswordHash.fromBytes(creds.getPasswordHash());
+		}
+		return PasswordHash.parse(creds.getPassword(), creds.getSalt());
+	}
+	
+	private void setHash(Credentials creds, PasswordHash hash) {
+		creds.setPasswordHash(hash.toBytes());
+		creds.setPassword(null);
+		creds.setSalt(null);
+	}
+	
+	@PreDestroy
+	public void shutdown() {
+		rehashExecutor.shutdown();
+	}
+	
+	/**
+	 * Method to handle deleting credentials records
+	 * @param id of the user to be deleted
+	 * @return boolean
+	 * @throws CredentialsNotFoundException
+	 * @since 1.0
+	 */
+	public boolean delete(int id) throws CredentialsNotFoundException {
+		Optional<Credentials> creds = credentialsRepo.findById(id);
+		if (creds.isPresent()) {
+			credentialsRepo.delete(creds.get());
+			credentialCache.invalidate(creds.get().getUser().getId());
+			invalidationBus.credentialsChanged(creds.get().getUser().getId());
+			return true;
+		} else {
+			throw new CredentialsNotFoundException();
+		}
+	}
+}
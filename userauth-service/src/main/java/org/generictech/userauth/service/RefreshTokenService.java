@@ -0,0 +1,188 @@
+package org.generictech.userauth.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.generictech.userauth.exception.InvalidTokenException;
+import org.generictech.userauth.model.RefreshToken;
+import org.generictech.userauth.model.SystemUser;
+import org.generictech.userauth.repo.RefreshTokenRepo;
+import org.generictech.userauth.repo.SystemUserRepo;
+import org.generictech.userauth.util.TokenGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Class to handle business logic pertaining to refresh tokens. A refresh token is an opaque random string handed out
+ * with every access token; exchanging it costs one indexed lookup and no password hashing. Every exchange rotates
+ * the token: the presented one is marked used and a new one of the same family is returned. A used token presented
+ * again means it was copied, so the whole family is revoked and the client has to log in again.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@Service
+@Slf4j
+public class RefreshTokenService {
+
+	private static final int TOKEN_LENGTH = 32;
+	private static final int FAMILY_LENGTH = 16;
+	private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+	private static final ThreadLocal<MessageDigest> DIGESTS = ThreadLocal.withInitial(() -> {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	});
+
+	@Autowired
+	private RefreshTokenRepo refreshTokenRepo;
+	@Autowired
+	private SystemUserRepo systemUserRepo;
+	@Value("${token.refresh.ttl-seconds:2592000}")
+	private long ttlSeconds = 2592000;
+	@Value("${token.refresh.prune-interval-seconds:3600}")
+	private long pruneIntervalSeconds;
+	private ScheduledExecutorService pruner;
+
+	@PostConstruct
+	public void init() {
+		if (pruneIntervalSeconds > 0) {
+			pruner = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread t = new Thread(r, "refresh-token-pruner");
+				t.setDaemon(true);
+				return t;
+			});
+			pruner.scheduleWithFixedDelay(this::prune, pruneIntervalSeconds, pruneIntervalSeconds, TimeUnit.SECONDS);
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		if (pruner != null) {
+			pruner.shutdownNow();
+		}
+	}
+
+	/**
+	 * Method to issue the first refresh token of a new login.
+	 * @param userId id of the user that logged in
+	 * @return String refresh token to hand to the client
+	 * @since 1.1
+	 */
+	public String issue(int userId) {
+		return issue(systemUserRepo.getOne(userId), randomString(FAMILY_LENGTH));
+	}
+
+	/**
+	 * Method to exchange a refresh token for a new one of the same family.
+	 * @param presented refresh token sent by the client
+	 * @return {@link Rotation} with the user the token belongs to and its replacement
+	 * @throws InvalidTokenException if the token is unknown, expired or revoked, or was already used, in which case
+	 * its whole family is revoked
+	 * @since 1.1
+	 */
+	public Rotation rotate(String presented) throws InvalidTokenException {
+		String hash = hash(presented);
+		Optional<RefreshToken> loaded = refreshTokenRepo.findWithUser(hash);
+		if (!loaded.isPresent()) {
+			throw new InvalidTokenException("Refresh token was invalid");
+		}
+		RefreshToken current = loaded.get();
+		if (current.isRevoked() || current.getExpiresAt() < now()) {
+			throw new InvalidTokenException("Refresh token is no longer valid");
+		}
+		if (current.isUsed() || refreshTokenRepo.markUsed(hash) == 0) {
+			refreshTokenRepo.revokeFamily(current.getFamilyId());
+			log.warn("Refresh token reused for user " + current.getUser().getId() + ", revoked its family");
+			throw new InvalidTokenException("Refresh token has already been used");
+		}
+		return new Rotation(current.getUser(), issue(current.getUser(), current.getFamilyId()));
+	}
+
+	/**
+	 * Method to revoke the family of a refresh token, as on logout. Unknown tokens are ignored.
+	 * @param presented refresh token sent by the client
+	 * @since 1.1
+	 */
+	public void revoke(String presented) {
+		refreshTokenRepo.findById(hash(presented))
+			.ifPresent(token -> refreshTokenRepo.revokeFamily(token.getFamilyId()));
+	}
+
+	/**
+	 * Method to delete every refresh token of a user, so no existing session can be extended.
+	 * @param userId id of the user
+	 * @since 1.1
+	 */
+	public void revokeAll(int userId) {
+		refreshTokenRepo.deleteByUser(userId);
+	}
+
+	/**
+	 * Method to delete refresh tokens that have expired.
+	 * @since 1.1
+	 */
+	public void prune() {
+		try {
+			int deleted = refreshTokenRepo.deleteExpired(now());
+			if (deleted > 0) {
+				log.info("Deleted " + deleted + " expired refresh tokens");
+			}
+		} catch (Exception e) {
+			log.warn("Pruning refresh tokens failed: " + e.getMessage());
+		}
+	}
+
+	private String issue(SystemUser user, String familyId) {
+		String token = randomString(TOKEN_LENGTH);
+		refreshTokenRepo.save(new RefreshToken(hash(token), familyId, user, now() + ttlSeconds));
+		return token;
+	}
+
+	private static String randomString(int length) {
+		return ENCODER.encodeToString(TokenGenerator.nextToken(length));
+	}
+
+	private static String hash(String token) {
+		return ENCODER.encodeToString(DIGESTS.get().digest(token.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private static long now() {
+		return System.currentTimeMillis() / 1000;
+	}
+
+	/**
+	 * Outcome of a successful refresh: the user the token belonged to and the refresh token that replaces it.
+	 */
+	public static class Rotation {
+
+		private final SystemUser user;
+		private final String token;
+
+		public Rotation(SystemUser user, String token) {
+			this.user = user;
+			this.token = token;
+		}
+
+		public SystemUser getUser() {
+			return user;
+		}
+
+		public String getToken() {
+			return token;
+		}
+	}
+}
@@ -0,0 +1,297 @@
+package org.generictech.userauth.service;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import org.generictech.userauth.dto.SystemUserDataDTO;
+import org.generictech.userauth.dto.SystemUserParams;
+import org.generictech.userauth.exception.BadParameterException;
+import org.generictech.userauth.exception.CredentialsNotFoundException;
+import org.generictech.userauth.exception.InsertFailedException;
+import org.generictech.userauth.exception.SystemUserNotFoundException;
+import org.generictech.userauth.model.Credentials;
+import org.generictech.userauth.model.SystemUser;
+import org.generictech.userauth.repo.SystemUserRepo;
+import org.generictech.userauth.security.TokenRevocations;
+import org.generictech.userauth.util.InvalidationBus;
+import org.generictech.userauth.util.PasswordHash;
+import org.generictech.userauth.util.PasswordHashingUtility;
+import org.generictech.userauth.util.SystemUserCache;
+import org.generictech.userauth.util.UserVersions;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+/**
+ * Class to handle business logic concerning the system_user table.
+ * @author Jaden Wilson
+ * @since 1.0
+ */
+@Service
+public class SystemUserService {
+
+	@Autowired
+	private SystemUserRepo systemUserRepo;
+	@Autowired
+	private CredentialsService credentialsService;
+	@Autowired
+	private PasswordHashingUtility hashingUtility;
+	@Autowired
+	@Qualifier("authExecutor")
+	private Executor authExecutor;
+	@Autowired
+	private UserVersions userVersions;
+	@Autowired
+	private TokenRevocations revocations;
+	@Autowired
+	private RefreshTokenService refreshTokenService;
+	@Autowired
+	private SystemUserCache userCache;
+	@Autowired
+	private InvalidationBus invalidationBus;
+	
+	/**
+	 * Method to find a user by id value. Users are served from the {@link SystemUserCache} when held there, and
+	 * must not be modified. Concurrent lookups of a user that is not cached share one query.
+	 * @param id of the desired user
+	 * @return {@link SystemUser}
+	 * @throws SystemUserNotFoundException
+	 * @since 1.0
+	 */
+	public SystemUser findById(int id) throws SystemUserNotFoundException {
+		SystemUser cached = userCache.getById(id);
+		if (cached != null) {
+			return cached;
+		}
+		return found(userCache.loadById(id, () -> systemUserRepo.findById(id)));
+	}
+	
+	/**
+	 * Method to find several users by id value in a single query. Only the users not held in the
+	 * {@link SystemUserCache} are queried for.
+	 * @param ids of the desired users
+	 * @return Map of the users that were found, by id. Ids with no user are absent.
+	 * @since 1.1
+	 */
+	public Map<Integer, SystemUser> findAllById(Collection<Integer> ids) {
+		Map<Integer, SystemUser> users = new HashMap<>();
+		List<Integer> missing = new ArrayList<>();
+		for (Integer id : ids) {
+			SystemUser cached = userCache.getById(id);
+			if (cached != null) {
+				users.put(id, cached);
+			} else {
+				missing.add(id);
+			}
+		}
+		if (missing.isEmpty()) {
+			return users;
+		}
+		long stamp = userCache.stamp();
+		for (SystemUser user : systemUserRepo.findAllById(missing)) {
+			users.put(user.getId(), user);
+			userCache.put(user, stamp);
+		}
+		return users;
+	}
+	
+	/**
+	 * Method to find a user by username
+	 * @param username
+	 * @return {@link SystemUser}
+	 * @throws SystemUserNotFoundException
+	 * @since 1.0
+	 */
+	public SystemUser findByUsername(String username) throws SystemUserNotFoundException {
+		SystemUser cached = userCache.getByUsername(username);
+		if (cached != null) {
+			return cached;
+		}
+		return found(userCache.loadByUsername(username, () -> systemUserRepo.findByUsername(username)));
+	}
+	
+	/**
+	 * Method to handle finding a user by email. 
+	 * @param email
+	 * @return {@link SystemUser}
+	 * @throws SystemUserNotFoundException
+	 * @since 1.0
+	 */
+	public SystemUser findByEmail(String email) throws SystemUserNotFoundException {
+		SystemUser cached = userCache.getByEmail(email);
+		if (cached != null) {
+			return cached;
+		}
+		return found(userCache.loadByEmail(email, () -> systemUserRepo.findByEmail(email)));
+	}
+	
+	private SystemUser found(Optional<SystemUser> loaded) throws SystemUserNotFoundException {
+		if (!loaded.isPresent()) {
+			throw new SystemUserNotFoundException();
+		}
+		return loaded.get();
+	}
+	
+	/**
+	 * Method to handle finding users by specified criteria parameters. This method will only allow searching by a single
+	 * specific value. If multiple values are provided it will search by the most specific first.
+	 * @param params Parameters provided to the controller via HTTP request
+	 * @return {@link SystemUser}
+	 * @throws BadParameterException
+	 * @throws SystemUserNotFoundException
+	 * @since 1.0
+	 */
+	public SystemUser findByCriteria(SystemUserParams params, int id) throws BadParameterException, SystemUserNotFoundException {
+		if (params == null) {
+			throw new BadParameterException();
+		}
+		if (params.getId() != 0) {
+			return findById(params.getId());
+		} else if (params.getUsername() != null) {
+			return findByUsername(params.getUsername());
+		} else if (params.getEmail() != null) {
+			return findByEmail(params.getEmail());
+		} else if (params.empty()) {
+			return findById(id);
+		} 
+		throw new SystemUserNotFoundException();
+	}
+	
+	/**
+	 * Method to handle saving a new user to the database. The password is hashed before anything is read or
+	 * written, so no database connection is held while the KDF runs.
+	 * @param userData
+	 * @return {@link SystemUser}
+	 * @throws InsertFailedException 
+	 * @throws InvalidKeySpecException 
+	 * @throws NoSuchAlgorithmException 
+	 * @throws Exception
+	 * @since 1.0
+	 */
+	public SystemUser save(SystemUserDataDTO userData) throws NoSuchAlgorithmException, InvalidKeySpecException, InsertFailedException  {
+		PasswordHash hash = hashingUtility.hashPassword(userData.getPassword());
+		SystemUser user = new SystemUser(userData.getFirstName(), userData.getLastName()
+				, userData.getEmail(), userData.getUsername());
+		SystemUser u = systemUserRepo.save(user);
+		userCache.invalidate(u.getId());
+		if (!credentialsService.save(hash, u)) {
+			systemUserRepo.delete(u);
+			userCache.invalidate(u.getId());
+			throw new InsertFailedException("Credentials insert failed");
+		}
+		return u;
+	}
+	
+	/**
+	 * Method to handle saving a new user without holding the calling thread while the password is hashed. The
+	 * password is hashed before anything is written, so a full hashing queue never leaves a user without credentials.
+	 * @param userData
+	 * @return CompletableFuture of the saved {@link SystemUser}. Fails with an {@link InsertFailedException} if the
+	 * credentials could not be stored, or a {@link org.generictech.userauth.exception.ServerBusyException} if the
+	 * hashing queue is full.
+	 * @since 1.1
+	 */
+	public CompletableFuture<SystemUser> saveAsync(SystemUserDataDTO userData) {
+		return hashingUtility.hashPasswordAsync(userData.getPassword()).thenApplyAsync(hash -> {
+			SystemUser user = new SystemUser(userData.getFirstName(), userData.getLastName()
+					, userData.getEmail(), userData.getUsername());
+			SystemUser u = systemUserRepo.save(user);
+			userCache.invalidate(u.getId());
+			try {
+				if (!credentialsService.save(hash, u)) {
+					throw new InsertFailedException("Credentials insert failed");
+				}
+			} catch (InsertFailedException e) {
+				systemUserRepo.delete(u);
+				userCache.invalidate(u.getId());
+				throw new CompletionException(e);
+			}
+			return u;
+		}, authExecutor);
+	}
+	
+	/**
+	 * Method to handle updating a users data in the database. This method checks each value to see if it contains new data and
+	 * if it does it updates the data and persists the changes. A new password is hashed after the user has been loaded
+	 * and before anything is written, so no database connection is held while the KDF runs. Stateless tokens issued
+	 * before the update stop validating, and a password change revokes every token issued before it. The user is
+	 * always loaded from the database rather than the {@link SystemUserCache}, and dropped from the cache once saved.
+	 * Other instances are told of the change through the {@link InvalidationBus}.
+	 * @param userData
+	 * @return {@link SystemUser}
+	 * @throws SystemUserNotFoundException
+	 * @throws NoSuchAlgorithmException
+	 * @throws InvalidKeySpecException
+	 * @throws CredentialsNotFoundException
+	 * @since 1.0
+	 */
+	public SystemUser update(SystemUserDataDTO userData) throws SystemUserNotFoundException, NoSuchAlgorithmException, InvalidKeySpecException, CredentialsNotFoundException {
+		Optional<SystemUser> loadedUser = systemUserRepo.findById(userData.getId());
+		if (loadedUser.isPresent()) {
+			SystemUser user = loadedUser.get();
+			if (userData.getFirstName() != null) {
+				user.setFirstName(userData.getFirstName());
+			}
+			if (userData.getLastName() != null) {
+				user.setLastName(userData.getLastName());
+			}
+			if (userData.getEmail() != null) {
+				user.setEmail(userData.getEmail());
+			}
+			
+			PasswordHash hash = null;
+			if (userData.getPassword() != null) {
+				hash = hashingUtility.hashPassword(userData.getPassword());
+			}
+			
+			SystemUser u = systemUserRepo.save(user);
+			userCache.invalidate(userData.getId());
+			
+			if (hash != null) {
+				credentialsService.update(hash, userData.getId());
+				long notBefore = revocations.revokeAll(userData.getId());
+				refreshTokenService.revokeAll(userData.getId());
+				invalidationBus.userTokensRevoked(userData.getId(), notBefore);
+			}
+			invalidationBus.userChanged(userData.getId(), userVersions.bump(userData.getId()));
+			
+			return u;
+			
+		} else {
+			throw new SystemUserNotFoundException();
+		}
+	}
+	
+	/**
+	 * Method to handle deleting a user from the database.
+	 * @param id
+	 * @return boolean
+	 * @throws SystemUserNotFoundException
+	 * @throws CredentialsNotFoundException
+	 * @since 1.0
+	 */
+	public boolean delete(int id) throws SystemUserNotFoundException, CredentialsNotFoundException {
+		Optional<SystemUser> user = systemUserRepo.findById(id);
+		if (user.isPresent()) {
+			Credentials creds = credentialsService.findByUserId(user.get().getId());
+			credentialsService.delete(creds.getId());
+			refreshTokenService.revokeAll(id);
+			systemUserRepo.delete(user.get());
+			userCache.invalidate(id);
+			invalidationBus.userChanged(id, userVersions.bump(id));
+			invalidationBus.userTokensRevoked(id, revocations.revokeAll(id));
+			return true;
+		} else {
+			throw new SystemUserNotFoundException();
+		}
+	}
+}
@@ -0,0 +1,302 @@
+package org.generictech.userauth.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Argon2id (RFC 9106, version 0x13) with lane parallel memory filling. Within each of the four slices of a pass
+ * the lanes are independent by construction, so every lane of a slice is filled as its own task on a shared
+ * {@link ForkJoinPool} and the slice boundary acts as the synchronisation point. With p lanes a single hash can
+ * use up to p cores for the same memory hard cost.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public final class Argon2Engine {
+
+	private static final int VERSION = 0x13;
+	private static final int TYPE_ID = 2;
+	private static final int SYNC_POINTS = 4;
+	private static final int BLOCK_WORDS = 128;
+	private static final int BLOCK_BYTES = 1024;
+
+	private final ForkJoinPool lanePool;
+
+	public Argon2Engine(ForkJoinPool lanePool) {
+		this.lanePool = lanePool;
+	}
+
+	/**
+	 * Method to derive an Argon2id tag.
+	 * @param password password bytes
+	 * @param salt salt bytes, at least 8
+	 * @param memoryKib memory cost in KiB, at least 8 per lane
+	 * @param iterations number of passes over memory
+	 * @param parallelism number of lanes
+	 * @param tagLength length of the tag in bytes, at least 4
+	 * @return byte[] tag
+	 * @since 1.1
+	 */
+	public byte[] derive(byte[] password, byte[] salt, int memoryKib, int iterations, int parallelism, int tagLength) {
+		return derive(password, salt, new byte[0], new byte[0], memoryKib, iterations, parallelism, tagLength);
+	}
+
+	/**
+	 * Method to derive an Argon2id tag with an optional secret and associated data.
+	 */
+	public byte[] derive(byte[] password, byte[] salt, byte[] secret, byte[] associatedData, int memoryKib, int iterations
+			, int parallelism, int tagLength) {
+		if (parallelism < 1 || iterations < 1 || tagLength < 4 || salt.length < 8 || memoryKib < 8 * parallelism) {
+			throw new IllegalArgumentException("Invalid Argon2 parameters");
+		}
+		int segmentLength = memoryKib / (SYNC_POINTS * parallelism);
+		int laneLength = segmentLength * SYNC_POINTS;
+		Instance instance = new Instance(parallelism, laneLength, segmentLength, iterations);
+
+		byte[] h0 = new Blake2b(64)
+				.updateInt(parallelism).updateInt(tagLength).updateInt(memoryKib).updateInt(iterations)
+				.updateInt(VERSION).updateInt(TYPE_ID)
+				.updateInt(password.length).update(password)
+				.updateInt(salt.length).update(salt)
+				.updateInt(secret.length).update(secret)
+				.updateInt(associatedData.length).update(associatedData)
+				.digest();
+		byte[] seed = Arrays.copyOf(h0, 72);
+		for (int lane = 0; lane < parallelism; lane++) {
+			for (int column = 0; column < 2; column++) {
+				writeInt(seed, 64, column);
+				writeInt(seed, 68, lane);
+				byte[] block = hashLong(seed, BLOCK_BYTES);
+				int offset = (lane * laneLength + column) * BLOCK_WORDS;
+				for (int i = 0; i < BLOCK_WORDS; i++) {
+					instance.memory[offset + i] = Blake2b.readLong(block, i * 8);
+				}
+			}
+		}
+
+		for (int pass = 0; pass < iterations; pass++) {
+			for (int slice = 0; slice < SYNC_POINTS; slice++) {
+				fillSlice(instance, pass, slice);
+			}
+		}
+
+		long[] last = new long[BLOCK_WORDS];
+		for (int lane = 0; lane < parallelism; lane++) {
+			int offset = (lane * laneLength + laneLength - 1) * BLOCK_WORDS;
+			for (int i = 0; i < BLOCK_WORDS; i++) {
+				last[i] ^= instance.memory[offset + i];
+			}
+		}
+		byte[] finalBlock = new byte[BLOCK_BYTES];
+		for (int i = 0; i < BLOCK_WORDS; i++) {
+			for (int b = 0; b < 8; b++) {
+				finalBlock[i * 8 + b] = (byte) (last[i] >>> (8 * b));
+			}
+		}
+		Arrays.fill(instance.memory, 0L);
+		return hashLong(finalBlock, tagLength);
+	}
+
+	private void fillSlice(Instance instance, int pass, int slice) {
+		if (instance.lanes == 1) {
+			fillSegment(instance, pass, slice, 0);
+			return;
+		}
+		List<ForkJoinTask<?>> tasks = new ArrayList<>(instance.lanes);
+		for (int lane = 0; lane < instance.lanes; lane++) {
+			int l = lane;
+			tasks.add(lanePool.submit(() -> fillSegment(instance, pass, slice, l)));
+		}
+		for (ForkJoinTask<?> task : tasks) {
+			task.join();
+		}
+	}
+
+	private void fillSegment(Instance instance, int pass, int slice, int lane) {
+		long[] memory = instance.memory;
+		boolean dataIndependent = pass == 0 && slice < SYNC_POINTS / 2;
+		long[] address = null;
+		long[] input = null;
+		long[] zero = null;
+		long[] scratch = new long[BLOCK_WORDS];
+		long[] r = new long[BLOCK_WORDS];
+		if (dataIndependent) {
+			address = new long[BLOCK_WORDS];
+			input = new long[BLOCK_WORDS];
+			zero = new long[BLOCK_WORDS];
+			input[0] = pass;
+			input[1] = lane;
+			input[2] = slice;
+			input[3] = (long) instance.lanes * instance.laneLength;
+			input[4] = instance.passes;
+			input[5] = TYPE_ID;
+		}
+
+		int startingIndex = 0;
+		if (pass == 0 && slice == 0) {
+			startingIndex = 2;
+			if (dataIndependent) {
+				nextAddresses(address, input, zero, scratch, r);
+			}
+		}
+
+		int currentOffset = lane * instance.laneLength + slice * instance.segmentLength + startingIndex;
+		int previousOffset = currentOffset % instance.laneLength == 0
+				? currentOffset + instance.laneLength - 1 : currentOffset - 1;
+
+		for (int i = startingIndex; i < instance.segmentLength; i++, currentOffset++, previousOffset++) {
+			if (currentOffset % instance.laneLength == 1) {
+				previousOffset = currentOffset - 1;
+			}
+			long pseudoRandom;
+			if (dataIndependent) {
+				if (i % BLOCK_WORDS == 0) {
+					nextAddresses(address, input, zero, scratch, r);
+				}
+				pseudoRandom = address[i % BLOCK_WORDS];
+			} else {
+				pseudoRandom = memory[previousOffset * BLOCK_WORDS];
+			}
+
+			int refLane = (int) ((pseudoRandom >>> 32) % instance.lanes);
+			if (pass == 0 && slice == 0) {
+				refLane = lane;
+			}
+			int refIndex = indexAlpha(instance, pass, slice, i, pseudoRandom & 0xFFFFFFFFL, refLane == lane);
+			int refOffset = instance.laneLength * refLane + refIndex;
+
+			fillBlock(memory, previousOffset * BLOCK_WORDS, memory, refOffset * BLOCK_WORDS
+					, memory, currentOffset * BLOCK_WORDS, pass != 0, scratch, r);
+		}
+	}
+
+	private int indexAlpha(Instance instance, int pass, int slice, int index, long pseudoRandom, boolean sameLane) {
+		long referenceAreaSize;
+		if (pass == 0) {
+			if (slice == 0) {
+				referenceAreaSize = index - 1;
+			} else if (sameLane) {
+				referenceAreaSize = (long) slice * instance.segmentLength + index - 1;
+			} else {
+				referenceAreaSize = (long) slice * instance.segmentLength + (index == 0 ? -1 : 0);
+			}
+		} else {
+			if (sameLane) {
+				referenceAreaSize = instance.laneLength - instance.segmentLength + index - 1;
+			} else {
+				referenceAreaSize = instance.laneLength - instance.segmentLength + (index == 0 ? -1 : 0);
+			}
+		}
+		long relativePosition = (pseudoRandom * pseudoRandom) >>> 32;
+		relativePosition = referenceAreaSize - 1 - ((referenceAreaSize * relativePosition) >>> 32);
+		long startPosition = 0;
+		if (pass != 0) {
+			startPosition = slice == SYNC_POINTS - 1 ? 0 : (long) (slice + 1) * instance.segmentLength;
+		}
+		return (int) ((startPosition + relativePosition) % instance.laneLength);
+	}
+
+	private static void nextAddresses(long[] address, long[] input, long[] zero, long[] scratch, long[] r) {
+		input[6]++;
+		fillBlock(zero, 0, input, 0, address, 0, false, scratch, r);
+		fillBlock(zero, 0, address, 0, address, 0, false, scratch, r);
+	}
+
+	/**
+	 * Argon2 compression G. Writes {@code P(prev ^ ref) ^ prev ^ ref} to the next block, additionally xor'd with
+	 * the block being overwritten on passes after the first.
+	 */
+	private static void fillBlock(long[] prevMem, int prev, long[] refMem, int ref, long[] nextMem, int next
+			, boolean withXor, long[] tmp, long[] r) {
+		for (int i = 0; i < BLOCK_WORDS; i++) {
+			r[i] = prevMem[prev + i] ^ refMem[ref + i];
+			tmp[i] = withXor ? r[i] ^ nextMem[next + i] : r[i];
+		}
+		for (int i = 0; i < 8; i++) {
+			int b = 16 * i;
+			round(r, b, b + 1, b + 2, b + 3, b + 4, b + 5, b + 6, b + 7, b + 8, b + 9, b + 10, b + 11, b + 12, b + 13, b + 14, b + 15);
+		}
+		for (int i = 0; i < 8; i++) {
+			int b = 2 * i;
+			round(r, b, b + 1, b + 16, b + 17, b + 32, b + 33, b + 48, b + 49, b + 64, b + 65, b + 80, b + 81, b + 96, b + 97
+					, b + 112, b + 113);
+		}
+		for (int i = 0; i < BLOCK_WORDS; i++) {
+			nextMem[next + i] = tmp[i] ^ r[i];
+		}
+	}
+
+	private static void round(long[] v, int v0, int v1, int v2, int v3, int v4, int v5, int v6, int v7, int v8, int v9
+			, int v10, int v11, int v12, int v13, int v14, int v15) {
+		gb(v, v0, v4, v8, v12);
+		gb(v, v1, v5, v9, v13);
+		gb(v, v2, v6, v10, v14);
+		gb(v, v3, v7, v11, v15);
+		gb(v, v0, v5, v10, v15);
+		gb(v, v1, v6, v11, v12);
+		gb(v, v2, v7, v8, v13);
+		gb(v, v3, v4, v9, v14);
+	}
+
+	private static void gb(long[] v, int a, int b, int c, int d) {
+		v[a] = fBlaMka(v[a], v[b]);
+		v[d] = Long.rotateRight(v[d] ^ v[a], 32);
+		v[c] = fBlaMka(v[c], v[d]);
+		v[b] = Long.rotateRight(v[b] ^ v[c], 24);
+		v[a] = fBlaMka(v[a], v[b]);
+		v[d] = Long.rotateRight(v[d] ^ v[a], 16);
+		v[c] = fBlaMka(v[c], v[d]);
+		v[b] = Long.rotateRight(v[b] ^ v[c], 63);
+	}
+
+	private static long fBlaMka(long x, long y) {
+		return x + y + 2 * (x & 0xFFFFFFFFL) * (y & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Variable length hash H' from RFC 9106 section 3.3.
+	 */
+	private static byte[] hashLong(byte[] input, int length) {
+		if (length <= 64) {
+			return new Blake2b(length).updateInt(length).update(input).digest();
+		}
+		byte[] out = new byte[length];
+		byte[] v = new Blake2b(64).updateInt(length).update(input).digest();
+		System.arraycopy(v, 0, out, 0, 32);
+		int written = 32;
+		while (length - written > 64) {
+			v = new Blake2b(64).update(v).digest();
+			System.arraycopy(v, 0, out, written, 32);
+			written += 32;
+		}
+		v = new Blake2b(length - written).update(v).digest();
+		System.arraycopy(v, 0, out, written, v.length);
+		return out;
+	}
+
+	private static void writeInt(byte[] out, int offset, int value) {
+		out[offset] = (byte) value;
+		out[offset + 1] = (byte) (value >>> 8);
+		out[offset + 2] = (byte) (value >>> 16);
+		out[offset + 3] = (byte) (value >>> 24);
+	}
+
+	private static final class Instance {
+
+		final int lanes;
+		final int laneLength;
+		final int segmentLength;
+		final int passes;
+		final long[] memory;
+
+		Instance(int lanes, int laneLength, int segmentLength, int passes) {
+			this.lanes = lanes;
+			this.laneLength = laneLength;
+			this.segmentLength = segmentLength;
+			this.passes = passes;
+			this.memory = new long[lanes * laneLength * BLOCK_WORDS];
+		}
+	}
+}
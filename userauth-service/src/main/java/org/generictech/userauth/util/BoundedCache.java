@@ -0,0 +1,206 @@
+package org.generictech.userauth.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Concurrent in-memory cache with a size bound and per-entry expiry. Reads are a single map lookup plus a volatile
+ * write of the access time. When a write takes the cache over its bound, one thread sweeps out expired entries and,
+ * if that is not enough, the least recently read tenth of the rest, so the cost of eviction is amortised over many
+ * writes and never blocks readers.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class BoundedCache<K, V> {
+
+	private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+	private final int maxEntries;
+	private final long ttlNanos;
+	private final LongSupplier clock;
+	private final AtomicBoolean evicting = new AtomicBoolean();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * @param maxEntries upper bound on the number of entries held
+	 * @param ttlNanos how long an entry stays valid after it is written
+	 */
+	public BoundedCache(int maxEntries, long ttlNanos) {
+		this(maxEntries, ttlNanos, System::nanoTime);
+	}
+
+	BoundedCache(int maxEntries, long ttlNanos, LongSupplier clock) {
+		if (maxEntries < 1 || ttlNanos <= 0) {
+			throw new IllegalArgumentException("Cache size and time to live must be positive");
+		}
+		this.maxEntries = maxEntries;
+		this.ttlNanos = ttlNanos;
+		this.clock = clock;
+	}
+
+	/**
+	 * Method to read a live entry.
+	 * @param key key of the entry
+	 * @return V cached value, or null if there is none or it has expired
+	 * @since 1.1
+	 */
+	public V get(K key) {
+		Entry<V> entry = entries.get(key);
+		long now = clock.getAsLong();
+		if (entry == null) {
+			misses.increment();
+			return null;
+		}
+		if (entry.expiresAt - now <= 0) {
+			entries.remove(key, entry);
+			misses.increment();
+			return null;
+		}
+		entry.lastRead = now;
+		hits.increment();
+		return entry.value;
+	}
+
+	/**
+	 * Method to add or replace an entry, valid for the cache's time to live.
+	 * @param key key of the entry
+	 * @param value value to be cached
+	 * @since 1.1
+	 */
+	public void put(K key, V value) {
+		put(key, value, ttlNanos);
+	}
+
+	/**
+	 * Method to add or replace an entry that must not outlive the given lifetime. The cache's own time to live still
+	 * applies if it is shorter.
+	 * @param key key of the entry
+	 * @param value value to be cached
+	 * @param lifetimeNanos longest the entry may stay valid
+	 * @since 1.1
+	 */
+	public void put(K key, V value, long lifetimeNanos) {
+		if (lifetimeNanos <= 0) {
+			return;
+		}
+		long now = clock.getAsLong();
+		entries.put(key, new Entry<>(value, now + Math.min(ttlNanos, lifetimeNanos), now));
+		if (entries.size() > maxEntries) {
+			evict(now);
+		}
+	}
+
+	/**
+	 * Method to remove an entry straight away.
+	 * @param key key of the entry
+	 * @since 1.1
+	 */
+	public void invalidate(K key) {
+		entries.remove(key);
+	}
+
+	public void invalidateAll() {
+		entries.clear();
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Method to publish the hit, miss, eviction, size and hit ratio figures of this cache under the standard cache meter names.
+	 * @param registry registry to publish to
+	 * @param name value of the cache tag
+	 * @return this cache
+	 * @since 1.1
+	 */
+	public BoundedCache<K, V> bindTo(MeterRegistry registry, String name) {
+		FunctionCounter.builder("cache.gets", hits, LongAdder::doubleValue).tag("cache", name).tag("result", "hit")
+			.description("Cache reads that found a live entry")
+			.register(registry);
+		FunctionCounter.builder("cache.gets", misses, LongAdder::doubleValue).tag("cache", name).tag("result", "miss")
+			.description("Cache reads that found nothing")
+			.register(registry);
+		FunctionCounter.builder("cache.evictions", evictions, LongAdder::doubleValue).tag("cache", name)
+			.description("Entries removed to keep the cache within its bound")
+			.register(registry);
+		Gauge.builder("cache.size", entries, Map::size).tag("cache", name)
+			.description("Entries currently held")
+			.register(registry);
+		Gauge.builder("cache.hit.ratio", this, BoundedCache::hitRatio).tag("cache", name)
+			.description("Share of cache reads that found a live entry")
+			.register(registry);
+		return this;
+	}
+
+	/**
+	 * @return double share of reads so far that found a live entry, 0 before the first read
+	 */
+	public double hitRatio() {
+		double found = hits.sum();
+		double total = found + misses.sum();
+		return total == 0 ? 0 : found / total;
+	}
+
+	private void evict(long now) {
+		if (!evicting.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			entries.values().removeIf(entry -> entry.expiresAt - now <= 0);
+			int excess = entries.size() - maxEntries;
+			if (excess > 0) {
+				List<Candidate<K, V>> candidates = new ArrayList<>(entries.size());
+				entries.forEach((key, entry) -> candidates.add(new Candidate<>(key, entry, entry.lastRead - now)));
+				candidates.sort((a, b) -> Long.compare(a.lastRead, b.lastRead));
+				int target = Math.min(candidates.size(), excess + maxEntries / 10);
+				for (int i = 0; i < target; i++) {
+					if (entries.remove(candidates.get(i).key, candidates.get(i).entry)) {
+						evictions.increment();
+					}
+				}
+			}
+		} finally {
+			evicting.set(false);
+		}
+	}
+
+	/**
+	 * Entry paired with its read time as of the start of an eviction, since the live value may move mid sort.
+	 */
+	private static class Candidate<K, V> {
+
+		private final K key;
+		private final Entry<V> entry;
+		private final long lastRead;
+
+		private Candidate(K key, Entry<V> entry, long lastRead) {
+			this.key = key;
+			this.entry = entry;
+			this.lastRead = lastRead;
+		}
+	}
+
+	private static class Entry<V> {
+
+		private final V value;
+		private final long expiresAt;
+		private volatile long lastRead;
+
+		private Entry(V value, long expiresAt, long lastRead) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+			this.lastRead = lastRead;
+		}
+	}
+}
@@ -0,0 +1,157 @@
+package org.generictech.userauth.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of keys that each stop mattering at a known time, such as the jtis of revoked tokens. Keys are kept in
+ * one filter per expiry bucket, so a lookup for a key with a known expiry probes a single filter, and a whole bucket is
+ * dropped once every key in it has expired. Memory therefore stays proportional to the keys that are still live,
+ * without ever having to delete from a filter.
+ * <p>
+ * Like any Bloom filter it can report a key it never saw; callers confirm a positive against the authoritative store.
+ * It never misses a key that was added and has not yet expired.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class ExpiringBloomFilter {
+
+	private final long bucketSeconds;
+	private final int bits;
+	private final int hashes;
+	private final ConcurrentNavigableMap<Long, Generation> generations = new ConcurrentSkipListMap<>();
+
+	/**
+	 * @param expectedPerBucket keys expected to expire within one bucket
+	 * @param falsePositiveRate target false positive rate while a bucket holds no more than the expected keys
+	 * @param bucketSeconds span of expiry times sharing one filter
+	 */
+	public ExpiringBloomFilter(int expectedPerBucket, double falsePositiveRate, long bucketSeconds) {
+		int n = Math.max(1, expectedPerBucket);
+		long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+		this.bits = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, m));
+		this.hashes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+		this.bucketSeconds = bucketSeconds;
+	}
+
+	/**
+	 * Method to add a key until it expires.
+	 * @param key key to add
+	 * @param expiresAt epoch second after which the key no longer needs to be found
+	 * @since 1.1
+	 */
+	public void add(String key, long expiresAt) {
+		generations.computeIfAbsent(bucket(expiresAt), b -> new Generation(bits)).add(hash(key), hashes);
+	}
+
+	/**
+	 * Method to check for a key.
+	 * @param key key to look for
+	 * @param expiresAt epoch second the key expires at if known, otherwise a negative value to check every bucket
+	 * @return boolean false if the key was definitely not added, true if it probably was
+	 * @since 1.1
+	 */
+	public boolean mightContain(String key, long expiresAt) {
+		long hash = hash(key);
+		if (expiresAt >= 0) {
+			Generation generation = generations.get(bucket(expiresAt));
+			return generation != null && generation.contains(hash, hashes);
+		}
+		for (Generation generation : generations.values()) {
+			if (generation.contains(hash, hashes)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Method to drop every bucket whose keys have all expired.
+	 * @param now current epoch second
+	 * @since 1.1
+	 */
+	public void prune(long now) {
+		generations.headMap(bucket(now)).clear();
+	}
+
+	/**
+	 * Method to count the keys added to the buckets still held.
+	 * @return int keys added, counting repeats
+	 * @since 1.1
+	 */
+	public int size() {
+		int size = 0;
+		for (Map.Entry<Long, Generation> entry : generations.entrySet()) {
+			size += entry.getValue().count.get();
+		}
+		return size;
+	}
+
+	int buckets() {
+		return generations.size();
+	}
+
+	/**
+	 * Bucket holding the keys expiring at or before its end, so keys in every earlier bucket have expired.
+	 */
+	private long bucket(long expiresAt) {
+		return Math.floorDiv(expiresAt + bucketSeconds - 1, bucketSeconds);
+	}
+
+	/**
+	 * 64 bit FNV-1a over the characters, finished with the SplitMix64 mixer; the halves serve as the two hashes the
+	 * probe positions are derived from.
+	 */
+	private static long hash(String key) {
+		long h = 0xcbf29ce484222325L;
+		for (int i = 0; i < key.length(); i++) {
+			h ^= key.charAt(i);
+			h *= 0x100000001b3L;
+		}
+		h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+		h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+		return h ^ (h >>> 31);
+	}
+
+	private static class Generation {
+
+		private final AtomicLongArray words;
+		private final int bits;
+		private final AtomicInteger count = new AtomicInteger();
+
+		private Generation(int bits) {
+			this.bits = bits;
+			this.words = new AtomicLongArray((bits + 63) / 64);
+		}
+
+		private void add(long hash, int hashes) {
+			int h1 = (int) hash;
+			int h2 = (int) (hash >>> 32);
+			for (int i = 0; i < hashes; i++) {
+				int bit = Math.floorMod(h1 + i * h2, bits);
+				long mask = 1L << bit;
+				int word = bit >>> 6;
+				long current;
+				do {
+					current = words.get(word);
+				} while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+			}
+			count.incrementAndGet();
+		}
+
+		private boolean contains(long hash, int hashes) {
+			int h1 = (int) hash;
+			int h2 = (int) (hash >>> 32);
+			for (int i = 0; i < hashes; i++) {
+				int bit = Math.floorMod(h1 + i * h2, bits);
+				if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
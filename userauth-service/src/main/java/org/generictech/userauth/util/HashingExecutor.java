@@ -0,0 +1,152 @@
+package org.generictech.userauth.util;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+
+import org.generictech.userauth.exception.ServerBusyException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Dedicated, CPU sized worker pool for password hashing. Keeping the KDF off the servlet threads means a burst
+ * of logins can only ever pin as many cores as the pool has threads, and the bounded queue turns overload into
+ * a fast {@link ServerBusyException} instead of an ever growing backlog. Also owns the fork-join pool that
+ * {@link Argon2Engine} spreads the lanes of a single hash across.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@Component
+public class HashingExecutor {
+
+	private final ThreadPoolExecutor executor;
+	private final ForkJoinPool lanePool;
+	private final Timer waitTimer;
+	private final Timer hashTimer;
+
+	public HashingExecutor(@Value("${hashing.pool-size:0}") int poolSize
+			, @Value("${hashing.queue-capacity:64}") int queueCapacity
+			, @Value("${hashing.argon2.lane-threads:0}") int laneThreads, MeterRegistry registry) {
+		int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+		this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS
+				, new ArrayBlockingQueue<>(queueCapacity), new HashingThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+		this.lanePool = new ForkJoinPool(laneThreads > 0 ? laneThreads : Runtime.getRuntime().availableProcessors());
+
+		Gauge.builder("hashing.queue.depth", executor, e -> e.getQueue().size())
+			.description("Password hashing tasks waiting for a worker")
+			.register(registry);
+		Gauge.builder("hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+			.description("Password hashing tasks currently running")
+			.register(registry);
+		this.waitTimer = Timer.builder("hashing.wait")
+				.description("Time a password hashing task spent queued")
+				.register(registry);
+		this.hashTimer = Timer.builder("hashing.time")
+				.description("Time spent computing a password hash")
+				.register(registry);
+	}
+
+	/**
+	 * Method to run a hashing task on the worker pool and wait for its result.
+	 * @param task the hashing work to be run
+	 * @return result of the task
+	 * @throws NoSuchAlgorithmException
+	 * @throws InvalidKeySpecException
+	 * @throws ServerBusyException if the queue is full
+	 * @since 1.1
+	 */
+	public <T> T execute(HashingTask<T> task) throws NoSuchAlgorithmException, InvalidKeySpecException {
+		CompletableFuture<T> future = submit(task);
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			future.cancel(true);
+			throw new ServerBusyException("Interrupted while waiting for password hashing");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof NoSuchAlgorithmException) {
+				throw (NoSuchAlgorithmException) cause;
+			} else if (cause instanceof InvalidKeySpecException) {
+				throw (InvalidKeySpecException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else {
+				throw new IllegalStateException(cause);
+			}
+		}
+	}
+
+	/**
+	 * Method to run a hashing task on the worker pool without waiting for it. A full queue fails the returned
+	 * future with a {@link ServerBusyException} rather than throwing, so callers handle overload and hashing
+	 * errors in one place.
+	 * @param task the hashing work to be run
+	 * @return CompletableFuture completed with the result of the task on a hashing thread
+	 * @since 1.1
+	 */
+	public <T> CompletableFuture<T> submit(HashingTask<T> task) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		long queuedAt = System.nanoTime();
+		try {
+			executor.execute(() -> {
+				long startedAt = System.nanoTime();
+				waitTimer.record(startedAt - queuedAt, TimeUnit.NANOSECONDS);
+				try {
+					result.complete(task.run());
+				} catch (Throwable e) {
+					result.completeExceptionally(e);
+				} finally {
+					hashTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			result.completeExceptionally(new ServerBusyException("Password hashing queue is full"));
+		}
+		return result;
+	}
+
+	public ForkJoinPool getLanePool() {
+		return lanePool;
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdown();
+		lanePool.shutdown();
+	}
+
+	/**
+	 * Unit of hashing work. Mirrors the checked exceptions thrown by the JCE so they reach the caller unchanged.
+	 */
+	@FunctionalInterface
+	public interface HashingTask<T> {
+		T run() throws NoSuchAlgorithmException, InvalidKeySpecException;
+	}
+
+	private static class HashingThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "hashing-" + count.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		}
+	}
+}
@@ -0,0 +1,285 @@
+package org.generictech.userauth.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.generictech.userauth.model.InvalidationEvent;
+import org.generictech.userauth.model.InvalidationEvent.Type;
+import org.generictech.userauth.repo.InvalidationEventRepo;
+import org.generictech.userauth.security.TokenRevocations;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Carries changes to state held in memory from the instance that made them to every other instance of the service:
+ * users and their versions, credentials, logged out tokens and revocations of all of a user's tokens. The instance
+ * making a change applies it locally as before and adds a row to the invalidation_event table; every instance reads
+ * the rows added since its last read on a short interval and applies those made elsewhere, so peers converge within
+ * one poll interval of the write.
+ * <p>
+ * Rows are read in id order. An id skipped over is looked up again for a short while, since a row can become visible
+ * after rows with higher ids that were written at the same time. A change whose row could not be written is only seen
+ * by peers once their copy expires or they restart, and is logged.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@Component
+@Slf4j
+public class InvalidationBus {
+
+	private static final int READ_BATCH = 500;
+	private static final int MAX_GAPS = 10000;
+
+	private final InvalidationEventRepo eventRepo;
+	private final SystemUserCache userCache;
+	private final UserVersions userVersions;
+	private final TokenRevocations revocations;
+	private final VerifiedCredentialCache credentialCache;
+	private final OpaqueTokenStore opaqueTokens;
+	private final boolean enabled;
+	private final long pollIntervalMillis;
+	private final long gapTimeoutMillis;
+	private final long retentionSeconds;
+	private final LongSupplier clock;
+	private final String origin = UUID.randomUUID().toString();
+	private final Map<Long, Long> gaps = new ConcurrentHashMap<>();
+	private long lastSeen;
+	private Counter published;
+	private Counter applied;
+	private Counter failed;
+	private ScheduledExecutorService poller;
+
+	@Autowired
+	public InvalidationBus(InvalidationEventRepo eventRepo, SystemUserCache userCache, UserVersions userVersions
+			, TokenRevocations revocations, VerifiedCredentialCache credentialCache, OpaqueTokenStore opaqueTokens
+			, @Value("${invalidation.enabled:true}") boolean enabled
+			, @Value("${invalidation.poll-interval-millis:1000}") long pollIntervalMillis
+			, @Value("${invalidation.gap-timeout-millis:10000}") long gapTimeoutMillis
+			, @Value("${invalidation.retention-seconds:3600}") long retentionSeconds, MeterRegistry registry) {
+		this(eventRepo, userCache, userVersions, revocations, credentialCache, opaqueTokens, enabled
+				, pollIntervalMillis, gapTimeoutMillis, retentionSeconds, System::currentTimeMillis);
+		published = Counter.builder("invalidation.events.published")
+			.description("Invalidation events written for other instances")
+			.register(registry);
+		applied = Counter.builder("invalidation.events.applied")
+			.description("Invalidation events from other instances applied here")
+			.register(registry);
+		failed = Counter.builder("invalidation.events.failed")
+			.description("Invalidation events that could not be written, so other instances did not see the change")
+			.register(registry);
+		Gauge.builder("invalidation.gaps", this, InvalidationBus::gapCount)
+			.description("Skipped event ids still being looked for")
+			.register(registry);
+	}
+
+	InvalidationBus(InvalidationEventRepo eventRepo, SystemUserCache userCache, UserVersions userVersions
+			, TokenRevocations revocations, VerifiedCredentialCache credentialCache, OpaqueTokenStore opaqueTokens
+			, boolean enabled, long pollIntervalMillis, long gapTimeoutMillis, long retentionSeconds
+			, LongSupplier clock) {
+		this.eventRepo = eventRepo;
+		this.userCache = userCache;
+		this.userVersions = userVersions;
+		this.revocations = revocations;
+		this.credentialCache = credentialCache;
+		this.opaqueTokens = opaqueTokens;
+		this.enabled = enabled;
+		this.pollIntervalMillis = pollIntervalMillis;
+		this.gapTimeoutMillis = gapTimeoutMillis;
+		this.retentionSeconds = retentionSeconds;
+		this.clock = clock;
+	}
+
+	@PostConstruct
+	public void init() {
+		if (!enabled) {
+			return;
+		}
+		Long maxId = eventRepo.findMaxId();
+		lastSeen = maxId == null ? 0 : maxId;
+		if (pollIntervalMillis <= 0) {
+			return;
+		}
+		poller = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "invalidation-poller");
+			t.setDaemon(true);
+			return t;
+		});
+		poller.scheduleWithFixedDelay(this::poll, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+		if (retentionSeconds > 0) {
+			poller.scheduleWithFixedDelay(this::prune, retentionSeconds, retentionSeconds, TimeUnit.SECONDS);
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		if (poller != null) {
+			poller.shutdownNow();
+		}
+	}
+
+	/**
+	 * Method to tell other instances that a user changed or was deleted.
+	 * @param userId id of the user
+	 * @param version new version of the user from {@link UserVersions#bump(int)}, or 0
+	 * @since 1.1
+	 */
+	public void userChanged(int userId, long version) {
+		publish(Type.USER, userId, null, version);
+	}
+
+	/**
+	 * Method to tell other instances that a user's credentials changed or were deleted.
+	 * @param userId id of the user
+	 * @since 1.1
+	 */
+	public void credentialsChanged(int userId) {
+		publish(Type.CREDENTIALS, userId, null, 0);
+	}
+
+	/**
+	 * Method to tell other instances that a token was logged out.
+	 * @param userId id of the user the token was issued to
+	 * @param jti jti of the token
+	 * @param expiresAt epoch second until which the revocation is kept
+	 * @since 1.1
+	 */
+	public void tokenRevoked(int userId, String jti, long expiresAt) {
+		publish(Type.TOKEN, userId, jti, expiresAt);
+	}
+
+	/**
+	 * Method to tell other instances that every token of a user was revoked.
+	 * @param userId id of the user
+	 * @param notBefore epoch second the user's tokens must be issued at or after
+	 * @since 1.1
+	 */
+	public void userTokensRevoked(int userId, long notBefore) {
+		publish(Type.USER_TOKENS, userId, null, notBefore);
+	}
+
+	/**
+	 * Method to tell other instances that an opaque token was logged out.
+	 * @param userId id of the user the token was issued to
+	 * @param tokenHash SHA-256 of the handle, the jti of its claims
+	 * @since 1.1
+	 */
+	public void opaqueTokenRevoked(int userId, String tokenHash) {
+		publish(Type.OPAQUE_TOKEN, userId, tokenHash, 0);
+	}
+
+	private void publish(Type type, int userId, String key, long value) {
+		if (!enabled) {
+			return;
+		}
+		try {
+			eventRepo.save(new InvalidationEvent(type, userId, key, value, origin, clock.getAsLong()));
+			if (published != null) {
+				published.increment();
+			}
+		} catch (Exception e) {
+			if (failed != null) {
+				failed.increment();
+			}
+			log.warn("Writing " + type + " invalidation for user " + userId + " failed: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Method to read and apply the events other instances wrote since the last read.
+	 * @since 1.1
+	 */
+	public synchronized void poll() {
+		if (!enabled) {
+			return;
+		}
+		try {
+			long now = clock.getAsLong();
+			if (!gaps.isEmpty()) {
+				for (InvalidationEvent event : eventRepo.findAllById(new ArrayList<>(gaps.keySet()))) {
+					gaps.remove(event.getId());
+					apply(event);
+				}
+				gaps.values().removeIf(deadline -> deadline <= now);
+			}
+			List<InvalidationEvent> events;
+			do {
+				events = eventRepo.findTop500ByIdGreaterThanOrderByIdAsc(lastSeen);
+				for (InvalidationEvent event : events) {
+					for (long skipped = lastSeen + 1; skipped < event.getId() && gaps.size() < MAX_GAPS; skipped++) {
+						gaps.put(skipped, now + gapTimeoutMillis);
+					}
+					lastSeen = event.getId();
+					apply(event);
+				}
+			} while (events.size() == READ_BATCH);
+		} catch (Exception e) {
+			log.warn("Reading invalidation events failed: " + e.getMessage());
+		}
+	}
+
+	private void apply(InvalidationEvent event) {
+		if (origin.equals(event.getOrigin())) {
+			return;
+		}
+		int userId = event.getUserId();
+		try {
+			switch (event.getType()) {
+			case USER:
+				userCache.invalidate(userId);
+				if (event.getValue() > 0) {
+					userVersions.observe(userId, event.getValue());
+				}
+				break;
+			case CREDENTIALS:
+				credentialCache.invalidate(userId);
+				break;
+			case TOKEN:
+				revocations.applyRevoke(event.getKey(), event.getValue());
+				break;
+			case USER_TOKENS:
+				revocations.applyRevokeAll(userId, event.getValue());
+				break;
+			case OPAQUE_TOKEN:
+				opaqueTokens.evict(event.getKey());
+				break;
+			}
+			if (applied != null) {
+				applied.increment();
+			}
+		} catch (Exception e) {
+			log.warn("Applying " + event + " failed: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Method to delete events older than the retention period, which every running instance has read by then.
+	 * @since 1.1
+	 */
+	public void prune() {
+		try {
+			eventRepo.deleteOlderThan(clock.getAsLong() - TimeUnit.SECONDS.toMillis(retentionSeconds));
+		} catch (Exception e) {
+			log.warn("Pruning invalidation events failed: " + e.getMessage());
+		}
+	}
+
+	int gapCount() {
+		return gaps.size();
+	}
+}
@@ -0,0 +1,77 @@
+package org.generictech.userauth.util;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.util.concurrent.TimeUnit;
+
+import org.generictech.userauth.dto.KdfCalibration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Benchmarks the password KDF on the current host and sets the iteration count that meets the configured target
+ * latency. The chosen cost is recorded in every {@link PasswordHash} created afterwards, so hashes stay verifiable
+ * on any instance regardless of what that instance calibrated to. Only the PBKDF2 iteration count is calibrated;
+ * Argon2id costs are set explicitly because its memory cost has to be sized against the heap, not the clock.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@Component
+@Slf4j
+public class KdfCalibrator {
+
+	private static final int PROBE_ITERATIONS = 16384;
+	private static final int PROBE_RUNS = 5;
+	private static final int ROUNDING = 1024;
+
+	@Autowired
+	private PasswordHashingUtility hashingUtility;
+	@Value("${hashing.calibration.enabled:false}")
+	private boolean enabled;
+	@Value("${hashing.calibration.target-millis:100}")
+	private long targetMillis;
+	@Value("${hashing.calibration.min-iterations:100000}")
+	private int minIterations;
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void calibrateOnStartup() throws NoSuchAlgorithmException, InvalidKeySpecException {
+		if (enabled) {
+			calibrate();
+		}
+	}
+
+	/**
+	 * Method to measure the KDF and apply the resulting iteration count. The fastest of several probe runs is used
+	 * so a GC pause or a busy neighbour during startup does not drag the cost down. The cost is only ever raised: the
+	 * result is never below the configured floor nor the iteration count already in use.
+	 * @return {@link KdfCalibration} describing the measurement and the chosen cost
+	 * @throws NoSuchAlgorithmException
+	 * @throws InvalidKeySpecException
+	 * @since 1.1
+	 */
+	public KdfCalibration calibrate() throws NoSuchAlgorithmException, InvalidKeySpecException {
+		hashingUtility.timeHash(PROBE_ITERATIONS);
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < PROBE_RUNS; i++) {
+			best = Math.min(best, hashingUtility.timeHash(PROBE_ITERATIONS));
+		}
+
+		double nanosPerIteration = (double) best / PROBE_ITERATIONS;
+		long fitted = (long) (TimeUnit.MILLISECONDS.toNanos(targetMillis) / nanosPerIteration);
+		int previous = hashingUtility.getIterations();
+		long floor = Math.max(minIterations, previous);
+		int iterations = (int) Math.min(Integer.MAX_VALUE - ROUNDING, Math.max(floor, fitted));
+		iterations = (iterations + ROUNDING - 1) / ROUNDING * ROUNDING;
+
+		hashingUtility.setIterations(iterations);
+		long expectedMillis = Math.round(nanosPerIteration * iterations / 1_000_000);
+		log.info("KDF calibrated to " + iterations + " iterations (~" + expectedMillis + " ms, target "
+				+ targetMillis + " ms, previously " + previous + ")");
+		return new KdfCalibration(previous, iterations, targetMillis, expectedMillis);
+	}
+}
@@ -0,0 +1,280 @@
+package org.generictech.userauth.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.generictech.userauth.client.TokenClaims;
+import org.generictech.userauth.model.OpaqueToken;
+import org.generictech.userauth.repo.OpaqueTokenRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.SignatureException;
+import io.jsonwebtoken.impl.DefaultClaims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Issues and resolves opaque access tokens: random 43 character handles that carry nothing but an identity for the
+ * session behind them. Sessions are held in memory keyed by handle, so resolving a token is one map lookup instead of
+ * decoding and verifying a signed token, and the tokenId header every request carries is several times shorter.
+ * <p>
+ * Sessions are written to the opaque_token table before the handle is handed out, so every instance can resolve a
+ * handle as soon as its client has it. A handle this instance does not hold, because another instance issued it or
+ * this one restarted, is looked up there once and held from then on. A handle found neither here nor there is
+ * remembered as unknown for a while, so handle shaped garbage sent to /validate does not reach the database on every
+ * request; since a session is stored before its handle exists anywhere else, an unknown handle never becomes valid
+ * later. Nothing is looked up while opaque tokens are disabled.
+ * <p>
+ * Resolved handles are presented to the rest of the service as token claims, with the SHA-256 of the handle as their
+ * jti, so revocation and stateless validation apply to them as they do to signed tokens.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@Component
+@Slf4j
+public class OpaqueTokenStore {
+
+	private static final int HANDLE_BYTES = 32;
+	private static final int HANDLE_LENGTH = 43;
+	private static final int MAX_UNKNOWN = 10000;
+	private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+	private static final ThreadLocal<MessageDigest> DIGESTS = ThreadLocal.withInitial(() -> {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	});
+
+	private final OpaqueTokenRepo opaqueTokenRepo;
+	private final boolean enabled;
+	private final long pruneIntervalSeconds;
+	private final LongSupplier clock;
+	private final Map<String, OpaqueToken> sessions = new ConcurrentHashMap<>();
+	private final BoundedCache<String, Boolean> unknown;
+	private Counter misses;
+	private ScheduledExecutorService pruner;
+
+	@Autowired
+	public OpaqueTokenStore(OpaqueTokenRepo opaqueTokenRepo, @Value("${token.opaque.enabled:false}") boolean enabled
+			, @Value("${token.opaque.unknown-ttl-seconds:60}") long unknownTtlSeconds
+			, @Value("${token.opaque.prune-interval-seconds:300}") long pruneIntervalSeconds
+			, MeterRegistry registry) {
+		this(opaqueTokenRepo, enabled, unknownTtlSeconds, pruneIntervalSeconds, System::currentTimeMillis);
+		Gauge.builder("token.opaque.sessions", sessions, Map::size)
+			.description("Opaque token sessions held in memory")
+			.register(registry);
+		if (unknown != null) {
+			unknown.bindTo(registry, "opaque-tokens-unknown");
+		}
+		misses = Counter.builder("token.opaque.misses")
+			.description("Opaque tokens looked up in the database because they were not held in memory")
+			.register(registry);
+	}
+
+	OpaqueTokenStore(OpaqueTokenRepo opaqueTokenRepo, boolean enabled, long unknownTtlSeconds
+			, long pruneIntervalSeconds, LongSupplier clock) {
+		this.opaqueTokenRepo = opaqueTokenRepo;
+		this.enabled = enabled;
+		this.pruneIntervalSeconds = pruneIntervalSeconds;
+		this.clock = clock;
+		this.unknown = unknownTtlSeconds > 0 ? new BoundedCache<>(MAX_UNKNOWN, TimeUnit.SECONDS.toNanos(unknownTtlSeconds)
+				, () -> TimeUnit.MILLISECONDS.toNanos(clock.getAsLong())) : null;
+	}
+
+	@PostConstruct
+	public void init() {
+		if (pruneIntervalSeconds <= 0) {
+			return;
+		}
+		pruner = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "opaque-token-pruner");
+			t.setDaemon(true);
+			return t;
+		});
+		pruner.scheduleWithFixedDelay(this::prune, pruneIntervalSeconds, pruneIntervalSeconds, TimeUnit.SECONDS);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		if (pruner != null) {
+			pruner.shutdownNow();
+		}
+	}
+
+	/**
+	 * @return boolean true if logins are issued opaque tokens rather than signed ones
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Method to tell an opaque handle from a signed token without looking it up. Signed tokens always contain dots.
+	 * @param token raw token
+	 * @return boolean true if the token has the shape of an opaque handle
+	 * @since 1.1
+	 */
+	public static boolean isHandle(String token) {
+		return token.length() == HANDLE_LENGTH && token.indexOf('.') < 0;
+	}
+
+	/**
+	 * Method to issue an opaque token for a user. The session is written to the database before the handle is
+	 * returned.
+	 * @param userId id of the user the token is issued to
+	 * @param username username of the user, the subject of the token
+	 * @param ttlMillis lifetime of the token
+	 * @param notBefore earliest epoch second the token may claim to be issued at, as for signed tokens
+	 * @param email email of the user, carried only along with a version
+	 * @param version version of the user for stateless validation, or a negative value to leave both out
+	 * @return String handle to hand to the client
+	 * @since 1.1
+	 */
+	public String issue(int userId, String username, long ttlMillis, long notBefore, String email, long version) {
+		long nowMillis = clock.getAsLong();
+		String handle = ENCODER.encodeToString(TokenGenerator.nextToken(HANDLE_BYTES));
+		OpaqueToken session = new OpaqueToken(hash(handle), userId, username, version < 0 ? null : email, version
+				, Math.max(nowMillis / 1000, notBefore), (nowMillis + ttlMillis) / 1000);
+		opaqueTokenRepo.save(session);
+		sessions.put(handle, session);
+		return handle;
+	}
+
+	/**
+	 * Method to look up the session behind an opaque token. A fresh claims object is returned on every call.
+	 * @param handle opaque token
+	 * @return Claims of the session
+	 * @throws ExpiredJwtException if the session has expired
+	 * @throws SignatureException if the handle was never issued or has been logged out, or opaque tokens are disabled
+	 * @since 1.1
+	 */
+	public Claims resolve(String handle) {
+		OpaqueToken session = sessions.get(handle);
+		if (session == null) {
+			session = load(handle);
+		}
+		Claims claims = claims(session);
+		if (session.getExpiresAt() * 1000 <= clock.getAsLong()) {
+			sessions.remove(handle, session);
+			throw new ExpiredJwtException(null, claims, "Token has expired");
+		}
+		return claims;
+	}
+
+	private OpaqueToken load(String handle) {
+		if (!enabled) {
+			throw new SignatureException("Opaque tokens are disabled");
+		}
+		String hash = hash(handle);
+		if (unknown != null && unknown.get(hash) != null) {
+			throw new SignatureException("Unknown token");
+		}
+		if (misses != null) {
+			misses.increment();
+		}
+		Optional<OpaqueToken> stored = opaqueTokenRepo.findById(hash);
+		if (!stored.isPresent()) {
+			forget(hash);
+			throw new SignatureException("Unknown token");
+		}
+		OpaqueToken held = sessions.putIfAbsent(handle, stored.get());
+		return held != null ? held : stored.get();
+	}
+
+	/**
+	 * Method to log out an opaque token, deleting its session here and in the database.
+	 * @param token raw token
+	 * @return boolean false if the token is not an opaque handle, in which case nothing is done
+	 * @since 1.1
+	 */
+	public boolean revoke(String token) {
+		if (!isHandle(token)) {
+			return false;
+		}
+		sessions.remove(token);
+		String hash = hash(token);
+		opaqueTokenRepo.deleteByHashes(Collections.singleton(hash));
+		forget(hash);
+		return true;
+	}
+
+	/**
+	 * Method to forget a session another instance has logged out, and has already deleted from the database.
+	 * @param tokenHash SHA-256 of the handle, the jti of its claims
+	 * @since 1.1
+	 */
+	public void evict(String tokenHash) {
+		if (sessions.values().removeIf(session -> session.getTokenHash().equals(tokenHash))) {
+			forget(tokenHash);
+		}
+	}
+
+	private void forget(String tokenHash) {
+		if (unknown != null) {
+			unknown.put(tokenHash, Boolean.TRUE);
+		}
+	}
+	
+	/**
+	 * Method to delete every opaque token session of a user.
+	 * @param userId id of the user
+	 * @since 1.1
+	 */
+	public void revokeAll(int userId) {
+		sessions.values().removeIf(session -> session.getUserId() == userId);
+		opaqueTokenRepo.deleteByUser(userId);
+	}
+
+	/**
+	 * Method to drop sessions that have expired, from memory and from the database.
+	 * @since 1.1
+	 */
+	public void prune() {
+		try {
+			long now = clock.getAsLong() / 1000;
+			sessions.values().removeIf(session -> session.getExpiresAt() <= now);
+			opaqueTokenRepo.deleteExpired(now);
+		} catch (Exception e) {
+			log.warn("Pruning opaque token sessions failed: " + e.getMessage());
+		}
+	}
+
+	private static Claims claims(OpaqueToken session) {
+		Claims claims = new DefaultClaims();
+		claims.setId(session.getTokenHash());
+		claims.setSubject(session.getUsername());
+		claims.setIssuedAt(new Date(session.getIssuedAt() * 1000));
+		claims.setExpiration(new Date(session.getExpiresAt() * 1000));
+		claims.put(TokenClaims.USER_ID, session.getUserId());
+		if (session.getVersion() >= 0) {
+			claims.put(TokenClaims.EMAIL, session.getEmail());
+			claims.put(TokenClaims.VERSION, session.getVersion());
+		}
+		return claims;
+	}
+
+	private static String hash(String handle) {
+		return ENCODER.encodeToString(DIGESTS.get().digest(handle.getBytes(StandardCharsets.UTF_8)));
+	}
+}
@@ -0,0 +1,203 @@
+package org.generictech.userauth.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Self describing password hash. Everything needed to verify a password is recorded next to the hash itself, so
+ * the algorithm or its cost can change without invalidating hashes that were stored under an older policy.
+ * <p>
+ * Stored form is binary: {@code version(1) algorithm(1) cost(4) memoryKib(4) parallelism(1) saltLength(1) salt hash},
+ * with the hash taking the remaining bytes. {@link #parse(String, String)} still reads the text forms from before the
+ * binary column existed: {@code $<algorithm>$v=<version>$<params>$<salt hex>$<hash hex>}, and the original bare hex
+ * hash with its salt in a separate column, which is version 0 of PBKDF2-SHA1 with 131072 iterations.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class PasswordHash {
+
+	public static final String PBKDF2_SHA1 = "pbkdf2-sha1";
+	public static final String ARGON2ID = "argon2id";
+	public static final int CURRENT_VERSION = 1;
+	private static final byte PBKDF2_SHA1_ID = 1;
+	private static final byte ARGON2ID_ID = 2;
+	private static final int HEADER_LENGTH = 12;
+	private static final int LEGACY_VERSION = 0;
+	private static final int LEGACY_ITERATIONS = 131072;
+
+	private final String algorithm;
+	private final int version;
+	private final int cost;
+	private final int memoryKib;
+	private final int parallelism;
+	private final byte[] salt;
+	private final byte[] hash;
+
+	/**
+	 * Constructor for PBKDF2 hashes, where the iteration count is the only cost parameter.
+	 */
+	public PasswordHash(String algorithm, int version, int cost, byte[] salt, byte[] hash) {
+		this(algorithm, version, cost, 0, 0, salt, hash);
+	}
+
+	public PasswordHash(String algorithm, int version, int cost, int memoryKib, int parallelism, byte[] salt, byte[] hash) {
+		super();
+		this.algorithm = algorithm;
+		this.version = version;
+		this.cost = cost;
+		this.memoryKib = memoryKib;
+		this.parallelism = parallelism;
+		this.salt = salt;
+		this.hash = hash;
+	}
+
+	/**
+	 * Method to read a hash from its binary stored form.
+	 * @param stored bytes of the password_hash column
+	 * @return PasswordHash
+	 * @throws IllegalArgumentException if the stored value is malformed
+	 * @since 1.1
+	 */
+	public static PasswordHash fromBytes(byte[] stored) {
+		if (stored.length < HEADER_LENGTH) {
+			throw new IllegalArgumentException("Malformed password hash");
+		}
+		ByteBuffer in = ByteBuffer.wrap(stored);
+		int version = in.get() & 0xff;
+		byte algorithmId = in.get();
+		int cost = in.getInt();
+		int memoryKib = in.getInt();
+		int parallelism = in.get() & 0xff;
+		int saltLength = in.get() & 0xff;
+		if (in.remaining() <= saltLength) {
+			throw new IllegalArgumentException("Malformed password hash");
+		}
+		byte[] salt = new byte[saltLength];
+		in.get(salt);
+		byte[] hash = new byte[in.remaining()];
+		in.get(hash);
+		String algorithm;
+		if (algorithmId == PBKDF2_SHA1_ID) {
+			algorithm = PBKDF2_SHA1;
+		} else if (algorithmId == ARGON2ID_ID) {
+			algorithm = ARGON2ID;
+		} else {
+			throw new IllegalArgumentException("Unknown password hash algorithm " + algorithmId);
+		}
+		return new PasswordHash(algorithm, version, cost, memoryKib, parallelism, salt, hash);
+	}
+
+	/**
+	 * Method to encode the hash into its binary stored form.
+	 * @return byte[] value for the password_hash column
+	 * @since 1.1
+	 */
+	public byte[] toBytes() {
+		if (salt.length > 255 || parallelism > 255 || version > 255) {
+			throw new IllegalStateException("Password hash parameters do not fit the stored form");
+		}
+		return ByteBuffer.allocate(HEADER_LENGTH + salt.length + hash.length)
+				.put((byte) version)
+				.put(ARGON2ID.equals(algorithm) ? ARGON2ID_ID : PBKDF2_SHA1_ID)
+				.putInt(cost)
+				.putInt(memoryKib)
+				.put((byte) parallelism)
+				.put((byte) salt.length)
+				.put(salt)
+				.put(hash)
+				.array();
+	}
+
+	/**
+	 * Method to read a hash stored as text, in either the versioned or the legacy format.
+	 * @param stored value of the password column
+	 * @param legacySalt value of the salt column, only used for legacy values
+	 * @return PasswordHash
+	 * @throws IllegalArgumentException if the stored value is malformed
+	 */
+	public static PasswordHash parse(String stored, String legacySalt) {
+		if (!stored.startsWith("$")) {
+			return new PasswordHash(PBKDF2_SHA1, LEGACY_VERSION, LEGACY_ITERATIONS
+					, legacySalt.getBytes(StandardCharsets.UTF_8), fromHex(stored));
+		}
+		String[] parts = stored.split("\\$");
+		if (parts.length != 6 || !parts[2].startsWith("v=")) {
+			throw new IllegalArgumentException("Malformed password hash");
+		}
+		int cost = 0;
+		int memoryKib = 0;
+		int parallelism = 0;
+		for (String param : parts[3].split(",")) {
+			int value = Integer.parseInt(param.substring(2));
+			switch (param.substring(0, 2)) {
+				case "i=":
+				case "t=":
+					cost = value;
+					break;
+				case "m=":
+					memoryKib = value;
+					break;
+				case "p=":
+					parallelism = value;
+					break;
+				default:
+					throw new IllegalArgumentException("Malformed password hash");
+			}
+		}
+		return new PasswordHash(parts[1], Integer.parseInt(parts[2].substring(2)), cost, memoryKib, parallelism
+				, fromHex(parts[4]), fromHex(parts[5]));
+	}
+
+	public String getAlgorithm() {
+		return algorithm;
+	}
+
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return iteration count for PBKDF2, number of passes for Argon2id
+	 */
+	public int getCost() {
+		return cost;
+	}
+
+	public int getMemoryKib() {
+		return memoryKib;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public byte[] getSalt() {
+		return salt;
+	}
+
+	public byte[] getHash() {
+		return hash;
+	}
+
+	static byte[] fromHex(String in) {
+		if (in.length() % 2 != 0) {
+			throw new IllegalArgumentException("Malformed password hash");
+		}
+		byte[] out = new byte[in.length() / 2];
+		for (int i = 0; i < out.length; i++) {
+			int hi = Character.digit(in.charAt(i * 2), 16);
+			int lo = Character.digit(in.charAt(i * 2 + 1), 16);
+			if (hi < 0 || lo < 0) {
+				throw new IllegalArgumentException("Malformed password hash");
+			}
+			out[i] = (byte) ((hi << 4) | lo);
+		}
+		return out;
+	}
+
+	@Override
+	public String toString() {
+		return "PasswordHash [algorithm=" + algorithm + ", version=" + version + ", cost=" + cost + ", memoryKib="
+				+ memoryKib + ", parallelism=" + parallelism + "]";
+	}
+}
@@ -0,0 +1,226 @@
+package org.generictech.userauth.util;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.KeySpec;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Utility class to handle password hashing.
+ * @author Jaden Wilson
+ * @since 1.0
+ */
+
+@Component
+public class PasswordHashingUtility {
+
+	private static final int HASH_LENGTH = 32;
+	private static final int SALT_LENGTH = 16;
+
+	@Autowired
+	private HashingExecutor hashingExecutor;
+	/**
+	 * Which PBKDF2 implementation to run, "engine" for {@link Pbkdf2Engine} or "jce" for the JCE SecretKeyFactory.
+	 * Both produce identical hashes; the JCE path only wins on JVMs with SHA-1 compression intrinsics.
+	 */
+	@Value("${hashing.pbkdf2.implementation:engine}")
+	private String implementation = "engine";
+	/**
+	 * Iteration count used for new hashes. Starts at the configured value and may be replaced by the
+	 * {@link KdfCalibrator} once it has measured the host.
+	 */
+	@Value("${hashing.pbkdf2.iterations:131072}")
+	private volatile int iterations = 131072;
+	/** Algorithm used for new hashes, {@link PasswordHash#PBKDF2_SHA1} or {@link PasswordHash#ARGON2ID}. */
+	@Value("${hashing.algorithm:pbkdf2-sha1}")
+	private String algorithm = PasswordHash.PBKDF2_SHA1;
+	@Value("${hashing.argon2.memory-kib:65536}")
+	private int argon2MemoryKib = 65536;
+	@Value("${hashing.argon2.iterations:3}")
+	private int argon2Iterations = 3;
+	@Value("${hashing.argon2.parallelism:4}")
+	private int argon2Parallelism = 4;
+
+	/**
+	 * Method to hash a password under the current hashing policy with a freshly generated salt. The hash itself is
+	 * computed on the {@link HashingExecutor} pool so request threads never run the KDF directly.
+	 * @param passwd String version of password to be hashed
+	 * @return {@link PasswordHash} ready to be encoded for storage
+	 * @throws NoSuchAlgorithmException
+	 * @throws InvalidKeySpecException
+	 * @since 1.1
+	 */
+	public PasswordHash hashPassword(String passwd) throws NoSuchAlgorithmException, InvalidKeySpecException {
+		return hashingExecutor.execute(hashTask(passwd));
+	}
+
+	/**
+	 * Method to hash a password without blocking the calling thread.
+	 * @param passwd String version of password to be hashed
+	 * @return CompletableFuture completed with the {@link PasswordHash} on a hashing thread, or failed with a
+	 * {@link org.generictech.userauth.exception.ServerBusyException} if the hashing queue is full
+	 * @since 1.1
+	 */
+	public CompletableFuture<PasswordHash> hashPasswordAsync(String passwd) {
+		return hashingExecutor.submit(hashTask(passwd));
+	}
+
+	private HashingExecutor.HashingTask<PasswordHash> hashTask(String passwd) {
+		byte[] salt = getSalt();
+		if (PasswordHash.ARGON2ID.equals(algorithm)) {
+			int memory = argon2MemoryKib;
+			int passes = argon2Iterations;
+			int lanes = argon2Parallelism;
+			return () -> new PasswordHash(PasswordHash.ARGON2ID, PasswordHash.CURRENT_VERSION, passes, memory, lanes, salt
+					, argon2id(passwd, salt, memory, passes, lanes, HASH_LENGTH));
+		}
+		int cost = iterations;
+		return () -> new PasswordHash(PasswordHash.PBKDF2_SHA1, PasswordHash.CURRENT_VERSION, cost, salt
+				, pbkdf2(passwd, salt, cost, HASH_LENGTH));
+	}
+	
+	/**
+	 * Method to run Argon2id, spreading its lanes over the shared fork-join pool of the {@link HashingExecutor}.
+	 * @param passwd password to be hashed
+	 * @param salt salt bytes
+	 * @param memoryKib memory cost in KiB
+	 * @param passes time cost
+	 * @param lanes degree of parallelism
+	 * @param length length of the hash in bytes
+	 * @return byte[] raw hash
+	 */
+	private byte[] argon2id(String passwd, byte[] salt, int memoryKib, int passes, int lanes, int length) {
+		ByteBuffer encoded = StandardCharsets.UTF_8.encode(CharBuffer.wrap(passwd));
+		byte[] passwordBytes = new byte[encoded.remaining()];
+		encoded.get(passwordBytes);
+		try {
+			return new Argon2Engine(hashingExecutor.getLanePool()).derive(passwordBytes, salt, memoryKib, passes, lanes, length);
+		} finally {
+			Arrays.fill(passwordBytes, (byte) 0);
+		}
+	}
+
+	/**
+	 * Method to run PBKDF2-HMAC-SHA1 with the configured implementation.
+	 * @param passwd password to be hashed
+	 * @param salt salt bytes
+	 * @param cost iteration count
+	 * @param length length of the hash in bytes
+	 * @return byte[] raw hash
+	 * @throws NoSuchAlgorithmException
+	 * @throws InvalidKeySpecException
+	 */
+	private byte[] pbkdf2(String passwd, byte[] salt, int cost, int length) throws NoSuchAlgorithmException, InvalidKeySpecException {
+		if ("jce".equals(implementation)) {
+			KeySpec spec = new PBEKeySpec(passwd.toCharArray(), salt, cost, length * 8);
+			SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1");
+			return factory.generateSecret(spec).getEncoded();
+		}
+		return Pbkdf2Engine.derive(passwd.toCharArray(), salt, cost, length);
+	}
+
+	/**
+	 * Method to validate entered password against a stored hash. The stored hash records the algorithm, cost and
+	 * salt it was created with, so hashes from older policies verify as they always did. The comparison runs in
+	 * constant time.
+	 * @param password String value of password to be checked
+	 * @param stored Stored hash for user
+	 * @return boolean value stating whether the user is authenticated or not.
+	 * @throws NoSuchAlgorithmException
+	 * @throws InvalidKeySpecException
+	 */
+	public boolean validatePassword(String password, PasswordHash stored) throws NoSuchAlgorithmException, InvalidKeySpecException {
+		return hashingExecutor.execute(validateTask(password, stored));
+	}
+
+	/**
+	 * Method to validate entered password against a stored hash without blocking the calling thread.
+	 * @param password String value of password to be checked
+	 * @param stored Stored hash for user
+	 * @return CompletableFuture completed on a hashing thread with whether the user is authenticated, or failed with
+	 * a {@link org.generictech.userauth.exception.ServerBusyException} if the hashing queue is full
+	 * @since 1.1
+	 */
+	public CompletableFuture<Boolean> validatePasswordAsync(String password, PasswordHash stored) {
+		return hashingExecutor.submit(validateTask(password, stored));
+	}
+
+	private HashingExecutor.HashingTask<Boolean> validateTask(String password, PasswordHash stored) {
+		return () -> {
+			byte[] hashedSet;
+			if (PasswordHash.PBKDF2_SHA1.equals(stored.getAlgorithm())) {
+				hashedSet = pbkdf2(password, stored.getSalt(), stored.getCost(), stored.getHash().length);
+			} else if (PasswordHash.ARGON2ID.equals(stored.getAlgorithm())) {
+				hashedSet = argon2id(password, stored.getSalt(), stored.getMemoryKib()
+						, stored.getCost(), stored.getParallelism(), stored.getHash().length);
+			} else {
+				throw new NoSuchAlgorithmException("Unsupported password hash algorithm " + stored.getAlgorithm());
+			}
+			return MessageDigest.isEqual(stored.getHash(), hashedSet);
+		};
+	}
+
+	/**
+	 * Method to time a single hash at the given cost on the hashing pool, used to calibrate the policy.
+	 * @param cost iteration count to measure
+	 * @return long elapsed nanoseconds
+	 * @throws NoSuchAlgorithmException
+	 * @throws InvalidKeySpecException
+	 * @since 1.1
+	 */
+	long timeHash(int cost) throws NoSuchAlgorithmException, InvalidKeySpecException {
+		byte[] salt = getSalt();
+		return hashingExecutor.execute(() -> {
+			long start = System.nanoTime();
+			pbkdf2("calibration", salt, cost, HASH_LENGTH);
+			return System.nanoTime() - start;
+		});
+	}
+	
+	public int getIterations() {
+		return iterations;
+	}
+	
+	public void setIterations(int iterations) {
+		this.iterations = iterations;
+	}
+	
+	/**
+	 * Method to check whether a stored hash was created under an older policy and should be replaced the next time
+	 * the plain text password is available. Hashes are only ever upgraded to a higher cost, so instances that
+	 * calibrated to different costs do not keep rewriting each others hashes.
+	 * @param stored Stored hash for user
+	 * @return boolean
+	 * @since 1.1
+	 */
+	public boolean needsRehash(PasswordHash stored) {
+		if (stored.getVersion() != PasswordHash.CURRENT_VERSION || !algorithm.equals(stored.getAlgorithm())) {
+			return true;
+		}
+		if (PasswordHash.ARGON2ID.equals(algorithm)) {
+			return stored.getMemoryKib() < argon2MemoryKib || stored.getCost() < argon2Iterations;
+		}
+		return stored.getCost() < iterations;
+	}
+
+	/**
+	 * Method to get a random salt value to be used when hashing passwords. Drawn from the pooled
+	 * {@link SaltGenerator} so it never blocks the calling thread.
+	 * @return byte[] salt value
+	 */
+	public byte[] getSalt() {
+		return SaltGenerator.nextSalt(SALT_LENGTH);
+	}
+}
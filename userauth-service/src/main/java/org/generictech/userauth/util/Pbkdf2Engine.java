@@ -0,0 +1,241 @@
+package org.generictech.userauth.util;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * PBKDF2-HMAC-SHA1 implementation tuned for the login path. The inner and outer HMAC pad states are compressed
+ * once per password, after which every iteration is exactly two SHA-1 compressions over preallocated word
+ * buffers; no keys are re-derived and nothing is allocated inside the iteration loop. Output is byte for byte
+ * identical to the JCE "PBKDF2WithHmacSHA1" SecretKeyFactory, including its UTF-8 encoding of the password.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public final class Pbkdf2Engine {
+
+	private static final int BLOCK_SIZE = 64;
+	private static final int DIGEST_SIZE = 20;
+	/** Bit length of an HMAC inner or outer message once the single digest block is appended to the pad block. */
+	private static final int PADDED_DIGEST_BITS = (BLOCK_SIZE + DIGEST_SIZE) * 8;
+	private static final int[] SHA1_IV = {0x67452301, 0xEFCDAB89, 0x98BADCFE, 0x10325476, 0xC3D2E1F0};
+
+	private Pbkdf2Engine() {
+		super();
+	}
+
+	/**
+	 * Method to derive a key from a password.
+	 * @param password characters of the password, encoded as UTF-8 the same way the JCE does
+	 * @param salt salt bytes
+	 * @param iterations iteration count
+	 * @param keyLength length of the derived key in bytes
+	 * @return derived key
+	 * @since 1.1
+	 */
+	public static byte[] derive(char[] password, byte[] salt, int iterations, int keyLength) {
+		ByteBuffer encoded = StandardCharsets.UTF_8.encode(CharBuffer.wrap(password));
+		byte[] passwordBytes = new byte[encoded.remaining()];
+		encoded.get(passwordBytes);
+		try {
+			return derive(passwordBytes, salt, iterations, keyLength);
+		} finally {
+			Arrays.fill(passwordBytes, (byte) 0);
+			if (encoded.hasArray()) {
+				Arrays.fill(encoded.array(), (byte) 0);
+			}
+		}
+	}
+
+	/**
+	 * Method to derive a key from raw password bytes.
+	 * @param password password bytes
+	 * @param salt salt bytes
+	 * @param iterations iteration count
+	 * @param keyLength length of the derived key in bytes
+	 * @return derived key
+	 * @since 1.1
+	 */
+	public static byte[] derive(byte[] password, byte[] salt, int iterations, int keyLength) {
+		if (iterations < 1 || keyLength < 1) {
+			throw new IllegalArgumentException("Iterations and key length must be positive");
+		}
+		byte[] key = password.length > BLOCK_SIZE ? toBytes(sha1(SHA1_IV, password, 0)) : password;
+
+		int[] w = new int[80];
+		int[] ipadState = padState(key, (byte) 0x36, w);
+		int[] opadState = padState(key, (byte) 0x5c, w);
+
+		byte[] out = new byte[keyLength];
+		byte[] first = Arrays.copyOf(salt, salt.length + 4);
+		int[] u = new int[5];
+		int[] inner = new int[5];
+		int[] t = new int[5];
+		int blocks = (keyLength + DIGEST_SIZE - 1) / DIGEST_SIZE;
+
+		for (int block = 1; block <= blocks; block++) {
+			first[salt.length] = (byte) (block >>> 24);
+			first[salt.length + 1] = (byte) (block >>> 16);
+			first[salt.length + 2] = (byte) (block >>> 8);
+			first[salt.length + 3] = (byte) block;
+
+			System.arraycopy(sha1(ipadState, first, BLOCK_SIZE), 0, inner, 0, 5);
+			System.arraycopy(sha1(opadState, toBytes(inner), BLOCK_SIZE), 0, u, 0, 5);
+			System.arraycopy(u, 0, t, 0, 5);
+
+			for (int i = 1; i < iterations; i++) {
+				compressDigest(ipadState, u, inner, w);
+				compressDigest(opadState, inner, u, w);
+				t[0] ^= u[0];
+				t[1] ^= u[1];
+				t[2] ^= u[2];
+				t[3] ^= u[3];
+				t[4] ^= u[4];
+			}
+
+			int offset = (block - 1) * DIGEST_SIZE;
+			for (int i = 0; i < 5 && offset < keyLength; i++) {
+				for (int shift = 24; shift >= 0 && offset < keyLength; shift -= 8) {
+					out[offset++] = (byte) (t[i] >>> shift);
+				}
+			}
+		}
+
+		if (key != password) {
+			Arrays.fill(key, (byte) 0);
+		}
+		return out;
+	}
+
+	/**
+	 * Compresses the HMAC key xor'd with the given pad byte into a SHA-1 chaining state.
+	 */
+	private static int[] padState(byte[] key, byte pad, int[] w) {
+		for (int i = 0; i < 16; i++) {
+			int word = 0;
+			for (int j = 0; j < 4; j++) {
+				int index = i * 4 + j;
+				word = (word << 8) | (((index < key.length ? key[index] : 0) ^ pad) & 0xff);
+			}
+			w[i] = word;
+		}
+		int[] state = SHA1_IV.clone();
+		compress(state, w);
+		return state;
+	}
+
+	/**
+	 * Hashes a single 20 byte digest continuing from a precomputed pad state. The padding for a message of one
+	 * pad block plus one digest is constant, so the block is laid out directly in the word schedule.
+	 */
+	private static void compressDigest(int[] state, int[] digest, int[] out, int[] w) {
+		w[0] = digest[0];
+		w[1] = digest[1];
+		w[2] = digest[2];
+		w[3] = digest[3];
+		w[4] = digest[4];
+		w[5] = 0x80000000;
+		for (int i = 6; i < 15; i++) {
+			w[i] = 0;
+		}
+		w[15] = PADDED_DIGEST_BITS;
+		out[0] = state[0];
+		out[1] = state[1];
+		out[2] = state[2];
+		out[3] = state[3];
+		out[4] = state[4];
+		compress(out, w);
+	}
+
+	/**
+	 * General SHA-1 over a message, continuing from the given state. Only used outside the iteration loop.
+	 * @param state chaining state to continue from
+	 * @param data message bytes
+	 * @param prefixLength number of bytes already absorbed into the state
+	 */
+	private static int[] sha1(int[] state, byte[] data, int prefixLength) {
+		int[] h = state.clone();
+		int[] w = new int[80];
+		long bitLength = (long) (prefixLength + data.length) * 8;
+		int padded = ((data.length + 8) / BLOCK_SIZE + 1) * BLOCK_SIZE;
+		byte[] message = Arrays.copyOf(data, padded);
+		message[data.length] = (byte) 0x80;
+		for (int i = 0; i < 8; i++) {
+			message[padded - 1 - i] = (byte) (bitLength >>> (8 * i));
+		}
+		for (int offset = 0; offset < padded; offset += BLOCK_SIZE) {
+			for (int i = 0; i < 16; i++) {
+				int p = offset + i * 4;
+				w[i] = (message[p] << 24) | ((message[p + 1] & 0xff) << 16) | ((message[p + 2] & 0xff) << 8)
+						| (message[p + 3] & 0xff);
+			}
+			compress(h, w);
+		}
+		return h;
+	}
+
+	/**
+	 * SHA-1 compression function. Expects the first 16 words of {@code w} to hold the block and updates
+	 * {@code h} in place.
+	 */
+	private static void compress(int[] h, int[] w) {
+		for (int i = 16; i < 80; i++) {
+			w[i] = Integer.rotateLeft(w[i - 3] ^ w[i - 8] ^ w[i - 14] ^ w[i - 16], 1);
+		}
+		int a = h[0];
+		int b = h[1];
+		int c = h[2];
+		int d = h[3];
+		int e = h[4];
+		int temp;
+		for (int i = 0; i < 20; i++) {
+			temp = Integer.rotateLeft(a, 5) + ((b & c) | (~b & d)) + e + w[i] + 0x5A827999;
+			e = d;
+			d = c;
+			c = Integer.rotateLeft(b, 30);
+			b = a;
+			a = temp;
+		}
+		for (int i = 20; i < 40; i++) {
+			temp = Integer.rotateLeft(a, 5) + (b ^ c ^ d) + e + w[i] + 0x6ED9EBA1;
+			e = d;
+			d = c;
+			c = Integer.rotateLeft(b, 30);
+			b = a;
+			a = temp;
+		}
+		for (int i = 40; i < 60; i++) {
+			temp = Integer.rotateLeft(a, 5) + ((b & c) | (b & d) | (c & d)) + e + w[i] + 0x8F1BBCDC;
+			e = d;
+			d = c;
+			c = Integer.rotateLeft(b, 30);
+			b = a;
+			a = temp;
+		}
+		for (int i = 60; i < 80; i++) {
+			temp = Integer.rotateLeft(a, 5) + (b ^ c ^ d) + e + w[i] + 0xCA62C1D6;
+			e = d;
+			d = c;
+			c = Integer.rotateLeft(b, 30);
+			b = a;
+			a = temp;
+		}
+		h[0] += a;
+		h[1] += b;
+		h[2] += c;
+		h[3] += d;
+		h[4] += e;
+	}
+
+	private static byte[] toBytes(int[] words) {
+		byte[] out = new byte[words.length * 4];
+		for (int i = 0; i < words.length; i++) {
+			out[i * 4] = (byte) (words[i] >>> 24);
+			out[i * 4 + 1] = (byte) (words[i] >>> 16);
+			out[i * 4 + 2] = (byte) (words[i] >>> 8);
+			out[i * 4 + 3] = (byte) words[i];
+		}
+		return out;
+	}
+}
@@ -0,0 +1,84 @@
+package org.generictech.userauth.util;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * Source of random salts that never blocks and never contends. Each thread keeps its own pseudo random generator,
+ * seeded once from the operating system's non-blocking source (/dev/urandom) and topped up from it every
+ * {@value #RESEED_INTERVAL} salts. Creating a {@link SecureRandom} per salt instead repeats the provider lookup every
+ * time and, depending on the securerandom configuration, either reads the shared native stream under one global lock
+ * or self-seeds from a source that can stall on entropy during a burst of registrations.
+ * <p>
+ * The generator is "SHA1PRNG". Seeding it explicitly before first use means it never self-seeds, and topping it up
+ * with {@link SecureRandom#setSeed(byte[])} mixes the new seed in without touching the provider's seed generator.
+ * The JDK's "DRBG" pulls from that seed generator on instantiation and reseed, which is exactly what this avoids.
+ * Salts only need to be unique, not secret, so the generator's strength is not a concern. Anything that must be
+ * unguessable comes from {@link TokenGenerator} instead.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public final class SaltGenerator {
+
+	private static final int SEED_LENGTH = 32;
+	private static final int RESEED_INTERVAL = 1 << 16;
+	private static final SecureRandom SEED_SOURCE = seedSource();
+	private static final ThreadLocal<Generator> GENERATORS = ThreadLocal.withInitial(Generator::new);
+
+	private SaltGenerator() {
+	}
+
+	/**
+	 * Method to generate a random salt.
+	 * @param length length of the salt in bytes
+	 * @return byte[] salt
+	 * @since 1.1
+	 */
+	public static byte[] nextSalt(int length) {
+		byte[] salt = new byte[length];
+		GENERATORS.get().nextBytes(salt);
+		return salt;
+	}
+
+	private static SecureRandom seedSource() {
+		try {
+			return SecureRandom.getInstance("NativePRNGNonBlocking");
+		} catch (NoSuchAlgorithmException e) {
+			return new SecureRandom();
+		}
+	}
+
+	private static byte[] seed() {
+		byte[] seed = new byte[SEED_LENGTH];
+		SEED_SOURCE.nextBytes(seed);
+		return seed;
+	}
+
+	/**
+	 * Per thread generator, so it is only ever touched by one thread and needs no synchronisation of its own.
+	 */
+	private static class Generator {
+
+		private final SecureRandom random;
+		private int untilReseed = RESEED_INTERVAL;
+
+		private Generator() {
+			SecureRandom prng;
+			try {
+				prng = SecureRandom.getInstance("SHA1PRNG");
+			} catch (NoSuchAlgorithmException e) {
+				prng = new SecureRandom();
+			}
+			prng.setSeed(seed());
+			this.random = prng;
+		}
+
+		private void nextBytes(byte[] out) {
+			if (--untilReseed <= 0) {
+				random.setSeed(seed());
+				untilReseed = RESEED_INTERVAL;
+			}
+			random.nextBytes(out);
+		}
+	}
+}
@@ -0,0 +1,370 @@
+package org.generictech.userauth.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.Signature;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.crypto.spec.SecretKeySpec;
+import javax.xml.bind.DatatypeConverter;
+
+import org.generictech.userauth.dto.JsonWebKey;
+import org.generictech.userauth.dto.JsonWebKeySet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Holds the keys tokens are signed and verified with, parsed once and kept ready. Several keys can be active at a
+ * time, each identified by the {@code kid} header of the tokens it signed: one signs new tokens, all of them verify.
+ * <p>
+ * Keys come from {@code TOKEN_SECRETS}, either a single base64 secret (kid {@value #DEFAULT_KID}) or a comma
+ * separated list of {@code kid:base64} pairs with the signing key first, or from a properties file holding
+ * {@code signing-kid=<kid>} and one {@code key.<kid>=<base64>} line per key. The file is re-read when it changes, so
+ * keys rotate without a restart: add the new key, let every instance pick it up, make it the signing key, and drop
+ * the old key once the last token it signed has expired. Tokens issued before kids existed carry none and are
+ * verified with the {@value #DEFAULT_KID} key.
+ * <p>
+ * Tokens can instead be signed ES256 with an EC P-256 key, so other services verify them locally against the public
+ * keys published as a {@link JsonWebKeySet}. EC keys come from {@code TOKEN_EC_KEYS}, a comma separated list of
+ * {@code kid:private:public} with the base64 PKCS#8 private key and X.509 public key, or from
+ * {@code ec.<kid>=<private>} and {@code ec-public.<kid>=<public>} lines in the keys file. A retired key keeps only its
+ * public half ({@code kid::public}) until its tokens expire. When {@code TOKEN_EC_KEYS} is set its first key signs,
+ * and the HMAC secrets are kept to verify tokens issued before the switch. Secrets are never published.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@Component
+@Slf4j
+public class SigningKeyManager {
+
+	public static final String DEFAULT_KID = "default";
+	private static final String JCA_NAME = SignatureAlgorithm.HS512.getJcaName();
+	private static final BigInteger P256_ORDER
+			= new BigInteger("FFFFFFFF00000000FFFFFFFFFFFFFFFFBCE6FAADA7179E84F3B9CAC2FC632551", 16);
+
+	private final String secrets;
+	private final String ecKeys;
+	private final String keysFile;
+	private final long refreshSeconds;
+	private volatile KeySet keySet = new KeySet(null, Collections.emptyMap());
+	private volatile long loadedModified;
+	private ScheduledExecutorService watcher;
+
+	@Autowired
+	public SigningKeyManager(@Value("${token.secrets:${TOKEN_SECRETS:}}") String secrets
+			, @Value("${token.ec-keys:${TOKEN_EC_KEYS:}}") String ecKeys
+			, @Value("${token.keys-file:}") String keysFile
+			, @Value("${token.keys-refresh-seconds:30}") long refreshSeconds) {
+		this.secrets = secrets;
+		this.ecKeys = ecKeys;
+		this.keysFile = keysFile;
+		this.refreshSeconds = refreshSeconds;
+	}
+
+	public SigningKeyManager(String secrets, String keysFile, long refreshSeconds) {
+		this(secrets, "", keysFile, refreshSeconds);
+	}
+
+	@PostConstruct
+	public void init() {
+		try {
+			reload();
+		} catch (IllegalArgumentException | IOException e) {
+			log.error("No usable token signing keys: " + e.getMessage());
+		}
+		if (!keysFile.isEmpty() && refreshSeconds > 0) {
+			watcher = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread t = new Thread(r, "signing-key-watcher");
+				t.setDaemon(true);
+				return t;
+			});
+			watcher.scheduleWithFixedDelay(this::reloadIfModified, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		if (watcher != null) {
+			watcher.shutdown();
+		}
+	}
+
+	/**
+	 * @return KeySet the keys currently in use. Callers should read it once per token so the kid and key they use
+	 * always belong together.
+	 */
+	public KeySet current() {
+		return keySet;
+	}
+
+	/**
+	 * Method to re-read the keys from their source and swap them in. The current keys are kept if the new ones are
+	 * unusable.
+	 * @return Set of the kids now accepted for verification
+	 * @throws IOException if the keys file cannot be read
+	 * @throws IllegalArgumentException if the keys are malformed or the signing key is missing
+	 * @since 1.1
+	 */
+	public synchronized Set<String> reload() throws IOException {
+		KeySet loaded;
+		if (keysFile.isEmpty()) {
+			loaded = parseSecrets(secrets, ecKeys);
+		} else {
+			Path path = Paths.get(keysFile);
+			long modified = Files.getLastModifiedTime(path).toMillis();
+			Properties props = new Properties();
+			try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+				props.load(reader);
+			}
+			loaded = parseProperties(props);
+			loadedModified = modified;
+		}
+		keySet = loaded;
+		log.info("Loaded token signing keys " + loaded.getKids() + ", signing with " + loaded.getSigningKid());
+		return loaded.getKids();
+	}
+
+	private void reloadIfModified() {
+		try {
+			if (Files.getLastModifiedTime(Paths.get(keysFile)).toMillis() != loadedModified) {
+				reload();
+			}
+		} catch (IllegalArgumentException | IOException e) {
+			log.error("Keeping current token signing keys, reload failed: " + e.getMessage());
+		}
+	}
+
+	static KeySet parseSecrets(String secrets) {
+		return parseSecrets(secrets, "");
+	}
+
+	static KeySet parseSecrets(String secrets, String ecKeys) {
+		boolean hasSecrets = secrets != null && !secrets.trim().isEmpty();
+		boolean hasEcKeys = ecKeys != null && !ecKeys.trim().isEmpty();
+		if (!hasSecrets && !hasEcKeys) {
+			throw new IllegalArgumentException("TOKEN_SECRETS is not set");
+		}
+		Map<String, Key> keys = new LinkedHashMap<>();
+		Map<String, Key> signingKeys = new LinkedHashMap<>();
+		if (hasEcKeys) {
+			for (String entry : ecKeys.split(",")) {
+				String[] parts = entry.trim().split(":", -1);
+				if (parts.length != 3) {
+					throw new IllegalArgumentException("Malformed EC token signing key entry, expected kid:private:public");
+				}
+				String kid = parts[0].trim();
+				addEcKey(kid, parts[1].trim(), parts[2].trim(), keys, signingKeys);
+			}
+		}
+		if (hasSecrets) {
+			for (String entry : secrets.split(",")) {
+				entry = entry.trim();
+				int colon = entry.indexOf(':');
+				String kid = colon < 0 ? DEFAULT_KID : entry.substring(0, colon).trim();
+				SecretKeySpec key = toKey(kid, colon < 0 ? entry : entry.substring(colon + 1).trim());
+				keys.put(kid, key);
+				signingKeys.put(kid, key);
+			}
+		}
+		if (signingKeys.isEmpty()) {
+			throw new IllegalArgumentException("None of the configured token keys can sign");
+		}
+		return new KeySet(signingKeys.keySet().iterator().next(), keys, signingKeys);
+	}
+
+	static KeySet parseProperties(Properties props) {
+		Map<String, Key> keys = new LinkedHashMap<>();
+		Map<String, Key> signingKeys = new LinkedHashMap<>();
+		for (String name : props.stringPropertyNames()) {
+			if (name.startsWith("key.")) {
+				String kid = name.substring(4);
+				SecretKeySpec key = toKey(kid, props.getProperty(name).trim());
+				keys.put(kid, key);
+				signingKeys.put(kid, key);
+			} else if (name.startsWith("ec-public.")) {
+				String kid = name.substring(10);
+				addEcKey(kid, props.getProperty("ec." + kid, "").trim(), props.getProperty(name).trim(), keys
+						, signingKeys);
+			} else if (name.startsWith("ec.") && props.getProperty("ec-public." + name.substring(3)) == null) {
+				throw new IllegalArgumentException("EC token signing key " + name.substring(3) + " has no public key");
+			}
+		}
+		String signingKid = props.getProperty("signing-kid", "").trim();
+		if (!signingKeys.containsKey(signingKid)) {
+			throw new IllegalArgumentException("Signing key " + signingKid + " is not one of the configured keys");
+		}
+		return new KeySet(signingKid, keys, signingKeys);
+	}
+
+	/**
+	 * Method to parse an EC P-256 key pair, or only its public key when the private key is empty.
+	 */
+	private static void addEcKey(String kid, String privateBase64, String publicBase64, Map<String, Key> keys
+			, Map<String, Key> signingKeys) {
+		if (kid.isEmpty() || publicBase64.isEmpty()) {
+			throw new IllegalArgumentException("Malformed EC token signing key " + kid);
+		}
+		try {
+			KeyFactory factory = KeyFactory.getInstance("EC");
+			ECPublicKey publicKey = (ECPublicKey) factory.generatePublic(
+					new X509EncodedKeySpec(DatatypeConverter.parseBase64Binary(publicBase64)));
+			checkCurve(kid, publicKey.getParams());
+			keys.put(kid, publicKey);
+			if (!privateBase64.isEmpty()) {
+				ECPrivateKey privateKey = (ECPrivateKey) factory.generatePrivate(
+						new PKCS8EncodedKeySpec(DatatypeConverter.parseBase64Binary(privateBase64)));
+				checkCurve(kid, privateKey.getParams());
+				checkPair(kid, privateKey, publicKey);
+				signingKeys.put(kid, privateKey);
+			}
+		} catch (GeneralSecurityException | ClassCastException e) {
+			throw new IllegalArgumentException("Malformed EC token signing key " + kid + ": " + e.getMessage());
+		}
+	}
+
+	private static void checkCurve(String kid, ECParameterSpec params) {
+		if (params.getCurve().getField().getFieldSize() != 256 || !P256_ORDER.equals(params.getOrder())) {
+			throw new IllegalArgumentException("EC token signing key " + kid + " is not a P-256 key");
+		}
+	}
+
+	/**
+	 * Method to make sure the private and public key of a pair belong together, so a mismatch is found at load time
+	 * rather than by the services verifying the tokens.
+	 */
+	private static void checkPair(String kid, ECPrivateKey privateKey, ECPublicKey publicKey)
+			throws GeneralSecurityException {
+		byte[] message = kid.getBytes(StandardCharsets.UTF_8);
+		Signature signature = Signature.getInstance("SHA256withECDSA");
+		signature.initSign(privateKey);
+		signature.update(message);
+		byte[] signed = signature.sign();
+		signature.initVerify(publicKey);
+		signature.update(message);
+		if (!signature.verify(signed)) {
+			throw new IllegalArgumentException("EC token signing key " + kid + " does not match its public key");
+		}
+	}
+
+	private static SecretKeySpec toKey(String kid, String base64) {
+		byte[] secret = DatatypeConverter.parseBase64Binary(base64);
+		if (kid.isEmpty() || secret.length == 0) {
+			throw new IllegalArgumentException("Malformed token signing key " + kid);
+		}
+		return new SecretKeySpec(secret, JCA_NAME);
+	}
+
+	/**
+	 * Immutable snapshot of the active keys.
+	 */
+	public static class KeySet {
+
+		private final String signingKid;
+		private final Map<String, Key> keys;
+		private final Map<String, Key> signingKeys;
+		private final JsonWebKeySet jwks;
+		private final String jwksTag;
+
+		KeySet(String signingKid, Map<String, Key> keys) {
+			this(signingKid, keys, keys);
+		}
+
+		KeySet(String signingKid, Map<String, Key> keys, Map<String, Key> signingKeys) {
+			this.signingKid = signingKid;
+			this.keys = Collections.unmodifiableMap(new LinkedHashMap<>(keys));
+			this.signingKeys = Collections.unmodifiableMap(new LinkedHashMap<>(signingKeys));
+			List<JsonWebKey> published = new ArrayList<>();
+			for (Map.Entry<String, Key> entry : this.keys.entrySet()) {
+				if (entry.getValue() instanceof ECPublicKey) {
+					published.add(JsonWebKey.es256(entry.getKey(), (ECPublicKey) entry.getValue()));
+				}
+			}
+			this.jwks = new JsonWebKeySet(Collections.unmodifiableList(published));
+			this.jwksTag = tag(published);
+		}
+
+		private static String tag(List<JsonWebKey> published) {
+			try {
+				MessageDigest digest = MessageDigest.getInstance("SHA-256");
+				for (JsonWebKey key : published) {
+					digest.update((key.getKid() + ':' + key.getX() + ':' + key.getY() + ',')
+							.getBytes(StandardCharsets.UTF_8));
+				}
+				return Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest());
+			} catch (GeneralSecurityException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		public String getSigningKid() {
+			return signingKid;
+		}
+
+		/**
+		 * @return Key HMAC secret or EC private key new tokens are signed with
+		 * @throws IllegalStateException if no keys are configured
+		 */
+		public Key getSigningKey() {
+			if (signingKid == null) {
+				throw new IllegalStateException("No token signing key configured");
+			}
+			return signingKeys.get(signingKid);
+		}
+
+		/**
+		 * @param kid kid header of a token, null for tokens issued before kids existed
+		 * @return Key HMAC secret or EC public key to verify the token with, or null if the kid is unknown
+		 */
+		public Key getVerificationKey(String kid) {
+			return keys.get(kid == null ? DEFAULT_KID : kid);
+		}
+
+		public Set<String> getKids() {
+			return keys.keySet();
+		}
+
+		/**
+		 * @return JsonWebKeySet public keys of the EC keys, including retired ones still accepted
+		 */
+		public JsonWebKeySet getJwks() {
+			return jwks;
+		}
+
+		/**
+		 * @return String entity tag that changes whenever the published keys do
+		 */
+		public String getJwksTag() {
+			return jwksTag;
+		}
+	}
+}
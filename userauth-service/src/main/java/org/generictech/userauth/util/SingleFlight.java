@@ -0,0 +1,117 @@
+package org.generictech.userauth.util;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Collapses concurrent loads of the same key into one. The first caller for a key runs the load; callers arriving
+ * while it runs wait for it and get its result, or its exception, instead of running the same load again. Nothing is
+ * kept once the load completes, so this is no cache: a caller arriving after completion loads afresh.
+ * <p>
+ * Each load is tagged with a generation, such as a cache's invalidation stamp. A caller only joins a load of the same
+ * or a later generation, so a load that began before a write is never handed to a caller that began after it; such a
+ * caller runs its own load, which later callers join instead.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class SingleFlight<K, V> {
+
+	private final Map<K, Flight<V>> inFlight = new ConcurrentHashMap<>();
+	private final LongAdder loads = new LongAdder();
+	private final LongAdder collapsed = new LongAdder();
+
+	/**
+	 * Method to load a value, sharing a load of the same key and a generation no older already in progress.
+	 * @param key key being loaded
+	 * @param generation generation the caller read before calling
+	 * @param loader load to run if none is in progress
+	 * @return V loaded value
+	 * @since 1.1
+	 */
+	public V load(K key, long generation, Supplier<V> loader) {
+		Flight<V> mine = new Flight<>(generation);
+		while (true) {
+			Flight<V> running = inFlight.putIfAbsent(key, mine);
+			if (running == null) {
+				break;
+			}
+			if (running.generation >= generation) {
+				collapsed.increment();
+				return await(running.result);
+			}
+			if (inFlight.replace(key, running, mine)) {
+				break;
+			}
+		}
+		loads.increment();
+		try {
+			V value = loader.get();
+			mine.result.complete(value);
+			return value;
+		} catch (RuntimeException | Error e) {
+			mine.result.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, mine);
+		}
+	}
+
+	private static <V> V await(CompletableFuture<V> result) {
+		try {
+			return result.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Method to publish the number of loads run and collapsed, and the loads in progress.
+	 * @param registry registry to publish to
+	 * @param name value of the name tag
+	 * @return this instance
+	 * @since 1.1
+	 */
+	public SingleFlight<K, V> bindTo(MeterRegistry registry, String name) {
+		FunctionCounter.builder("singleflight.loads", loads, LongAdder::doubleValue).tag("name", name)
+			.description("Loads run because no load of the same key was in progress")
+			.register(registry);
+		FunctionCounter.builder("singleflight.collapsed", collapsed, LongAdder::doubleValue).tag("name", name)
+			.description("Loads not run because the caller shared a load of the same key already in progress")
+			.register(registry);
+		Gauge.builder("singleflight.in-flight", inFlight, Map::size).tag("name", name)
+			.description("Loads in progress")
+			.register(registry);
+		return this;
+	}
+
+	long loads() {
+		return loads.sum();
+	}
+
+	long collapsed() {
+		return collapsed.sum();
+	}
+
+	private static final class Flight<V> {
+		final long generation;
+		final CompletableFuture<V> result = new CompletableFuture<>();
+
+		Flight(long generation) {
+			this.generation = generation;
+		}
+	}
+}
@@ -0,0 +1,191 @@
+package org.generictech.userauth.util;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.generictech.userauth.model.SystemUser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * In memory copy of recently read users, so the user lookups behind every login and validation skip the database.
+ * Users are held by id, with indexes from username and email to id; an index hit is checked against the user it
+ * leads to, so an index entry left behind by a change never returns the wrong user. Every write to a user invalidates
+ * it here before the write returns, and a lookup that raced with an invalidation does not put what it read back.
+ * Changes made on other instances are dropped here when the {@link InvalidationBus} delivers them, and at the latest
+ * once the entry expires.
+ * <p>
+ * Lookups that miss go through a {@link SingleFlight} per index, so concurrent misses for the same user share one
+ * query.
+ * <p>
+ * Cached users are shared between callers and detached from the persistence context; they must not be modified.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@Component
+public class SystemUserCache {
+
+	private final boolean enabled;
+	private final BoundedCache<Integer, SystemUser> byId;
+	private final BoundedCache<String, Integer> byUsername;
+	private final BoundedCache<String, Integer> byEmail;
+	private final SingleFlight<Integer, Optional<SystemUser>> idLoads;
+	private final SingleFlight<String, Optional<SystemUser>> usernameLoads;
+	private final SingleFlight<String, Optional<SystemUser>> emailLoads;
+	private final AtomicLong invalidations = new AtomicLong();
+
+	public SystemUserCache(@Value("${user.cache.enabled:true}") boolean enabled
+			, @Value("${user.cache.ttl-seconds:60}") long ttlSeconds
+			, @Value("${user.cache.max-entries:10000}") int maxEntries, MeterRegistry registry) {
+		this.enabled = enabled;
+		long ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+		this.byId = new BoundedCache<Integer, SystemUser>(maxEntries, ttlNanos).bindTo(registry, "system-users");
+		this.byUsername = new BoundedCache<String, Integer>(maxEntries, ttlNanos)
+				.bindTo(registry, "system-users-by-username");
+		this.byEmail = new BoundedCache<String, Integer>(maxEntries, ttlNanos).bindTo(registry, "system-users-by-email");
+		this.idLoads = new SingleFlight<Integer, Optional<SystemUser>>().bindTo(registry, "system-users");
+		this.usernameLoads = new SingleFlight<String, Optional<SystemUser>>()
+				.bindTo(registry, "system-users-by-username");
+		this.emailLoads = new SingleFlight<String, Optional<SystemUser>>().bindTo(registry, "system-users-by-email");
+	}
+
+	/**
+	 * @param id id of the user
+	 * @return SystemUser cached user, or null if it is not cached
+	 */
+	public SystemUser getById(int id) {
+		return enabled ? byId.get(id) : null;
+	}
+
+	/**
+	 * @param username username of the user
+	 * @return SystemUser cached user, or null if it is not cached
+	 */
+	public SystemUser getByUsername(String username) {
+		if (!enabled || username == null) {
+			return null;
+		}
+		SystemUser user = viaIndex(byUsername.get(username));
+		return user != null && username.equals(user.getUsername()) ? user : null;
+	}
+
+	/**
+	 * @param email email of the user
+	 * @return SystemUser cached user, or null if it is not cached
+	 */
+	public SystemUser getByEmail(String email) {
+		if (!enabled || email == null) {
+			return null;
+		}
+		SystemUser user = viaIndex(byEmail.get(email));
+		return user != null && email.equals(user.getEmail()) ? user : null;
+	}
+
+	/**
+	 * Method to query for a user that is not cached, sharing the query of any concurrent lookup of the same id, and
+	 * cache what it finds.
+	 * @param id id of the user
+	 * @param query database query for the user
+	 * @return Optional user found by the query
+	 * @since 1.1
+	 */
+	public Optional<SystemUser> loadById(int id, Supplier<Optional<SystemUser>> query) {
+		return load(idLoads, id, query);
+	}
+
+	/**
+	 * Method to query for a user that is not cached, sharing the query of any concurrent lookup of the same username,
+	 * and cache what it finds.
+	 * @param username username of the user
+	 * @param query database query for the user
+	 * @return Optional user found by the query
+	 * @since 1.1
+	 */
+	public Optional<SystemUser> loadByUsername(String username, Supplier<Optional<SystemUser>> query) {
+		return load(usernameLoads, username, query);
+	}
+
+	/**
+	 * Method to query for a user that is not cached, sharing the query of any concurrent lookup of the same email,
+	 * and cache what it finds.
+	 * @param email email of the user
+	 * @param query database query for the user
+	 * @return Optional user found by the query
+	 * @since 1.1
+	 */
+	public Optional<SystemUser> loadByEmail(String email, Supplier<Optional<SystemUser>> query) {
+		return load(emailLoads, email, query);
+	}
+
+	private <K> Optional<SystemUser> load(SingleFlight<K, Optional<SystemUser>> loads, K key
+			, Supplier<Optional<SystemUser>> query) {
+		long stamp = stamp();
+		return loads.load(key, stamp, () -> {
+			Optional<SystemUser> loaded = query.get();
+			if (loaded.isPresent()) {
+				put(loaded.get(), stamp);
+			}
+			return loaded;
+		});
+	}
+
+	private SystemUser viaIndex(Integer id) {
+		return id == null ? null : byId.get(id);
+	}
+
+	/**
+	 * Method to take a stamp before reading a user from the database, to be handed to {@link #put(SystemUser, long)}.
+	 * @return long current invalidation stamp
+	 * @since 1.1
+	 */
+	public long stamp() {
+		return invalidations.get();
+	}
+
+	/**
+	 * Method to cache a user read from the database. Nothing is cached if any user was invalidated since the stamp
+	 * was taken, since the user read may predate that write.
+	 * @param user user as read from the database
+	 * @param stamp value of {@link #stamp()} taken before the read
+	 * @since 1.1
+	 */
+	public void put(SystemUser user, long stamp) {
+		if (!enabled || invalidations.get() != stamp) {
+			return;
+		}
+		SystemUser copy = new SystemUser(user.getId(), user.getFirstName(), user.getLastName(), user.getEmail()
+				, user.getUsername());
+		byId.put(copy.getId(), copy);
+		byUsername.put(copy.getUsername(), copy.getId());
+		byEmail.put(copy.getEmail(), copy.getId());
+		if (invalidations.get() != stamp) {
+			byId.invalidate(copy.getId());
+		}
+	}
+
+	/**
+	 * Method to drop a user, called whenever the user is written. Index entries leading to the user are left to
+	 * expire, since they are checked against the user on every read.
+	 * @param id id of the user
+	 * @since 1.1
+	 */
+	public void invalidate(int id) {
+		invalidations.incrementAndGet();
+		byId.invalidate(id);
+	}
+
+	/**
+	 * Method to drop every cached user.
+	 * @since 1.1
+	 */
+	public void invalidateAll() {
+		invalidations.incrementAndGet();
+		byId.invalidateAll();
+		byUsername.invalidateAll();
+		byEmail.invalidateAll();
+	}
+}
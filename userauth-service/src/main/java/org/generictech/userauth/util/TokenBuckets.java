@@ -0,0 +1,131 @@
+package org.generictech.userauth.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free set of token buckets keyed by string. Each bucket is a single {@link AtomicLong} holding the time at which
+ * it will be full again (the generic cell rate algorithm), so taking a token is one compare-and-set with no locks and
+ * no per-bucket allocation after the first request. A bucket that has refilled completely carries no state, which is
+ * what makes idle entries safe to evict: they are swept out periodically and whenever the map reaches its size limit.
+ * If the map is still full after a sweep, the tenth of the buckets closest to full is dropped to make room, so a new
+ * key is never turned away for lack of space. The buckets of clients being limited are the furthest from full and
+ * are dropped last.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class TokenBuckets {
+
+	private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(30);
+	private static final int EVICT_FRACTION = 10;
+
+	private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+	private final long nanosPerToken;
+	private final long burstNanos;
+	private final int maxEntries;
+	private final LongSupplier clock;
+	private final AtomicBoolean sweeping = new AtomicBoolean();
+	private volatile long nextSweep;
+
+	/**
+	 * @param capacity number of tokens a full bucket holds
+	 * @param refillPerSecond tokens added to each bucket per second
+	 * @param maxEntries number of buckets tracked at once before the ones closest to full are dropped
+	 */
+	public TokenBuckets(int capacity, double refillPerSecond, int maxEntries) {
+		this(capacity, refillPerSecond, maxEntries, System::nanoTime);
+	}
+
+	TokenBuckets(int capacity, double refillPerSecond, int maxEntries, LongSupplier clock) {
+		if (capacity < 1 || refillPerSecond <= 0 || maxEntries < 1) {
+			throw new IllegalArgumentException("Token bucket capacity, refill rate and size must be positive");
+		}
+		this.nanosPerToken = (long) (TimeUnit.SECONDS.toNanos(1) / refillPerSecond);
+		this.burstNanos = nanosPerToken * capacity;
+		this.maxEntries = maxEntries;
+		this.clock = clock;
+		this.nextSweep = clock.getAsLong() + SWEEP_INTERVAL_NANOS;
+	}
+
+	/**
+	 * Method to take a token from the bucket of the given key.
+	 * @param key bucket to take the token from
+	 * @return long 0 if a token was taken, otherwise the nanoseconds until one will be available
+	 * @since 1.1
+	 */
+	public long tryAcquire(String key) {
+		long now = clock.getAsLong();
+		if (now - nextSweep > 0) {
+			sweep(now);
+		}
+		AtomicLong bucket = buckets.get(key);
+		if (bucket == null) {
+			if (buckets.size() >= maxEntries) {
+				sweep(now);
+				if (buckets.size() >= maxEntries) {
+					evictClosestToFull();
+				}
+			}
+			bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+		}
+		while (true) {
+			long fullAt = bucket.get();
+			long next = Math.max(fullAt, now) + nanosPerToken;
+			long excess = next - now - burstNanos;
+			if (excess > 0) {
+				return excess;
+			}
+			if (bucket.compareAndSet(fullAt, next)) {
+				return 0;
+			}
+		}
+	}
+
+	/**
+	 * Method to drop every bucket that has refilled completely. Only one thread sweeps at a time; the others carry on
+	 * without waiting. A token taken from a bucket while it is being dropped is forgiven, which errs towards letting a
+	 * single request through rather than locking the hot path.
+	 * @param now current clock reading
+	 */
+	private void sweep(long now) {
+		if (sweeping.compareAndSet(false, true)) {
+			try {
+				nextSweep = now + SWEEP_INTERVAL_NANOS;
+				buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+			} finally {
+				sweeping.set(false);
+			}
+		}
+	}
+
+	/**
+	 * Method to drop the tenth of the buckets, and at least one, that will be full again soonest. Threads arriving while
+	 * another one evicts add their bucket without waiting, so the size limit may be passed by a few entries.
+	 */
+	private void evictClosestToFull() {
+		if (sweeping.compareAndSet(false, true)) {
+			try {
+				long[] fullAt = buckets.values().stream().mapToLong(AtomicLong::get).toArray();
+				if (fullAt.length == 0) {
+					return;
+				}
+				Arrays.sort(fullAt);
+				long cutoff = fullAt[Math.min(fullAt.length, Math.max(1, maxEntries / EVICT_FRACTION)) - 1];
+				buckets.values().removeIf(bucket -> bucket.get() <= cutoff);
+			} finally {
+				sweeping.set(false);
+			}
+		}
+	}
+
+	/**
+	 * @return number of buckets currently tracked
+	 */
+	public int size() {
+		return buckets.size();
+	}
+}
@@ -0,0 +1,41 @@
+package org.generictech.userauth.util;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * Source of random bytes for anything a client presents as proof: refresh tokens, opaque token handles and the jti
+ * a signed token is revoked by. Unlike a salt these have to be unguessable, so every value is read straight from the
+ * operating system's cryptographically strong non-blocking source (/dev/urandom) rather than from a pseudo random
+ * generator seeded from it, as {@link SaltGenerator} does. A token is only drawn once per login or refresh, so the
+ * shared source is not a point of contention.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public final class TokenGenerator {
+
+	private static final SecureRandom SOURCE = source();
+
+	private TokenGenerator() {
+	}
+
+	/**
+	 * Method to generate random token material.
+	 * @param length length in bytes
+	 * @return byte[] random bytes
+	 * @since 1.1
+	 */
+	public static byte[] nextToken(int length) {
+		byte[] token = new byte[length];
+		SOURCE.nextBytes(token);
+		return token;
+	}
+
+	private static SecureRandom source() {
+		try {
+			return SecureRandom.getInstance("NativePRNGNonBlocking");
+		} catch (NoSuchAlgorithmException e) {
+			return new SecureRandom();
+		}
+	}
+}
@@ -0,0 +1,223 @@
+package org.generictech.userauth.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.generictech.userauth.client.JwtCodec;
+import org.generictech.userauth.client.TokenClaims;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Creates and decodes Java Web Tokens. Keys come preparsed from the {@link SigningKeyManager}; every token names the
+ * key that signed it in its kid header. Tokens that have already been verified are remembered by the SHA-256 digest
+ * of their raw text until they expire, so a token presented again skips parsing and the signature check. Signing and
+ * verification go through {@link JwtCodec} rather than jjwt's general purpose parser; tokens are signed HS512 or
+ * ES256 depending on the kind of the current signing key. Opaque tokens are resolved by the {@link OpaqueTokenStore}
+ * instead.
+ */
+
+@Component
+public class TokenUtility {
+	
+	public static final String USER_ID_CLAIM = TokenClaims.USER_ID;
+	private static final int JTI_LENGTH = 16;
+	private static final Base64.Encoder JTI_ENCODER = Base64.getUrlEncoder().withoutPadding();
+	
+	private static final ThreadLocal<MessageDigest> DIGESTS = ThreadLocal.withInitial(() -> {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	});
+	
+	@Autowired
+	private SigningKeyManager keyManager;
+	@Autowired(required = false)
+	private MeterRegistry registry;
+	@Autowired(required = false)
+	private OpaqueTokenStore opaqueTokens;
+	@Value("${token.cache.enabled:true}")
+	private boolean cacheEnabled = true;
+	@Value("${token.cache.max-entries:10000}")
+	private int cacheMaxEntries = 10000;
+	@Value("${token.cache.ttl-seconds:300}")
+	private long cacheTtlSeconds = 300;
+	private final JwtCodec codec = new JwtCodec();
+	private BoundedCache<ByteBuffer, VerifiedToken> verified = new BoundedCache<>(cacheMaxEntries
+			, TimeUnit.SECONDS.toNanos(cacheTtlSeconds));
+
+	@PostConstruct
+	public void init() {
+		verified = new BoundedCache<>(cacheMaxEntries, TimeUnit.SECONDS.toNanos(cacheTtlSeconds));
+		if (registry != null) {
+			verified.bindTo(registry, "verified-tokens");
+		}
+	}
+
+    public String createJWT(String id, String issuer, String subject, long ttlMillis) {
+        return createJWT(id, issuer, subject, ttlMillis, claims -> { });
+    }
+
+    /**
+     * Method to create a token carrying claims beyond the standard ones.
+     * @param id jti claim
+     * @param issuer iss claim
+     * @param subject sub claim
+     * @param ttlMillis lifetime of the token, or a negative value for no expiry
+     * @param extra writes the additional claims
+     * @return String signed token
+     * @since 1.1
+     */
+    public String createJWT(String id, String issuer, String subject, long ttlMillis, JwtCodec.ClaimWriter extra) {
+        long nowMillis = System.currentTimeMillis();
+        return sign(id, nowMillis / 1000, nowMillis, issuer, subject, ttlMillis, extra);
+    }
+
+    /**
+     * Method to create a token for a user. The token gets a random jti so it can be revoked on its own, and carries
+     * the user id in the {@value #USER_ID_CLAIM} claim.
+     * @param userId id of the user the token is issued to
+     * @param issuer iss claim
+     * @param subject sub claim
+     * @param ttlMillis lifetime of the token, or a negative value for no expiry
+     * @param notBefore earliest epoch second the token may claim to be issued at, so a token issued right after the
+     * user's tokens were revoked is not caught by that revocation
+     * @param extra writes the additional claims
+     * @return String signed token
+     * @since 1.1
+     */
+    public String createUserJWT(int userId, String issuer, String subject, long ttlMillis, long notBefore
+            , JwtCodec.ClaimWriter extra) {
+        long nowMillis = System.currentTimeMillis();
+        String jti = JTI_ENCODER.encodeToString(TokenGenerator.nextToken(JTI_LENGTH));
+        return sign(jti, Math.max(nowMillis / 1000, notBefore), nowMillis, issuer, subject, ttlMillis, claims -> {
+            claims.number(USER_ID_CLAIM, userId);
+            extra.write(claims);
+        });
+    }
+
+    /**
+     * Method to read the id of the user a token was issued to. Tokens issued before the {@value #USER_ID_CLAIM} claim
+     * existed carry the user id as their jti.
+     * @param claims verified claims
+     * @return int user id
+     * @throws NumberFormatException if the token names no user
+     * @since 1.1
+     */
+    public static int userId(Claims claims) {
+        return TokenClaims.userId(claims);
+    }
+
+    private String sign(String id, long issuedAt, long nowMillis, String issuer, String subject, long ttlMillis
+            , JwtCodec.ClaimWriter extra) {
+
+        SigningKeyManager.KeySet keys = keyManager.current();
+        Key signingKey = keys.getSigningKey();
+
+        return codec.sign(keys.getSigningKid(), signingKey, claims -> {
+            claims.string(Claims.ID, id)
+                    .number(Claims.ISSUED_AT, issuedAt)
+                    .string(Claims.SUBJECT, subject)
+                    .string(Claims.ISSUER, issuer);
+            if (ttlMillis >= 0) {
+                claims.number(Claims.EXPIRATION, (nowMillis + ttlMillis) / 1000);
+            }
+            extra.write(claims);
+        });
+        
+    }
+
+    /**
+     * Method to verify a token and read its claims. A token seen before is answered from the cache for as long as it
+     * is valid and the key that verified it is still configured. The returned claims may be shared between callers
+     * and must not be modified. While opaque tokens are enabled, an opaque token is looked up in the
+     * {@link OpaqueTokenStore}.
+     * @param jwt raw token
+     * @return Claims of the token
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, expired or not signed by a configured key, or is
+     * an opaque token that was never issued or has been logged out
+     */
+    public Claims decodeJWT(String jwt) {
+        if (opaqueTokens != null && opaqueTokens.isEnabled() && OpaqueTokenStore.isHandle(jwt)) {
+            return opaqueTokens.resolve(jwt);
+        }
+        ByteBuffer digest = cacheEnabled ? digest(jwt) : null;
+        if (digest != null) {
+            VerifiedToken cached = verified.get(digest);
+            if (cached != null) {
+                if (keyManager.current().getVerificationKey(cached.kid) == cached.key) {
+                    return cached.claims;
+                }
+                verified.invalidate(digest);
+            }
+        }
+
+        VerifyingResolver resolver = new VerifyingResolver();
+        Claims claims = codec.verify(jwt, resolver);
+
+        if (digest != null) {
+            long lifetime = Long.MAX_VALUE;
+            if (claims.getExpiration() != null) {
+                lifetime = TimeUnit.MILLISECONDS.toNanos(claims.getExpiration().getTime() - System.currentTimeMillis());
+            }
+            verified.put(digest, new VerifiedToken(claims, resolver.kid, resolver.key), lifetime);
+        }
+        return claims;
+    }
+
+    /**
+     * Method to forget a verified token, so the next time it is presented it is checked from scratch.
+     * @param jwt raw token
+     * @since 1.1
+     */
+    public void evict(String jwt) {
+        verified.invalidate(digest(jwt));
+    }
+
+    private static ByteBuffer digest(String jwt) {
+        return ByteBuffer.wrap(DIGESTS.get().digest(jwt.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    /**
+     * Resolves the verification key from the kid header and remembers which key it was, so a cached token can be
+     * dropped once that key is rotated out.
+     */
+    private class VerifyingResolver implements JwtCodec.KeyResolver {
+
+        private String kid;
+        private Key key;
+
+        @Override
+        public Key resolve(String kid) {
+            this.kid = kid;
+            key = keyManager.current().getVerificationKey(kid);
+            return key;
+        }
+    }
+
+    private static class VerifiedToken {
+
+        private final Claims claims;
+        private final String kid;
+        private final Key key;
+
+        private VerifiedToken(Claims claims, String kid, Key key) {
+            this.claims = claims;
+            this.kid = kid;
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.generictech.userauth.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * In memory record of when each user's profile or password last changed, so stateless tokens carrying the user's
+ * data can be checked without a database query. A version is the epoch millisecond of the change, never lower than
+ * the previous version of the same user, and tokens carry the version current when they were issued. Because versions
+ * are timestamps, a change recorded after a restart still outranks every token issued before it.
+ * <p>
+ * Only users that changed are tracked, and an entry is dropped once it is older than the longest token lifetime,
+ * since every token it could reject has expired by then. Changes made on other instances arrive through the
+ * {@link InvalidationBus}; changes made before this instance started are not known to it, so tokens issued before
+ * such a change stay valid until they expire.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@Component
+public class UserVersions {
+
+	private static final int PRUNE_THRESHOLD = 10000;
+
+	private final Map<Integer, Long> versions = new ConcurrentHashMap<>();
+	private final long retentionMillis;
+	private final LongSupplier clock;
+
+	@Autowired
+	public UserVersions(@Value("${token.stateless.version-retention-seconds:86400}") long retentionSeconds
+			, MeterRegistry registry) {
+		this(retentionSeconds, System::currentTimeMillis);
+		Gauge.builder("user.versions.size", versions, Map::size)
+			.description("Users with a recent profile or password change")
+			.register(registry);
+	}
+
+	UserVersions(long retentionSeconds, LongSupplier clock) {
+		this.retentionMillis = TimeUnit.SECONDS.toMillis(retentionSeconds);
+		this.clock = clock;
+	}
+
+	/**
+	 * Method to get the version to sign into a new token for the user.
+	 * @param userId id of the user
+	 * @return long version of the user's last change, or 0 if none is known
+	 * @since 1.1
+	 */
+	public long current(int userId) {
+		Long version = versions.get(userId);
+		return version == null ? 0 : version;
+	}
+
+	/**
+	 * Method to check whether a token issued at the given version still reflects the user.
+	 * @param userId id of the user
+	 * @param tokenVersion version claim of the token
+	 * @return boolean false if the user has changed since the token was issued
+	 * @since 1.1
+	 */
+	public boolean isCurrent(int userId, long tokenVersion) {
+		return tokenVersion >= current(userId);
+	}
+
+	/**
+	 * Method to record a change to the user, invalidating stateless tokens issued before it.
+	 * @param userId id of the user that changed
+	 * @return long new version of the user
+	 * @since 1.1
+	 */
+	public long bump(int userId) {
+		long now = clock.getAsLong();
+		if (versions.size() >= PRUNE_THRESHOLD) {
+			prune(now);
+		}
+		return versions.merge(userId, now, (previous, next) -> Math.max(previous + 1, next));
+	}
+
+	/**
+	 * Method to record a change already versioned by another instance.
+	 * @param userId id of the user that changed
+	 * @param version version the other instance gave the change
+	 * @since 1.1
+	 */
+	public void observe(int userId, long version) {
+		versions.merge(userId, version, Math::max);
+	}
+
+	private void prune(long now) {
+		long cutoff = now - retentionMillis;
+		versions.values().removeIf(version -> version < cutoff);
+	}
+
+	int size() {
+		return versions.size();
+	}
+}
@@ -0,0 +1,108 @@
+package org.generictech.userauth.util;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Short lived record of passwords that have recently been verified, so a client logging in again with the same
+ * credentials is checked with one HMAC instead of a full KDF. Only an HMAC of the user id, the stored hash and the
+ * password is kept, under a random key that never leaves the process, so the cache is of no use for guessing
+ * passwords offline. The stored hash is part of the MAC, so an entry stops matching as soon as the credentials
+ * change anywhere, and {@link #invalidate(int)} drops it straight away on this instance.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@Component
+public class VerifiedCredentialCache {
+
+	private static final String ALGORITHM = "HmacSHA256";
+
+	private final boolean enabled;
+	private final BoundedCache<Integer, byte[]> cache;
+	private final ThreadLocal<Mac> macs;
+
+	public VerifiedCredentialCache(@Value("${auth.credential-cache.enabled:false}") boolean enabled
+			, @Value("${auth.credential-cache.ttl-seconds:300}") long ttlSeconds
+			, @Value("${auth.credential-cache.max-entries:10000}") int maxEntries, MeterRegistry registry) {
+		this.enabled = enabled;
+		this.cache = new BoundedCache<Integer, byte[]>(maxEntries, TimeUnit.SECONDS.toNanos(ttlSeconds))
+				.bindTo(registry, "verified-credentials");
+		byte[] secret = new byte[32];
+		new SecureRandom().nextBytes(secret);
+		SecretKeySpec key = new SecretKeySpec(secret, ALGORITHM);
+		this.macs = ThreadLocal.withInitial(() -> {
+			try {
+				Mac mac = Mac.getInstance(ALGORITHM);
+				mac.init(key);
+				return mac;
+			} catch (GeneralSecurityException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+	}
+
+	/**
+	 * Method to check whether the password was recently verified against the given stored hash.
+	 * @param userId id of the user logging in
+	 * @param stored hash currently stored for the user
+	 * @param password password being checked
+	 * @return boolean true if the same credentials were verified within the time to live
+	 * @since 1.1
+	 */
+	public boolean matches(int userId, PasswordHash stored, String password) {
+		if (!enabled) {
+			return false;
+		}
+		byte[] remembered = cache.get(userId);
+		return remembered != null && MessageDigest.isEqual(remembered, mac(userId, stored, password));
+	}
+
+	/**
+	 * Method to record a password that has just been verified with the KDF.
+	 * @param userId id of the user
+	 * @param stored hash the password was verified against
+	 * @param password verified password
+	 * @since 1.1
+	 */
+	public void remember(int userId, PasswordHash stored, String password) {
+		if (enabled) {
+			cache.put(userId, mac(userId, stored, password));
+		}
+	}
+
+	/**
+	 * Method to forget any verified password for a user, called whenever their credentials change.
+	 * @param userId id of the user
+	 * @since 1.1
+	 */
+	public void invalidate(int userId) {
+		cache.invalidate(userId);
+	}
+
+	private byte[] mac(int userId, PasswordHash stored, String password) {
+		byte[] storedBytes = stored.toBytes();
+		ByteBuffer encoded = StandardCharsets.UTF_8.encode(CharBuffer.wrap(password));
+		Mac mac = macs.get();
+		mac.update(ByteBuffer.allocate(8).putInt(userId).putInt(storedBytes.length).array());
+		mac.update(storedBytes);
+		mac.update(encoded);
+		if (encoded.hasArray()) {
+			Arrays.fill(encoded.array(), (byte) 0);
+		}
+		return mac.doFinal();
+	}
+}
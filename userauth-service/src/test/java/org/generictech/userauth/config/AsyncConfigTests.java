@@ -0,0 +1,58 @@
+package org.generictech.userauth.config;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.generictech.userauth.exception.ServerBusyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the executor configured by AsyncConfig
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class AsyncConfigTests {
+
+	private CountDownLatch release;
+	private Executor executor;
+
+	@BeforeEach
+	public void setUp() {
+		release = new CountDownLatch(1);
+		executor = new AsyncConfig().authExecutor(1, 1);
+		executor.execute(() -> {
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		executor.execute(() -> { });
+	}
+
+	@AfterEach
+	public void tearDown() {
+		release.countDown();
+	}
+
+	/**
+	 * Test to verify work over the queue capacity is rejected with a ServerBusyException, whether it is chained onto
+	 * a future or submitted directly.
+	 */
+	@Test
+	public void fullQueueTest() {
+		CompletableFuture<Integer> chained = CompletableFuture.completedFuture(1).thenApplyAsync(i -> i + 1, executor);
+
+		CompletionException e = assertThrows(CompletionException.class, chained::join);
+		assertTrue(e.getCause() instanceof ServerBusyException);
+		assertThrows(ServerBusyException.class, () -> CompletableFuture.supplyAsync(() -> 1, executor));
+	}
+}
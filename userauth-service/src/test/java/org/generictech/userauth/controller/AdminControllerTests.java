@@ -0,0 +1,107 @@
+package org.generictech.userauth.controller;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Collections;
+
+import org.generictech.userauth.dto.KdfCalibration;
+import org.generictech.userauth.security.LoginRateLimiter;
+import org.generictech.userauth.security.ServiceKeys;
+import org.generictech.userauth.security.TokenRevocations;
+import org.generictech.userauth.util.KdfCalibrator;
+import org.generictech.userauth.util.SigningKeyManager;
+import org.generictech.userauth.util.TokenUtility;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.impl.DefaultClaims;
+
+/**
+ * Test class for AdminController. Runs with the security filters, since what is under test is who may reach it.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@ExtendWith(SpringExtension.class)
+@WebMvcTest(controllers = AdminController.class, properties = "security.admin-keys=admin-key")
+@Import(ServiceKeys.class)
+public class AdminControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockBean
+	private KdfCalibrator kdfCalibrator;
+
+	@MockBean
+	private SigningKeyManager keyManager;
+
+	@MockBean
+	private TokenUtility tokenUtility;
+
+	@MockBean
+	private LoginRateLimiter rateLimiter;
+
+	@MockBean
+	private TokenRevocations revocations;
+
+	/**
+	 * Test to verify 200 status code and the kids now accepted when the request presents an admin key.
+	 * @throws Exception
+	 */
+	@Test
+	public void reloadKeysTest() throws Exception {
+		doReturn(Collections.singleton("k2")).when(keyManager).reload();
+
+		mockMvc.perform(post("/admin/keys/reload").header(ServiceKeys.HEADER, "admin-key"))
+			.andExpect(status().isOk())
+			.andExpect(MockMvcResultMatchers.content().json("[\"k2\"]"));
+		verify(keyManager).reload();
+	}
+
+	/**
+	 * Test to verify 200 status code when the request presents an admin key.
+	 * @throws Exception
+	 */
+	@Test
+	public void calibrateTest() throws Exception {
+		doReturn(new KdfCalibration(131072, 262144, 100, 100)).when(kdfCalibrator).calibrate();
+
+		mockMvc.perform(post("/admin/kdf/calibrate").header(ServiceKeys.HEADER, "admin-key"))
+			.andExpect(status().isOk());
+	}
+
+	/**
+	 * Test to verify 403 status code, and nothing done, for a user token, an unknown key and no credentials at all.
+	 * @throws Exception
+	 */
+	@Test
+	public void forbiddenTest() throws Exception {
+		Claims claims = new DefaultClaims();
+		claims.setSubject("TTester");
+		claims.put(TokenUtility.USER_ID_CLAIM, 1);
+		doReturn(claims).when(tokenUtility).decodeJWT("testToken");
+
+		mockMvc.perform(post("/admin/keys/reload").header("tokenId", "testToken"))
+			.andExpect(status().isForbidden());
+		mockMvc.perform(post("/admin/kdf/calibrate").header("tokenId", "testToken"))
+			.andExpect(status().isForbidden());
+		mockMvc.perform(post("/admin/keys/reload").header(ServiceKeys.HEADER, "guessed-key"))
+			.andExpect(status().isForbidden());
+		mockMvc.perform(post("/admin/keys/reload"))
+			.andExpect(status().isForbidden());
+		verify(kdfCalibrator, never()).calibrate();
+		verify(keyManager, never()).reload();
+	}
+}
@@ -0,0 +1,386 @@
+package org.generictech.userauth.controller;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.generictech.userauth.dto.CredentialsDTO;
+import org.generictech.userauth.dto.SessionTokens;
+import org.generictech.userauth.dto.SystemUserDTO;
+import org.generictech.userauth.dto.TokenBatch;
+import org.generictech.userauth.dto.TokenValidation;
+import org.generictech.userauth.exception.BadParameterException;
+import org.generictech.userauth.exception.InvalidTokenException;
+import org.generictech.userauth.exception.ServerBusyException;
+import org.generictech.userauth.exception.SystemUserNotFoundException;
+import org.generictech.userauth.exception.TooManyRequestsException;
+import org.generictech.userauth.security.AuthenticatedUser;
+import org.generictech.userauth.security.LoginRateLimiter;
+import org.generictech.userauth.security.ServiceKeys;
+import org.generictech.userauth.security.TokenRevocations;
+import org.generictech.userauth.service.AuthService;
+import org.generictech.userauth.util.TokenUtility;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Test class for AuthController unit tests
+ * @author Jaden Wilson
+ * @since 1.0
+ */
+@ExtendWith(SpringExtension.class)
+@AutoConfigureMockMvc(addFilters = false)
+@WebMvcTest(controllers = AuthController.class)
+public class AuthControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+	
+	@Autowired
+	private ObjectMapper om;
+	
+	@MockBean
+	private AuthService authService;
+	
+	@MockBean
+	private TokenUtility tokenUtility;
+	
+	@MockBean
+	private LoginRateLimiter rateLimiter;
+	
+	@MockBean
+	private TokenRevocations revocations;
+	
+	@MockBean
+	private ServiceKeys serviceKeys;
+	
+	private SystemUserDTO user;
+	private CredentialsDTO creds;
+	private AuthenticatedUser principal;
+	private UsernamePasswordAuthenticationToken auth;
+	
+	@BeforeEach
+	public void setUp() {
+		user = new SystemUserDTO(1, "TTester", "test@test.com");
+		creds = new CredentialsDTO("TTester", "password");
+		principal = new AuthenticatedUser(1, "TTester", "jti", null, "testToken", null);
+		auth = new UsernamePasswordAuthenticationToken(principal, "testToken", new ArrayList<>());
+	}
+	
+	/**
+	 * Authenticates the request the way TokenAuthFilter would. The filter chain is not run by these tests, so the
+	 * authentication is put into the SecurityContextHolder the controller reads it from.
+	 */
+	private static RequestPostProcessor authenticated(Authentication auth) {
+		return request -> {
+			SecurityContextHolder.getContext().setAuthentication(auth);
+			return request;
+		};
+	}
+	
+	@AfterEach
+	public void clearAuthentication() {
+		SecurityContextHolder.clearContext();
+	}
+	
+	/**
+	 * Test to verify 200 status code, and user content, and token header are all present.
+	 * @throws JsonProcessingException
+	 * @throws Exception
+	 */
+	@Test
+	public void loginSuccessTest() throws JsonProcessingException, Exception {
+		doReturn(CompletableFuture.completedFuture(user)).when(authService).loginAsync(any(CredentialsDTO.class));
+		doReturn(new SessionTokens("token", "refresh", user)).when(authService).issueTokens(any(SystemUserDTO.class));
+		MvcResult result = mockMvc.perform(post("/login").contentType(MediaType.APPLICATION_JSON)
+				.content(om.writeValueAsString(creds))
+				.accept(MediaType.APPLICATION_JSON))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+		mockMvc.perform(asyncDispatch(result))
+			.andExpect(status().isOk())
+			.andExpect(MockMvcResultMatchers.content().string(om.writeValueAsString(user)))
+			.andExpect(MockMvcResultMatchers.header().exists("tokenId"))
+			.andExpect(MockMvcResultMatchers.header().string("refreshToken", "refresh"));
+	}
+	
+	/**
+	 * Test to verify 404 if user or credentials not found. 
+	 * @throws JsonProcessingException
+	 * @throws Exception
+	 */
+	@Test
+	public void loginFailureTest() throws JsonProcessingException, Exception {
+		doThrow(new SystemUserNotFoundException()).when(authService).loginAsync(any(CredentialsDTO.class));
+		doReturn(new SessionTokens("token", "refresh", user)).when(authService).issueTokens(any(SystemUserDTO.class));
+		mockMvc.perform(post("/login").contentType(MediaType.APPLICATION_JSON)
+				.content(om.writeValueAsString(creds))
+				.accept(MediaType.APPLICATION_JSON))
+			.andExpect(status().isNotFound())
+			.andExpect(MockMvcResultMatchers.content().string(containsString("SystemUserNotFoundException")));
+	}
+	
+	/**
+	 * Test to verify 400 if password is wrong. 
+	 * @throws JsonProcessingException
+	 * @throws Exception
+	 */
+	@Test
+	public void loginPasswordFailureTest() throws JsonProcessingException, Exception {
+		doReturn(CompletableFuture.completedFuture(null)).when(authService).loginAsync(any(CredentialsDTO.class));
+		doReturn(new SessionTokens("token", "refresh", user)).when(authService).issueTokens(any(SystemUserDTO.class));
+		MvcResult result = mockMvc.perform(post("/login").contentType(MediaType.APPLICATION_JSON)
+				.content(om.writeValueAsString(creds))
+				.accept(MediaType.APPLICATION_JSON))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+		mockMvc.perform(asyncDispatch(result))
+			.andExpect(status().isBadRequest());
+	}
+	
+	/**
+	 * Test to verify 503 with a Retry-After header when the hashing queue is full.
+	 * @throws JsonProcessingException
+	 * @throws Exception
+	 */
+	@Test
+	public void loginServerBusyTest() throws JsonProcessingException, Exception {
+		CompletableFuture<SystemUserDTO> failed = new CompletableFuture<>();
+		failed.completeExceptionally(new ServerBusyException("Password hashing queue is full"));
+		doReturn(failed).when(authService).loginAsync(any(CredentialsDTO.class));
+		MvcResult result = mockMvc.perform(post("/login").contentType(MediaType.APPLICATION_JSON)
+				.content(om.writeValueAsString(creds))
+				.accept(MediaType.APPLICATION_JSON))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+		mockMvc.perform(asyncDispatch(result))
+			.andExpect(status().isServiceUnavailable())
+			.andExpect(MockMvcResultMatchers.header().exists("Retry-After"));
+	}
+	
+	/**
+	 * Test to verify 429 with a Retry-After header, and no lookup, when the login is over the rate limit.
+	 * @throws JsonProcessingException
+	 * @throws Exception
+	 */
+	@Test
+	public void loginRateLimitedTest() throws JsonProcessingException, Exception {
+		doThrow(new TooManyRequestsException(5)).when(rateLimiter).acquire(eq("TTester"), any(HttpServletRequest.class));
+		mockMvc.perform(post("/login").contentType(MediaType.APPLICATION_JSON)
+				.content(om.writeValueAsString(creds))
+				.accept(MediaType.APPLICATION_JSON))
+			.andExpect(status().isTooManyRequests())
+			.andExpect(MockMvcResultMatchers.header().string("Retry-After", "5"))
+			.andExpect(MockMvcResultMatchers.content().string(containsString("TooManyRequestsException")));
+		verifyNoInteractions(authService);
+	}
+	
+	/**
+	 * Test to verify 200 status code if token is valid. 
+	 * @throws Exception
+	 */
+	@Test
+	public void validateTokenSuccessTest() throws Exception {
+		doReturn(user).when(authService).validateToken(anyString());
+		
+		mockMvc.perform(post("/validate").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"token\": " + "\"testToken\"}")
+				.accept(MediaType.APPLICATION_JSON))
+		.andExpect(status().isOk())
+		.andExpect(MockMvcResultMatchers.content().string(om.writeValueAsString(user)));
+	}
+	
+	/**
+	 * Test to verify 401 status code and exception return when token is invalid.
+	 * @throws Exception
+	 */
+	@Test
+	public void validateTokenFalureTest() throws Exception {
+		doThrow(new InvalidTokenException()).when(authService).validateToken(anyString());
+		
+		mockMvc.perform(post("/validate").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"token\": " + "\"testToken\"}")
+				.accept(MediaType.APPLICATION_JSON))
+		.andExpect(status().isUnauthorized())
+		.andExpect(MockMvcResultMatchers.content().string(containsString("InvalidTokenException")));
+	}
+	
+	/**
+	 * Test to verify 400 status code and BadParameterException if no token is provided.
+	 * @throws Exception
+	 */
+	@Test
+	public void validateTokenMissingTokenTest() throws Exception {
+		doThrow(new BadParameterException()).when(authService).validateToken(isNull());
+		
+		mockMvc.perform(post("/validate").contentType(MediaType.APPLICATION_JSON)
+				.content("{ }")
+				.accept(MediaType.APPLICATION_JSON))
+		.andExpect(status().isBadRequest())
+		.andExpect(MockMvcResultMatchers.content().string(containsString("BadParameterException")));
+	}
+	
+	/**
+	 * Test to verify 404 status code when user is not found from token id. 
+	 * @throws Exception
+	 */
+	@Test
+	public void validateTokenUserNoLongerExistsTest() throws Exception {
+		doThrow(new SystemUserNotFoundException()).when(authService).validateToken(anyString());
+		
+		mockMvc.perform(post("/validate").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"token\": \"tokenId\" }")
+				.accept(MediaType.APPLICATION_JSON))
+		.andExpect(status().isNotFound())
+		.andExpect(MockMvcResultMatchers.content().string(containsString("SystemUserNotFoundException")));
+	}
+	
+	/**
+	 * Test to verify 204 status code when a token is logged out, and that the token from the header is revoked.
+	 * @throws Exception
+	 */
+	@Test
+	public void logoutTest() throws Exception {
+		mockMvc.perform(post("/logout").with(authenticated(auth)))
+			.andExpect(status().isNoContent());
+		verify(authService).logout(principal, null);
+	}
+	
+	/**
+	 * Test to verify the refresh token sent with a logout is passed on to be revoked.
+	 * @throws Exception
+	 */
+	@Test
+	public void logoutWithRefreshTokenTest() throws Exception {
+		mockMvc.perform(post("/logout").with(authenticated(auth)).contentType(MediaType.APPLICATION_JSON)
+				.content("{\"token\": \"refresh\"}"))
+			.andExpect(status().isNoContent());
+		verify(authService).logout(principal, "refresh");
+	}
+	
+	/**
+	 * Test to verify 200 status code, user content, and both token headers when a refresh token is exchanged.
+	 * @throws Exception
+	 */
+	@Test
+	public void refreshSuccessTest() throws Exception {
+		doReturn(new SessionTokens("newToken", "newRefresh", user)).when(authService).refresh("refresh");
+		
+		mockMvc.perform(post("/token/refresh").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"token\": \"refresh\"}")
+				.accept(MediaType.APPLICATION_JSON))
+			.andExpect(status().isOk())
+			.andExpect(MockMvcResultMatchers.content().string(om.writeValueAsString(user)))
+			.andExpect(MockMvcResultMatchers.header().string("tokenId", "newToken"))
+			.andExpect(MockMvcResultMatchers.header().string("refreshToken", "newRefresh"));
+	}
+	
+	/**
+	 * Test to verify 401 status code and exception return when the refresh token is invalid or reused.
+	 * @throws Exception
+	 */
+	@Test
+	public void refreshInvalidTokenTest() throws Exception {
+		doThrow(new InvalidTokenException()).when(authService).refresh(anyString());
+		
+		mockMvc.perform(post("/token/refresh").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"token\": \"refresh\"}")
+				.accept(MediaType.APPLICATION_JSON))
+			.andExpect(status().isUnauthorized())
+			.andExpect(MockMvcResultMatchers.content().string(containsString("InvalidTokenException")));
+	}
+	
+	/**
+	 * Test to verify 204 status code when all of a user's tokens are revoked.
+	 * @throws Exception
+	 */
+	@Test
+	public void logoutAllTest() throws Exception {
+		mockMvc.perform(post("/logout/all").with(authenticated(auth)))
+			.andExpect(status().isNoContent());
+		verify(authService).revokeAll(principal);
+	}
+	
+	/**
+	 * Test to verify 401 status code and exception return when logging out without a valid token.
+	 * @throws Exception
+	 */
+	@Test
+	public void logoutInvalidTokenTest() throws Exception {
+		doThrow(new InvalidTokenException()).when(authService).logout(isNull(), isNull());
+		
+		mockMvc.perform(post("/logout").header("tokenId", "testToken"))
+			.andExpect(status().isUnauthorized())
+			.andExpect(MockMvcResultMatchers.content().string(containsString("InvalidTokenException")));
+	}
+	
+	/**
+	 * Test to verify 200 status code and one result per token for a batch.
+	 * @throws Exception
+	 */
+	@Test
+	public void validateTokensSuccessTest() throws Exception {
+		List<TokenValidation> results = Arrays.asList(TokenValidation.valid(user)
+				, TokenValidation.invalid(new InvalidTokenException()));
+		doReturn(CompletableFuture.completedFuture(results)).when(authService)
+			.validateTokens(Arrays.asList("goodToken", "badToken"));
+		
+		MvcResult result = mockMvc.perform(post("/validate/batch").contentType(MediaType.APPLICATION_JSON)
+				.content(om.writeValueAsString(new TokenBatch(Arrays.asList("goodToken", "badToken"))))
+				.accept(MediaType.APPLICATION_JSON))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+		mockMvc.perform(asyncDispatch(result))
+			.andExpect(status().isOk())
+			.andExpect(MockMvcResultMatchers.content().string(om.writeValueAsString(results)));
+	}
+	
+	/**
+	 * Test to verify 400 status code and BadParameterException if the batch is empty or too large.
+	 * @throws Exception
+	 */
+	@Test
+	public void validateTokensBadBatchTest() throws Exception {
+		doThrow(new BadParameterException("Tokens cannot be empty")).when(authService).validateTokens(isNull());
+		
+		mockMvc.perform(post("/validate/batch").contentType(MediaType.APPLICATION_JSON)
+				.content("{ }")
+				.accept(MediaType.APPLICATION_JSON))
+		.andExpect(status().isBadRequest())
+		.andExpect(MockMvcResultMatchers.content().string(containsString("BadParameterException")));
+	}
+	
+}
@@ -5,38 +5,51 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
-import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 import org.generictech.userauth.dto.SystemUserDataDTO;
 import org.generictech.userauth.dto.SystemUserParams;
 import org.generictech.userauth.exception.InsertFailedException;
+import org.generictech.userauth.exception.ServerBusyException;
 import org.generictech.userauth.exception.SystemUserNotFoundException;
 import org.generictech.userauth.model.SystemUser;
+import org.generictech.userauth.security.AuthenticatedUser;
+import org.generictech.userauth.security.LoginRateLimiter;
+import org.generictech.userauth.security.ServiceKeys;
+import org.generictech.userauth.security.TokenRevocations;
 import org.generictech.userauth.service.SystemUserService;
 import org.generictech.userauth.util.TokenUtility;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.Mock;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
-import io.jsonwebtoken.Claims;
-
 /**
  * Test class to test the {@link SystemUserController}
  * @author Jaden Wilson
@@ -58,16 +71,21 @@ public class SystemUserControllerTests {
 	
 	@MockBean
 	private TokenUtility tokenUtility;
+	
+	@MockBean
+	private LoginRateLimiter rateLimiter;
+	
+	@MockBean
+	private TokenRevocations revocations;
+	
+	@MockBean
+	private ServiceKeys serviceKeys;
 
-	@Mock
-	private Claims claims;
 	private SystemUser user;
 	private SystemUserDataDTO userData;
 	
 	@BeforeEach
 	public void setUp() {
-		claims = mock(Claims.class);
-		
 		user = new SystemUser(1, "Test", "Tester", "test@test.com", "TTester");
 		userData = new SystemUserDataDTO();
 		userData.setFirstName("Tested");
@@ -77,32 +95,59 @@ public class SystemUserControllerTests {
 		userData.setPassword("password");
 	}
 	
+	/**
+	 * Authenticates the request the way TokenAuthFilter would. The filter chain is not run by these tests, so the
+	 * authentication is put into the SecurityContextHolder the controller reads it from.
+	 */
+	private static RequestPostProcessor authenticated(Authentication auth) {
+		return request -> {
+			SecurityContextHolder.getContext().setAuthentication(auth);
+			return request;
+		};
+	}
+	
+	@AfterEach
+	public void clearAuthentication() {
+		SecurityContextHolder.clearContext();
+	}
+	
+	private static RequestPostProcessor asUser(int id) {
+		return authenticated(new UsernamePasswordAuthenticationToken(new AuthenticatedUser(id, "TTester", "jti", null
+				, "testToken", null), "testToken", new ArrayList<>()));
+	}
+	
 	/**
 	 * Test to make sure a valid user is returned when no parameters are included in the request.
 	 * @throws Exception
 	 */
 	@Test
 	public void getSystemUserWithNoParametersTest() throws Exception {
-		doReturn(claims).when(tokenUtility).decodeJWT("testToken");
-		doReturn("1").when(claims).getId();
 		doReturn(user).when(systemUserService).findByCriteria(new SystemUserParams(), 1);
 		mockMvc.perform(get("/systemuser")
-				.header("tokenId", "testToken"))
+				.with(asUser(1)))
 			.andExpect(status().isOk())
 			.andExpect(MockMvcResultMatchers.content().string(om.writeValueAsString(user)));
 	}
 	
+	/**
+	 * Test to verify 401 status code when the request was not authenticated.
+	 * @throws Exception
+	 */
+	@Test
+	public void getSystemUserUnauthenticatedTest() throws Exception {
+		mockMvc.perform(get("/systemuser"))
+			.andExpect(status().isUnauthorized());
+	}
+	
 	/**
 	 * Test to verify that a bad parameter exception is thrown if a malformed parameter is passed in. 
 	 * @throws Exception
 	 */
 	@Test
 	public void getSystemUserWithBadParametersTest() throws Exception {
-		doReturn(claims).when(tokenUtility).decodeJWT("testToken");
-		doReturn("1").when(claims).getId();
 		doReturn(user).when(systemUserService).findByCriteria(any(SystemUserParams.class), anyInt());
 		mockMvc.perform(get("/systemuser?usrname=TTester")
-				.header("tokenId", "testToken"))
+				.with(asUser(1)))
 			.andExpect(status().is(400));
 	}
 	
@@ -112,18 +157,16 @@ public class SystemUserControllerTests {
 	 */
 	@Test
 	public void getSystemUserNotFoundTest() throws Exception {
-		doReturn(claims).when(tokenUtility).decodeJWT("testToken");
-		doReturn("1").when(claims).getId();
 		doThrow(new SystemUserNotFoundException()).when(systemUserService).findByCriteria(any(SystemUserParams.class), anyInt());
 		mockMvc.perform(get("/systemuser?username=Test")
-				.header("tokenId", "testToken"))
+				.with(asUser(1)))
 			.andExpect(status().is(404));
 		
 		SystemUserParams params = new SystemUserParams();
 		params.setUsername("Test");
 		doThrow(new SystemUserNotFoundException()).when(systemUserService).findByCriteria(params, 1);
 		mockMvc.perform(get("/systemuser?username=Test")
-				.header("tokenId", "testToken"))
+				.with(asUser(1)))
 			.andExpect(status().is(404));
 	}
 	
@@ -135,11 +178,9 @@ public class SystemUserControllerTests {
 	public void getSystemUserByUsernameTest() throws Exception {
 		SystemUserParams params = new SystemUserParams();
 		params.setUsername("TTester");
-		doReturn(claims).when(tokenUtility).decodeJWT("testToken");
-		doReturn("1").when(claims).getId();
 		doReturn(user).when(systemUserService).findByCriteria(params, 1);
 		mockMvc.perform(get("/systemuser?username=TTester")
-				.header("tokenId", "testToken"))
+				.with(asUser(1)))
 			.andExpect(status().isOk())
 			.andExpect(MockMvcResultMatchers.content().string(om.writeValueAsString(user)));
 	}
@@ -152,11 +193,9 @@ public class SystemUserControllerTests {
 	public void getSystemUserByEmailTest() throws Exception {
 		SystemUserParams params = new SystemUserParams();
 		params.setEmail("test@test.com");
-		doReturn(claims).when(tokenUtility).decodeJWT("testToken");
-		doReturn("1").when(claims).getId();
 		doReturn(user).when(systemUserService).findByCriteria(params, 1);
 		mockMvc.perform(get("/systemuser?email=test@test.com")
-				.header("tokenId", "testToken"))
+				.with(asUser(1)))
 			.andExpect(status().isOk())
 			.andExpect(MockMvcResultMatchers.content().string(om.writeValueAsString(user)));
 	}
@@ -170,11 +209,9 @@ public class SystemUserControllerTests {
 	public void getSystemUserByIdTest() throws Exception {
 		SystemUserParams params = new SystemUserParams();
 		params.setId(1);
-		doReturn(claims).when(tokenUtility).decodeJWT("testToken");
-		doReturn("1").when(claims).getId();
 		doReturn(user).when(systemUserService).findByCriteria(params, 1);
 		mockMvc.perform(get("/systemuser?id=1")
-				.header("tokenId", "testToken"))
+				.with(asUser(1)))
 			.andExpect(status().isOk())
 			.andExpect(MockMvcResultMatchers.content().string(om.writeValueAsString(user)));
 	}
@@ -187,11 +224,14 @@ public class SystemUserControllerTests {
 	public void postSystemUserSuccessTest() throws Exception {
 		SystemUser user2 = new SystemUser(2, userData.getFirstName(), userData.getLastName()
 				, userData.getEmail(), userData.getUsername());
-		when(systemUserService.save(any(SystemUserDataDTO.class))).thenReturn(user2);
+		when(systemUserService.saveAsync(any(SystemUserDataDTO.class))).thenReturn(CompletableFuture.completedFuture(user2));
 		
-		mockMvc.perform(post("/systemuser").contentType(MediaType.APPLICATION_JSON)
+		MvcResult result = mockMvc.perform(post("/systemuser").contentType(MediaType.APPLICATION_JSON)
 				.content(om.writeValueAsString(userData))
 				.accept(MediaType.APPLICATION_JSON))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+		mockMvc.perform(asyncDispatch(result))
 			.andExpect(status().isCreated())
 			.andExpect(MockMvcResultMatchers.content().string(om.writeValueAsString(user2)));
 	}
@@ -202,14 +242,39 @@ public class SystemUserControllerTests {
 	 */
 	@Test
 	public void postSystemUserFailureTest() throws Exception {
-		doThrow(new InsertFailedException()).when(systemUserService).save(any(SystemUserDataDTO.class));
+		CompletableFuture<SystemUser> failed = new CompletableFuture<>();
+		failed.completeExceptionally(new CompletionException(new InsertFailedException()));
+		when(systemUserService.saveAsync(any(SystemUserDataDTO.class))).thenReturn(failed);
 		
-		mockMvc.perform(post("/systemuser").contentType(MediaType.APPLICATION_JSON)
+		MvcResult result = mockMvc.perform(post("/systemuser").contentType(MediaType.APPLICATION_JSON)
 				.content(om.writeValueAsString(userData))
 				.accept(MediaType.APPLICATION_JSON))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+		mockMvc.perform(asyncDispatch(result))
 			.andExpect(status().isConflict());
 	}
 	
+	/**
+	 * Test to verify status code 503 and a Retry-After header when the hashing queue is full.
+	 * @throws Exception
+	 */
+	@Test
+	public void postSystemUserServerBusyTest() throws Exception {
+		CompletableFuture<SystemUser> failed = new CompletableFuture<>();
+		failed.completeExceptionally(new ServerBusyException("Password hashing queue is full"));
+		when(systemUserService.saveAsync(any(SystemUserDataDTO.class))).thenReturn(failed);
+		
+		MvcResult result = mockMvc.perform(post("/systemuser").contentType(MediaType.APPLICATION_JSON)
+				.content(om.writeValueAsString(userData))
+				.accept(MediaType.APPLICATION_JSON))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+		mockMvc.perform(asyncDispatch(result))
+			.andExpect(status().isServiceUnavailable())
+			.andExpect(MockMvcResultMatchers.header().exists("Retry-After"));
+	}
+	
 	/**
 	 * Test to verify status code 200 on update of user
 	 * @throws Exception
@@ -0,0 +1,111 @@
+package org.generictech.userauth.controller;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.generictech.userauth.dto.JsonWebKey;
+import org.generictech.userauth.dto.JsonWebKeySet;
+import org.generictech.userauth.dto.RevocationList;
+import org.generictech.userauth.security.LoginRateLimiter;
+import org.generictech.userauth.security.ServiceKeys;
+import org.generictech.userauth.security.TokenRevocations;
+import org.generictech.userauth.util.SigningKeyManager;
+import org.generictech.userauth.util.TokenUtility;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Test class for VerificationController unit tests
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@ExtendWith(SpringExtension.class)
+@AutoConfigureMockMvc(addFilters = false)
+@WebMvcTest(controllers = VerificationController.class)
+public class VerificationControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+	
+	@Autowired
+	private ObjectMapper om;
+	
+	@MockBean
+	private SigningKeyManager keyManager;
+	
+	@MockBean
+	private TokenUtility tokenUtility;
+	
+	@MockBean
+	private LoginRateLimiter rateLimiter;
+	
+	@MockBean
+	private TokenRevocations revocations;
+	
+	@MockBean
+	private ServiceKeys serviceKeys;
+	
+	private JsonWebKeySet jwks;
+	
+	@BeforeEach
+	public void setUp() {
+		jwks = new JsonWebKeySet(Arrays.asList(new JsonWebKey("EC", "P-256", "e1", "sig", "ES256", "x", "y")));
+		SigningKeyManager.KeySet keys = mock(SigningKeyManager.KeySet.class);
+		doReturn(jwks).when(keys).getJwks();
+		doReturn("tag1").when(keys).getJwksTag();
+		doReturn(keys).when(keyManager).current();
+	}
+	
+	/**
+	 * Test to verify 200 status code, the key set, and headers that let clients cache it.
+	 * @throws Exception
+	 */
+	@Test
+	public void jwksTest() throws Exception {
+		mockMvc.perform(get("/.well-known/jwks.json"))
+			.andExpect(status().isOk())
+			.andExpect(MockMvcResultMatchers.content().string(om.writeValueAsString(jwks)))
+			.andExpect(MockMvcResultMatchers.header().string("ETag", "\"tag1\""))
+			.andExpect(MockMvcResultMatchers.header().string("Cache-Control", "max-age=300, public"));
+	}
+	
+	/**
+	 * Test to verify 304 status code when the client already has the current key set.
+	 * @throws Exception
+	 */
+	@Test
+	public void jwksNotModifiedTest() throws Exception {
+		mockMvc.perform(get("/.well-known/jwks.json").header("If-None-Match", "\"tag1\""))
+			.andExpect(status().isNotModified());
+	}
+	
+	/**
+	 * Test to verify 200 status code and the revocations that still apply.
+	 * @throws Exception
+	 */
+	@Test
+	public void revocationsTest() throws Exception {
+		RevocationList list = new RevocationList(1_000_000L, Collections.singletonMap(2, 999_999L)
+				, Collections.singletonMap("jti", 1_020_000L));
+		doReturn(list).when(revocations).snapshot();
+		
+		mockMvc.perform(get("/revocations"))
+			.andExpect(status().isOk())
+			.andExpect(MockMvcResultMatchers.content().string(om.writeValueAsString(list)));
+	}
+}
@@ -0,0 +1,59 @@
+package org.generictech.userauth.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.generictech.userauth.exception.TooManyRequestsException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Test class for the LoginRateLimiter
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class LoginRateLimiterTests {
+
+	private LoginRateLimiter limiter;
+
+	@BeforeEach
+	public void setUp() {
+		limiter = new LoginRateLimiter(true, "10.0.0.1, 10.0.0.2", 1, 1, 10, 10, 100, new SimpleMeterRegistry());
+	}
+
+	private static MockHttpServletRequest request(String remoteAddr, String forwardedFor) {
+		MockHttpServletRequest req = new MockHttpServletRequest("POST", "/login");
+		req.setRemoteAddr(remoteAddr);
+		if (forwardedFor != null) {
+			req.addHeader("X-Forwarded-For", forwardedFor);
+		}
+		return req;
+	}
+
+	/**
+	 * Test to verify X-Forwarded-For is only read on requests from a trusted proxy, and a client cannot pick its
+	 * address by prepending entries of its own.
+	 */
+	@Test
+	public void clientAddressTest() {
+		assertEquals("203.0.113.9", limiter.clientAddress(request("203.0.113.9", "198.51.100.1")));
+		assertEquals("10.0.0.1", limiter.clientAddress(request("10.0.0.1", null)));
+		assertEquals("198.51.100.1", limiter.clientAddress(request("10.0.0.1", "198.51.100.1")));
+		assertEquals("198.51.100.1", limiter.clientAddress(request("10.0.0.1", "1.2.3.4, 198.51.100.1")));
+		assertEquals("198.51.100.1", limiter.clientAddress(request("10.0.0.1", "1.2.3.4, 198.51.100.1, 10.0.0.2")));
+	}
+
+	/**
+	 * Test to verify clients behind the same trusted proxy get buckets of their own.
+	 */
+	@Test
+	public void clientsBehindProxyTest() {
+		limiter.acquire(null, request("10.0.0.1", "198.51.100.1"));
+		limiter.acquire(null, request("10.0.0.1", "198.51.100.2"));
+
+		assertThrows(TooManyRequestsException.class, () -> limiter.acquire(null, request("10.0.0.1", "198.51.100.1")));
+	}
+}
@@ -0,0 +1,139 @@
+package org.generictech.userauth.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Date;
+
+import org.generictech.userauth.util.TokenUtility;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.SignatureException;
+import io.jsonwebtoken.impl.DefaultClaims;
+
+/**
+ * Test class for the TokenAuthFilter
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@ExtendWith(MockitoExtension.class)
+public class TokenAuthFilterTests {
+
+	@Mock
+	private TokenUtility tokenUtility;
+	
+	@Mock
+	private TokenRevocations revocations;
+	
+	private TokenAuthFilter filter;
+	
+	@BeforeEach
+	public void setUp() {
+		filter = new TokenAuthFilter();
+		ReflectionTestUtils.setField(filter, "tokenUtility", tokenUtility);
+		ReflectionTestUtils.setField(filter, "revocations", revocations);
+		ReflectionTestUtils.setField(filter, "serviceKeys", new ServiceKeys("admin-key, other-admin-key", "service-key"));
+	}
+	
+	@AfterEach
+	public void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+	
+	private Authentication filter(String token) throws Exception {
+		return filter("tokenId", token);
+	}
+	
+	private Authentication filter(String header, String value) throws Exception {
+		MockHttpServletRequest req = new MockHttpServletRequest("GET", "/systemuser");
+		req.setServletPath("/systemuser");
+		req.addHeader(header, value);
+		filter.doFilter(req, new MockHttpServletResponse(), new MockFilterChain());
+		return SecurityContextHolder.getContext().getAuthentication();
+	}
+	
+	private static boolean hasRole(Authentication auth, String role) {
+		return auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_" + role));
+	}
+	
+	/**
+	 * Test to verify the token is verified once and its claims carried by the principal.
+	 * @throws Exception
+	 */
+	@Test
+	public void principalTest() throws Exception {
+		Claims claims = new DefaultClaims();
+		claims.setId("jti");
+		claims.setSubject("TTester");
+		claims.setExpiration(new Date(1_600_000_900_000L));
+		claims.put(TokenUtility.USER_ID_CLAIM, 7);
+		doReturn(claims).when(tokenUtility).decodeJWT("testToken");
+		
+		AuthenticatedUser user = (AuthenticatedUser) filter("testToken").getPrincipal();
+		
+		assertEquals(7, user.getUserId());
+		assertEquals("TTester", user.getUsername());
+		assertEquals("jti", user.getJti());
+		assertEquals(new Date(1_600_000_900_000L), user.getExpiresAt());
+		assertEquals("testToken", user.getToken());
+		assertSame(claims, user.getClaims());
+		assertTrue(hasRole(SecurityContextHolder.getContext().getAuthentication(), AuthenticatedUser.ROLE));
+		verify(tokenUtility, times(1)).decodeJWT("testToken");
+	}
+	
+	/**
+	 * Test to verify invalid and revoked tokens leave the request unauthenticated.
+	 * @throws Exception
+	 */
+	@Test
+	public void rejectedTokenTest() throws Exception {
+		doThrow(new SignatureException("bad")).when(tokenUtility).decodeJWT("badToken");
+		Claims revoked = new DefaultClaims();
+		revoked.setSubject("TTester");
+		revoked.put(TokenUtility.USER_ID_CLAIM, 7);
+		doReturn(revoked).when(tokenUtility).decodeJWT("revokedToken");
+		doReturn(true).when(revocations).isRevoked(revoked);
+		
+		assertNull(filter("badToken"));
+		assertNull(filter("revokedToken"));
+	}
+	
+	/**
+	 * Test to verify a configured key authenticates with the role of that key only, and an unknown key does not
+	 * authenticate at all.
+	 * @throws Exception
+	 */
+	@Test
+	public void serviceKeyTest() throws Exception {
+		Authentication admin = filter(ServiceKeys.HEADER, "other-admin-key");
+		
+		assertTrue(hasRole(admin, ServiceKeys.ADMIN));
+		assertFalse(hasRole(admin, AuthenticatedUser.ROLE));
+		assertFalse(admin.getPrincipal() instanceof AuthenticatedUser);
+		Authentication service = filter(ServiceKeys.HEADER, "service-key");
+		
+		assertTrue(hasRole(service, ServiceKeys.SERVICE));
+		assertFalse(hasRole(service, ServiceKeys.ADMIN));
+		assertNull(filter(ServiceKeys.HEADER, "guessed-key"));
+		assertNull(filter(ServiceKeys.HEADER, ""));
+	}
+}
@@ -0,0 +1,198 @@
+package org.generictech.userauth.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.generictech.userauth.dto.RevocationList;
+import org.generictech.userauth.model.RevokedToken;
+import org.generictech.userauth.model.UserRevocation;
+import org.generictech.userauth.repo.RevokedTokenRepo;
+import org.generictech.userauth.repo.UserRevocationRepo;
+import org.generictech.userauth.util.TokenUtility;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.impl.DefaultClaims;
+
+/**
+ * Test class for the TokenRevocations
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@ExtendWith(MockitoExtension.class)
+public class TokenRevocationsTests {
+
+	@Mock
+	private RevokedTokenRepo revokedTokenRepo;
+	
+	@Mock
+	private UserRevocationRepo userRevocationRepo;
+	
+	private AtomicLong now;
+	private TokenRevocations revocations;
+	
+	@BeforeEach
+	public void setUp() {
+		now = new AtomicLong(1_000_000_000L);
+		revocations = new TokenRevocations(revokedTokenRepo, userRevocationRepo, 20000, 1000, 0, now::get);
+	}
+	
+	private Claims token(String jti, int userId, long issuedAt) {
+		Claims claims = new DefaultClaims();
+		claims.setId(jti);
+		claims.put(TokenUtility.USER_ID_CLAIM, userId);
+		claims.setIssuedAt(new Date(issuedAt * 1000));
+		claims.setExpiration(new Date((issuedAt + 20000) * 1000));
+		return claims;
+	}
+	
+	/**
+	 * Test to verify a logged out token is revoked, other tokens of the user are not, and only the first check of the
+	 * revoked token goes to the database.
+	 */
+	@Test
+	public void revokeTest() {
+		Claims loggedOut = token("a", 1, 1_000_000);
+		Claims other = token("b", 1, 1_000_000);
+		
+		revocations.revoke(loggedOut);
+		
+		verify(revokedTokenRepo).save(any(RevokedToken.class));
+		assertTrue(revocations.isRevoked(loggedOut));
+		assertTrue(revocations.isRevoked(loggedOut));
+		assertFalse(revocations.isRevoked(other));
+		verify(revokedTokenRepo, never()).existsById(anyString());
+	}
+	
+	/**
+	 * Test to verify revoking all of a user's tokens catches tokens issued up to now, but not tokens issued after
+	 * or tokens of other users.
+	 */
+	@Test
+	public void revokeAllTest() {
+		revocations.revokeAll(1);
+		
+		verify(userRevocationRepo).save(any(UserRevocation.class));
+		assertTrue(revocations.isRevoked(token("a", 1, 1_000_000)));
+		assertFalse(revocations.isRevoked(token("b", 1, revocations.notBefore(1))));
+		assertFalse(revocations.isRevoked(token("c", 2, 1_000_000)));
+		assertEquals(1_000_001, revocations.notBefore(1));
+	}
+	
+	/**
+	 * Test to verify revocations another instance persisted are applied without writing them again, and a revocation
+	 * of all tokens never moves the user's cutoff back.
+	 */
+	@Test
+	public void applyTest() {
+		revocations.applyRevoke("a", 1_020_000);
+		revocations.applyRevokeAll(1, 1_000_005);
+		revocations.applyRevokeAll(1, 1_000_001);
+		
+		assertTrue(revocations.isRevoked(token("a", 2, 1_000_000)));
+		assertTrue(revocations.isRevoked(token("b", 1, 1_000_004)));
+		assertEquals(1_000_005, revocations.notBefore(1));
+		verify(revokedTokenRepo, never()).save(any(RevokedToken.class));
+		verify(userRevocationRepo, never()).save(any(UserRevocation.class));
+		verify(revokedTokenRepo, never()).existsById(anyString());
+	}
+	
+	/**
+	 * Test to verify the snapshot published to other services holds the per-user revocations and the unexpired
+	 * revoked tokens, built without a database query.
+	 */
+	@Test
+	public void snapshotTest() {
+		revocations.revokeAll(1);
+		revocations.revoke(token("a", 2, 1_000_000));
+		revocations.applyRevoke("expired", 999_999);
+		
+		RevocationList list = revocations.snapshot();
+		
+		assertEquals(1_000_000, list.getAsOf());
+		assertEquals(Long.valueOf(1_000_001), list.getUsers().get(1));
+		assertEquals(Long.valueOf(1_020_000), list.getTokens().get("a"));
+		assertFalse(list.getTokens().containsKey("expired"));
+		verify(revokedTokenRepo, never()).findByExpiresAtGreaterThanEqual(anyLong());
+	}
+	
+	/**
+	 * Test to verify the snapshot is shared until a revocation is added, from this or another instance, or pruned.
+	 */
+	@Test
+	public void snapshotCachedTest() {
+		revocations.revoke(token("a", 2, 1_000_000));
+		RevocationList first = revocations.snapshot();
+		
+		assertSame(first, revocations.snapshot());
+		
+		revocations.applyRevoke("b", 1_020_000);
+		RevocationList second = revocations.snapshot();
+		
+		assertNotSame(first, second);
+		assertTrue(second.getTokens().containsKey("b"));
+		
+		revocations.applyRevokeAll(3, 1_000_000);
+		
+		assertEquals(Long.valueOf(1_000_000), revocations.snapshot().getUsers().get(3));
+		
+		now.addAndGet(20_002_000L);
+		revocations.prune();
+		
+		assertTrue(revocations.snapshot().getTokens().isEmpty());
+	}
+	
+	/**
+	 * Test to verify revocations are reloaded at startup and a filter hit is confirmed against the database.
+	 */
+	@Test
+	public void reloadTest() {
+		doReturn(Collections.singletonList(new UserRevocation(2, 1_000_000))).when(userRevocationRepo)
+			.findByNotBeforeGreaterThanEqual(1_000_000 - 20000);
+		doReturn(Arrays.asList(new RevokedToken("a", 1, 1_020_000))).when(revokedTokenRepo)
+			.findByExpiresAtGreaterThanEqual(1_000_000);
+		doReturn(true).when(revokedTokenRepo).existsById("a");
+		
+		revocations.init();
+		
+		assertTrue(revocations.isRevoked(token("a", 1, 1_000_000)));
+		assertTrue(revocations.isRevoked(token("b", 2, 999_999)));
+		assertFalse(revocations.isRevoked(token("c", 2, 1_000_000)));
+		verify(revokedTokenRepo, times(1)).existsById("a");
+	}
+	
+	/**
+	 * Test to verify revocations are forgotten once every token they could apply to has expired.
+	 */
+	@Test
+	public void pruneTest() {
+		revocations.revokeAll(1);
+		revocations.revoke(token("a", 2, 1_000_000));
+		now.addAndGet(20_002_000L);
+		
+		revocations.prune();
+		
+		assertEquals(0, revocations.notBefore(1));
+		verify(userRevocationRepo).deleteOlderThan(1_020_002 - 20000);
+		verify(revokedTokenRepo).deleteExpired(1_020_002);
+	}
+}
@@ -0,0 +1,128 @@
+package org.generictech.userauth.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.generictech.userauth.dto.CredentialsDTO;
+import org.generictech.userauth.dto.SystemUserDataDTO;
+import org.generictech.userauth.model.SystemUser;
+import org.generictech.userauth.repo.SystemUserRepo;
+import org.generictech.userauth.util.HashingExecutor;
+import org.generictech.userauth.util.TokenUtility;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Test class to verify that no pooled JDBC connection is held while a password is being hashed, for login,
+ * registration and password changes. Runs the full application against an in memory H2 database and records the
+ * number of active Hikari connections every time work is handed to the hashing pool.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:connection-release;DB_CLOSE_DELAY=-1",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"eureka.client.enabled=false",
+		"credentials.migration.enabled=false",
+		"hashing.pbkdf2.iterations=1024"
+})
+@AutoConfigureMockMvc
+public class ConnectionReleaseTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+	
+	@Autowired
+	private ObjectMapper om;
+	
+	@Autowired
+	private HikariDataSource dataSource;
+	
+	@Autowired
+	private SystemUserRepo systemUserRepo;
+	
+	@Autowired
+	private SystemUserService systemUserService;
+	
+	@SpyBean
+	private HashingExecutor hashingExecutor;
+	
+	@MockBean
+	private TokenUtility tokenUtility;
+	
+	private List<Integer> activeAtHash;
+	
+	@BeforeEach
+	public void setUp() {
+		activeAtHash = new CopyOnWriteArrayList<>();
+		doAnswer(invocation -> {
+			activeAtHash.add(dataSource.getHikariPoolMXBean().getActiveConnections());
+			return invocation.callRealMethod();
+		}).when(hashingExecutor).submit(any());
+		doReturn("token").when(tokenUtility).createUserJWT(anyInt(), anyString(), anyString(), anyLong(), anyLong(), any());
+	}
+	
+	/**
+	 * Test to verify registration, login and a password change all hash without holding a connection, and that login
+	 * hands back the stubbed token, so the stub is known to match the token utility's signature.
+	 * @throws Exception
+	 */
+	@Test
+	public void noConnectionHeldWhileHashingTest() throws Exception {
+		SystemUserDataDTO userData = new SystemUserDataDTO("Test", "Tester", "pool@test.com", "PoolTester", "password");
+		MvcResult result = mockMvc.perform(post("/systemuser").contentType(MediaType.APPLICATION_JSON)
+				.content(om.writeValueAsString(userData)))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+		mockMvc.perform(asyncDispatch(result))
+			.andExpect(status().isCreated());
+		
+		result = mockMvc.perform(post("/login").contentType(MediaType.APPLICATION_JSON)
+				.content(om.writeValueAsString(new CredentialsDTO("PoolTester", "password"))))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+		mockMvc.perform(asyncDispatch(result))
+			.andExpect(status().isOk())
+			.andExpect(header().string("tokenId", "token"));
+		
+		SystemUser user = systemUserRepo.findByUsername("PoolTester").get();
+		SystemUserDataDTO update = new SystemUserDataDTO();
+		update.setId(user.getId());
+		update.setPassword("newPassword");
+		systemUserService.update(update);
+		
+		assertFalse(activeAtHash.isEmpty());
+		for (int active : activeAtHash) {
+			assertEquals(0, active);
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package org.generictech.userauth.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.generictech.userauth.model.Credentials;
+import org.generictech.userauth.model.SystemUser;
+import org.generictech.userauth.repo.CredentialsRepo;
+import org.generictech.userauth.util.PasswordHash;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Test class for the CredentialsMigration
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@ExtendWith(MockitoExtension.class)
+public class CredentialsMigrationTests {
+
+	@Mock
+	private CredentialsRepo credentialsRepo;
+
+	@Mock
+	private CredentialsService credentialsService;
+
+	@Mock
+	private JdbcTemplate jdbcTemplate;
+
+	@InjectMocks
+	private CredentialsMigration credentialsMigration;
+
+	/**
+	 * Test to verify both legacy columns are relaxed.
+	 */
+	@Test
+	public void relaxLegacyColumnsTest() {
+		credentialsMigration.relaxLegacyColumns();
+
+		verify(jdbcTemplate).execute("ALTER TABLE credentials ALTER COLUMN password DROP NOT NULL");
+		verify(jdbcTemplate).execute("ALTER TABLE credentials ALTER COLUMN salt DROP NOT NULL");
+	}
+
+	/**
+	 * Test to verify a constraint that cannot be dropped fails the migration instead of being logged and skipped.
+	 */
+	@Test
+	public void relaxLegacyColumnsFailureTest() {
+		doThrow(new DataAccessResourceFailureException("permission denied")).when(jdbcTemplate).execute(anyString());
+
+		assertThrows(IllegalStateException.class, () -> credentialsMigration.relaxLegacyColumns());
+		verify(jdbcTemplate, times(1)).execute(anyString());
+	}
+
+	/**
+	 * Test to verify every legacy row is written with the conditional update, and a row that was given a new
+	 * password after its batch was read is left alone and not counted.
+	 */
+	@Test
+	public void migrateTest() {
+		SystemUser user = new SystemUser(1, "Test", "Tester", "test@test.com", "TTester");
+		Credentials first = new Credentials(1, "hash", "salt", user);
+		Credentials changed = new Credentials(2, "hash", "salt", user);
+		PasswordHash hash = new PasswordHash(PasswordHash.PBKDF2_SHA1, 0, 1000, new byte[16], new byte[32]);
+		doReturn(Arrays.asList(first, changed)).when(credentialsRepo)
+				.findTop500ByPasswordHashIsNullAndIdGreaterThanOrderByIdAsc(0);
+		doReturn(Collections.emptyList()).when(credentialsRepo)
+				.findTop500ByPasswordHashIsNullAndIdGreaterThanOrderByIdAsc(2);
+		doReturn(hash).when(credentialsService).getStoredHash(first);
+		doReturn(hash).when(credentialsService).getStoredHash(changed);
+		doReturn(1).when(credentialsRepo).convertLegacy(eq(1), any());
+		doReturn(0).when(credentialsRepo).convertLegacy(eq(2), any());
+
+		assertEquals(1, credentialsMigration.migrate());
+		verify(credentialsRepo, times(2)).convertLegacy(anyInt(), any());
+		verify(credentialsRepo, never()).saveAll(any());
+	}
+}
@@ -1,13 +1,17 @@
 package org.generictech.userauth.service;
 
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verify;
 import static org.junit.jupiter.api.Assertions.*;
 
 import org.generictech.userauth.exception.CredentialsNotFoundException;
 import org.generictech.userauth.model.Credentials;
 import org.generictech.userauth.model.SystemUser;
 import org.generictech.userauth.repo.CredentialsRepo;
+import org.generictech.userauth.util.InvalidationBus;
+import org.generictech.userauth.util.PasswordHash;
 import org.generictech.userauth.util.PasswordHashingUtility;
+import org.generictech.userauth.util.VerifiedCredentialCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -31,6 +35,12 @@ public class CredentialsServiceTests {
 	@Mock
 	private PasswordHashingUtility hashingUtility;
 	
+	@Mock
+	private VerifiedCredentialCache credentialCache;
+	
+	@Mock
+	private InvalidationBus invalidationBus;
+	
 	@InjectMocks
 	private CredentialsService credentialsService;
 	
@@ -118,4 +128,31 @@ public class CredentialsServiceTests {
 			credentialsService.findByUserId(3);
 		});
 	}
+	
+	/**
+	 * Test to verify a password change drops any remembered login for the user.
+	 * @throws CredentialsNotFoundException
+	 */
+	@Test
+	public void updateInvalidatesCacheTest() throws CredentialsNotFoundException {
+		PasswordHash hash = new PasswordHash(PasswordHash.PBKDF2_SHA1, PasswordHash.CURRENT_VERSION, 131072, new byte[16], new byte[32]);
+		doReturn(Optional.of(creds)).when(credentialsRepo).findCredentials(1);
+		
+		assertTrue(credentialsService.update(hash, 1));
+		verify(credentialCache).invalidate(1);
+		verify(invalidationBus).credentialsChanged(1);
+	}
+	
+	/**
+	 * Test to verify deleting credentials drops any remembered login for their user.
+	 * @throws CredentialsNotFoundException
+	 */
+	@Test
+	public void deleteInvalidatesCacheTest() throws CredentialsNotFoundException {
+		doReturn(Optional.of(creds2)).when(credentialsRepo).findById(3);
+		
+		assertTrue(credentialsService.delete(3));
+		verify(credentialCache).invalidate(user.getId());
+		verify(invalidationBus).credentialsChanged(user.getId());
+	}
 }
@@ -0,0 +1,128 @@
+package org.generictech.userauth.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.Optional;
+
+import org.generictech.userauth.exception.InvalidTokenException;
+import org.generictech.userauth.model.RefreshToken;
+import org.generictech.userauth.model.SystemUser;
+import org.generictech.userauth.repo.RefreshTokenRepo;
+import org.generictech.userauth.repo.SystemUserRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Test class for the RefreshTokenService
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@ExtendWith(MockitoExtension.class)
+public class RefreshTokenServiceTests {
+
+	@Mock
+	private RefreshTokenRepo refreshTokenRepo;
+
+	@Mock
+	private SystemUserRepo systemUserRepo;
+
+	@InjectMocks
+	private RefreshTokenService refreshTokenService;
+
+	private SystemUser user;
+	private RefreshToken stored;
+
+	@BeforeEach
+	public void setUp() {
+		user = new SystemUser(1, "Test", "Tester", "test@test.com", "TTester");
+		stored = new RefreshToken("hash", "family", user, System.currentTimeMillis() / 1000 + 3600);
+	}
+
+	/**
+	 * Test to verify an issued token is stored by its hash under a new family, never as the raw token.
+	 */
+	@Test
+	public void issueTest() {
+		doReturn(user).when(systemUserRepo).getOne(1);
+		ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+
+		String token = refreshTokenService.issue(1);
+
+		verify(refreshTokenRepo).save(saved.capture());
+		assertNotEquals(token, saved.getValue().getTokenHash());
+		assertEquals(user, saved.getValue().getUser());
+	}
+
+	/**
+	 * Test to verify a valid token is marked used and replaced by a new token of the same family.
+	 */
+	@Test
+	public void rotateSuccessTest() throws InvalidTokenException {
+		doReturn(Optional.of(stored)).when(refreshTokenRepo).findWithUser(anyString());
+		doReturn(1).when(refreshTokenRepo).markUsed(anyString());
+		ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+
+		RefreshTokenService.Rotation rotation = refreshTokenService.rotate("presented");
+
+		verify(refreshTokenRepo).save(saved.capture());
+		assertEquals(user, rotation.getUser());
+		assertNotEquals("presented", rotation.getToken());
+		assertEquals("family", saved.getValue().getFamilyId());
+		verify(refreshTokenRepo, never()).revokeFamily(anyString());
+	}
+
+	/**
+	 * Test to verify presenting a used token revokes its whole family.
+	 */
+	@Test
+	public void rotateReusedTest() {
+		stored.setUsed(true);
+		doReturn(Optional.of(stored)).when(refreshTokenRepo).findWithUser(anyString());
+
+		assertThrows(InvalidTokenException.class, () -> refreshTokenService.rotate("presented"));
+		verify(refreshTokenRepo).revokeFamily("family");
+		verify(refreshTokenRepo, never()).save(any());
+	}
+
+	/**
+	 * Test to verify losing the race to mark a token used is treated as reuse.
+	 */
+	@Test
+	public void rotateConcurrentReuseTest() {
+		doReturn(Optional.of(stored)).when(refreshTokenRepo).findWithUser(anyString());
+		doReturn(0).when(refreshTokenRepo).markUsed(anyString());
+
+		assertThrows(InvalidTokenException.class, () -> refreshTokenService.rotate("presented"));
+		verify(refreshTokenRepo).revokeFamily("family");
+		verify(refreshTokenRepo, never()).save(any());
+	}
+
+	/**
+	 * Test to verify unknown, revoked and expired tokens are rejected.
+	 */
+	@Test
+	public void rotateInvalidTest() {
+		RefreshToken revoked = new RefreshToken("hash", "family", user, System.currentTimeMillis() / 1000 + 3600);
+		revoked.setRevoked(true);
+		RefreshToken expired = new RefreshToken("hash", "family", user, System.currentTimeMillis() / 1000 - 1);
+		doReturn(Optional.empty(), Optional.of(revoked), Optional.of(expired)).when(refreshTokenRepo)
+			.findWithUser(anyString());
+		
+		assertThrows(InvalidTokenException.class, () -> refreshTokenService.rotate("unknown"));
+		assertThrows(InvalidTokenException.class, () -> refreshTokenService.rotate("revoked"));
+		assertThrows(InvalidTokenException.class, () -> refreshTokenService.rotate("expired"));
+		verify(refreshTokenRepo, never()).markUsed(anyString());
+	}
+}
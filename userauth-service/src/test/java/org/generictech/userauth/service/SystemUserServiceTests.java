@@ -5,13 +5,23 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
+import java.util.Arrays;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.generictech.userauth.dto.SystemUserDataDTO;
 import org.generictech.userauth.dto.SystemUserParams;
@@ -22,13 +32,22 @@ import org.generictech.userauth.exception.SystemUserNotFoundException;
 import org.generictech.userauth.model.Credentials;
 import org.generictech.userauth.model.SystemUser;
 import org.generictech.userauth.repo.SystemUserRepo;
+import org.generictech.userauth.security.TokenRevocations;
+import org.generictech.userauth.util.InvalidationBus;
+import org.generictech.userauth.util.PasswordHash;
+import org.generictech.userauth.util.PasswordHashingUtility;
+import org.generictech.userauth.util.SystemUserCache;
+import org.generictech.userauth.util.UserVersions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 /**
  * Test class to test the SystemUserService class methods
  * @author Jaden Wilson
@@ -43,6 +62,24 @@ public class SystemUserServiceTests {
 	@Mock
 	private CredentialsService credentialsService;
 	
+	@Mock
+	private PasswordHashingUtility hashingUtility;
+	
+	@Mock
+	private UserVersions userVersions;
+	
+	@Mock
+	private TokenRevocations revocations;
+	
+	@Mock
+	private RefreshTokenService refreshTokenService;
+	
+	@Mock
+	private InvalidationBus invalidationBus;
+	
+	@Spy
+	private SystemUserCache userCache = new SystemUserCache(true, 300, 100, new SimpleMeterRegistry());
+	
 	@InjectMocks
 	private SystemUserService systemUserService;
 	
@@ -51,6 +88,7 @@ public class SystemUserServiceTests {
 	private SystemUserParams params;
 	private SystemUserDataDTO dto;
 	private Credentials creds;
+	private PasswordHash hash;
 	
 	@BeforeEach
 	public void setUp() {
@@ -58,6 +96,7 @@ public class SystemUserServiceTests {
 		user2 = new SystemUser(2, "Tested", "Testers", "test2@test.com", "TdTesters");
 		params = new SystemUserParams();
 		dto = new SystemUserDataDTO("Tested", "Testers", "test2@test.com", "TdTesters", "password2");
+		hash = new PasswordHash(PasswordHash.PBKDF2_SHA1, PasswordHash.CURRENT_VERSION, 131072, new byte[16], new byte[32]);
 		creds = new Credentials("password2", "salt", user2);
 	}
 	
@@ -90,6 +129,83 @@ public class SystemUserServiceTests {
 		});
 	}
 	
+	/**
+	 * Test to verify a user found once is served from the cache by id, username and email without querying again.
+	 * @throws SystemUserNotFoundException
+	 */
+	@Test
+	public void findByIdCachedTest() throws SystemUserNotFoundException {
+		doReturn(Optional.of(user)).when(systemUserRepo).findById(1);
+		systemUserService.findById(1);
+		
+		assertEquals(user.getEmail(), systemUserService.findById(1).getEmail());
+		assertEquals(1, systemUserService.findByUsername("TTester").getId());
+		assertEquals(1, systemUserService.findByEmail("test@test.com").getId());
+		verify(systemUserRepo, times(1)).findById(1);
+		verify(systemUserRepo, never()).findByUsername(anyString());
+		verify(systemUserRepo, never()).findByEmail(anyString());
+	}
+	
+	/**
+	 * Test to verify concurrent lookups of a user that is not cached share one query.
+	 * @throws Exception
+	 */
+	@Test
+	public void findByIdCoalescedTest() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		doAnswer(invocation -> {
+			started.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			return Optional.of(user);
+		}).when(systemUserRepo).findById(1);
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+		try {
+			Future<SystemUser> first = pool.submit(() -> systemUserService.findById(1));
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+			Future<SystemUser> second = pool.submit(() -> systemUserService.findById(1));
+			Thread.sleep(50);
+			release.countDown();
+			
+			assertEquals(user, first.get(5, TimeUnit.SECONDS));
+			assertEquals(1, second.get(5, TimeUnit.SECONDS).getId());
+			verify(systemUserRepo, times(1)).findById(1);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Test to verify several users are found with one query and missing ids are left out.
+	 */
+	@Test
+	public void findAllByIdTest() {
+		doReturn(Arrays.asList(user, user2)).when(systemUserRepo).findAllById(Arrays.asList(1, 2, 3));
+		
+		Map<Integer, SystemUser> users = systemUserService.findAllById(Arrays.asList(1, 2, 3));
+		
+		assertEquals(2, users.size());
+		assertEquals(user, users.get(1));
+		assertEquals(user2, users.get(2));
+	}
+	
+	/**
+	 * Test to verify only the users not already cached are queried for.
+	 * @throws SystemUserNotFoundException
+	 */
+	@Test
+	public void findAllByIdCachedTest() throws SystemUserNotFoundException {
+		doReturn(Optional.of(user)).when(systemUserRepo).findById(1);
+		doReturn(Arrays.asList(user2)).when(systemUserRepo).findAllById(Arrays.asList(2, 3));
+		systemUserService.findById(1);
+		
+		Map<Integer, SystemUser> users = systemUserService.findAllById(Arrays.asList(1, 2, 3));
+		
+		assertEquals(2, users.size());
+		assertEquals("TTester", users.get(1).getUsername());
+		assertEquals(user2, users.get(2));
+	}
+	
 	/**
 	 * Test to verify the successful finding of a specific user by username. 
 	 */
@@ -330,8 +446,9 @@ public class SystemUserServiceTests {
 	@Test
 	public void saveSuccessTest() throws NoSuchAlgorithmException, InvalidKeySpecException, InsertFailedException {
 		
+		doReturn(hash).when(hashingUtility).hashPassword(anyString());
 		doReturn(user2).when(systemUserRepo).save(any(SystemUser.class));
-		doReturn(true).when(credentialsService).save(anyString(), any(SystemUser.class));
+		doReturn(true).when(credentialsService).save(hash, user2);
 		
 		SystemUser testUser = systemUserService.save(dto);
 		
@@ -346,8 +463,9 @@ public class SystemUserServiceTests {
 	 */
 	@Test
 	public void saveFailureTest() throws NoSuchAlgorithmException, InvalidKeySpecException, InsertFailedException {
+		doReturn(hash).when(hashingUtility).hashPassword(anyString());
 		doReturn(user2).when(systemUserRepo).save(any(SystemUser.class));
-		doReturn(false).when(credentialsService).save(anyString(), any(SystemUser.class));
+		doReturn(false).when(credentialsService).save(hash, user2);
 		
 		assertThrows(InsertFailedException.class, () -> {
 			systemUserService.save(dto);
@@ -368,7 +486,8 @@ public class SystemUserServiceTests {
 		SystemUser updatedUser = null;
 		doReturn(Optional.of(user2)).when(systemUserRepo).findById(2);
 		try {
-			doReturn(true).when(credentialsService).update(anyString(), anyInt());
+			doReturn(hash).when(hashingUtility).hashPassword(anyString());
+			doReturn(true).when(credentialsService).update(hash, 2);
 			doReturn(testUser).when(systemUserRepo).save(any(SystemUser.class));
 			updatedUser = systemUserService.update(dto);
 		} catch (NoSuchAlgorithmException | InvalidKeySpecException | SystemUserNotFoundException
@@ -377,9 +496,38 @@ public class SystemUserServiceTests {
 		}
 		
 		assertEquals(testUser,updatedUser);
+		verify(userVersions).bump(2);
+		verify(revocations).revokeAll(2);
+		verify(refreshTokenService).revokeAll(2);
+		verify(invalidationBus).userChanged(2, 0);
+		verify(invalidationBus).userTokensRevoked(2, 0);
 		
 	}
 	
+	/**
+	 * Test to verify an update drops the user from the cache, so the next find reads the updated user.
+	 * @throws Exception
+	 */
+	@Test
+	public void updateInvalidatesCacheTest() throws Exception {
+		dto.setId(2);
+		dto.setEmail("test@change.com");
+		dto.setPassword(null);
+		SystemUser updated = new SystemUser(2, "Tested", "Testers", "test@change.com", "TdTesters");
+		doReturn(Optional.of(user2), Optional.of(user2), Optional.of(updated)).when(systemUserRepo).findById(2);
+		doReturn(updated).when(systemUserRepo).save(any(SystemUser.class));
+		doReturn(Optional.ofNullable(null)).when(systemUserRepo).findByEmail("test2@test.com");
+		systemUserService.findById(2);
+		
+		systemUserService.update(dto);
+		
+		verify(userCache).invalidate(2);
+		assertEquals("test@change.com", systemUserService.findById(2).getEmail());
+		assertThrows(SystemUserNotFoundException.class, () -> {
+			systemUserService.findByEmail("test2@test.com");
+		});
+	}
+	
 	/**
 	 * Test to verify SystemUserNotFoundException is thrown when no user is found during update. 
 	 */
@@ -404,6 +552,12 @@ public class SystemUserServiceTests {
 		doReturn(creds).when(credentialsService).findByUserId(2);
 		
 		assertTrue(systemUserService.delete(2));
+		verify(userCache).invalidate(2);
+		verify(userVersions).bump(2);
+		verify(revocations).revokeAll(2);
+		verify(refreshTokenService).revokeAll(2);
+		verify(invalidationBus).userChanged(2, 0);
+		verify(invalidationBus).userTokensRevoked(2, 0);
 	}
 	
 	/**
@@ -0,0 +1,106 @@
+package org.generictech.userauth.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import org.bouncycastle.crypto.generators.Argon2BytesGenerator;
+import org.bouncycastle.crypto.params.Argon2Parameters;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class to test the {@link Argon2Engine}
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class Argon2EngineTests {
+
+	private ForkJoinPool pool;
+
+	@BeforeEach
+	public void setUp() {
+		pool = new ForkJoinPool(4);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	/**
+	 * Test to verify the Argon2id test vector from RFC 9106 section 5.3.
+	 */
+	@Test
+	public void rfc9106VectorTest() {
+		byte[] password = filled(32, 0x01);
+		byte[] salt = filled(16, 0x02);
+		byte[] secret = filled(8, 0x03);
+		byte[] associatedData = filled(12, 0x04);
+
+		byte[] tag = new Argon2Engine(pool).derive(password, salt, secret, associatedData, 32, 3, 4, 32);
+
+		assertArrayEquals(PasswordHash.fromHex("0d640df58d78766c08c037a34a8b53c9d01ef0452d75b65eb52520e96b01e659"), tag);
+	}
+
+	/**
+	 * Test to verify the result does not depend on how many threads fill the lanes.
+	 */
+	@Test
+	public void laneParallelismIsDeterministicTest() {
+		byte[] salt = filled(16, 0x02);
+		ForkJoinPool single = new ForkJoinPool(1);
+		try {
+			assertArrayEquals(new Argon2Engine(single).derive("password".getBytes(), salt, 1024, 2, 4, 32)
+					, new Argon2Engine(pool).derive("password".getBytes(), salt, 1024, 2, 4, 32));
+		} finally {
+			single.shutdown();
+		}
+	}
+
+	/**
+	 * Test to verify the tag matches BouncyCastle's Argon2id generator, which is on the classpath through
+	 * spring-security-rsa, across memory costs, pass counts, lane counts and tag lengths, with and without a secret
+	 * and associated data.
+	 */
+	@Test
+	public void matchesBouncyCastleTest() {
+		int[][] costs = {{8, 1, 1, 4}, {64, 2, 2, 16}, {1024, 3, 4, 32}, {4096, 1, 8, 64}, {2048, 2, 3, 100}};
+		for (int[] cost : costs) {
+			byte[] password = ("password" + cost[0]).getBytes();
+			byte[] salt = filled(16, cost[1]);
+			byte[] secret = filled(cost[2], 0x03);
+			byte[] associatedData = filled(cost[3] % 13, 0x04);
+
+			assertArrayEquals(bouncyCastle(password, salt, new byte[0], new byte[0], cost)
+					, new Argon2Engine(pool).derive(password, salt, cost[0], cost[1], cost[2], cost[3]));
+			assertArrayEquals(bouncyCastle(password, salt, secret, associatedData, cost)
+					, new Argon2Engine(pool).derive(password, salt, secret, associatedData, cost[0], cost[1], cost[2]
+							, cost[3]));
+		}
+	}
+
+	private byte[] bouncyCastle(byte[] password, byte[] salt, byte[] secret, byte[] associatedData, int[] cost) {
+		Argon2BytesGenerator generator = new Argon2BytesGenerator();
+		generator.init(new Argon2Parameters.Builder(Argon2Parameters.ARGON2_id)
+				.withVersion(Argon2Parameters.ARGON2_VERSION_13)
+				.withMemoryAsKB(cost[0])
+				.withIterations(cost[1])
+				.withParallelism(cost[2])
+				.withSalt(salt)
+				.withSecret(secret)
+				.withAdditional(associatedData)
+				.build());
+		byte[] tag = new byte[cost[3]];
+		generator.generateBytes(password, tag);
+		return tag;
+	}
+
+	private byte[] filled(int length, int value) {
+		byte[] out = new byte[length];
+		Arrays.fill(out, (byte) value);
+		return out;
+	}
+}
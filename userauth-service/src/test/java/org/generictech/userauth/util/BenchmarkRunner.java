@@ -0,0 +1,104 @@
+package org.generictech.userauth.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Minimal multi-threaded micro benchmark harness for the tests tagged "benchmark". Every thread warms up, then all
+ * threads start the measured run together; throughput is taken over the whole run and latency percentiles over every
+ * individual operation. Run them with {@code mvn test -Pbenchmark}.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public final class BenchmarkRunner {
+
+	private BenchmarkRunner() {
+	}
+
+	/**
+	 * Method to run an operation on a number of threads and measure it.
+	 * @param name label for the result
+	 * @param threads number of threads running the operation at once
+	 * @param warmupOps operations each thread runs before measuring
+	 * @param opsPerThread measured operations per thread
+	 * @param op operation to be measured
+	 * @return {@link Result}
+	 * @throws Exception if the operation fails
+	 */
+	public static Result run(String name, int threads, int warmupOps, int opsPerThread, Runnable op) throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			CountDownLatch ready = new CountDownLatch(threads);
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<long[]>> futures = new ArrayList<>(threads);
+			for (int t = 0; t < threads; t++) {
+				futures.add(pool.submit(() -> {
+					for (int i = 0; i < warmupOps; i++) {
+						op.run();
+					}
+					long[] latencies = new long[opsPerThread];
+					ready.countDown();
+					start.await();
+					for (int i = 0; i < opsPerThread; i++) {
+						long begin = System.nanoTime();
+						op.run();
+						latencies[i] = System.nanoTime() - begin;
+					}
+					return latencies;
+				}));
+			}
+			ready.await();
+			long begin = System.nanoTime();
+			start.countDown();
+			long[] all = new long[threads * opsPerThread];
+			for (int t = 0; t < threads; t++) {
+				System.arraycopy(futures.get(t).get(), 0, all, t * opsPerThread, opsPerThread);
+			}
+			long elapsed = System.nanoTime() - begin;
+			Arrays.sort(all);
+			return new Result(name, threads, all.length * (double) TimeUnit.SECONDS.toNanos(1) / elapsed
+					, all[all.length / 2], all[(int) (all.length * 0.99)], all[all.length - 1]);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	public static class Result {
+
+		private final String name;
+		private final int threads;
+		private final double opsPerSecond;
+		private final long p50Nanos;
+		private final long p99Nanos;
+		private final long maxNanos;
+
+		private Result(String name, int threads, double opsPerSecond, long p50Nanos, long p99Nanos, long maxNanos) {
+			this.name = name;
+			this.threads = threads;
+			this.opsPerSecond = opsPerSecond;
+			this.p50Nanos = p50Nanos;
+			this.p99Nanos = p99Nanos;
+			this.maxNanos = maxNanos;
+		}
+
+		public double getOpsPerSecond() {
+			return opsPerSecond;
+		}
+
+		public long getP99Nanos() {
+			return p99Nanos;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%-28s threads=%-3d %,14.0f ops/s  p50=%,9d ns  p99=%,9d ns  max=%,11d ns"
+					, name, threads, opsPerSecond, p50Nanos, p99Nanos, maxNanos);
+		}
+	}
+}
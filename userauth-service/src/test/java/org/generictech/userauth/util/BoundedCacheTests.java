@@ -0,0 +1,85 @@
+package org.generictech.userauth.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Test class for the BoundedCache, driven by a hand advanced clock.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class BoundedCacheTests {
+
+	private AtomicLong clock;
+	
+	@BeforeEach
+	public void setUp() {
+		clock = new AtomicLong();
+	}
+	
+	/**
+	 * Test to verify entries expire after the time to live, or earlier when written with a shorter lifetime.
+	 */
+	@Test
+	public void expiryTest() {
+		BoundedCache<String, String> cache = new BoundedCache<>(10, 100, clock::get);
+		cache.put("a", "1");
+		cache.put("b", "2", 50);
+		assertEquals("1", cache.get("a"));
+		assertEquals("2", cache.get("b"));
+		
+		clock.set(50);
+		assertEquals("1", cache.get("a"));
+		assertNull(cache.get("b"));
+		
+		clock.set(100);
+		assertNull(cache.get("a"));
+		assertEquals(0, cache.size());
+	}
+	
+	/**
+	 * Test to verify the least recently read entries are evicted first once the bound is exceeded.
+	 */
+	@Test
+	public void boundedSizeTest() {
+		BoundedCache<Integer, Integer> cache = new BoundedCache<>(10, 1_000_000, clock::get);
+		for (int i = 0; i < 10; i++) {
+			clock.incrementAndGet();
+			cache.put(i, i);
+		}
+		clock.incrementAndGet();
+		cache.get(0);
+		clock.incrementAndGet();
+		cache.put(10, 10);
+		
+		assertEquals(9, cache.size());
+		assertEquals(Integer.valueOf(0), cache.get(0));
+		assertNull(cache.get(1));
+		assertNull(cache.get(2));
+		assertEquals(Integer.valueOf(10), cache.get(10));
+	}
+	
+	/**
+	 * Test to verify hit and miss counts are published under the cache meter names.
+	 */
+	@Test
+	public void metricsTest() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		BoundedCache<String, String> cache = new BoundedCache<String, String>(10, 100, clock::get).bindTo(registry, "test");
+		cache.put("a", "1");
+		cache.get("a");
+		cache.get("a");
+		cache.get("b");
+		
+		assertEquals(2, registry.get("cache.gets").tag("cache", "test").tag("result", "hit").functionCounter().count());
+		assertEquals(1, registry.get("cache.gets").tag("cache", "test").tag("result", "miss").functionCounter().count());
+		assertEquals(1, registry.get("cache.size").tag("cache", "test").gauge().value());
+	}
+}
@@ -0,0 +1,55 @@
+package org.generictech.userauth.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the ExpiringBloomFilter
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class ExpiringBloomFilterTests {
+
+	/**
+	 * Test to verify added keys are always found, with or without their expiry, and unseen keys rarely are.
+	 */
+	@Test
+	public void containsTest() {
+		ExpiringBloomFilter filter = new ExpiringBloomFilter(1000, 0.01, 3600);
+		for (int i = 0; i < 1000; i++) {
+			filter.add("jti-" + i, 10_000 + i);
+		}
+		
+		int falsePositives = 0;
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(filter.mightContain("jti-" + i, 10_000 + i));
+			assertTrue(filter.mightContain("jti-" + i, -1));
+			if (filter.mightContain("other-" + i, 10_000 + i)) {
+				falsePositives++;
+			}
+		}
+		assertTrue(falsePositives < 50);
+	}
+	
+	/**
+	 * Test to verify a bucket is dropped only once every key in it has expired.
+	 */
+	@Test
+	public void pruneTest() {
+		ExpiringBloomFilter filter = new ExpiringBloomFilter(100, 0.01, 3600);
+		filter.add("early", 3600);
+		filter.add("late", 3601);
+		
+		filter.prune(3600);
+		assertTrue(filter.mightContain("early", 3600));
+		
+		filter.prune(3601);
+		assertFalse(filter.mightContain("early", 3600));
+		assertTrue(filter.mightContain("late", 3601));
+		assertEquals(1, filter.buckets());
+		assertEquals(1, filter.size());
+	}
+}
@@ -0,0 +1,86 @@
+package org.generictech.userauth.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.generictech.userauth.exception.ServerBusyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Test class to test the {@link HashingExecutor}
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class HashingExecutorTests {
+
+	private SimpleMeterRegistry registry;
+	private HashingExecutor hashingExecutor;
+	private ExecutorService callers;
+
+	@BeforeEach
+	public void setUp() {
+		registry = new SimpleMeterRegistry();
+		hashingExecutor = new HashingExecutor(1, 1, 1, registry);
+		callers = Executors.newFixedThreadPool(2);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		callers.shutdownNow();
+		hashingExecutor.shutdown();
+	}
+
+	/**
+	 * Test to verify the result of a task is handed back to the calling thread.
+	 * @throws Exception
+	 */
+	@Test
+	public void executeReturnsResultTest() throws Exception {
+		assertEquals("hash", hashingExecutor.execute(() -> "hash"));
+		assertEquals(1, registry.get("hashing.time").timer().count());
+	}
+
+	/**
+	 * Test to verify a ServerBusyException is thrown straight away once the worker and the queue are both full.
+	 * @throws Exception
+	 */
+	@Test
+	public void executeRejectsWhenQueueFullTest() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		callers.submit(() -> hashingExecutor.execute(() -> {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return "first";
+		}));
+		started.await(5, TimeUnit.SECONDS);
+		callers.submit(() -> hashingExecutor.execute(() -> "second"));
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (registry.get("hashing.queue.depth").gauge().value() < 1 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+
+		try {
+			assertThrows(ServerBusyException.class, () -> {
+				hashingExecutor.execute(() -> "third");
+			});
+		} finally {
+			release.countDown();
+		}
+	}
+}
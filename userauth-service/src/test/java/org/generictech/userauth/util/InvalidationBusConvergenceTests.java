@@ -0,0 +1,136 @@
+package org.generictech.userauth.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Date;
+import java.util.concurrent.Callable;
+
+import org.generictech.userauth.UserAuthServiceApplication;
+import org.generictech.userauth.client.TokenClaims;
+import org.generictech.userauth.dto.SystemUserDataDTO;
+import org.generictech.userauth.model.SystemUser;
+import org.generictech.userauth.security.AuthenticatedUser;
+import org.generictech.userauth.security.TokenRevocations;
+import org.generictech.userauth.service.AuthService;
+import org.generictech.userauth.service.SystemUserService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.impl.DefaultClaims;
+
+/**
+ * Test class to verify that instances sharing a database converge on changes made by any one of them. Runs two full
+ * application contexts in this JVM against one in memory H2 database, each with its own caches and revocations, and
+ * checks that a change made through one becomes visible through the other well within the user cache lifetime.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class InvalidationBusConvergenceTests {
+
+	/**
+	 * Passed as command line arguments, which take precedence over application.properties, unlike the defaults set
+	 * through SpringApplicationBuilder.properties.
+	 */
+	private static final String[] ARGS = {
+			"--spring.datasource.url=jdbc:h2:mem:invalidation-bus;DB_CLOSE_DELAY=-1",
+			"--spring.datasource.driver-class-name=org.h2.Driver",
+			"--spring.datasource.username=sa",
+			"--spring.datasource.password=",
+			"--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+			"--spring.jpa.hibernate.ddl-auto=update",
+			"--eureka.client.enabled=false",
+			"--credentials.migration.enabled=false",
+			"--hashing.pbkdf2.iterations=1024",
+			"--server.port=0",
+			"--user.cache.ttl-seconds=600",
+			"--invalidation.poll-interval-millis=50"
+	};
+
+	private static ConfigurableApplicationContext first;
+	private static ConfigurableApplicationContext second;
+
+	@BeforeAll
+	public static void start() {
+		first = new SpringApplicationBuilder(UserAuthServiceApplication.class).run(ARGS);
+		second = new SpringApplicationBuilder(UserAuthServiceApplication.class).run(ARGS);
+	}
+
+	@AfterAll
+	public static void stop() {
+		if (second != null) {
+			second.close();
+		}
+		if (first != null) {
+			first.close();
+		}
+	}
+
+	private static void await(Callable<Boolean> condition) throws Exception {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!condition.call()) {
+			assertTrue(System.currentTimeMillis() < deadline, "Instances did not converge");
+			Thread.sleep(20);
+		}
+	}
+
+	/**
+	 * Test to verify a user cached by one instance is reloaded there once another instance updates it, and both
+	 * instances agree on the user's version.
+	 * @throws Exception
+	 */
+	@Test
+	public void userUpdateTest() throws Exception {
+		SystemUserService writer = first.getBean(SystemUserService.class);
+		SystemUserService reader = second.getBean(SystemUserService.class);
+		SystemUser user = writer.save(new SystemUserDataDTO("Bus", "Tester", "bus@test.com", "BusTester", "password"));
+		assertEquals("bus@test.com", reader.findById(user.getId()).getEmail());
+
+		SystemUserDataDTO update = new SystemUserDataDTO();
+		update.setId(user.getId());
+		update.setEmail("bus2@test.com");
+		writer.update(update);
+
+		await(() -> "bus2@test.com".equals(reader.findById(user.getId()).getEmail()));
+		await(() -> second.getBean(UserVersions.class).current(user.getId())
+				== first.getBean(UserVersions.class).current(user.getId()));
+	}
+
+	/**
+	 * Test to verify a token logged out on one instance is rejected by the other, as are all tokens of a user whose
+	 * tokens were revoked on one instance.
+	 * @throws Exception
+	 */
+	@Test
+	public void revocationTest() throws Exception {
+		long nowSeconds = System.currentTimeMillis() / 1000;
+		Claims claims = new DefaultClaims();
+		claims.setId("bus-jti");
+		claims.setSubject("BusTester");
+		claims.put(TokenClaims.USER_ID, 4242);
+		claims.setIssuedAt(new Date((nowSeconds - 10) * 1000));
+		claims.setExpiration(new Date((nowSeconds + 900) * 1000));
+		Claims other = new DefaultClaims();
+		other.setId("bus-jti-2");
+		other.setSubject("BusTester");
+		other.put(TokenClaims.USER_ID, 4242);
+		other.setIssuedAt(new Date((nowSeconds - 10) * 1000));
+		other.setExpiration(new Date((nowSeconds + 900) * 1000));
+		TokenRevocations peer = second.getBean(TokenRevocations.class);
+		assertFalse(peer.isRevoked(claims));
+
+		first.getBean(AuthService.class).logout(AuthenticatedUser.of("header.payload.signature", claims), null);
+
+		await(() -> peer.isRevoked(claims));
+		assertFalse(peer.isRevoked(other));
+
+		first.getBean(AuthService.class).revokeAll(AuthenticatedUser.of("header.payload.other", other));
+
+		await(() -> peer.isRevoked(other));
+	}
+}
@@ -0,0 +1,170 @@
+package org.generictech.userauth.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.generictech.userauth.model.InvalidationEvent;
+import org.generictech.userauth.model.InvalidationEvent.Type;
+import org.generictech.userauth.repo.InvalidationEventRepo;
+import org.generictech.userauth.security.TokenRevocations;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Test class for the InvalidationBus
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@ExtendWith(MockitoExtension.class)
+public class InvalidationBusTests {
+
+	@Mock
+	private InvalidationEventRepo eventRepo;
+
+	@Mock
+	private SystemUserCache userCache;
+
+	@Mock
+	private UserVersions userVersions;
+
+	@Mock
+	private TokenRevocations revocations;
+
+	@Mock
+	private VerifiedCredentialCache credentialCache;
+
+	@Mock
+	private OpaqueTokenStore opaqueTokens;
+
+	private AtomicLong now;
+	private InvalidationBus bus;
+
+	@BeforeEach
+	public void setUp() {
+		now = new AtomicLong(1_600_000_000_000L);
+		bus = bus(true);
+		doReturn(10L).when(eventRepo).findMaxId();
+		bus.init();
+	}
+
+	private InvalidationBus bus(boolean enabled) {
+		return new InvalidationBus(eventRepo, userCache, userVersions, revocations, credentialCache, opaqueTokens
+				, enabled, 0, 1000, 0, now::get);
+	}
+
+	private InvalidationEvent event(long id, Type type, int userId, String key, long value, String origin) {
+		InvalidationEvent event = new InvalidationEvent(type, userId, key, value, origin, now.get());
+		event.setId(id);
+		return event;
+	}
+
+	private String ownOrigin() {
+		bus.credentialsChanged(3);
+		ArgumentCaptor<InvalidationEvent> written = ArgumentCaptor.forClass(InvalidationEvent.class);
+		verify(eventRepo).save(written.capture());
+		return written.getValue().getOrigin();
+	}
+
+	/**
+	 * Test to verify a change is written as an event of this instance.
+	 */
+	@Test
+	public void publishTest() {
+		bus.userChanged(1, 5);
+
+		ArgumentCaptor<InvalidationEvent> written = ArgumentCaptor.forClass(InvalidationEvent.class);
+		verify(eventRepo).save(written.capture());
+		assertEquals(Type.USER, written.getValue().getType());
+		assertEquals(1, written.getValue().getUserId());
+		assertEquals(5, written.getValue().getValue());
+		assertEquals(now.get(), written.getValue().getCreatedAt());
+	}
+
+	/**
+	 * Test to verify events written since startup by other instances are applied, and events of this instance are
+	 * not applied again.
+	 */
+	@Test
+	public void pollTest() {
+		String own = ownOrigin();
+		doReturn(Arrays.asList(event(11, Type.USER, 1, null, 7, "peer")
+				, event(12, Type.TOKEN, 2, "jti", 99, "peer")
+				, event(13, Type.USER_TOKENS, 2, null, 42, "peer")
+				, event(14, Type.OPAQUE_TOKEN, 2, "hash", 0, "peer")
+				, event(15, Type.CREDENTIALS, 3, null, 0, own)))
+			.when(eventRepo).findTop500ByIdGreaterThanOrderByIdAsc(10);
+
+		bus.poll();
+
+		verify(userCache).invalidate(1);
+		verify(userVersions).observe(1, 7);
+		verify(revocations).applyRevoke("jti", 99);
+		verify(revocations).applyRevokeAll(2, 42);
+		verify(opaqueTokens).evict("hash");
+		verify(credentialCache, never()).invalidate(anyInt());
+
+		bus.poll();
+
+		verify(eventRepo).findTop500ByIdGreaterThanOrderByIdAsc(15);
+	}
+
+	/**
+	 * Test to verify an id skipped over is applied once its event becomes visible, and is given up on after the gap
+	 * timeout.
+	 */
+	@Test
+	public void gapTest() {
+		doReturn(Arrays.asList(event(11, Type.USER, 1, null, 0, "peer"), event(14, Type.USER, 4, null, 0, "peer")))
+			.when(eventRepo).findTop500ByIdGreaterThanOrderByIdAsc(10);
+		bus.poll();
+		assertEquals(2, bus.gapCount());
+
+		doReturn(Collections.singletonList(event(12, Type.CREDENTIALS, 2, null, 0, "peer")))
+			.when(eventRepo).findAllById(any());
+		bus.poll();
+
+		verify(credentialCache).invalidate(2);
+		assertEquals(1, bus.gapCount());
+
+		doReturn(Collections.emptyList()).when(eventRepo).findAllById(any());
+		now.addAndGet(1000);
+		bus.poll();
+
+		assertEquals(0, bus.gapCount());
+	}
+
+	/**
+	 * Test to verify a failed write does not fail the change it reports.
+	 */
+	@Test
+	public void publishFailureTest() {
+		doThrow(new IllegalStateException("down")).when(eventRepo).save(any(InvalidationEvent.class));
+
+		bus.tokenRevoked(1, "jti", 99);
+	}
+
+	/**
+	 * Test to verify nothing is written while the bus is disabled.
+	 */
+	@Test
+	public void disabledTest() {
+		bus = bus(false);
+		bus.userChanged(1, 5);
+		bus.poll();
+
+		verify(eventRepo, never()).save(any(InvalidationEvent.class));
+	}
+}
@@ -0,0 +1,71 @@
+package org.generictech.userauth.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import org.generictech.userauth.client.JwtCodec;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Benchmark of the {@link JwtCodec} against jjwt for signing and verifying the tokens this service issues. Excluded
+ * from the normal build; run with {@code mvn test -Pbenchmark}.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@Tag("benchmark")
+@Slf4j
+public class JwtCodecBenchmark {
+
+	private static final int WARMUP = 20_000;
+	private static final int OPS = 200_000;
+	private static final SecretKeySpec KEY = new SecretKeySpec("benchmark-secret".getBytes(StandardCharsets.UTF_8)
+			, "HmacSHA512");
+	private static final String ISSUER = "org.generictech.Expenser";
+	private static final long TTL = 20000000;
+	
+	private final JwtCodec codec = new JwtCodec();
+	
+	private String jjwtSign() {
+		long now = System.currentTimeMillis();
+		return Jwts.builder().setHeaderParam("kid", "default").setId("1").setIssuedAt(new Date(now))
+				.setSubject("TTester").setIssuer(ISSUER).setExpiration(new Date(now + TTL))
+				.signWith(SignatureAlgorithm.HS512, KEY).compact();
+	}
+	
+	private String codecSign() {
+		long now = System.currentTimeMillis();
+		return codec.sign("default", KEY, claims -> claims.string(Claims.ID, "1")
+				.number(Claims.ISSUED_AT, now / 1000)
+				.string(Claims.SUBJECT, "TTester")
+				.string(Claims.ISSUER, ISSUER)
+				.number(Claims.EXPIRATION, (now + TTL) / 1000));
+	}
+
+	/**
+	 * Benchmark of single threaded and contended signing and verification.
+	 * @throws Exception
+	 */
+	@Test
+	public void jwtCodecBenchmark() throws Exception {
+		String token = codecSign();
+		int cores = Runtime.getRuntime().availableProcessors();
+		for (int threads : new int[] {1, cores}) {
+			log.info(BenchmarkRunner.run("jjwt sign", threads, WARMUP, OPS / threads, this::jjwtSign).toString());
+			log.info(BenchmarkRunner.run("JwtCodec sign", threads, WARMUP, OPS / threads, this::codecSign).toString());
+			log.info(BenchmarkRunner.run("jjwt verify", threads, WARMUP, OPS / threads, () -> {
+				Jwts.parser().setSigningKey(KEY).parseClaimsJws(token).getBody();
+			}).toString());
+			log.info(BenchmarkRunner.run("JwtCodec verify", threads, WARMUP, OPS / threads, () -> {
+				codec.verify(token, kid -> KEY);
+			}).toString());
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package org.generictech.userauth.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.generictech.userauth.dto.KdfCalibration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Test class to test the {@link KdfCalibrator}
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class KdfCalibratorTests {
+
+	private HashingExecutor hashingExecutor;
+	private PasswordHashingUtility hashingUtility;
+	private KdfCalibrator calibrator;
+
+	@BeforeEach
+	public void setUp() {
+		hashingExecutor = new HashingExecutor(1, 4, 1, new SimpleMeterRegistry());
+		hashingUtility = new PasswordHashingUtility();
+		ReflectionTestUtils.setField(hashingUtility, "hashingExecutor", hashingExecutor);
+		calibrator = new KdfCalibrator();
+		ReflectionTestUtils.setField(calibrator, "hashingUtility", hashingUtility);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		hashingExecutor.shutdown();
+	}
+
+	/**
+	 * Test to verify the security floor wins over an unreachably small latency target.
+	 * @throws Exception
+	 */
+	@Test
+	public void calibrateRespectsFloorTest() throws Exception {
+		ReflectionTestUtils.setField(calibrator, "targetMillis", 0L);
+		ReflectionTestUtils.setField(calibrator, "minIterations", 50000);
+		hashingUtility.setIterations(16384);
+
+		KdfCalibration result = calibrator.calibrate();
+
+		assertEquals(16384, result.getPreviousIterations());
+		assertEquals(50176, result.getIterations());
+		assertEquals(50176, hashingUtility.getIterations());
+	}
+
+	/**
+	 * Test to verify calibration never lowers the iteration count already in use, whatever the floor and target.
+	 * @throws Exception
+	 */
+	@Test
+	public void calibrateNeverLowersCostTest() throws Exception {
+		ReflectionTestUtils.setField(calibrator, "targetMillis", 0L);
+		ReflectionTestUtils.setField(calibrator, "minIterations", 1024);
+
+		KdfCalibration result = calibrator.calibrate();
+
+		assertEquals(131072, result.getPreviousIterations());
+		assertEquals(131072, result.getIterations());
+		assertEquals(131072, hashingUtility.getIterations());
+	}
+
+	/**
+	 * Test to verify a larger latency target yields a higher cost, rounded to a multiple of 1024.
+	 * @throws Exception
+	 */
+	@Test
+	public void calibrateScalesWithTargetTest() throws Exception {
+		ReflectionTestUtils.setField(calibrator, "targetMillis", 50L);
+		ReflectionTestUtils.setField(calibrator, "minIterations", 1024);
+
+		KdfCalibration result = calibrator.calibrate();
+
+		assertTrue(result.getIterations() > 1024);
+		assertEquals(0, result.getIterations() % 1024);
+		assertEquals(result.getIterations(), hashingUtility.hashPassword("password").getCost());
+	}
+}
@@ -0,0 +1,87 @@
+package org.generictech.userauth.util;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.generictech.userauth.repo.OpaqueTokenRepo;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Benchmark of issuing and validating opaque tokens against signed tokens, with and without the verified token
+ * cache. Excluded from the normal build; run with {@code mvn test -Pbenchmark}.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@Tag("benchmark")
+@Slf4j
+public class OpaqueTokenBenchmark {
+
+	private static final int WARMUP = 20_000;
+	private static final int OPS = 200_000;
+	private static final int TOKENS = 1000;
+	private static final String ISSUER = "org.generictech.Expenser";
+	private static final long TTL = 900_000;
+	private static final String SECRET = Base64.getEncoder().encodeToString(
+			"benchmark-secret".getBytes(StandardCharsets.UTF_8));
+
+	private TokenUtility tokenUtility(boolean cacheEnabled, OpaqueTokenStore store) {
+		SigningKeyManager manager = new SigningKeyManager("default:" + SECRET, "", 0);
+		manager.init();
+		TokenUtility utility = new TokenUtility();
+		ReflectionTestUtils.setField(utility, "keyManager", manager);
+		ReflectionTestUtils.setField(utility, "cacheEnabled", cacheEnabled);
+		ReflectionTestUtils.setField(utility, "opaqueTokens", store);
+		utility.init();
+		return utility;
+	}
+
+	private static String any(String[] tokens) {
+		return tokens[ThreadLocalRandom.current().nextInt(tokens.length)];
+	}
+
+	/**
+	 * Benchmark of single threaded and contended issuing and validation of both kinds of token.
+	 * @throws Exception
+	 */
+	@Test
+	public void opaqueTokenBenchmark() throws Exception {
+		OpaqueTokenStore store = new OpaqueTokenStore(mock(OpaqueTokenRepo.class, withSettings().stubOnly()), true, 0, 0
+				, System::currentTimeMillis);
+		TokenUtility uncached = tokenUtility(false, store);
+		TokenUtility cached = tokenUtility(true, store);
+		String[] jwts = new String[TOKENS];
+		String[] handles = new String[TOKENS];
+		for (int i = 0; i < TOKENS; i++) {
+			jwts[i] = cached.createUserJWT(i, ISSUER, "TTester" + i, TTL, 0, claims -> { });
+			handles[i] = store.issue(i, "TTester" + i, TTL, 0, null, -1);
+		}
+		log.info("tokenId header length: signed " + jwts[0].length() + ", opaque " + handles[0].length());
+
+		int cores = Runtime.getRuntime().availableProcessors();
+		for (int threads : new int[] {1, cores}) {
+			log.info(BenchmarkRunner.run("issue signed", threads, WARMUP, OPS / threads, () -> {
+				cached.createUserJWT(1, ISSUER, "TTester", TTL, 0, claims -> { });
+			}).toString());
+			log.info(BenchmarkRunner.run("issue opaque", threads, WARMUP, OPS / threads, () -> {
+				store.issue(1, "TTester", TTL, 0, null, -1);
+			}).toString());
+			log.info(BenchmarkRunner.run("validate signed", threads, WARMUP, OPS / threads, () -> {
+				uncached.decodeJWT(any(jwts));
+			}).toString());
+			log.info(BenchmarkRunner.run("validate signed, cached", threads, WARMUP, OPS / threads, () -> {
+				cached.decodeJWT(any(jwts));
+			}).toString());
+			log.info(BenchmarkRunner.run("validate opaque", threads, WARMUP, OPS / threads, () -> {
+				cached.decodeJWT(any(handles));
+			}).toString());
+		}
+	}
+}
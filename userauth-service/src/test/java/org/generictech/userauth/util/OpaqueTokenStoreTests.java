@@ -0,0 +1,219 @@
+package org.generictech.userauth.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.generictech.userauth.client.TokenClaims;
+import org.generictech.userauth.model.OpaqueToken;
+import org.generictech.userauth.repo.OpaqueTokenRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.SignatureException;
+
+/**
+ * Test class for the OpaqueTokenStore
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@ExtendWith(MockitoExtension.class)
+public class OpaqueTokenStoreTests {
+
+	@Mock
+	private OpaqueTokenRepo opaqueTokenRepo;
+	
+	private AtomicLong now;
+	private OpaqueTokenStore store;
+	
+	@BeforeEach
+	public void setUp() {
+		now = new AtomicLong(1_600_000_000_000L);
+		store = new OpaqueTokenStore(opaqueTokenRepo, true, 0, 0, now::get);
+	}
+	
+	/**
+	 * Test to verify an issued handle resolves to its session from memory, without the database.
+	 */
+	@Test
+	public void issueAndResolveTest() {
+		String handle = store.issue(1, "TTester", 900_000, 0, "test@test.com", -1);
+		Claims claims = store.resolve(handle);
+		
+		assertEquals(43, handle.length());
+		assertTrue(OpaqueTokenStore.isHandle(handle));
+		assertEquals("TTester", claims.getSubject());
+		assertEquals(1, TokenUtility.userId(claims));
+		assertEquals(1_600_000_000L, claims.getIssuedAt().getTime() / 1000);
+		assertEquals(1_600_000_900L, claims.getExpiration().getTime() / 1000);
+		assertNull(claims.get(TokenClaims.EMAIL));
+		assertNull(claims.get(TokenClaims.VERSION));
+		verify(opaqueTokenRepo, never()).findById(anyString());
+	}
+	
+	/**
+	 * Test to verify a session issued with a version carries the user's email and version, and honours the
+	 * not-before second.
+	 */
+	@Test
+	public void statelessClaimsTest() {
+		Claims claims = store.resolve(store.issue(1, "TTester", 900_000, 1_600_000_005L, "test@test.com", 7));
+		
+		assertEquals("test@test.com", claims.get(TokenClaims.EMAIL));
+		assertEquals(7L, ((Number) claims.get(TokenClaims.VERSION)).longValue());
+		assertEquals(1_600_000_005L, claims.getIssuedAt().getTime() / 1000);
+	}
+	
+	/**
+	 * Test to verify unknown and expired handles are rejected.
+	 */
+	@Test
+	public void rejectTest() {
+		doReturn(Optional.empty()).when(opaqueTokenRepo).findById(anyString());
+		String handle = store.issue(1, "TTester", 900_000, 0, null, -1);
+		
+		assertThrows(SignatureException.class, () -> store.resolve("A123456789012345678901234567890123456789012"));
+		now.addAndGet(900_000);
+		assertThrows(ExpiredJwtException.class, () -> store.resolve(handle));
+	}
+	
+	/**
+	 * Test to verify every session is written when it is issued, so it is stored before its handle is handed out.
+	 */
+	@Test
+	public void writeThroughTest() {
+		String handle = store.issue(1, "TTester", 900_000, 0, null, -1);
+		store.issue(2, "TTester2", 900_000, 0, null, -1);
+		
+		verify(opaqueTokenRepo, times(2)).save(any());
+		assertEquals(store.resolve(handle).getId(), written().getTokenHash());
+	}
+	
+	/**
+	 * Test to verify a handle held by another instance is read from the database once and then held.
+	 */
+	@Test
+	public void readThroughTest() {
+		OpaqueTokenStore other = new OpaqueTokenStore(opaqueTokenRepo, true, 0, 0, now::get);
+		String handle = other.issue(1, "TTester", 900_000, 0, null, -1);
+		OpaqueToken row = written();
+		doReturn(Optional.of(row)).when(opaqueTokenRepo).findById(row.getTokenHash());
+		
+		assertEquals("TTester", store.resolve(handle).getSubject());
+		assertEquals("TTester", store.resolve(handle).getSubject());
+		verify(opaqueTokenRepo, times(1)).findById(row.getTokenHash());
+	}
+	
+	/**
+	 * Test to verify a handle found nowhere is looked up once and then rejected from memory until the unknown
+	 * entry expires.
+	 */
+	@Test
+	public void unknownCachedTest() {
+		store = new OpaqueTokenStore(opaqueTokenRepo, true, 60, 0, now::get);
+		doReturn(Optional.empty()).when(opaqueTokenRepo).findById(anyString());
+		String garbage = "A123456789012345678901234567890123456789012";
+		
+		assertThrows(SignatureException.class, () -> store.resolve(garbage));
+		assertThrows(SignatureException.class, () -> store.resolve(garbage));
+		verify(opaqueTokenRepo, times(1)).findById(anyString());
+		
+		now.addAndGet(61_000);
+		assertThrows(SignatureException.class, () -> store.resolve(garbage));
+		verify(opaqueTokenRepo, times(2)).findById(anyString());
+	}
+	
+	/**
+	 * Test to verify nothing is looked up while opaque tokens are disabled.
+	 */
+	@Test
+	public void disabledTest() {
+		store = new OpaqueTokenStore(opaqueTokenRepo, false, 60, 0, now::get);
+		
+		assertThrows(SignatureException.class, () -> store.resolve("A123456789012345678901234567890123456789012"));
+		verify(opaqueTokenRepo, never()).findById(anyString());
+	}
+	
+	private OpaqueToken written() {
+		ArgumentCaptor<OpaqueToken> written = ArgumentCaptor.forClass(OpaqueToken.class);
+		verify(opaqueTokenRepo, atLeastOnce()).save(written.capture());
+		return written.getAllValues().get(0);
+	}
+	
+	/**
+	 * Test to verify a logged out handle is rejected, without a lookup, and its row deleted.
+	 */
+	@Test
+	@SuppressWarnings("unchecked")
+	public void revokeTest() {
+		store = new OpaqueTokenStore(opaqueTokenRepo, true, 60, 0, now::get);
+		String handle = store.issue(1, "TTester", 900_000, 0, null, -1);
+		String kept = store.issue(1, "TTester", 900_000, 0, null, -1);
+		
+		assertTrue(store.revoke(handle));
+		assertFalse(store.revoke("header.payload.signature"));
+		assertThrows(SignatureException.class, () -> store.resolve(handle));
+		store.resolve(kept);
+		
+		ArgumentCaptor<Collection<String>> deleted = ArgumentCaptor.forClass(Collection.class);
+		verify(opaqueTokenRepo).deleteByHashes(deleted.capture());
+		assertEquals(1, deleted.getValue().size());
+		verify(opaqueTokenRepo, never()).findById(anyString());
+	}
+	
+	/**
+	 * Test to verify a session logged out on another instance is forgotten here without touching the database, which
+	 * the other instance has already deleted it from.
+	 */
+	@Test
+	public void evictTest() {
+		doReturn(Optional.empty()).when(opaqueTokenRepo).findById(anyString());
+		String handle = store.issue(1, "TTester", 900_000, 0, null, -1);
+		String kept = store.issue(1, "TTester", 900_000, 0, null, -1);
+		String jti = store.resolve(handle).getId();
+		
+		store.evict("unknown");
+		store.evict(jti);
+		
+		assertThrows(SignatureException.class, () -> store.resolve(handle));
+		store.resolve(kept);
+		verify(opaqueTokenRepo, never()).deleteByHashes(any());
+	}
+	
+	/**
+	 * Test to verify every session of a user can be dropped at once.
+	 */
+	@Test
+	public void revokeAllTest() {
+		doReturn(Optional.empty()).when(opaqueTokenRepo).findById(anyString());
+		String first = store.issue(1, "TTester", 900_000, 0, null, -1);
+		String second = store.issue(1, "TTester", 900_000, 0, null, -1);
+		String other = store.issue(2, "TTester2", 900_000, 0, null, -1);
+		
+		store.revokeAll(1);
+		
+		assertThrows(SignatureException.class, () -> store.resolve(first));
+		assertThrows(SignatureException.class, () -> store.resolve(second));
+		assertEquals("TTester2", store.resolve(other).getSubject());
+		verify(opaqueTokenRepo).deleteByUser(1);
+	}
+}
@@ -0,0 +1,130 @@
+package org.generictech.userauth.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Test class to test the {@link PasswordHashingUtility}
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class PasswordHashingUtilityTests {
+
+	private PasswordHashingUtility hashingUtility;
+	private HashingExecutor hashingExecutor;
+
+	@BeforeEach
+	public void setUp() {
+		hashingExecutor = new HashingExecutor(1, 4, 1, new SimpleMeterRegistry());
+		hashingUtility = new PasswordHashingUtility();
+		ReflectionTestUtils.setField(hashingUtility, "hashingExecutor", hashingExecutor);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		hashingExecutor.shutdown();
+	}
+
+	/**
+	 * Test to verify a password hashed under the current policy round trips through the binary stored form.
+	 * @throws Exception
+	 */
+	@Test
+	public void hashAndValidateTest() throws Exception {
+		PasswordHash stored = PasswordHash.fromBytes(hashingUtility.hashPassword("password").toBytes());
+
+		assertEquals(PasswordHash.PBKDF2_SHA1, stored.getAlgorithm());
+		assertEquals(131072, stored.getCost());
+		assertEquals(16, stored.getSalt().length);
+		assertTrue(hashingUtility.validatePassword("password", stored));
+		assertFalse(hashingUtility.validatePassword("passwort", stored));
+		assertFalse(hashingUtility.needsRehash(stored));
+	}
+
+	/**
+	 * Test to verify rows written before the versioned format (bare hex hash, hex salt column) still validate,
+	 * survive conversion to the binary form, and are flagged for a rehash.
+	 * @throws Exception
+	 */
+	@Test
+	public void legacyHashTest() throws Exception {
+		String salt = "9f86d081884c7d659a2feaa0c55ad015";
+		PBEKeySpec spec = new PBEKeySpec("password".toCharArray(), salt.getBytes(StandardCharsets.UTF_8), 131072, 256);
+		byte[] raw = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1").generateSecret(spec).getEncoded();
+		StringBuilder legacy = new StringBuilder();
+		for (byte b : raw) {
+			legacy.append(String.format("%02x", b));
+		}
+
+		PasswordHash stored = PasswordHash.parse(legacy.toString(), salt);
+		PasswordHash migrated = PasswordHash.fromBytes(stored.toBytes());
+
+		assertArrayEquals(raw, migrated.getHash());
+		assertTrue(hashingUtility.validatePassword("password", stored));
+		assertTrue(hashingUtility.validatePassword("password", migrated));
+		assertFalse(hashingUtility.validatePassword("passwort", migrated));
+		assertTrue(hashingUtility.needsRehash(migrated));
+	}
+
+	/**
+	 * Test to verify hashes written in the intermediate text format still validate.
+	 * @throws Exception
+	 */
+	@Test
+	public void versionedTextHashTest() throws Exception {
+		byte[] salt = "0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+		byte[] raw = Pbkdf2Engine.derive("password".toCharArray(), salt, 1000, 32);
+		StringBuilder text = new StringBuilder("$pbkdf2-sha1$v=1$i=1000$");
+		for (byte b : salt) {
+			text.append(String.format("%02x", b));
+		}
+		text.append('$');
+		for (byte b : raw) {
+			text.append(String.format("%02x", b));
+		}
+
+		PasswordHash stored = PasswordHash.parse(text.toString(), null);
+
+		assertEquals(1000, stored.getCost());
+		assertTrue(hashingUtility.validatePassword("password", stored));
+		assertTrue(hashingUtility.needsRehash(stored));
+	}
+
+	/**
+	 * Test to verify Argon2id hashes round trip, and that switching the policy flags older PBKDF2 hashes.
+	 * @throws Exception
+	 */
+	@Test
+	public void argon2idTest() throws Exception {
+		PasswordHash pbkdf2 = hashingUtility.hashPassword("password");
+		ReflectionTestUtils.setField(hashingUtility, "algorithm", PasswordHash.ARGON2ID);
+		ReflectionTestUtils.setField(hashingUtility, "argon2MemoryKib", 256);
+		ReflectionTestUtils.setField(hashingUtility, "argon2Iterations", 2);
+		ReflectionTestUtils.setField(hashingUtility, "argon2Parallelism", 2);
+
+		PasswordHash stored = PasswordHash.fromBytes(hashingUtility.hashPassword("password").toBytes());
+
+		assertEquals(PasswordHash.ARGON2ID, stored.getAlgorithm());
+		assertEquals(256, stored.getMemoryKib());
+		assertEquals(2, stored.getParallelism());
+		assertTrue(hashingUtility.validatePassword("password", stored));
+		assertFalse(hashingUtility.validatePassword("passwort", stored));
+		assertFalse(hashingUtility.needsRehash(stored));
+		assertTrue(hashingUtility.validatePassword("password", pbkdf2));
+		assertTrue(hashingUtility.needsRehash(pbkdf2));
+	}
+}
@@ -0,0 +1,76 @@
+package org.generictech.userauth.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class to verify {@link Pbkdf2Engine} stays byte compatible with the JCE implementation, so hashes already
+ * stored in the credentials table keep validating.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class Pbkdf2EngineTests {
+
+	private byte[] jce(String password, byte[] salt, int iterations, int keyLength) throws Exception {
+		PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, keyLength * 8);
+		return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1").generateSecret(spec).getEncoded();
+	}
+
+	/**
+	 * Test to verify the RFC 6070 test vectors.
+	 */
+	@Test
+	public void rfc6070VectorsTest() {
+		assertArrayEquals(hex("0c60c80f961f0e71f3a9b524af6012062fe037a6")
+				, Pbkdf2Engine.derive("password".toCharArray(), "salt".getBytes(StandardCharsets.UTF_8), 1, 20));
+		assertArrayEquals(hex("4b007901b765489abead49d926f721d065a429c1")
+				, Pbkdf2Engine.derive("password".toCharArray(), "salt".getBytes(StandardCharsets.UTF_8), 4096, 20));
+		assertArrayEquals(hex("3d2eec4fe41c849b80c8d83662c0e44a8b291a964cf2f07038")
+				, Pbkdf2Engine.derive("passwordPASSWORDpassword".toCharArray()
+						, "saltSALTsaltSALTsaltSALTsaltSALTsalt".getBytes(StandardCharsets.UTF_8), 4096, 25));
+	}
+
+	/**
+	 * Test to verify the production parameters (hex salt string bytes, 131072 iterations, 256 bit key) match.
+	 * @throws Exception
+	 */
+	@Test
+	public void matchesJceForStoredHashesTest() throws Exception {
+		byte[] salt = "9f86d081884c7d659a2feaa0c55ad015".getBytes(StandardCharsets.UTF_8);
+		assertArrayEquals(jce("password", salt, 131072, 32), Pbkdf2Engine.derive("password".toCharArray(), salt, 131072, 32));
+	}
+
+	/**
+	 * Test to verify odd lengths, non ASCII passwords and passwords longer than the HMAC block size all match.
+	 * @throws Exception
+	 */
+	@Test
+	public void matchesJceForEdgeCasesTest() throws Exception {
+		Random random = new Random(42);
+		String[] passwords = {"", "päss wörd ✓", new String(new char[100]).replace('\0', 'x')};
+		for (String password : passwords) {
+			for (int saltLength : new int[] {1, 16, 55, 56, 70}) {
+				byte[] salt = new byte[saltLength];
+				random.nextBytes(salt);
+				for (int keyLength : new int[] {20, 32, 41}) {
+					assertArrayEquals(jce(password, salt, 3, keyLength), Pbkdf2Engine.derive(password.toCharArray(), salt, 3, keyLength));
+				}
+			}
+		}
+	}
+
+	private byte[] hex(String in) {
+		byte[] out = new byte[in.length() / 2];
+		for (int i = 0; i < out.length; i++) {
+			out[i] = (byte) Integer.parseInt(in.substring(i * 2, i * 2 + 2), 16);
+		}
+		return out;
+	}
+}
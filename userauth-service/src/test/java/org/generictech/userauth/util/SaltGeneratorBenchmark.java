@@ -0,0 +1,40 @@
+package org.generictech.userauth.util;
+
+import java.security.SecureRandom;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Benchmark of the pooled {@link SaltGenerator} against the previous salt generation, which built a new
+ * {@link SecureRandom} for every salt. Excluded from the normal build; run with {@code mvn test -Pbenchmark}.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+@Tag("benchmark")
+@Slf4j
+public class SaltGeneratorBenchmark {
+
+	private static final int WARMUP = 20_000;
+	private static final int OPS = 200_000;
+
+	/**
+	 * Benchmark of single threaded and contended salt generation.
+	 * @throws Exception
+	 */
+	@Test
+	public void saltGenerationBenchmark() throws Exception {
+		int cores = Runtime.getRuntime().availableProcessors();
+		for (int threads : new int[] {1, cores, cores * 4}) {
+			log.info(BenchmarkRunner.run("new SecureRandom per salt", threads, WARMUP, OPS / threads, () -> {
+				byte[] salt = new byte[16];
+				new SecureRandom().nextBytes(salt);
+			}).toString());
+			log.info(BenchmarkRunner.run("SaltGenerator", threads, WARMUP, OPS / threads, () -> {
+				SaltGenerator.nextSalt(16);
+			}).toString());
+		}
+	}
+}
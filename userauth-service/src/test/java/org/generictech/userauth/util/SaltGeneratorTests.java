@@ -0,0 +1,42 @@
+package org.generictech.userauth.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the SaltGenerator
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class SaltGeneratorTests {
+
+	/**
+	 * Test to verify salts have the requested length and do not repeat across threads, including after a reseed.
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void uniqueSaltsTest() throws InterruptedException {
+		Set<ByteBuffer> salts = ConcurrentHashMap.newKeySet();
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		for (int t = 0; t < 4; t++) {
+			pool.execute(() -> {
+				for (int i = 0; i < 70_000; i++) {
+					salts.add(ByteBuffer.wrap(SaltGenerator.nextSalt(16)));
+				}
+			});
+		}
+		pool.shutdown();
+		pool.awaitTermination(1, TimeUnit.MINUTES);
+		
+		assertEquals(280_000, salts.size());
+		assertEquals(16, SaltGenerator.nextSalt(16).length);
+	}
+}
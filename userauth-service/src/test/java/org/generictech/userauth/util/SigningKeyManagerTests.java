@@ -0,0 +1,172 @@
+package org.generictech.userauth.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Properties;
+
+import org.generictech.userauth.dto.JsonWebKey;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test class for the SigningKeyManager
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class SigningKeyManagerTests {
+
+	private static final String SECRET_A = Base64.getEncoder().encodeToString("secret-a".getBytes(StandardCharsets.UTF_8));
+	private static final String SECRET_B = Base64.getEncoder().encodeToString("secret-b".getBytes(StandardCharsets.UTF_8));
+	
+	@TempDir
+	Path dir;
+	
+	/**
+	 * Test to verify a single secret is used under the default kid, as TOKEN_SECRETS always has been.
+	 */
+	@Test
+	public void singleSecretTest() {
+		SigningKeyManager.KeySet keys = SigningKeyManager.parseSecrets(SECRET_A);
+		
+		assertEquals(SigningKeyManager.DEFAULT_KID, keys.getSigningKid());
+		assertArrayEquals("secret-a".getBytes(StandardCharsets.UTF_8), keys.getSigningKey().getEncoded());
+		assertEquals(keys.getSigningKey(), keys.getVerificationKey(null));
+	}
+	
+	/**
+	 * Test to verify a list of secrets signs with the first and verifies with all of them.
+	 */
+	@Test
+	public void multipleSecretsTest() {
+		SigningKeyManager.KeySet keys = SigningKeyManager.parseSecrets("b:" + SECRET_B + ", default:" + SECRET_A);
+		
+		assertEquals("b", keys.getSigningKid());
+		assertArrayEquals("secret-a".getBytes(StandardCharsets.UTF_8), keys.getVerificationKey(null).getEncoded());
+		assertArrayEquals("secret-b".getBytes(StandardCharsets.UTF_8), keys.getVerificationKey("b").getEncoded());
+		assertNull(keys.getVerificationKey("c"));
+	}
+	
+	/**
+	 * Test to verify the keys file is read, re-read on reload, and that a broken file leaves the current keys in place.
+	 * @throws IOException
+	 */
+	@Test
+	public void keysFileReloadTest() throws IOException {
+		Path file = dir.resolve("keys.properties");
+		Files.write(file, Arrays.asList("signing-kid=a", "key.a=" + SECRET_A));
+		SigningKeyManager manager = new SigningKeyManager("", file.toString(), 0);
+		manager.init();
+		assertEquals("a", manager.current().getSigningKid());
+		
+		Files.write(file, Arrays.asList("signing-kid=b", "key.a=" + SECRET_A, "key.b=" + SECRET_B));
+		manager.reload();
+		assertEquals("b", manager.current().getSigningKid());
+		assertArrayEquals("secret-a".getBytes(StandardCharsets.UTF_8), manager.current().getVerificationKey("a").getEncoded());
+		
+		Files.write(file, Arrays.asList("signing-kid=c", "key.a=" + SECRET_A));
+		assertThrows(IllegalArgumentException.class, () -> manager.reload());
+		assertEquals("b", manager.current().getSigningKid());
+	}
+	
+	/**
+	 * Test to verify signing fails clearly when no keys are configured.
+	 */
+	@Test
+	public void noKeysTest() {
+		SigningKeyManager manager = new SigningKeyManager("", "", 0);
+		manager.init();
+		
+		assertThrows(IllegalStateException.class, () -> manager.current().getSigningKey());
+	}
+	
+	private static KeyPair ecKeyPair() throws GeneralSecurityException {
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+		generator.initialize(new ECGenParameterSpec("secp256r1"));
+		return generator.generateKeyPair();
+	}
+	
+	private static String base64(Key key) {
+		return Base64.getEncoder().encodeToString(key.getEncoded());
+	}
+	
+	/**
+	 * Test to verify EC keys sign in place of the secrets, secrets still verify, and only EC public keys are published,
+	 * retired ones included.
+	 * @throws GeneralSecurityException
+	 */
+	@Test
+	public void ecKeysTest() throws GeneralSecurityException {
+		KeyPair current = ecKeyPair();
+		KeyPair retired = ecKeyPair();
+		SigningKeyManager.KeySet keys = SigningKeyManager.parseSecrets(SECRET_A, "e2:" + base64(current.getPrivate())
+				+ ":" + base64(current.getPublic()) + ", e1::" + base64(retired.getPublic()));
+		
+		assertEquals("e2", keys.getSigningKid());
+		assertEquals(current.getPrivate(), keys.getSigningKey());
+		assertEquals(retired.getPublic(), keys.getVerificationKey("e1"));
+		assertArrayEquals("secret-a".getBytes(StandardCharsets.UTF_8), keys.getVerificationKey(null).getEncoded());
+		List<JsonWebKey> published = keys.getJwks().getKeys();
+		assertEquals(2, published.size());
+		assertEquals("e2", published.get(0).getKid());
+		assertEquals("ES256", published.get(0).getAlg());
+		assertEquals("P-256", published.get(0).getCrv());
+		assertEquals(43, published.get(0).getX().length());
+	}
+	
+	/**
+	 * Test to verify EC keys are read from the keys file and the published key set's tag follows its keys.
+	 * @throws GeneralSecurityException
+	 */
+	@Test
+	public void ecKeysFileTest() throws GeneralSecurityException {
+		KeyPair pair = ecKeyPair();
+		Properties props = new Properties();
+		props.setProperty("signing-kid", "e1");
+		props.setProperty("key.default", SECRET_A);
+		props.setProperty("ec.e1", base64(pair.getPrivate()));
+		props.setProperty("ec-public.e1", base64(pair.getPublic()));
+		SigningKeyManager.KeySet keys = SigningKeyManager.parseProperties(props);
+		
+		assertEquals(pair.getPrivate(), keys.getSigningKey());
+		assertEquals(keys.getJwksTag(), SigningKeyManager.parseProperties(props).getJwksTag());
+		assertNotEquals(keys.getJwksTag(), SigningKeyManager.parseSecrets(SECRET_A).getJwksTag());
+		
+		props.remove("ec-public.e1");
+		assertThrows(IllegalArgumentException.class, () -> SigningKeyManager.parseProperties(props));
+	}
+	
+	/**
+	 * Test to verify mismatched key pairs and keys on other curves are refused at load time.
+	 * @throws GeneralSecurityException
+	 */
+	@Test
+	public void badEcKeysTest() throws GeneralSecurityException {
+		KeyPair pair = ecKeyPair();
+		KeyPair other = ecKeyPair();
+		KeyPairGenerator p384 = KeyPairGenerator.getInstance("EC");
+		p384.initialize(new ECGenParameterSpec("secp384r1"));
+		
+		assertThrows(IllegalArgumentException.class, () -> SigningKeyManager.parseSecrets("", "e1:"
+				+ base64(pair.getPrivate()) + ":" + base64(other.getPublic())));
+		assertThrows(IllegalArgumentException.class, () -> SigningKeyManager.parseSecrets("", "e1::"
+				+ base64(p384.generateKeyPair().getPublic())));
+		assertThrows(IllegalArgumentException.class, () -> SigningKeyManager.parseSecrets("", "e1::"
+				+ base64(pair.getPublic())));
+	}
+}
@@ -0,0 +1,153 @@
+package org.generictech.userauth.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Test class for the SingleFlight
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class SingleFlightTests {
+
+	private static final int CALLERS = 8;
+
+	private SingleFlight<String, Object> flight;
+	private ExecutorService pool;
+	private CountDownLatch started;
+	private CountDownLatch release;
+	private AtomicInteger runs;
+
+	@BeforeEach
+	public void setUp() {
+		flight = new SingleFlight<>();
+		pool = Executors.newFixedThreadPool(CALLERS);
+		started = new CountDownLatch(1);
+		release = new CountDownLatch(1);
+		runs = new AtomicInteger();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		pool.shutdownNow();
+	}
+
+	private Object blockingLoad() {
+		runs.incrementAndGet();
+		started.countDown();
+		try {
+			release.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return new Object();
+	}
+
+	private List<Future<Object>> callers(String key, long generation) throws InterruptedException {
+		List<Future<Object>> results = new ArrayList<>();
+		results.add(pool.submit(() -> flight.load(key, generation, this::blockingLoad)));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		for (int i = 1; i < CALLERS; i++) {
+			results.add(pool.submit(() -> flight.load(key, generation, this::blockingLoad)));
+		}
+		return results;
+	}
+
+	private void awaitCollapsed(long expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (flight.collapsed() < expected && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+	}
+
+	/**
+	 * Test to verify concurrent loads of one key run once and every caller gets the same result.
+	 * @throws Exception
+	 */
+	@Test
+	public void collapseTest() throws Exception {
+		List<Future<Object>> results = callers("a", 0);
+		awaitCollapsed(CALLERS - 1);
+		release.countDown();
+
+		Object first = results.get(0).get(5, TimeUnit.SECONDS);
+		for (Future<Object> result : results) {
+			assertSame(first, result.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(1, runs.get());
+		assertEquals(1, flight.loads());
+		assertEquals(CALLERS - 1, flight.collapsed());
+	}
+
+	/**
+	 * Test to verify a load is not shared once it has completed, or with a caller of a later generation.
+	 * @throws Exception
+	 */
+	@Test
+	public void generationTest() throws Exception {
+		release.countDown();
+		flight.load("a", 0, this::blockingLoad);
+		flight.load("a", 0, this::blockingLoad);
+		assertEquals(2, runs.get());
+
+		release = new CountDownLatch(1);
+		started = new CountDownLatch(1);
+		Future<Object> old = pool.submit(() -> flight.load("b", 0, this::blockingLoad));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		Future<Object> newer = pool.submit(() -> flight.load("b", 1, () -> "newer"));
+
+		assertEquals("newer", newer.get(5, TimeUnit.SECONDS));
+		release.countDown();
+		old.get(5, TimeUnit.SECONDS);
+		assertEquals(0, flight.collapsed());
+	}
+
+	/**
+	 * Test to verify a failed load fails every caller that shared it, and the next load runs afresh.
+	 */
+	@Test
+	public void failureTest() {
+		assertThrows(IllegalStateException.class, () -> flight.load("a", 0, () -> {
+			throw new IllegalStateException("down");
+		}));
+
+		assertEquals("up", flight.load("a", 0, () -> "up"));
+	}
+
+	/**
+	 * Test to verify loads run and collapsed are published.
+	 * @throws Exception
+	 */
+	@Test
+	public void metricsTest() throws Exception {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		flight.bindTo(registry, "test");
+		List<Future<Object>> results = callers("a", 0);
+		awaitCollapsed(CALLERS - 1);
+		release.countDown();
+		for (Future<Object> result : results) {
+			result.get(5, TimeUnit.SECONDS);
+		}
+
+		assertEquals(1, registry.get("singleflight.loads").tag("name", "test").functionCounter().count());
+		assertEquals(CALLERS - 1, registry.get("singleflight.collapsed").tag("name", "test").functionCounter().count());
+		assertEquals(0, registry.get("singleflight.in-flight").tag("name", "test").gauge().value());
+	}
+}
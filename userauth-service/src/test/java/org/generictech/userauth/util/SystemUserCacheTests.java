@@ -0,0 +1,126 @@
+package org.generictech.userauth.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Optional;
+
+import org.generictech.userauth.model.SystemUser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Test class for the SystemUserCache
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class SystemUserCacheTests {
+
+	private SimpleMeterRegistry registry;
+	private SystemUserCache cache;
+	private SystemUser user;
+
+	@BeforeEach
+	public void setUp() {
+		registry = new SimpleMeterRegistry();
+		cache = new SystemUserCache(true, 300, 100, registry);
+		user = new SystemUser(1, "Test", "Tester", "test@test.com", "TTester");
+	}
+
+	/**
+	 * Test to verify a cached user is found by id, username and email, as a copy of the user put.
+	 */
+	@Test
+	public void getTest() {
+		cache.put(user, cache.stamp());
+
+		assertNotSame(user, cache.getById(1));
+		assertEquals("test@test.com", cache.getById(1).getEmail());
+		assertEquals(1, cache.getByUsername("TTester").getId());
+		assertEquals(1, cache.getByEmail("test@test.com").getId());
+		assertNull(cache.getById(2));
+		assertNull(cache.getByUsername("Test"));
+	}
+
+	/**
+	 * Test to verify an invalidated user is gone from every index, and an index left pointing at a user whose email
+	 * has since changed does not return that user.
+	 */
+	@Test
+	public void invalidateTest() {
+		cache.put(user, cache.stamp());
+		cache.invalidate(1);
+
+		assertNull(cache.getById(1));
+		assertNull(cache.getByUsername("TTester"));
+		assertNull(cache.getByEmail("test@test.com"));
+
+		cache.put(new SystemUser(1, "Test", "Tester", "test@change.com", "TTester"), cache.stamp());
+
+		assertNull(cache.getByEmail("test@test.com"));
+		assertEquals(1, cache.getByEmail("test@change.com").getId());
+	}
+
+	/**
+	 * Test to verify a user read before an invalidation is not put back.
+	 */
+	@Test
+	public void stalePutTest() {
+		long stamp = cache.stamp();
+		cache.invalidate(1);
+		cache.put(user, stamp);
+
+		assertNull(cache.getById(1));
+	}
+
+	/**
+	 * Test to verify a user loaded through the cache is cached, unless it was invalidated while the query ran, and a
+	 * user not found is not cached.
+	 */
+	@Test
+	public void loadTest() {
+		assertEquals(user, cache.loadByUsername("TTester", () -> Optional.of(user)).get());
+		assertEquals(1, cache.getByUsername("TTester").getId());
+
+		SystemUser racing = new SystemUser(2, "Test", "Tester", "test2@test.com", "TTester2");
+		cache.loadById(2, () -> {
+			cache.invalidate(2);
+			return Optional.of(racing);
+		});
+		assertNull(cache.getById(2));
+
+		assertFalse(cache.loadByEmail("none@test.com", Optional::empty).isPresent());
+		assertNull(cache.getByEmail("none@test.com"));
+	}
+
+	/**
+	 * Test to verify hits and misses are published for the hit ratio.
+	 */
+	@Test
+	public void metricsTest() {
+		cache.put(user, cache.stamp());
+		cache.getById(1);
+		cache.getById(2);
+
+		assertEquals(1, registry.get("cache.gets").tag("cache", "system-users").tag("result", "hit")
+				.functionCounter().count());
+		assertEquals(1, registry.get("cache.gets").tag("cache", "system-users").tag("result", "miss")
+				.functionCounter().count());
+	}
+
+	/**
+	 * Test to verify nothing is cached while the cache is disabled.
+	 */
+	@Test
+	public void disabledTest() {
+		cache = new SystemUserCache(false, 300, 100, new SimpleMeterRegistry());
+		cache.put(user, cache.stamp());
+
+		assertNull(cache.getById(1));
+		assertNull(cache.getByUsername("TTester"));
+	}
+}
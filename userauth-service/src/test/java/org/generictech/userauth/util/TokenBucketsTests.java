@@ -0,0 +1,100 @@
+package org.generictech.userauth.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the TokenBuckets rate limiting primitive, driven by a hand advanced clock.
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class TokenBucketsTests {
+
+	private AtomicLong clock;
+	
+	@BeforeEach
+	public void setUp() {
+		clock = new AtomicLong(1_000_000_000L);
+	}
+	
+	/**
+	 * Test to verify a full bucket allows a burst of its capacity and then rejects with the time until refill.
+	 */
+	@Test
+	public void burstThenRejectTest() {
+		TokenBuckets buckets = new TokenBuckets(3, 1, 10, clock::get);
+		for (int i = 0; i < 3; i++) {
+			assertEquals(0, buckets.tryAcquire("user"));
+		}
+		long wait = buckets.tryAcquire("user");
+		assertEquals(TimeUnit.SECONDS.toNanos(1), wait);
+		
+		clock.addAndGet(wait);
+		assertEquals(0, buckets.tryAcquire("user"));
+		assertTrue(buckets.tryAcquire("user") > 0);
+	}
+	
+	/**
+	 * Test to verify buckets for different keys are independent.
+	 */
+	@Test
+	public void keysAreIndependentTest() {
+		TokenBuckets buckets = new TokenBuckets(1, 1, 10, clock::get);
+		assertEquals(0, buckets.tryAcquire("a"));
+		assertTrue(buckets.tryAcquire("a") > 0);
+		assertEquals(0, buckets.tryAcquire("b"));
+	}
+	
+	/**
+	 * Test to verify refilled buckets are evicted to make room once the size limit is reached.
+	 */
+	@Test
+	public void boundedSizeTest() {
+		TokenBuckets buckets = new TokenBuckets(2, 1, 2, clock::get);
+		assertEquals(0, buckets.tryAcquire("a"));
+		assertEquals(0, buckets.tryAcquire("b"));
+		
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+		assertEquals(0, buckets.tryAcquire("c"));
+		assertEquals(1, buckets.size());
+	}
+	
+	/**
+	 * Test to verify a new key is let in while every tracked bucket is still in use, by dropping the bucket closest to
+	 * full rather than the one of a client being limited.
+	 */
+	@Test
+	public void evictClosestToFullTest() {
+		TokenBuckets buckets = new TokenBuckets(2, 1, 2, clock::get);
+		assertEquals(0, buckets.tryAcquire("a"));
+		assertEquals(0, buckets.tryAcquire("b"));
+		assertEquals(0, buckets.tryAcquire("b"));
+		
+		assertEquals(0, buckets.tryAcquire("c"));
+		
+		assertEquals(2, buckets.size());
+		assertTrue(buckets.tryAcquire("b") > 0);
+	}
+	
+	/**
+	 * Test to verify idle buckets are swept periodically without the size limit being reached.
+	 */
+	@Test
+	public void idleSweepTest() {
+		TokenBuckets buckets = new TokenBuckets(5, 1, 100, clock::get);
+		for (int i = 0; i < 10; i++) {
+			buckets.tryAcquire("user" + i);
+		}
+		assertEquals(10, buckets.size());
+		
+		clock.addAndGet(TimeUnit.MINUTES.toNanos(1));
+		buckets.tryAcquire("other");
+		assertEquals(1, buckets.size());
+	}
+}
@@ -0,0 +1,31 @@
+package org.generictech.userauth.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the TokenGenerator
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class TokenGeneratorTests {
+
+	/**
+	 * Test to verify tokens have the requested length and do not repeat.
+	 */
+	@Test
+	public void uniqueTokensTest() {
+		Set<ByteBuffer> tokens = new HashSet<>();
+		for (int i = 0; i < 10_000; i++) {
+			tokens.add(ByteBuffer.wrap(TokenGenerator.nextToken(16)));
+		}
+
+		assertEquals(10_000, tokens.size());
+		assertEquals(32, TokenGenerator.nextToken(32).length);
+	}
+}
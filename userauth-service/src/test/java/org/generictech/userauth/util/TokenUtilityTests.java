@@ -0,0 +1,190 @@
+package org.generictech.userauth.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Base64;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import org.generictech.userauth.repo.OpaqueTokenRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
+
+/**
+ * Test class for the TokenUtility
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class TokenUtilityTests {
+
+	private static final String SECRET_A = Base64.getEncoder().encodeToString("secret-a".getBytes(StandardCharsets.UTF_8));
+	private static final String SECRET_B = Base64.getEncoder().encodeToString("secret-b".getBytes(StandardCharsets.UTF_8));
+	
+	@TempDir
+	Path dir;
+	
+	private TokenUtility tokenUtility;
+	
+	@BeforeEach
+	public void setUp() {
+		tokenUtility = withKeys("default:" + SECRET_A);
+	}
+	
+	private TokenUtility withKeys(String secrets) {
+		SigningKeyManager manager = new SigningKeyManager(secrets, "", 0);
+		manager.init();
+		TokenUtility utility = new TokenUtility();
+		ReflectionTestUtils.setField(utility, "keyManager", manager);
+		return utility;
+	}
+	
+	/**
+	 * Test to verify a token round trips and names its signing key.
+	 */
+	@Test
+	public void createAndDecodeTest() {
+		String token = tokenUtility.createJWT("1", "org.generictech.Expenser", "TTester", 60000);
+		Claims claims = tokenUtility.decodeJWT(token);
+		
+		assertEquals("1", claims.getId());
+		assertEquals("TTester", claims.getSubject());
+		assertEquals("default", Jwts.parser().setSigningKey(SECRET_A).parseClaimsJws(token).getHeader().getKeyId());
+	}
+	
+	/**
+	 * Test to verify tokens signed before a rotation still verify afterwards, and new tokens use the new key.
+	 */
+	@Test
+	public void rotationTest() {
+		String before = tokenUtility.createJWT("1", "org.generictech.Expenser", "TTester", 60000);
+		TokenUtility rotated = withKeys("b:" + SECRET_B + ",default:" + SECRET_A);
+		String after = rotated.createJWT("1", "org.generictech.Expenser", "TTester", 60000);
+		
+		assertEquals("TTester", rotated.decodeJWT(before).getSubject());
+		assertEquals("b", Jwts.parser().setSigningKey(SECRET_B).parseClaimsJws(after).getHeader().getKeyId());
+		assertThrows(SignatureException.class, () -> tokenUtility.decodeJWT(after));
+	}
+	
+	/**
+	 * Test to verify user tokens get a unique jti, carry the user id, and are never issued before the given second.
+	 */
+	@Test
+	public void userTokenTest() {
+		long notBefore = System.currentTimeMillis() / 1000 + 1;
+		String first = tokenUtility.createUserJWT(7, "org.generictech.Expenser", "TTester", 60000, notBefore, claims -> { });
+		String second = tokenUtility.createUserJWT(7, "org.generictech.Expenser", "TTester", 60000, 0, claims -> { });
+		Claims firstClaims = tokenUtility.decodeJWT(first);
+		Claims secondClaims = tokenUtility.decodeJWT(second);
+		
+		assertEquals(7, TokenUtility.userId(firstClaims));
+		assertNotEquals(firstClaims.getId(), secondClaims.getId());
+		assertEquals(notBefore, firstClaims.getIssuedAt().getTime() / 1000);
+		assertEquals(1, TokenUtility.userId(tokenUtility.decodeJWT(
+				tokenUtility.createJWT("1", "org.generictech.Expenser", "TTester", 60000))));
+	}
+	
+	/**
+	 * Test to verify tokens issued before kid headers existed are verified with the default key.
+	 */
+	@Test
+	public void legacyTokenTest() {
+		String legacy = Jwts.builder().setId("1").setSubject("TTester")
+				.signWith(SignatureAlgorithm.HS512, new SecretKeySpec(Base64.getDecoder().decode(SECRET_A), "HmacSHA512"))
+				.compact();
+		
+		assertEquals("TTester", tokenUtility.decodeJWT(legacy).getSubject());
+	}
+	
+	/**
+	 * Test to verify a token presented again is answered from the cache until it is evicted.
+	 */
+	@Test
+	public void verifiedCacheTest() {
+		String token = tokenUtility.createJWT("1", "org.generictech.Expenser", "TTester", 60000);
+		Claims first = tokenUtility.decodeJWT(token);
+		
+		assertSame(first, tokenUtility.decodeJWT(token));
+		tokenUtility.evict(token);
+		assertNotSame(first, tokenUtility.decodeJWT(token));
+	}
+	
+	/**
+	 * Test to verify a cached token stops verifying as soon as its key is rotated out.
+	 * @throws IOException
+	 */
+	@Test
+	public void cachedTokenKeyRemovedTest() throws IOException {
+		Path file = dir.resolve("keys.properties");
+		Files.write(file, Arrays.asList("signing-kid=a", "key.a=" + SECRET_A, "key.b=" + SECRET_B));
+		SigningKeyManager manager = new SigningKeyManager("", file.toString(), 0);
+		manager.init();
+		ReflectionTestUtils.setField(tokenUtility, "keyManager", manager);
+		String token = tokenUtility.createJWT("1", "org.generictech.Expenser", "TTester", 60000);
+		tokenUtility.decodeJWT(token);
+		
+		Files.write(file, Arrays.asList("signing-kid=b", "key.b=" + SECRET_B));
+		manager.reload();
+		assertThrows(SignatureException.class, () -> tokenUtility.decodeJWT(token));
+	}
+	
+	/**
+	 * Test to verify a cached token is not served past its expiry.
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void cachedTokenExpiryTest() throws InterruptedException {
+		String token = tokenUtility.createJWT("1", "org.generictech.Expenser", "TTester", 1500);
+		tokenUtility.decodeJWT(token);
+		
+		Thread.sleep(1600);
+		assertThrows(ExpiredJwtException.class, () -> tokenUtility.decodeJWT(token));
+	}
+	
+	/**
+	 * Test to verify opaque tokens are resolved by the opaque token store rather than parsed.
+	 */
+	@Test
+	public void opaqueTokenTest() {
+		OpaqueTokenStore store = new OpaqueTokenStore(mock(OpaqueTokenRepo.class), true, 0, 0, System::currentTimeMillis);
+		ReflectionTestUtils.setField(tokenUtility, "opaqueTokens", store);
+		String handle = store.issue(7, "TTester", 60000, 0, null, -1);
+		
+		assertEquals("TTester", tokenUtility.decodeJWT(handle).getSubject());
+		assertEquals(7, TokenUtility.userId(tokenUtility.decodeJWT(handle)));
+		assertEquals("TTester", tokenUtility.decodeJWT(tokenUtility.createJWT("1", "org.generictech.Expenser", "TTester"
+				, 60000)).getSubject());
+	}
+	
+	/**
+	 * Test to verify a handle shaped token is not looked up while opaque tokens are disabled.
+	 */
+	@Test
+	public void opaqueTokenDisabledTest() {
+		OpaqueTokenRepo repo = mock(OpaqueTokenRepo.class);
+		ReflectionTestUtils.setField(tokenUtility, "opaqueTokens", new OpaqueTokenStore(repo, false, 60, 0
+				, System::currentTimeMillis));
+		
+		assertThrows(JwtException.class, () -> tokenUtility.decodeJWT("A123456789012345678901234567890123456789012"));
+		verifyNoInteractions(repo);
+	}
+}
@@ -0,0 +1,84 @@
+package org.generictech.userauth.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the UserVersions
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class UserVersionsTests {
+
+	private AtomicLong now;
+	private UserVersions versions;
+	
+	@BeforeEach
+	public void setUp() {
+		now = new AtomicLong(1_000_000);
+		versions = new UserVersions(60, now::get);
+	}
+	
+	/**
+	 * Test to verify tokens issued before a change are no longer current, and tokens issued after are.
+	 */
+	@Test
+	public void bumpTest() {
+		long issued = versions.current(1);
+		assertEquals(0, issued);
+		assertTrue(versions.isCurrent(1, issued));
+		
+		versions.bump(1);
+		
+		assertFalse(versions.isCurrent(1, issued));
+		assertTrue(versions.isCurrent(1, versions.current(1)));
+		assertTrue(versions.isCurrent(2, 0));
+	}
+	
+	/**
+	 * Test to verify two changes in the same millisecond still produce distinct versions.
+	 */
+	@Test
+	public void monotonicTest() {
+		long first = versions.bump(1);
+		long second = versions.bump(1);
+		
+		assertTrue(second > first);
+		assertFalse(versions.isCurrent(1, first));
+	}
+	
+	/**
+	 * Test to verify a version from another instance is taken only if it is newer than the one known here.
+	 */
+	@Test
+	public void observeTest() {
+		long local = versions.bump(1);
+		versions.observe(1, local - 5);
+		assertEquals(local, versions.current(1));
+		
+		versions.observe(1, local + 5);
+		assertEquals(local + 5, versions.current(1));
+		assertFalse(versions.isCurrent(1, local));
+	}
+	
+	/**
+	 * Test to verify entries older than the retention are pruned once the map grows.
+	 */
+	@Test
+	public void pruneTest() {
+		for (int i = 0; i < 10000; i++) {
+			versions.bump(i);
+		}
+		now.addAndGet(61_000);
+		versions.bump(-1);
+		
+		assertEquals(1, versions.size());
+		assertEquals(0, versions.current(5));
+	}
+}
@@ -0,0 +1,63 @@
+package org.generictech.userauth.util;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Test class for the VerifiedCredentialCache
+ * @author Jaden Wilson
+ * @since 1.1
+ */
+public class VerifiedCredentialCacheTests {
+
+	private VerifiedCredentialCache cache;
+	private PasswordHash stored;
+	
+	@BeforeEach
+	public void setUp() {
+		cache = new VerifiedCredentialCache(true, 300, 100, new SimpleMeterRegistry());
+		stored = new PasswordHash(PasswordHash.PBKDF2_SHA1, PasswordHash.CURRENT_VERSION, 131072, new byte[16], new byte[32]);
+	}
+	
+	/**
+	 * Test to verify a remembered password matches only for the same user, stored hash and password.
+	 */
+	@Test
+	public void matchesTest() {
+		cache.remember(1, stored, "password");
+		
+		assertTrue(cache.matches(1, stored, "password"));
+		assertFalse(cache.matches(1, stored, "Password"));
+		assertFalse(cache.matches(2, stored, "password"));
+		PasswordHash changed = new PasswordHash(PasswordHash.PBKDF2_SHA1, PasswordHash.CURRENT_VERSION, 131072
+				, new byte[16], new byte[] {1});
+		assertFalse(cache.matches(1, changed, "password"));
+	}
+	
+	/**
+	 * Test to verify invalidation drops the entry straight away.
+	 */
+	@Test
+	public void invalidateTest() {
+		cache.remember(1, stored, "password");
+		cache.invalidate(1);
+		
+		assertFalse(cache.matches(1, stored, "password"));
+	}
+	
+	/**
+	 * Test to verify nothing is remembered while the cache is disabled.
+	 */
+	@Test
+	public void disabledTest() {
+		cache = new VerifiedCredentialCache(false, 300, 100, new SimpleMeterRegistry());
+		cache.remember(1, stored, "password");
+		
+		assertFalse(cache.matches(1, stored, "password"));
+	}
+}